@@ -69,3 +69,19 @@ CREATE TABLE "certificates" (
     "data"             BYTEA,
     "expires"          TIMESTAMPTZ
 );
+
+-- The indexes are also added to existing databases when the ACME responder starts.
+
+CREATE INDEX IF NOT EXISTS "nonces_expires_idx" ON "nonces" ("expires");
+
+CREATE INDEX IF NOT EXISTS "orders_expires_idx" ON "orders" ("expires");
+
+CREATE INDEX IF NOT EXISTS "order_identifiers_order_id_idx" ON "order_identifiers" ("order_id");
+
+CREATE INDEX IF NOT EXISTS "order_authorizations_order_id_idx" ON "order_authorizations" ("order_id");
+
+CREATE INDEX IF NOT EXISTS "authorizations_expires_idx" ON "authorizations" ("expires");
+
+CREATE INDEX IF NOT EXISTS "authorization_challenges_authz_id_idx" ON "authorization_challenges" ("authz_id");
+
+CREATE INDEX IF NOT EXISTS "certificates_expires_idx" ON "certificates" ("expires");
@@ -5,8 +5,11 @@
 //
 package org.dogtagpki.acme.database;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.NotImplementedException;
 import org.dogtagpki.acme.ACMEAccount;
@@ -21,8 +24,27 @@ import org.dogtagpki.acme.ACMEOrder;
  */
 public abstract class ACMEDatabase {
 
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ACMEDatabase.class);
+
+    public static final int DEFAULT_PURGE_BATCH_SIZE = 1000;
+
+    /**
+     * This interface removes a batch of expired records.
+     */
+    public interface PurgeBatch {
+
+        /**
+         * Removes up to batchSize records that expired at or before the
+         * specified time and returns the expiration times of the removed
+         * records.
+         */
+        Collection<Date> remove(Date currentTime, int batchSize) throws Exception;
+    }
+
     protected ACMEDatabaseConfig config;
 
+    private Map<String, ACMEPurgeStats> purgeStats = new ConcurrentHashMap<>();
+
     public ACMEDatabaseConfig getConfig() {
         return config;
     }
@@ -37,6 +59,93 @@ public abstract class ACMEDatabase {
     public void close() throws Exception {
     }
 
+    private int getIntParameter(String name, int defaultValue) {
+        String value = config == null ? null : config.getParameter(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Returns the maximum number of expired records removed at once.
+     */
+    public int getPurgeBatchSize() {
+        return getIntParameter("purge.batchSize", DEFAULT_PURGE_BATCH_SIZE);
+    }
+
+    /**
+     * Returns the delay between purge batches in milliseconds.
+     */
+    public int getPurgeBatchDelay() {
+        return getIntParameter("purge.batchDelay", 0);
+    }
+
+    /**
+     * Returns the maximum number of purge batches per record type
+     * in a single maintenance run (0 = unlimited).
+     */
+    public int getPurgeMaxBatches() {
+        return getIntParameter("purge.maxBatches", 0);
+    }
+
+    public Collection<ACMEPurgeStats> getPurgeStats() {
+        return new ArrayList<>(purgeStats.values());
+    }
+
+    /**
+     * Removes expired records in batches. The batches are separated by
+     * the configured delay so the purge does not starve live traffic,
+     * and the purge stops after the configured number of batches. The
+     * remaining records will be removed in the next maintenance run.
+     */
+    protected void purge(String type, Date currentTime, PurgeBatch batch) throws Exception {
+
+        int batchSize = getPurgeBatchSize();
+        int batchDelay = getPurgeBatchDelay();
+        int maxBatches = getPurgeMaxBatches();
+
+        long start = System.currentTimeMillis();
+        long oldest = currentTime.getTime();
+        long removed = 0;
+        int batches = 0;
+        boolean complete = false;
+
+        while (true) {
+
+            Collection<Date> expirationTimes = batch.remove(currentTime, batchSize);
+            batches++;
+
+            for (Date expirationTime : expirationTimes) {
+                if (expirationTime != null && expirationTime.getTime() < oldest) {
+                    oldest = expirationTime.getTime();
+                }
+            }
+
+            removed += expirationTimes.size();
+
+            if (expirationTimes.isEmpty() || expirationTimes.size() < batchSize) {
+                complete = true;
+                break;
+            }
+
+            if (maxBatches > 0 && batches >= maxBatches) {
+                break;
+            }
+
+            if (batchDelay > 0) {
+                Thread.sleep(batchDelay);
+            }
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        long lag = currentTime.getTime() - oldest;
+
+        ACMEPurgeStats stats = purgeStats.computeIfAbsent(type, ACMEPurgeStats::new);
+        stats.update(start, duration, removed, lag, complete);
+
+        logger.info("ACMEDatabase: Removed " + removed + " expired " + type + "(s) in " +
+                batches + " batch(es) in " + duration + " ms, lag: " + lag + " ms" +
+                (complete ? "" : ", more records remaining"));
+    }
+
     public Boolean getEnabled() throws Exception {
         return null;
     }
@@ -0,0 +1,96 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package org.dogtagpki.acme.database;
+
+/**
+ * This class keeps the statistics of expired record purges
+ * for a record type.
+ */
+public class ACMEPurgeStats {
+
+    String type;
+
+    long runs;
+    long lastRunTime;
+    long lastDuration;
+    long lastRemoved;
+    long lastLag;
+    boolean lastComplete = true;
+
+    long totalRemoved;
+
+    public ACMEPurgeStats(String type) {
+        this.type = type;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public synchronized long getRuns() {
+        return runs;
+    }
+
+    public synchronized long getLastRunTime() {
+        return lastRunTime;
+    }
+
+    /**
+     * Returns the duration of the last purge in milliseconds.
+     */
+    public synchronized long getLastDuration() {
+        return lastDuration;
+    }
+
+    public synchronized long getLastRemoved() {
+        return lastRemoved;
+    }
+
+    /**
+     * Returns how long the oldest record removed in the last purge
+     * had been expired in milliseconds.
+     */
+    public synchronized long getLastLag() {
+        return lastLag;
+    }
+
+    /**
+     * Returns false if the last purge stopped before removing
+     * all expired records.
+     */
+    public synchronized boolean isLastComplete() {
+        return lastComplete;
+    }
+
+    public synchronized long getTotalRemoved() {
+        return totalRemoved;
+    }
+
+    public synchronized void update(long runTime, long duration, long removed, long lag, boolean complete) {
+
+        runs++;
+
+        lastRunTime = runTime;
+        lastDuration = duration;
+        lastRemoved = removed;
+        lastLag = lag;
+        lastComplete = complete;
+
+        totalRemoved += removed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ACMEPurgeStats[type=" + type +
+                ", runs=" + runs +
+                ", removed=" + lastRemoved +
+                ", duration=" + lastDuration + "ms" +
+                ", lag=" + lastLag + "ms" +
+                ", complete=" + lastComplete +
+                ", totalRemoved=" + totalRemoved +
+                "]";
+    }
+}
@@ -0,0 +1,393 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package org.dogtagpki.acme.database;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.Map;
+
+import org.dogtagpki.acme.ACMEAccount;
+import org.dogtagpki.acme.ACMEAuthorization;
+import org.dogtagpki.acme.ACMECertificate;
+import org.dogtagpki.acme.ACMEChallenge;
+import org.dogtagpki.acme.ACMEOrder;
+import org.dogtagpki.acme.JWK;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * This class implements an embedded ACME database for single-node
+ * deployments. The records are kept in the indexed in-memory database,
+ * and every change is appended to a journal file. The journal is
+ * periodically compacted into a snapshot file which together with the
+ * remaining journal entries is replayed on startup. Nonces are not
+ * persisted since they are only valid for a short time.
+ */
+public class FileDatabase extends InMemoryDatabase {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(FileDatabase.class);
+
+    public static final String DEFAULT_DIRECTORY = "/var/lib/pki/pki-tomcat/conf/acme/data";
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 10000;
+
+    public static final String SNAPSHOT_FILE = "snapshot.json";
+    public static final String JOURNAL_FILE = "journal.json";
+
+    // The ID, account ID and timestamps are hidden from ACME clients,
+    // but they need to be stored in the database.
+
+    abstract static class AccountMixIn {
+        @JsonIgnore(false) String id;
+        @JsonIgnore(false) Date creationTime;
+        @JsonIgnore(false) JWK jwk;
+    }
+
+    abstract static class OrderMixIn {
+        @JsonIgnore(false) String id;
+        @JsonIgnore(false) String accountID;
+        @JsonIgnore(false) Date creationTime;
+        @JsonIgnore(false) Date expirationTime;
+        @JsonIgnore(false) Date notBeforeTime;
+        @JsonIgnore(false) Date notAfterTime;
+        @JsonIgnore(false) String[] authzIDs;
+        @JsonIgnore(false) String certID;
+    }
+
+    abstract static class AuthorizationMixIn {
+        @JsonIgnore(false) String id;
+        @JsonIgnore(false) String accountID;
+        @JsonIgnore(false) Date creationTime;
+        @JsonIgnore(false) Date expirationTime;
+    }
+
+    abstract static class ChallengeMixIn {
+        @JsonIgnore(false) String id;
+        @JsonIgnore(false) String authzID;
+        @JsonIgnore(false) Date validationTime;
+    }
+
+    abstract static class CertificateMixIn {
+        @JsonIgnore(false) String id;
+        @JsonIgnore(false) Date creationTime;
+        @JsonIgnore(false) Date expirationTime;
+    }
+
+    private ObjectMapper mapper = new ObjectMapper()
+            .addMixIn(ACMEAccount.class, AccountMixIn.class)
+            .addMixIn(ACMEOrder.class, OrderMixIn.class)
+            .addMixIn(ACMEAuthorization.class, AuthorizationMixIn.class)
+            .addMixIn(ACMEChallenge.class, ChallengeMixIn.class)
+            .addMixIn(ACMECertificate.class, CertificateMixIn.class);
+
+    private File directory;
+    private int snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+    private boolean sync;
+
+    private FileOutputStream journalStream;
+    private Writer journal;
+    private int journalSize;
+
+    @Override
+    public void init() throws Exception {
+
+        logger.info("Initializing file database");
+
+        String path = config.getParameter("directory");
+        if (path == null) {
+            path = DEFAULT_DIRECTORY;
+        }
+        logger.info("- directory: " + path);
+
+        String interval = config.getParameter("snapshotInterval");
+        if (interval != null) {
+            snapshotInterval = Integer.parseInt(interval);
+        }
+        logger.info("- snapshot interval: " + snapshotInterval);
+
+        sync = Boolean.parseBoolean(config.getParameter("sync"));
+        logger.info("- sync: " + sync);
+
+        directory = new File(path);
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+
+        long start = System.currentTimeMillis();
+
+        int records = load(new File(directory, SNAPSHOT_FILE));
+        int entries = load(new File(directory, JOURNAL_FILE));
+
+        logger.info("FileDatabase: Loaded " + records + " record(s) and " + entries +
+                " journal entries in " + (System.currentTimeMillis() - start) + " ms");
+
+        // start with a compacted snapshot and an empty journal
+        snapshot();
+    }
+
+    private int load(File file) throws Exception {
+
+        if (!file.exists()) return 0;
+
+        logger.info("FileDatabase: Loading " + file);
+
+        int count = 0;
+        int lineNumber = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+
+                lineNumber++;
+                if (line.isEmpty()) continue;
+
+                JsonNode entry;
+                try {
+                    entry = mapper.readTree(line);
+
+                } catch (IOException e) {
+                    // the last entry might be incomplete if the server was not stopped properly
+                    logger.warn("FileDatabase: Ignoring invalid entry in " + file + " line " + lineNumber + ": " + e.getMessage());
+                    continue;
+                }
+
+                apply(entry);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private void apply(JsonNode entry) throws Exception {
+
+        String op = entry.get("op").asText();
+        String type = entry.get("type").asText();
+        String id = entry.get("id").asText();
+        JsonNode data = entry.get("data");
+
+        if ("remove".equals(op)) {
+            switch (type) {
+            case "account":
+                accounts.remove(id);
+                break;
+            case "order":
+                super.removeOrder(id);
+                break;
+            case "authorization":
+                super.removeAuthorization(id);
+                break;
+            case "certificate":
+                super.removeCertificate(id);
+                break;
+            default:
+                logger.warn("FileDatabase: Unknown record type: " + type);
+            }
+            return;
+        }
+
+        switch (type) {
+        case "account":
+            accounts.put(id, mapper.treeToValue(data, ACMEAccount.class));
+            break;
+        case "order":
+            putOrder(mapper.treeToValue(data, ACMEOrder.class));
+            break;
+        case "authorization":
+            putAuthorization(mapper.treeToValue(data, ACMEAuthorization.class));
+            break;
+        case "certificate":
+            super.addCertificate(id, mapper.treeToValue(data, ACMECertificate.class));
+            break;
+        default:
+            logger.warn("FileDatabase: Unknown record type: " + type);
+        }
+    }
+
+    private String createEntry(String op, String type, String id, Object record) {
+
+        ObjectNode entry = mapper.createObjectNode();
+        entry.put("op", op);
+        entry.put("type", type);
+        entry.put("id", id);
+
+        if (record != null) {
+            entry.set("data", mapper.valueToTree(record));
+        }
+
+        return entry.toString();
+    }
+
+    private synchronized void append(String op, String type, String id, Object record) throws Exception {
+
+        journal.write(createEntry(op, type, id, record));
+        journal.write('\n');
+        journal.flush();
+
+        if (sync) {
+            journalStream.getFD().sync();
+        }
+
+        journalSize++;
+
+        if (snapshotInterval > 0 && journalSize >= snapshotInterval) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Writes all records into a new snapshot file and truncates the journal.
+     */
+    public synchronized void snapshot() throws Exception {
+
+        long start = System.currentTimeMillis();
+
+        File snapshotFile = new File(directory, SNAPSHOT_FILE);
+        File tmpFile = new File(directory, SNAPSHOT_FILE + ".tmp");
+
+        int count = 0;
+
+        try (FileOutputStream out = new FileOutputStream(tmpFile);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+
+            count += write(writer, "account", accounts);
+            count += write(writer, "order", orders);
+            count += write(writer, "authorization", authorizations);
+            count += write(writer, "certificate", certificates);
+
+            writer.flush();
+            out.getFD().sync();
+        }
+
+        Files.move(tmpFile.toPath(), snapshotFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // the snapshot contains all changes, start a new journal
+        closeJournal();
+
+        journalStream = new FileOutputStream(new File(directory, JOURNAL_FILE));
+        journal = new BufferedWriter(new OutputStreamWriter(journalStream, StandardCharsets.UTF_8));
+        journalSize = 0;
+
+        logger.info("FileDatabase: Stored " + count + " record(s) in " + snapshotFile +
+                " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private int write(Writer writer, String type, Map<String, ?> records) throws IOException {
+
+        int count = 0;
+
+        for (Map.Entry<String, ?> record : records.entrySet()) {
+            writer.write(createEntry("add", type, record.getKey(), record.getValue()));
+            writer.write('\n');
+            count++;
+        }
+
+        return count;
+    }
+
+    private void closeJournal() throws IOException {
+
+        if (journal == null) return;
+
+        journal.close();
+        journal = null;
+        journalStream = null;
+    }
+
+    @Override
+    public synchronized void addAccount(ACMEAccount account) throws Exception {
+        super.addAccount(account);
+        append("add", "account", account.getID(), account);
+    }
+
+    @Override
+    public synchronized void updateAccount(ACMEAccount account) throws Exception {
+        super.updateAccount(account);
+        append("add", "account", account.getID(), account);
+    }
+
+    @Override
+    public synchronized void addOrder(ACMEOrder order) throws Exception {
+        super.addOrder(order);
+        append("add", "order", order.getID(), order);
+    }
+
+    @Override
+    public synchronized void updateOrder(ACMEOrder order) throws Exception {
+        super.updateOrder(order);
+        append("add", "order", order.getID(), order);
+    }
+
+    @Override
+    protected synchronized ACMEOrder removeOrder(String orderID) throws Exception {
+        ACMEOrder order = super.removeOrder(orderID);
+        if (order != null) {
+            append("remove", "order", orderID, null);
+        }
+        return order;
+    }
+
+    @Override
+    public synchronized void addAuthorization(ACMEAuthorization authorization) throws Exception {
+        super.addAuthorization(authorization);
+        append("add", "authorization", authorization.getID(), authorization);
+    }
+
+    @Override
+    public synchronized void updateAuthorization(ACMEAuthorization authorization) throws Exception {
+        super.updateAuthorization(authorization);
+        append("add", "authorization", authorization.getID(), authorization);
+    }
+
+    @Override
+    protected synchronized ACMEAuthorization removeAuthorization(String authzID) throws Exception {
+        ACMEAuthorization authorization = super.removeAuthorization(authzID);
+        if (authorization != null) {
+            append("remove", "authorization", authzID, null);
+        }
+        return authorization;
+    }
+
+    @Override
+    public synchronized void addCertificate(String certID, ACMECertificate certificate) throws Exception {
+        super.addCertificate(certID, certificate);
+        append("add", "certificate", certID, certificate);
+    }
+
+    @Override
+    protected synchronized ACMECertificate removeCertificate(String certID) throws Exception {
+        ACMECertificate certificate = super.removeCertificate(certID);
+        if (certificate != null) {
+            append("remove", "certificate", certID, null);
+        }
+        return certificate;
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+
+        if (journal == null) return;
+
+        logger.info("FileDatabase: Closing database");
+
+        snapshot();
+        closeJournal();
+        clear();
+    }
+}
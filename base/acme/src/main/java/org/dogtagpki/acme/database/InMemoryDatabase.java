@@ -6,30 +6,162 @@
 package org.dogtagpki.acme.database;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.dogtagpki.acme.ACMEAccount;
 import org.dogtagpki.acme.ACMEAuthorization;
 import org.dogtagpki.acme.ACMECertificate;
+import org.dogtagpki.acme.ACMEChallenge;
 import org.dogtagpki.acme.ACMEIdentifier;
 import org.dogtagpki.acme.ACMENonce;
 import org.dogtagpki.acme.ACMEOrder;
 
 /**
+ * This class implements an ACME database in memory. The records
+ * are indexed by account, authorization, challenge, certificate,
+ * and expiration time so that lookups and purges do not need to
+ * scan all records.
+ *
  * @author Endi S. Dewata
  */
 public class InMemoryDatabase extends ACMEDatabase {
 
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(InMemoryDatabase.class);
 
-    private Map<String, ACMENonce> nonces = new ConcurrentHashMap<>();
-    private Map<String, ACMEAccount> accounts = new ConcurrentHashMap<>();
-    private Map<String, ACMEOrder> orders = new ConcurrentHashMap<>();
-    private Map<String, ACMEAuthorization> authorizations = new ConcurrentHashMap<>();
-    private Map<String, ACMECertificate> certificates = new ConcurrentHashMap<>();
+    /**
+     * This class maps keys to record IDs. It also keeps the keys
+     * of each record so that the index can be updated after the
+     * record has been modified in place.
+     */
+    static class Index {
+
+        private Map<String, Set<String>> ids = new HashMap<>();
+        private Map<String, Collection<String>> keys = new HashMap<>();
+
+        public synchronized void put(String id, Collection<String> newKeys) {
+
+            remove(id);
+
+            if (newKeys == null || newKeys.isEmpty()) return;
+
+            Collection<String> list = new ArrayList<>();
+            for (String key : newKeys) {
+                if (key == null) continue;
+                ids.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+                list.add(key);
+            }
+
+            if (!list.isEmpty()) {
+                keys.put(id, list);
+            }
+        }
+
+        public void put(String id, String key) {
+            put(id, key == null ? null : Collections.singletonList(key));
+        }
+
+        public synchronized void remove(String id) {
+
+            Collection<String> oldKeys = keys.remove(id);
+            if (oldKeys == null) return;
+
+            for (String key : oldKeys) {
+                Set<String> set = ids.get(key);
+                if (set == null) continue;
+                set.remove(id);
+                if (set.isEmpty()) ids.remove(key);
+            }
+        }
+
+        public synchronized Collection<String> get(String key) {
+            Set<String> set = ids.get(key);
+            return set == null ? Collections.emptyList() : new ArrayList<>(set);
+        }
+
+        public synchronized void clear() {
+            ids.clear();
+            keys.clear();
+        }
+    }
+
+    /**
+     * This class keeps record IDs sorted by expiration time.
+     */
+    static class ExpirationIndex {
+
+        private TreeMap<Long, Set<String>> ids = new TreeMap<>();
+        private Map<String, Long> times = new HashMap<>();
+
+        public synchronized void put(String id, Date expirationTime) {
+
+            remove(id);
+
+            if (expirationTime == null) return;
+
+            long time = expirationTime.getTime();
+            ids.computeIfAbsent(time, k -> new HashSet<>()).add(id);
+            times.put(id, time);
+        }
+
+        public synchronized void remove(String id) {
+
+            Long time = times.remove(id);
+            if (time == null) return;
+
+            Set<String> set = ids.get(time);
+            if (set == null) return;
+
+            set.remove(id);
+            if (set.isEmpty()) ids.remove(time);
+        }
+
+        /**
+         * Returns the IDs of the records that expire at or before the specified time.
+         */
+        public synchronized Collection<String> getExpired(Date currentTime) {
+
+            Collection<String> results = new ArrayList<>();
+
+            for (Set<String> set : ids.headMap(currentTime.getTime(), true).values()) {
+                results.addAll(set);
+            }
+
+            return results;
+        }
+
+        public synchronized void clear() {
+            ids.clear();
+            times.clear();
+        }
+    }
+
+    protected Map<String, ACMENonce> nonces = new ConcurrentHashMap<>();
+    protected Map<String, ACMEAccount> accounts = new ConcurrentHashMap<>();
+    protected Map<String, ACMEOrder> orders = new ConcurrentHashMap<>();
+    protected Map<String, ACMEAuthorization> authorizations = new ConcurrentHashMap<>();
+    protected Map<String, ACMECertificate> certificates = new ConcurrentHashMap<>();
+
+    private ExpirationIndex nonceExpirations = new ExpirationIndex();
+
+    private Index ordersByAccount = new Index();
+    private Index ordersByAuthorization = new Index();
+    private Index ordersByCertificate = new Index();
+    private ExpirationIndex orderExpirations = new ExpirationIndex();
+
+    private Index authorizationsByAccount = new Index();
+    private Index authorizationsByChallenge = new Index();
+    private ExpirationIndex authorizationExpirations = new ExpirationIndex();
+
+    private ExpirationIndex certificateExpirations = new ExpirationIndex();
 
     @Override
     public void init() throws Exception {
@@ -38,17 +170,25 @@ public class InMemoryDatabase extends ACMEDatabase {
 
     @Override
     public void addNonce(ACMENonce nonce) throws Exception {
-        nonces.put(nonce.getID(), nonce);
+        synchronized (nonces) {
+            nonces.put(nonce.getID(), nonce);
+            nonceExpirations.put(nonce.getID(), nonce.getExpirationTime());
+        }
     }
 
     @Override
     public ACMENonce removeNonce(String nonceID) throws Exception {
-        return nonces.remove(nonceID);
+        synchronized (nonces) {
+            nonceExpirations.remove(nonceID);
+            return nonces.remove(nonceID);
+        }
     }
 
     @Override
     public void removeExpiredNonces(Date currentTime) throws Exception {
-        nonces.values().removeIf(n -> !currentTime.before(n.getExpirationTime()));
+        for (String nonceID : nonceExpirations.getExpired(currentTime)) {
+            removeNonce(nonceID);
+        }
     }
 
     @Override
@@ -63,6 +203,7 @@ public class InMemoryDatabase extends ACMEDatabase {
 
     @Override
     public void updateAccount(ACMEAccount account) throws Exception {
+        accounts.put(account.getID(), account);
     }
 
     @Override
@@ -72,16 +213,7 @@ public class InMemoryDatabase extends ACMEDatabase {
 
     @Override
     public Collection<ACMEOrder> getOrdersByAccount(String accountID) throws Exception {
-
-        Collection<ACMEOrder> results = new ArrayList<>();
-
-        for (ACMEOrder order : orders.values()) {
-            if (order.getAccountID().equals(accountID)) {
-                results.add(order);
-            }
-        }
-
-        return results;
+        return getOrders(ordersByAccount.get(accountID));
     }
 
     @Override
@@ -90,15 +222,9 @@ public class InMemoryDatabase extends ACMEDatabase {
 
         Collection<ACMEOrder> results = new ArrayList<>();
 
-        for (ACMEOrder order : orders.values()) {
+        for (ACMEOrder order : getOrders(ordersByAuthorization.get(authzID))) {
             if (!order.getStatus().equals(status)) continue;
-            if (order.getAuthzIDs() == null) continue;
-
-            for (String orderAuthzID : order.getAuthzIDs()) {
-                if (!orderAuthzID.equals(authzID)) continue;
-                results.add(order);
-                break;
-            }
+            results.add(order);
         }
 
         return results;
@@ -106,31 +232,68 @@ public class InMemoryDatabase extends ACMEDatabase {
 
     @Override
     public ACMEOrder getOrderByCertificate(String certID) throws Exception {
-        for (ACMEOrder order : orders.values()) {
-            if (certID.equals(order.getCertID())) {
-                // order found
-                return order;
-            }
+
+        for (ACMEOrder order : getOrders(ordersByCertificate.get(certID))) {
+            // order found
+            return order;
         }
 
         // no order found
         return null;
     }
 
+    private Collection<ACMEOrder> getOrders(Collection<String> orderIDs) {
+
+        Collection<ACMEOrder> results = new ArrayList<>();
+
+        for (String orderID : orderIDs) {
+            ACMEOrder order = orders.get(orderID);
+            if (order == null) continue;
+            results.add(order);
+        }
+
+        return results;
+    }
+
     @Override
     public void addOrder(ACMEOrder order) throws Exception {
-        orders.put(order.getID(), order);
+        putOrder(order);
     }
 
     @Override
     public void updateOrder(ACMEOrder order) throws Exception {
-        orders.put(order.getID(), order);
+        putOrder(order);
+    }
+
+    protected void putOrder(ACMEOrder order) {
+
+        String orderID = order.getID();
+        String[] authzIDs = order.getAuthzIDs();
+
+        synchronized (orders) {
+            orders.put(orderID, order);
+            ordersByAccount.put(orderID, order.getAccountID());
+            ordersByAuthorization.put(orderID, authzIDs == null ? null : Arrays.asList(authzIDs));
+            ordersByCertificate.put(orderID, order.getCertID());
+            orderExpirations.put(orderID, order.getExpirationTime());
+        }
+    }
+
+    protected ACMEOrder removeOrder(String orderID) throws Exception {
+        synchronized (orders) {
+            ordersByAccount.remove(orderID);
+            ordersByAuthorization.remove(orderID);
+            ordersByCertificate.remove(orderID);
+            orderExpirations.remove(orderID);
+            return orders.remove(orderID);
+        }
     }
 
     @Override
     public void removeExpiredOrders(Date currentTime) throws Exception {
-        orders.values().removeIf(
-                n -> n.getExpirationTime() != null && !currentTime.before(n.getExpirationTime()));
+        for (String orderID : orderExpirations.getExpired(currentTime)) {
+            removeOrder(orderID);
+        }
     }
 
     @Override
@@ -140,26 +303,33 @@ public class InMemoryDatabase extends ACMEDatabase {
 
     @Override
     public ACMEAuthorization getAuthorizationByChallenge(String challengeID) throws Exception {
-        for (ACMEAuthorization authorization : authorizations.values()) {
 
-            if (authorization.getChallenge(challengeID) != null) {
-                return authorization;
-            }
+        for (ACMEAuthorization authorization : getAuthorizations(authorizationsByChallenge.get(challengeID))) {
+            return authorization;
         }
 
         return null;
     }
 
+    private Collection<ACMEAuthorization> getAuthorizations(Collection<String> authzIDs) {
+
+        Collection<ACMEAuthorization> results = new ArrayList<>();
+
+        for (String authzID : authzIDs) {
+            ACMEAuthorization authorization = authorizations.get(authzID);
+            if (authorization == null) continue;
+            results.add(authorization);
+        }
+
+        return results;
+    }
+
     @Override
     public Collection<ACMEAuthorization> getRevocationAuthorizations(String accountID, Date time) throws Exception {
 
         Collection<ACMEAuthorization> results = new ArrayList<>();
 
-        for (ACMEAuthorization authorization : authorizations.values()) {
-
-            if (!authorization.getAccountID().equals(accountID)) {
-                continue;
-            }
+        for (ACMEAuthorization authorization : getAuthorizations(authorizationsByAccount.get(accountID))) {
 
             String status = authorization.getStatus();
             if (!"valid".equals(status)) {
@@ -182,23 +352,7 @@ public class InMemoryDatabase extends ACMEDatabase {
     @Override
     public boolean hasRevocationAuthorization(String accountID, Date time, ACMEIdentifier identifier) throws Exception {
 
-        for (ACMEAuthorization authorization : authorizations.values()) {
-
-            if (!authorization.getAccountID().equals(accountID)) {
-                continue;
-            }
-
-            String status = authorization.getStatus();
-            if (!"valid".equals(status)) {
-                logger.info("Authorization " + authorization.getID() + " is " + status);
-                continue;
-            }
-
-            Date expirationTime = authorization.getExpirationTime();
-            if (expirationTime != null && !expirationTime.after(time)) {
-                logger.info("Authorization " + authorization.getID() + " has expired");
-                continue;
-            }
+        for (ACMEAuthorization authorization : getRevocationAuthorizations(accountID, time)) {
 
             // Compare authorization's identifier against provided identifier
 
@@ -228,18 +382,47 @@ public class InMemoryDatabase extends ACMEDatabase {
 
     @Override
     public void addAuthorization(ACMEAuthorization authorization) throws Exception {
-        authorizations.put(authorization.getID(), authorization);
+        putAuthorization(authorization);
     }
 
     @Override
     public void updateAuthorization(ACMEAuthorization authorization) throws Exception {
-        authorizations.put(authorization.getID(), authorization);
+        putAuthorization(authorization);
+    }
+
+    protected void putAuthorization(ACMEAuthorization authorization) {
+
+        String authzID = authorization.getID();
+
+        Collection<String> challengeIDs = new ArrayList<>();
+        if (authorization.getChallenges() != null) {
+            for (ACMEChallenge challenge : authorization.getChallenges()) {
+                challengeIDs.add(challenge.getID());
+            }
+        }
+
+        synchronized (authorizations) {
+            authorizations.put(authzID, authorization);
+            authorizationsByAccount.put(authzID, authorization.getAccountID());
+            authorizationsByChallenge.put(authzID, challengeIDs);
+            authorizationExpirations.put(authzID, authorization.getExpirationTime());
+        }
+    }
+
+    protected ACMEAuthorization removeAuthorization(String authzID) throws Exception {
+        synchronized (authorizations) {
+            authorizationsByAccount.remove(authzID);
+            authorizationsByChallenge.remove(authzID);
+            authorizationExpirations.remove(authzID);
+            return authorizations.remove(authzID);
+        }
     }
 
     @Override
     public void removeExpiredAuthorizations(Date currentTime) throws Exception {
-        authorizations.values().removeIf(
-                n -> n.getExpirationTime() != null && !currentTime.before(n.getExpirationTime()));
+        for (String authzID : authorizationExpirations.getExpired(currentTime)) {
+            removeAuthorization(authzID);
+        }
     }
 
     @Override
@@ -249,12 +432,56 @@ public class InMemoryDatabase extends ACMEDatabase {
 
     @Override
     public void addCertificate(String certID, ACMECertificate certificate) throws Exception {
-        certificates.put(certID, certificate);
+        synchronized (certificates) {
+            certificates.put(certID, certificate);
+            certificateExpirations.put(certID, certificate.getExpirationTime());
+        }
+    }
+
+    protected ACMECertificate removeCertificate(String certID) throws Exception {
+        synchronized (certificates) {
+            certificateExpirations.remove(certID);
+            return certificates.remove(certID);
+        }
     }
 
     @Override
     public void removeExpiredCertificates(Date currentTime) throws Exception {
-        certificates.values().removeIf(
-                n -> n.getExpirationTime() != null && !currentTime.before(n.getExpirationTime()));
+        for (String certID : certificateExpirations.getExpired(currentTime)) {
+            removeCertificate(certID);
+        }
+    }
+
+    /**
+     * Removes all records and indexes.
+     */
+    protected void clear() {
+
+        synchronized (nonces) {
+            nonces.clear();
+            nonceExpirations.clear();
+        }
+
+        accounts.clear();
+
+        synchronized (orders) {
+            orders.clear();
+            ordersByAccount.clear();
+            ordersByAuthorization.clear();
+            ordersByCertificate.clear();
+            orderExpirations.clear();
+        }
+
+        synchronized (authorizations) {
+            authorizations.clear();
+            authorizationsByAccount.clear();
+            authorizationsByChallenge.clear();
+            authorizationExpirations.clear();
+        }
+
+        synchronized (certificates) {
+            certificates.clear();
+            certificateExpirations.clear();
+        }
     }
 }
@@ -41,6 +41,7 @@ import netscape.ldap.LDAPEntry;
 import netscape.ldap.LDAPException;
 import netscape.ldap.LDAPModification;
 import netscape.ldap.LDAPModificationSet;
+import netscape.ldap.LDAPSearchConstraints;
 import netscape.ldap.LDAPSearchResults;
 
 /**
@@ -339,15 +340,7 @@ public class LDAPDatabase extends ACMEDatabase {
 
     @Override
     public void removeExpiredNonces(Date currentTime) throws Exception {
-        String[] attrs = {"1.1"};  // suppress attrs for performance; we only need DN
-        List<LDAPEntry> entries = ldapSearch(
-            RDN_NONCE + "," + baseDN,
-            "(" + ATTR_EXPIRES + "<=" + dateFormat.format(currentTime) + ")",
-            attrs
-        );
-        for (LDAPEntry entry : entries) {
-            ldapDelete(entry.getDN(), OnNoSuchObject.Ignore);
-        }
+        purge("nonce", currentTime, (time, size) -> ldapDeleteExpired(RDN_NONCE + "," + baseDN, time, size));
     }
 
     @Override
@@ -609,15 +602,7 @@ public class LDAPDatabase extends ACMEDatabase {
 
     @Override
     public void removeExpiredOrders(Date currentTime) throws Exception {
-        String[] attrs = {"1.1"};  // suppress attrs for performance; we only need DN
-        List<LDAPEntry> entries = ldapSearch(
-            RDN_ORDER + "," + baseDN,
-            "(" + ATTR_EXPIRES + "<=" + dateFormat.format(currentTime) + ")",
-            attrs
-        );
-        for (LDAPEntry entry : entries) {
-            ldapDelete(entry.getDN(), OnNoSuchObject.Ignore);
-        }
+        purge("order", currentTime, (time, size) -> ldapDeleteExpired(RDN_ORDER + "," + baseDN, time, size));
     }
 
     @Override
@@ -909,15 +894,7 @@ public class LDAPDatabase extends ACMEDatabase {
 
     @Override
     public void removeExpiredAuthorizations(Date currentTime) throws Exception {
-        String[] attrs = {"1.1"};  // suppress attrs for performance; we only need DN
-        List<LDAPEntry> entries = ldapSearch(
-            RDN_AUTHORIZATION + "," + baseDN,
-            "(" + ATTR_EXPIRES + "<=" + dateFormat.format(currentTime) + ")",
-            attrs
-        );
-        for (LDAPEntry entry : entries) {
-            ldapDelete(entry.getDN(), OnNoSuchObject.Ignore);
-        }
+        purge("authorization", currentTime, (time, size) -> ldapDeleteExpired(RDN_AUTHORIZATION + "," + baseDN, time, size));
     }
 
     @Override
@@ -968,15 +945,7 @@ public class LDAPDatabase extends ACMEDatabase {
 
     @Override
     public void removeExpiredCertificates(Date currentTime) throws Exception {
-        String[] attrs = {"1.1"};  // suppress attrs for performance; we only need DN
-        List<LDAPEntry> entries = ldapSearch(
-            RDN_CERTIFICATE + "," + baseDN,
-            "(" + ATTR_EXPIRES + "<=" + dateFormat.format(currentTime) + ")",
-            attrs
-        );
-        for (LDAPEntry entry : entries) {
-            ldapDelete(entry.getDN(), OnNoSuchObject.Ignore);
-        }
+        purge("certificate", currentTime, (time, size) -> ldapDeleteExpired(RDN_CERTIFICATE + "," + baseDN, time, size));
     }
 
     /* LOW LEVEL LDAP METHODS */
@@ -1028,6 +997,74 @@ public class LDAPDatabase extends ACMEDatabase {
         }
     }
 
+    /**
+     * Removes up to maxResults entries under the search base that expired
+     * at or before the specified time. The entries are searched and removed
+     * using a single connection. Returns the expiration times of the removed
+     * entries.
+     */
+    Collection<Date> ldapDeleteExpired(String searchBase, Date currentTime, int maxResults)
+            throws Exception {
+
+        String filter = "(" + ATTR_EXPIRES + "<=" + dateFormat.format(currentTime) + ")";
+        String[] attrs = { ATTR_EXPIRES };
+
+        logger.info("LDAP: search " + searchBase + " for " + filter);
+
+        Collection<Date> results = new ArrayList<>();
+
+        LDAPConnection conn = connFactory.getConn();
+        try {
+            LDAPSearchConstraints cons = new LDAPSearchConstraints();
+            cons.setMaxResults(maxResults);
+
+            LDAPSearchResults res = conn.search(
+                searchBase,
+                LDAPConnection.SCOPE_SUB,
+                filter,
+                attrs,
+                false /* attrsOnly */,
+                cons
+            );
+
+            List<LDAPEntry> entries = new ArrayList<>();
+            try {
+                while (res.hasMoreElements()) {
+                    entries.add(res.next());
+                }
+            } catch (LDAPException e) {
+                // the remaining entries will be returned in the next batch
+                if (e.getLDAPResultCode() != LDAPException.SIZE_LIMIT_EXCEEDED) {
+                    throw e;
+                }
+            }
+
+            for (LDAPEntry entry : entries) {
+
+                logger.debug("LDAP: delete " + entry.getDN());
+
+                try {
+                    conn.delete(entry.getDN());
+                } catch (LDAPException e) {
+                    if (e.getLDAPResultCode() != LDAPException.NO_SUCH_OBJECT) {
+                        throw e;
+                    }
+                }
+
+                LDAPAttribute attr = entry.getAttribute(ATTR_EXPIRES);
+                results.add(attr == null ? null : dateFormat.parse(attr.getStringValues().nextElement()));
+            }
+
+        } catch (LDAPException e) {
+            throw new Exception("LDAP purge failed: " + e, e);
+
+        } finally {
+            connFactory.returnConn(conn);
+        }
+
+        return results;
+    }
+
     /** Search for a single entry (SCOPE_BASE).  If it exists return it,
      * if it does not exist return null, and raise Exception on error
      */
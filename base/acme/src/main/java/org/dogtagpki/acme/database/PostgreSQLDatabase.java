@@ -8,6 +8,7 @@ package org.dogtagpki.acme.database;
 import java.io.FileReader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
@@ -47,6 +48,10 @@ public class PostgreSQLDatabase extends ACMEDatabase {
     protected Properties statements;
     protected Connection connection;
 
+    // separate connection to remove expired records in transactions
+    protected Connection purgeConnection;
+    private final Object purgeLock = new Object();
+
     Boolean enabled;
     PostgreSQLConfigMonitor monitor;
 
@@ -370,37 +375,10 @@ public class PostgreSQLDatabase extends ACMEDatabase {
 
         connect();
 
-        logger.info("Getting expired nonces");
-
-        Collection<String> nonceIDs = getExpiredNonceIDs(currentTime);
-
-        logger.info("Removing expired nonces");
+        String[] deleteStatements = { "removeNonces" };
 
-        for (String nonceID : nonceIDs) {
-            deleteNonce(nonceID);
-        }
-    }
-
-    private Collection<String> getExpiredNonceIDs(Date currentTime) throws Exception {
-
-        String sql = statements.getProperty("getExpiredNonceIDs");
-        logger.info("SQL: " + sql);
-
-        Collection<String> nonces = new ArrayList<>();
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setTimestamp(1, new Timestamp(currentTime.getTime()), UTC);
-
-            try (ResultSet rs = ps.executeQuery()) {
-
-                while (rs.next()) {
-                    String nonceID = rs.getString("id");
-                    nonces.add(nonceID);
-                }
-            }
-        }
-
-        return nonces;
+        purge("nonce", currentTime, (time, size) ->
+                removeExpiredRecords("getExpiredNonces", deleteStatements, time, size));
     }
 
     @Override
@@ -755,28 +733,6 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         return order;
     }
 
-    private Collection<String> getExpiredOrderIDs(Date currentTime) throws Exception {
-
-        String sql = statements.getProperty("getExpiredOrderIDs");
-        logger.info("SQL: " + sql);
-
-        Collection<String> orderIDs = new ArrayList<>();
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setTimestamp(1, new Timestamp(currentTime.getTime()), UTC);
-
-            try (ResultSet rs = ps.executeQuery()) {
-
-                while (rs.next()) {
-                    String orderID = rs.getString("id");
-                    orderIDs.add(orderID);
-                }
-            }
-        }
-
-        return orderIDs;
-    }
-
     private void getOrderIdentifiers(ACMEOrder order) throws Exception {
 
         String orderID = order.getID();
@@ -896,19 +852,6 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    private void removeOrderIdentifiers(String orderID) throws Exception {
-
-        logger.info("Removing identifiers for order " + orderID);
-
-        String sql = statements.getProperty("removeOrderIdentifiers");
-        logger.info("SQL: " + sql);
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, orderID);
-            ps.executeUpdate();
-        }
-    }
-
     private void addOrderAuthorizations(ACMEOrder order) throws Exception {
 
         String[] authzIDs = order.getAuthzIDs();
@@ -932,19 +875,6 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    private void removeOrderAuthorizations(String orderID) throws Exception {
-
-        logger.info("Removing authorizations for order " + orderID);
-
-        String sql = statements.getProperty("removeOrderAuthorizations");
-        logger.info("SQL: " + sql);
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, orderID);
-            ps.executeUpdate();
-        }
-    }
-
     @Override
     public void updateOrder(ACMEOrder order) throws Exception {
 
@@ -970,36 +900,15 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    private void removeOrder(String orderID) throws Exception {
-
-        removeOrderIdentifiers(orderID);
-        removeOrderAuthorizations(orderID);
-
-        logger.info("Removing order " + orderID);
-
-        String sql = statements.getProperty("removeOrder");
-        logger.info("SQL: " + sql);
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, orderID);
-            ps.executeUpdate();
-        }
-    }
-
     @Override
     public void removeExpiredOrders(Date currentTime) throws Exception {
 
         connect();
 
-        logger.info("Getting expired order IDs");
-
-        Collection<String> orderIDs = getExpiredOrderIDs(currentTime);
+        String[] deleteStatements = { "removeOrdersIdentifiers", "removeOrdersAuthorizations", "removeOrders" };
 
-        logger.info("Removing expired orders");
-
-        for (String orderID : orderIDs) {
-            removeOrder(orderID);
-        }
+        purge("order", currentTime, (time, size) ->
+                removeExpiredRecords("getExpiredOrders", deleteStatements, time, size));
     }
 
     @Override
@@ -1096,28 +1005,6 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         return authorization;
     }
 
-    private Collection<String> getExpiredAuthorizationIDs(Date currentTime) throws Exception {
-
-        String sql = statements.getProperty("getExpiredAuthorizationIDs");
-        logger.info("SQL: " + sql);
-
-        Collection<String> authzIDs = new ArrayList<>();
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setTimestamp(1, new Timestamp(currentTime.getTime()), UTC);
-
-            try (ResultSet rs = ps.executeQuery()) {
-
-                while (rs.next()) {
-                    String authzID = rs.getString("id");
-                    authzIDs.add(authzID);
-                }
-            }
-        }
-
-        return authzIDs;
-    }
-
     @Override
     public Collection<ACMEAuthorization> getRevocationAuthorizations(String accountID, Date time) throws Exception {
 
@@ -1312,35 +1199,15 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    private void removeAuthorization(String authzID) throws Exception {
-
-        removeAuthorizationChallenges(authzID);
-
-        logger.info("Removing authorization " + authzID);
-
-        String sql = statements.getProperty("removeAuthorization");
-        logger.info("SQL: " + sql);
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, authzID);
-            ps.executeUpdate();
-        }
-    }
-
     @Override
     public void removeExpiredAuthorizations(Date currentTime) throws Exception {
 
         connect();
 
-        logger.info("Getting expired authorization IDs");
+        String[] deleteStatements = { "removeAuthorizationsChallenges", "removeAuthorizations" };
 
-        Collection<String> authzIDs = getExpiredAuthorizationIDs(currentTime);
-
-        logger.info("Removing expired authorization");
-
-        for (String authzID : authzIDs) {
-            removeAuthorization(authzID);
-        }
+        purge("authorization", currentTime, (time, size) ->
+                removeExpiredRecords("getExpiredAuthorizations", deleteStatements, time, size));
     }
 
     @Override
@@ -1378,28 +1245,6 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    private Collection<String> getExpiredCertificateIDs(Date currentTime) throws Exception {
-
-        String sql = statements.getProperty("getExpiredCertificateIDs");
-        logger.info("SQL: " + sql);
-
-        Collection<String> certIDs = new ArrayList<>();
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setTimestamp(1, new Timestamp(currentTime.getTime()), UTC);
-
-            try (ResultSet rs = ps.executeQuery()) {
-
-                while (rs.next()) {
-                    String certID = rs.getString("id");
-                    certIDs.add(certID);
-                }
-            }
-        }
-
-        return certIDs;
-    }
-
     @Override
     public void addCertificate(String certID, ACMECertificate certificate) throws Exception {
 
@@ -1426,33 +1271,121 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         }
     }
 
-    private void removeCertificate(String certID) throws Exception {
+    @Override
+    public void removeExpiredCertificates(Date currentTime) throws Exception {
 
-        logger.info("Removing certificate " + certID);
+        connect();
 
-        String sql = statements.getProperty("removeCertificate");
-        logger.info("SQL: " + sql);
+        String[] deleteStatements = { "removeCertificates" };
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, certID);
-            ps.executeUpdate();
+        purge("certificate", currentTime, (time, size) ->
+                removeExpiredRecords("getExpiredCertificates", deleteStatements, time, size));
+    }
+
+    /**
+     * This method returns the connection used to remove expired records.
+     * The purge runs in transactions, so it cannot share the connection
+     * used by the request threads. The connection is created on first
+     * use and reestablished if it's no longer valid.
+     *
+     * This method should only be called while holding purgeLock.
+     */
+    Connection getPurgeConnection() throws Exception {
+
+        if (purgeConnection != null) {
+
+            if (purgeConnection.isValid(0)) {
+                return purgeConnection;
+            }
+
+            logger.info("Reconnecting to " + url + " to remove expired records");
+
+            try {
+                purgeConnection.close();
+            } catch (SQLException e) {
+                logger.warn("Unable to close connection: " + e.getMessage());
+            }
+
+        } else {
+            logger.info("Connecting to " + url + " to remove expired records");
         }
+
+        purgeConnection = DriverManager.getConnection(url, info);
+        purgeConnection.setAutoCommit(false);
+
+        return purgeConnection;
     }
 
-    @Override
-    public void removeExpiredCertificates(Date currentTime) throws Exception {
+    /**
+     * This method removes up to batchSize records that expired at
+     * or before the specified time. The records are selected with
+     * the select statement, then removed in a single transaction
+     * with the delete statements which take an array of record IDs.
+     *
+     * @return The expiration times of the removed records.
+     */
+    private Collection<Date> removeExpiredRecords(
+            String selectStatement,
+            String[] deleteStatements,
+            Date currentTime,
+            int batchSize) throws Exception {
 
-        connect();
+        Collection<String> ids = new ArrayList<>();
+        Collection<Date> expirationTimes = new ArrayList<>();
+
+        synchronized (purgeLock) {
+
+            Connection conn = getPurgeConnection();
+
+            try {
+                String sql = statements.getProperty(selectStatement);
+                logger.info("SQL: " + sql);
+
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setTimestamp(1, new Timestamp(currentTime.getTime()), UTC);
+                    ps.setInt(2, batchSize);
+
+                    try (ResultSet rs = ps.executeQuery()) {
+
+                        while (rs.next()) {
+                            ids.add(rs.getString("id"));
+
+                            Timestamp expires = rs.getTimestamp("expires");
+                            expirationTimes.add(expires == null ? null : new Date(expires.getTime()));
+                        }
+                    }
+                }
+
+                if (!ids.isEmpty()) {
 
-        logger.info("Getting expired certificaate IDs");
+                    Array array = conn.createArrayOf("VARCHAR", ids.toArray());
 
-        Collection<String> certIDs = getExpiredCertificateIDs(currentTime);
+                    try {
+                        for (String deleteStatement : deleteStatements) {
 
-        logger.info("Removing expired certificates");
+                            sql = statements.getProperty(deleteStatement);
+                            logger.info("SQL: " + sql);
 
-        for (String certID : certIDs) {
-            removeCertificate(certID);
+                            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                                ps.setArray(1, array);
+                                ps.executeUpdate();
+                            }
+                        }
+
+                    } finally {
+                        array.free();
+                    }
+                }
+
+                conn.commit();
+
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
         }
+
+        return expirationTimes;
     }
 
     @Override
@@ -1465,5 +1398,12 @@ public class PostgreSQLDatabase extends ACMEDatabase {
         if (connection != null) {
             connection.close();
         }
+
+        synchronized (purgeLock) {
+            if (purgeConnection != null) {
+                purgeConnection.close();
+                purgeConnection = null;
+            }
+        }
     }
 }
@@ -46,9 +46,17 @@ public class PKIIssuer extends ACMEIssuer {
 
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PKIIssuer.class);
 
+    public static final int DEFAULT_MAX_CONNECTIONS = 10;
+
     private ClientConfig clientConfig = new ClientConfig();
     private String profile;
 
+    // long-lived client shared by all requests
+    private PKIClient pkiClient;
+    private CAClient caClient;
+    private CACertClient certClient;
+    private boolean loggedIn;
+
     public String getProfile() {
         return profile;
     }
@@ -108,17 +116,35 @@ public class PKIIssuer extends ACMEIssuer {
 
         profile = config.getParameter("profile");
         logger.info("- profile: " + profile);
-    }
-
-    @Override
-    public String issueCertificate(PKCS10 pkcs10) throws Exception {
 
-        logger.info("Issuing certificate");
+        String maxConnections = config.getParameter("maxConnections");
+        clientConfig.setMaxConnections(maxConnections == null
+                ? DEFAULT_MAX_CONNECTIONS : Integer.valueOf(maxConnections));
+        logger.info("- max connections: " + clientConfig.getMaxConnections());
 
-        try (PKIClient pkiClient = new PKIClient(clientConfig)) {
+        String maxConnectionsPerRoute = config.getParameter("maxConnectionsPerRoute");
+        if (maxConnectionsPerRoute != null) {
+            logger.info("- max connections per route: " + maxConnectionsPerRoute);
+            clientConfig.setMaxConnectionsPerRoute(Integer.valueOf(maxConnectionsPerRoute));
+        }
+    }
 
-            CAClient caClient = new CAClient(pkiClient);
+    /**
+     * Returns the shared cert client. The client is created and logged
+     * in on first use, then reused for subsequent requests so that the
+     * connections and the login session do not have to be reestablished
+     * for every certificate.
+     */
+    public synchronized CACertClient getCertClient() throws Exception {
+
+        if (pkiClient == null) {
+            logger.info("PKIIssuer: Connecting to " + clientConfig.getServerURL());
+            pkiClient = new PKIClient(clientConfig);
+            caClient = new CAClient(pkiClient);
+            certClient = new CACertClient(caClient);
+        }
 
+        if (!loggedIn) {
             // Here the agent credentials are stored in the ClientConfig and will
             // be sent to the CA automatically if any of the methods being called
             // requires REST authentication. However, the methods being called
@@ -145,57 +171,104 @@ public class PKIIssuer extends ACMEIssuer {
             // support both types of profiles the CAClient.login() needs to be
             // called explicitly.
             caClient.login();
+            loggedIn = true;
+        }
 
-            CACertClient certClient = new CACertClient(caClient);
-            CertEnrollmentRequest certEnrollmentRequest = certClient.getEnrollmentTemplate(profile);
+        return certClient;
+    }
 
-            for (ProfileInput input : certEnrollmentRequest.getInputs()) {
+    /**
+     * Forces a new login on the next request (e.g. after the login
+     * session has expired). The connections are kept since they
+     * might still be used by other requests.
+     */
+    public synchronized void invalidateSession() {
+        loggedIn = false;
+    }
 
-                ProfileAttribute typeAttr = input.getAttribute("cert_request_type");
-                if (typeAttr != null) {
-                    typeAttr.setValue("pkcs10");
-                }
+    @Override
+    public synchronized void close() throws Exception {
 
-                ProfileAttribute csrAttr = input.getAttribute("cert_request");
-                if (csrAttr != null) {
-                    csrAttr.setValue(Utils.base64encodeSingleLine(pkcs10.toByteArray()));
-                }
-            }
+        if (pkiClient == null) {
+            return;
+        }
 
-            logger.info("Request:\n" + certEnrollmentRequest);
+        logger.info("PKIIssuer: Closing connection to " + clientConfig.getServerURL());
+        pkiClient.close();
 
-            CertRequestInfos infos = certClient.enrollRequest(certEnrollmentRequest, null, null);
+        pkiClient = null;
+        caClient = null;
+        certClient = null;
+        loggedIn = false;
+    }
 
-            logger.info("Responses:");
-            CertRequestInfo info = infos.getEntries().iterator().next();
+    @Override
+    public String issueCertificate(PKCS10 pkcs10) throws Exception {
 
-            RequestId requestId = info.getRequestID();
+        logger.info("Issuing certificate");
 
-            logger.info("- Request ID: " + requestId.toHexString());
-            logger.info("  Type: " + info.getRequestType());
-            logger.info("  Request Status: " + info.getRequestStatus());
-            logger.info("  Operation Result: " + info.getOperationResult());
+        CACertClient certClient = getCertClient();
 
-            String error = info.getErrorMessage();
-            if (error != null) {
-                throw new Exception("Unable to generate certificate: " + error);
-            }
+        try {
+            return issueCertificate(certClient, pkcs10);
+
+        } catch (Exception e) {
+            // the session might have expired, log in again on the next request
+            invalidateSession();
+            throw e;
+        }
+    }
+
+    String issueCertificate(CACertClient certClient, PKCS10 pkcs10) throws Exception {
+
+        CertEnrollmentRequest certEnrollmentRequest = certClient.getEnrollmentTemplate(profile);
 
-            CertId id = null;
-            if (info.getRequestStatus() == RequestStatus.COMPLETE) {
-                id = info.getCertId();
-            } else {
-                CertReviewResponse reviewInfo = certClient.reviewRequest(requestId);
-                certClient.approveRequest(requestId, reviewInfo);
+        for (ProfileInput input : certEnrollmentRequest.getInputs()) {
 
-                info = certClient.getRequest(requestId);
-                id = info.getCertId();
+            ProfileAttribute typeAttr = input.getAttribute("cert_request_type");
+            if (typeAttr != null) {
+                typeAttr.setValue("pkcs10");
             }
 
-            logger.info("Serial number: " + id.toHexString());
-            BigInteger serialNumber = id.toBigInteger();
-            return Base64.encodeBase64URLSafeString(serialNumber.toByteArray());
+            ProfileAttribute csrAttr = input.getAttribute("cert_request");
+            if (csrAttr != null) {
+                csrAttr.setValue(Utils.base64encodeSingleLine(pkcs10.toByteArray()));
+            }
         }
+
+        logger.info("Request:\n" + certEnrollmentRequest);
+
+        CertRequestInfos infos = certClient.enrollRequest(certEnrollmentRequest, null, null);
+
+        logger.info("Responses:");
+        CertRequestInfo info = infos.getEntries().iterator().next();
+
+        RequestId requestId = info.getRequestID();
+
+        logger.info("- Request ID: " + requestId.toHexString());
+        logger.info("  Type: " + info.getRequestType());
+        logger.info("  Request Status: " + info.getRequestStatus());
+        logger.info("  Operation Result: " + info.getOperationResult());
+
+        String error = info.getErrorMessage();
+        if (error != null) {
+            throw new Exception("Unable to generate certificate: " + error);
+        }
+
+        CertId id = null;
+        if (info.getRequestStatus() == RequestStatus.COMPLETE) {
+            id = info.getCertId();
+        } else {
+            CertReviewResponse reviewInfo = certClient.reviewRequest(requestId);
+            certClient.approveRequest(requestId, reviewInfo);
+
+            info = certClient.getRequest(requestId);
+            id = info.getCertId();
+        }
+
+        logger.info("Serial number: " + id.toHexString());
+        BigInteger serialNumber = id.toBigInteger();
+        return Base64.encodeBase64URLSafeString(serialNumber.toByteArray());
     }
 
     @Override
@@ -204,37 +277,33 @@ public class PKIIssuer extends ACMEIssuer {
         CertId id = new CertId(new BigInteger(1, Base64.decodeBase64(certID)));
         logger.info("Serial number: " + id.toHexString());
 
-        try (PKIClient pkiClient = new PKIClient(clientConfig)) {
+        CACertClient certClient = getCertClient();
+        CertData certData = certClient.getCert(id);
 
-            CAClient caClient = new CAClient(pkiClient);
-            CACertClient certClient = new CACertClient(caClient);
-            CertData certData = certClient.getCert(id);
+        String pkcs7Chain = certData.getPkcs7CertChain();
+        logger.info("Cert chain:\n" + pkcs7Chain);
 
-            String pkcs7Chain = certData.getPkcs7CertChain();
-            logger.info("Cert chain:\n" + pkcs7Chain);
+        PKCS7 pkcs7 = new PKCS7(Utils.base64decode(pkcs7Chain));
+        X509Certificate[] certs = pkcs7.getCertificates();
 
-            PKCS7 pkcs7 = new PKCS7(Utils.base64decode(pkcs7Chain));
-            X509Certificate[] certs = pkcs7.getCertificates();
-
-            if (certs == null || certs.length == 0) {
-                throw new Error("PKCS #7 data contains no certificates");
-            }
+        if (certs == null || certs.length == 0) {
+            throw new Error("PKCS #7 data contains no certificates");
+        }
 
-            // sort certs from leaf to root
-            certs = Cert.sortCertificateChain(certs, true);
+        // sort certs from leaf to root
+        certs = Cert.sortCertificateChain(certs, true);
 
-            StringWriter sw = new StringWriter();
+        StringWriter sw = new StringWriter();
 
-            try (PrintWriter out = new PrintWriter(sw, true)) {
-                for (X509Certificate cert : certs) {
-                    out.println(Cert.HEADER);
-                    out.print(Utils.base64encode(cert.getEncoded(), true));
-                    out.println(Cert.FOOTER);
-                }
+        try (PrintWriter out = new PrintWriter(sw, true)) {
+            for (X509Certificate cert : certs) {
+                out.println(Cert.HEADER);
+                out.print(Utils.base64encode(cert.getEncoded(), true));
+                out.println(Cert.FOOTER);
             }
-
-            return sw.toString();
         }
+
+        return sw.toString();
     }
 
     @Override
@@ -263,45 +332,41 @@ public class PKIIssuer extends ACMEIssuer {
 
         logger.info("Reviewing certificate");
 
-        try (PKIClient pkiClient = new PKIClient(clientConfig)) {
-
-            CAClient caClient = new CAClient(pkiClient);
-            CACertClient certClient = new CACertClient(caClient);
-            CertData certData = certClient.reviewCert(certID);
-
-            // Compare cert in request to cert retrieved from PKI.
-            // This prevents DOS attacks against certificates from this issuer,
-            // where the presented certificate was from a different issuer or
-            // has been modified (we don't validate it cryptographically).
-            //
-            String certFromIssuerPEM = certData.getEncoded();
-            if (null == certFromIssuerPEM) {
-                throw new Exception(
-                    "Unable to revoke certificate: failed to retrieve cert from PKI");
-            }
-            byte[] certFromIssuerDER = Cert.parseCertificate(certFromIssuerPEM);
-            if (!Arrays.equals(certBytes, certFromIssuerDER)) {
-                throw new Exception(
-                    "Unable to revoke certificate: cert in request was not issued by this PKI");
-                // TODO better exception (400?)
-            }
+        CACertClient certClient = getCertClient();
+        CertData certData = certClient.reviewCert(certID);
+
+        // Compare cert in request to cert retrieved from PKI.
+        // This prevents DOS attacks against certificates from this issuer,
+        // where the presented certificate was from a different issuer or
+        // has been modified (we don't validate it cryptographically).
+        //
+        String certFromIssuerPEM = certData.getEncoded();
+        if (null == certFromIssuerPEM) {
+            throw new Exception(
+                "Unable to revoke certificate: failed to retrieve cert from PKI");
+        }
+        byte[] certFromIssuerDER = Cert.parseCertificate(certFromIssuerPEM);
+        if (!Arrays.equals(certBytes, certFromIssuerDER)) {
+            throw new Exception(
+                "Unable to revoke certificate: cert in request was not issued by this PKI");
+            // TODO better exception (400?)
+        }
 
-            CertRevokeRequest request = new CertRevokeRequest();
-            request.setReason(RevocationReason.valueOf(reason).getLabel());
-            request.setNonce(certData.getNonce());
+        CertRevokeRequest request = new CertRevokeRequest();
+        request.setReason(RevocationReason.valueOf(reason).getLabel());
+        request.setNonce(certData.getNonce());
 
-            logger.info("Revoking certificate");
-            CertRequestInfo certRequestInfo = certClient.revokeCert(certID, request);
+        logger.info("Revoking certificate");
+        CertRequestInfo certRequestInfo = certClient.revokeCert(certID, request);
 
-            RequestStatus status = certRequestInfo.getRequestStatus();
-            if (status != RequestStatus.COMPLETE) {
-                throw new Exception("Unable to revoke certificate: " + status);
-            }
+        RequestStatus status = certRequestInfo.getRequestStatus();
+        if (status != RequestStatus.COMPLETE) {
+            throw new Exception("Unable to revoke certificate: " + status);
+        }
 
-            if (certRequestInfo.getOperationResult().equals(CertRequestInfo.RES_ERROR)) {
-                String error = certRequestInfo.getErrorMessage();
-                throw new Exception("Unable to revoke certificate: " + error);
-            }
+        if (certRequestInfo.getOperationResult().equals(CertRequestInfo.RES_ERROR)) {
+            String error = certRequestInfo.getErrorMessage();
+            throw new Exception("Unable to revoke certificate: " + error);
         }
     }
 }
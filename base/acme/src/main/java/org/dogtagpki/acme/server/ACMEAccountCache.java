@@ -0,0 +1,109 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package org.dogtagpki.acme.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.dogtagpki.acme.ACMEAccount;
+
+/**
+ * This class keeps recently used accounts in memory so that
+ * authenticated requests do not have to read the account from
+ * the database every time.
+ *
+ * The cache is bounded (least recently used accounts are evicted
+ * first) and the entries expire after a configurable time so that
+ * changes made by other ACME servers sharing the same database
+ * will eventually be visible. The accounts are copied in and out
+ * of the cache since the callers may modify them.
+ */
+public class ACMEAccountCache {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ACMEAccountCache.class);
+
+    static class Entry {
+        ACMEAccount account;
+        long expirationTime;
+    }
+
+    private int size;
+    private long ttl;
+
+    private Map<String, Entry> entries;
+
+    /**
+     * @param size maximum number of cached accounts
+     * @param ttl cache entry lifetime in seconds
+     */
+    public ACMEAccountCache(int size, long ttl) {
+
+        this.size = size;
+        this.ttl = ttl;
+
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ACMEAccountCache.this.size;
+            }
+        };
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getTTL() {
+        return ttl;
+    }
+
+    public synchronized ACMEAccount get(String accountID) {
+
+        Entry entry = entries.get(accountID);
+        if (entry == null) return null;
+
+        if (entry.expirationTime <= System.currentTimeMillis()) {
+            entries.remove(accountID);
+            return null;
+        }
+
+        return copy(entry.account);
+    }
+
+    public synchronized void put(ACMEAccount account) {
+
+        Entry entry = new Entry();
+        entry.account = copy(account);
+        entry.expirationTime = System.currentTimeMillis() + ttl * 1000;
+
+        entries.put(account.getID(), entry);
+    }
+
+    public synchronized void remove(String accountID) {
+        entries.remove(accountID);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    ACMEAccount copy(ACMEAccount account) {
+
+        ACMEAccount copy = new ACMEAccount();
+        copy.setID(account.getID());
+        copy.setStatus(account.getStatus());
+        copy.setContact(account.getContact() == null ? null : account.getContact().clone());
+        copy.setTermsOfServiceAgreed(account.getTermsOfServiceAgreed());
+        copy.setOnlyReturnExisting(account.getOnlyReturnExisting());
+        copy.setOrders(account.getOrders());
+        copy.setCreationTime(account.getCreationTime());
+
+        // the JWK is not modified after the account is created
+        copy.setJWK(account.getJWK());
+
+        return copy;
+    }
+}
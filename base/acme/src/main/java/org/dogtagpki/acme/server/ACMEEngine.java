@@ -18,9 +18,11 @@ import java.security.Signature;
 import java.security.cert.X509Certificate;
 import java.security.spec.RSAPublicKeySpec;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -51,6 +53,7 @@ import org.dogtagpki.acme.JWK;
 import org.dogtagpki.acme.JWS;
 import org.dogtagpki.acme.database.ACMEDatabase;
 import org.dogtagpki.acme.database.ACMEDatabaseConfig;
+import org.dogtagpki.acme.database.ACMEPurgeStats;
 import org.dogtagpki.acme.issuer.ACMEIssuer;
 import org.dogtagpki.acme.issuer.ACMEIssuerConfig;
 import org.dogtagpki.acme.realm.ACMERealm;
@@ -106,6 +109,23 @@ public class ACMEEngine {
     private boolean noncesPersistent;
     private Map<String, ACMENonce> nonces = new ConcurrentHashMap<>();
 
+    private ACMEAccountCache accountCache;
+
+    // decoded JWK public keys, the JWKs are immutable so
+    // the keys can be reused until they are evicted
+    public static final int MAX_PUBLIC_KEYS = 1000;
+    private Map<String, PublicKey> publicKeys = Collections.synchronizedMap(
+            new LinkedHashMap<String, PublicKey>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PublicKey> eldest) {
+                    return size() > MAX_PUBLIC_KEYS;
+                }
+            });
+
+    // Signature objects are not thread-safe but can be reused
+    // within a thread since initVerify() resets the state
+    private ThreadLocal<Signature> rsaVerifiers = new ThreadLocal<>();
+
     public static ACMEEngine getInstance() {
         return INSTANCE;
     }
@@ -491,6 +511,8 @@ public class ACMEEngine {
         Boolean noncePersistent = config.getNoncesPersistent();
         this.noncesPersistent =  noncePersistent != null ? noncePersistent : false;
 
+        initAccountCache();
+
         initRandomGenerator();
         initMetadata(acmeConfDir + File.separator + "metadata.conf");
         initDatabase(acmeConfDir + File.separator + "database.conf");
@@ -503,7 +525,30 @@ public class ACMEEngine {
         logger.info("ACME engine started");
     }
 
+    public void initAccountCache() {
+
+        Integer size = config.getAccountsCacheSize();
+        if (size == null || size <= 0) {
+            logger.info("Account cache disabled");
+            return;
+        }
+
+        Integer ttl = config.getAccountsCacheTTL();
+        if (ttl == null) ttl = 60;
+
+        logger.info("Account cache:");
+        logger.info("- size: " + size);
+        logger.info("- TTL: " + ttl + " seconds");
+
+        accountCache = new ACMEAccountCache(size, ttl);
+    }
+
     public void shutdownDatabase() throws Exception {
+
+        if (accountCache != null) {
+            accountCache.clear();
+        }
+
         if (database == null) return;
 
         database.close();
@@ -634,6 +679,15 @@ public class ACMEEngine {
         database.removeExpiredAuthorizations(currentTime);
         database.removeExpiredOrders(currentTime);
         database.removeExpiredCertificates(currentTime);
+
+        for (ACMEPurgeStats stats : database.getPurgeStats()) {
+            if (stats.isLastComplete()) {
+                logger.info("Purge stats: " + stats);
+            } else {
+                // the purge is falling behind, the lag will keep growing
+                logger.warn("Purge incomplete: " + stats);
+            }
+        }
     }
 
     public void validateJWS(JWS jws, String alg, JWK jwk) throws Exception {
@@ -645,19 +699,13 @@ public class ACMEEngine {
 
         if ("RS256".equals(alg)) {
 
-            signer = Signature.getInstance("SHA256withRSA", "Mozilla-JSS");
-
-            String kty = jwk.getKty();
-            KeyFactory keyFactory = KeyFactory.getInstance(kty, "Mozilla-JSS");
-
-            String n = jwk.getN();
-            BigInteger modulus = new BigInteger(1, Base64.decodeBase64(n));
-
-            String e = jwk.getE();
-            BigInteger publicExponent = new BigInteger(1, Base64.decodeBase64(e));
+            signer = rsaVerifiers.get();
+            if (signer == null) {
+                signer = Signature.getInstance("SHA256withRSA", "Mozilla-JSS");
+                rsaVerifiers.set(signer);
+            }
 
-            RSAPublicKeySpec keySpec = new RSAPublicKeySpec(modulus, publicExponent);
-            publicKey = keyFactory.generatePublic(keySpec);
+            publicKey = getRSAPublicKey(jwk);
 
         } else {
             ResponseBuilder builder = Response.status(Response.Status.BAD_REQUEST);
@@ -675,6 +723,30 @@ public class ACMEEngine {
         validateJWS(jws, signer, publicKey);
     }
 
+    public PublicKey getRSAPublicKey(JWK jwk) throws Exception {
+
+        String kty = jwk.getKty();
+        String n = jwk.getN();
+        String e = jwk.getE();
+
+        String key = kty + ":" + n + ":" + e;
+        PublicKey publicKey = publicKeys.get(key);
+        if (publicKey != null) {
+            return publicKey;
+        }
+
+        KeyFactory keyFactory = KeyFactory.getInstance(kty, "Mozilla-JSS");
+
+        BigInteger modulus = new BigInteger(1, Base64.decodeBase64(n));
+        BigInteger publicExponent = new BigInteger(1, Base64.decodeBase64(e));
+
+        RSAPublicKeySpec keySpec = new RSAPublicKeySpec(modulus, publicExponent);
+        publicKey = keyFactory.generatePublic(keySpec);
+
+        publicKeys.put(key, publicKey);
+        return publicKey;
+    }
+
     public void validateJWS(JWS jws, Signature signer, PublicKey publicKey) throws Exception {
 
         logger.info("Validating JWS");
@@ -714,7 +786,15 @@ public class ACMEEngine {
 
     public ACMEAccount getAccount(String accountID, boolean validate) throws Exception {
 
-        ACMEAccount account = database.getAccount(accountID);
+        ACMEAccount account = accountCache == null ? null : accountCache.get(accountID);
+
+        if (account == null) {
+            account = database.getAccount(accountID);
+
+            if (account != null && accountCache != null) {
+                accountCache.put(account);
+            }
+        }
 
         if (validate) {
 
@@ -764,6 +844,11 @@ public class ACMEEngine {
 
     public void updateAccount(ACMEAccount account) throws Exception {
         database.updateAccount(account);
+
+        // reload the account (e.g. deactivated) on the next request
+        if (accountCache != null) {
+            accountCache.remove(account.getID());
+        }
     }
 
     public void addAuthorization(ACMEAccount account, ACMEAuthorization authorization) throws Exception {
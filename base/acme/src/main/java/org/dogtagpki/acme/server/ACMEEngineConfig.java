@@ -25,6 +25,8 @@ public class ACMEEngineConfig implements JSONSerializer {
     private Boolean enabled = true;
     private URL baseURL;
     private Boolean noncesPersistent;
+    private Integer accountsCacheSize;
+    private Integer accountsCacheTTL;
 
     @JsonProperty("policy")
     private ACMEPolicyConfig policyConfig = new ACMEPolicyConfig();
@@ -53,6 +55,29 @@ public class ACMEEngineConfig implements JSONSerializer {
         this.noncesPersistent = noncesPersistent;
     }
 
+    /**
+     * Returns the maximum number of accounts cached in memory.
+     * If not set or zero, the accounts are not cached.
+     */
+    public Integer getAccountsCacheSize() {
+        return accountsCacheSize;
+    }
+
+    public void setAccountsCacheSize(Integer accountsCacheSize) {
+        this.accountsCacheSize = accountsCacheSize;
+    }
+
+    /**
+     * Returns the lifetime of cached accounts in seconds.
+     */
+    public Integer getAccountsCacheTTL() {
+        return accountsCacheTTL;
+    }
+
+    public void setAccountsCacheTTL(Integer accountsCacheTTL) {
+        this.accountsCacheTTL = accountsCacheTTL;
+    }
+
     public ACMEPolicyConfig getPolicyConfig() {
         return policyConfig;
     }
@@ -79,6 +104,12 @@ public class ACMEEngineConfig implements JSONSerializer {
             } else if (key.equals("nonces.persistent")) {
                 config.setNoncePersistent(Boolean.valueOf(value));
 
+            } else if (key.equals("accounts.cache.size")) {
+                config.setAccountsCacheSize(Integer.valueOf(value));
+
+            } else if (key.equals("accounts.cache.ttl")) {
+                config.setAccountsCacheTTL(Integer.valueOf(value));
+
             } else if (key.startsWith("policy.")) {
 
                 String policyKey = key.substring(7);
@@ -0,0 +1,231 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package org.dogtagpki.acme.database;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.dogtagpki.acme.ACMEAccount;
+import org.dogtagpki.acme.ACMEAuthorization;
+import org.dogtagpki.acme.ACMECertificate;
+import org.dogtagpki.acme.ACMEOrder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileDatabaseTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File directory;
+    List<FileDatabase> databases = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.newFolder("data");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (FileDatabase database : databases) {
+            database.close();
+        }
+    }
+
+    FileDatabase open(int snapshotInterval) throws Exception {
+
+        ACMEDatabaseConfig config = new ACMEDatabaseConfig();
+        config.setParameter("directory", directory.getAbsolutePath());
+        config.setParameter("snapshotInterval", Integer.toString(snapshotInterval));
+
+        FileDatabase database = new FileDatabase();
+        database.setConfig(config);
+        database.init();
+
+        databases.add(database);
+        return database;
+    }
+
+    File getJournalFile() {
+        return new File(directory, FileDatabase.JOURNAL_FILE);
+    }
+
+    void populate(FileDatabase database) throws Exception {
+
+        ACMEAccount account = new ACMEAccount();
+        account.setID("account1");
+        account.setStatus("valid");
+        account.setCreationTime(new Date(500));
+        database.addAccount(account);
+
+        database.addAuthorization(InMemoryDatabaseTest.createAuthorization(
+                "authz1", "account1", 1000, "chall1"));
+        database.addAuthorization(InMemoryDatabaseTest.createAuthorization(
+                "authz2", "account1", 3000, "chall2"));
+
+        database.addOrder(InMemoryDatabaseTest.createOrder("order1", "account1", null, 1000, "authz1"));
+        database.addOrder(InMemoryDatabaseTest.createOrder("order2", "account1", null, 3000, "authz2"));
+
+        ACMECertificate certificate = new ACMECertificate();
+        certificate.setData(new byte[] { 1, 2, 3 });
+        certificate.setExpirationTime(new Date(4000));
+        database.addCertificate("cert1", certificate);
+
+        // update records after they were added
+        ACMEOrder order = InMemoryDatabaseTest.createOrder("order2", "account1", "cert1", 3000, "authz2");
+        order.setStatus("valid");
+        database.updateOrder(order);
+
+        ACMEAuthorization authorization = InMemoryDatabaseTest.createAuthorization(
+                "authz2", "account1", 3000, "chall2");
+        authorization.setStatus("valid");
+        database.updateAuthorization(authorization);
+
+        database.removeExpiredAuthorizations(new Date(1000));
+    }
+
+    void verify(FileDatabase database) throws Exception {
+
+        ACMEAccount account = database.getAccount("account1");
+        assertNotNull(account);
+        assertEquals("valid", account.getStatus());
+        assertEquals(new Date(500), account.getCreationTime());
+
+        assertNull(database.getAuthorization("authz1"));
+        assertNull(database.getAuthorizationByChallenge("chall1"));
+
+        ACMEAuthorization authorization = database.getAuthorizationByChallenge("chall2");
+        assertEquals("authz2", authorization.getID());
+        assertEquals("account1", authorization.getAccountID());
+        assertEquals("valid", authorization.getStatus());
+        assertEquals(new Date(3000), authorization.getExpirationTime());
+        assertEquals(1, database.getRevocationAuthorizations("account1", new Date(0)).size());
+
+        assertEquals(InMemoryDatabaseTest.set("order1", "order2"),
+                InMemoryDatabaseTest.getOrderIDs(database.getOrdersByAccount("account1")));
+
+        ACMEOrder order = database.getOrderByCertificate("cert1");
+        assertEquals("order2", order.getID());
+        assertEquals("valid", order.getStatus());
+        assertArrayEquals(new String[] { "authz2" }, order.getAuthzIDs());
+        assertEquals(new Date(3000), order.getExpirationTime());
+
+        ACMECertificate certificate = database.getCertificate("cert1");
+        assertArrayEquals(new byte[] { 1, 2, 3 }, certificate.getData());
+        assertEquals(new Date(4000), certificate.getExpirationTime());
+    }
+
+    @Test
+    public void testReplayJournal() throws Exception {
+
+        FileDatabase database = open(0);
+        populate(database);
+        verify(database);
+
+        assertTrue(Files.readAllLines(getJournalFile().toPath()).size() > 0);
+
+        // restart without closing the database so the state
+        // can only be restored from the journal
+        verify(open(0));
+    }
+
+    @Test
+    public void testReplaySnapshot() throws Exception {
+
+        FileDatabase database = open(0);
+        populate(database);
+
+        database.close();
+        databases.remove(database);
+
+        // the journal is compacted into the snapshot on shutdown
+        assertTrue(Files.readAllLines(getJournalFile().toPath()).isEmpty());
+
+        verify(open(0));
+    }
+
+    @Test
+    public void testSnapshotInterval() throws Exception {
+
+        FileDatabase database = open(3);
+        populate(database);
+
+        // the journal is compacted after every 3 entries
+        assertTrue(Files.readAllLines(getJournalFile().toPath()).size() < 3);
+
+        verify(open(3));
+    }
+
+    @Test
+    public void testTruncatedJournal() throws Exception {
+
+        FileDatabase database = open(0);
+        populate(database);
+
+        // simulate a crash in the middle of writing a journal entry
+        Files.write(getJournalFile().toPath(),
+                "{\"op\":\"add\",\"type\":\"order\",\"id\":\"order3\",\"da".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        FileDatabase restarted = open(0);
+        verify(restarted);
+        assertNull(restarted.getOrder("order3"));
+
+        // the database is still usable after the incomplete entry
+        restarted.addOrder(InMemoryDatabaseTest.createOrder("order3", "account2", null, 5000));
+
+        FileDatabase reopened = open(0);
+        verify(reopened);
+        assertNotNull(reopened.getOrder("order3"));
+    }
+
+    @Test
+    public void testExpirationIndex() throws Exception {
+
+        FileDatabase database = open(0);
+        populate(database);
+
+        // the expiration indexes are rebuilt from the journal
+        FileDatabase restarted = open(0);
+
+        restarted.removeExpiredOrders(new Date(2000));
+        restarted.removeExpiredCertificates(new Date(3999));
+
+        assertNull(restarted.getOrder("order1"));
+        assertNotNull(restarted.getOrder("order2"));
+        assertNotNull(restarted.getCertificate("cert1"));
+
+        Collection<ACMEOrder> orders = restarted.getOrdersByAccount("account1");
+        assertEquals(InMemoryDatabaseTest.set("order2"), InMemoryDatabaseTest.getOrderIDs(orders));
+
+        restarted.removeExpiredOrders(new Date(3000));
+        restarted.removeExpiredCertificates(new Date(4000));
+
+        // the removals are journaled as well
+        FileDatabase reopened = open(0);
+
+        assertNull(reopened.getOrder("order2"));
+        assertNull(reopened.getOrderByCertificate("cert1"));
+        assertNull(reopened.getCertificate("cert1"));
+        assertNotNull(reopened.getAccount("account1"));
+        assertNotNull(reopened.getAuthorization("authz2"));
+    }
+}
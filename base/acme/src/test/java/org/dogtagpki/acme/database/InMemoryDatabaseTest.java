@@ -0,0 +1,263 @@
+//
+// Copyright Red Hat, Inc.
+//
+// SPDX-License-Identifier: GPL-2.0-or-later
+//
+package org.dogtagpki.acme.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.dogtagpki.acme.ACMEAuthorization;
+import org.dogtagpki.acme.ACMECertificate;
+import org.dogtagpki.acme.ACMEChallenge;
+import org.dogtagpki.acme.ACMENonce;
+import org.dogtagpki.acme.ACMEOrder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InMemoryDatabaseTest {
+
+    InMemoryDatabase database;
+
+    @Before
+    public void setUp() throws Exception {
+        database = new InMemoryDatabase();
+        database.init();
+    }
+
+    static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+    static Set<String> set(Collection<String> values) {
+        return new HashSet<>(values);
+    }
+
+    static ACMEOrder createOrder(String id, String accountID, String certID, long expirationTime, String... authzIDs) {
+        ACMEOrder order = new ACMEOrder();
+        order.setID(id);
+        order.setAccountID(accountID);
+        order.setStatus("pending");
+        order.setCertID(certID);
+        order.setAuthzIDs(authzIDs);
+        order.setExpirationTime(new Date(expirationTime));
+        return order;
+    }
+
+    static ACMEAuthorization createAuthorization(String id, String accountID, long expirationTime, String... challengeIDs) {
+
+        Collection<ACMEChallenge> challenges = new ArrayList<>();
+        for (String challengeID : challengeIDs) {
+            ACMEChallenge challenge = new ACMEChallenge();
+            challenge.setID(challengeID);
+            challenge.setAuthzID(id);
+            challenges.add(challenge);
+        }
+
+        ACMEAuthorization authorization = new ACMEAuthorization();
+        authorization.setID(id);
+        authorization.setAccountID(accountID);
+        authorization.setStatus("pending");
+        authorization.setChallenges(challenges);
+        authorization.setExpirationTime(new Date(expirationTime));
+        return authorization;
+    }
+
+    static Set<String> getOrderIDs(Collection<ACMEOrder> orders) {
+        Set<String> ids = new HashSet<>();
+        for (ACMEOrder order : orders) {
+            ids.add(order.getID());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+
+        InMemoryDatabase.Index index = new InMemoryDatabase.Index();
+
+        index.put("1", Arrays.asList("a", "b"));
+        index.put("2", "a");
+        index.put("3", (String) null);
+
+        assertEquals(set("1", "2"), set(index.get("a")));
+        assertEquals(set("1"), set(index.get("b")));
+        assertTrue(index.get("c").isEmpty());
+
+        // putting a record again replaces its previous keys
+        index.put("1", Arrays.asList("c", null));
+
+        assertEquals(set("2"), set(index.get("a")));
+        assertTrue(index.get("b").isEmpty());
+        assertEquals(set("1"), set(index.get("c")));
+
+        index.remove("2");
+        index.remove("4");
+
+        assertTrue(index.get("a").isEmpty());
+        assertEquals(set("1"), set(index.get("c")));
+
+        index.put("1", Collections.emptyList());
+        assertTrue(index.get("c").isEmpty());
+
+        index.put("5", "d");
+        index.clear();
+        assertTrue(index.get("d").isEmpty());
+    }
+
+    @Test
+    public void testExpirationIndex() throws Exception {
+
+        InMemoryDatabase.ExpirationIndex index = new InMemoryDatabase.ExpirationIndex();
+
+        index.put("1", new Date(100));
+        index.put("2", new Date(200));
+        index.put("3", new Date(200));
+        index.put("4", new Date(300));
+        index.put("5", null);
+
+        assertTrue(index.getExpired(new Date(99)).isEmpty());
+
+        // records expiring at the specified time are included
+        assertEquals(set("1"), set(index.getExpired(new Date(100))));
+        assertEquals(set("1", "2", "3"), set(index.getExpired(new Date(200))));
+
+        // putting a record again moves it to the new expiration time
+        index.put("1", new Date(400));
+        assertEquals(set("2", "3"), set(index.getExpired(new Date(200))));
+
+        index.remove("2");
+        assertEquals(set("3", "4"), set(index.getExpired(new Date(300))));
+
+        // a record without expiration time never expires
+        index.put("3", null);
+        assertEquals(set("1", "4"), set(index.getExpired(new Date(Long.MAX_VALUE))));
+
+        index.clear();
+        assertTrue(index.getExpired(new Date(Long.MAX_VALUE)).isEmpty());
+    }
+
+    @Test
+    public void testOrderIndexes() throws Exception {
+
+        database.addOrder(createOrder("order1", "account1", null, 1000, "authz1", "authz2"));
+        database.addOrder(createOrder("order2", "account1", null, 2000, "authz2"));
+        database.addOrder(createOrder("order3", "account2", null, 3000, "authz3"));
+
+        assertEquals(set("order1", "order2"), getOrderIDs(database.getOrdersByAccount("account1")));
+        assertEquals(set("order3"), getOrderIDs(database.getOrdersByAccount("account2")));
+        assertTrue(database.getOrdersByAccount("account3").isEmpty());
+
+        assertEquals(set("order1", "order2"),
+                getOrderIDs(database.getOrdersByAuthorizationAndStatus("authz2", "pending")));
+        assertTrue(database.getOrdersByAuthorizationAndStatus("authz2", "valid").isEmpty());
+
+        // update order with a certificate and different authorizations
+        ACMEOrder order = createOrder("order1", "account1", "cert1", 1000, "authz3");
+        order.setStatus("valid");
+        database.updateOrder(order);
+
+        assertEquals(set("order2"),
+                getOrderIDs(database.getOrdersByAuthorizationAndStatus("authz2", "pending")));
+        assertEquals(set("order1"),
+                getOrderIDs(database.getOrdersByAuthorizationAndStatus("authz3", "valid")));
+        assertEquals("order1", database.getOrderByCertificate("cert1").getID());
+        assertNull(database.getOrderByCertificate("cert2"));
+    }
+
+    @Test
+    public void testRemoveExpiredOrders() throws Exception {
+
+        database.addOrder(createOrder("order1", "account1", "cert1", 1000, "authz1"));
+        database.addOrder(createOrder("order2", "account1", "cert2", 2000, "authz1"));
+        database.addOrder(createOrder("order3", "account1", "cert3", 3000, "authz1"));
+
+        database.removeExpiredOrders(new Date(2000));
+
+        assertNull(database.getOrder("order1"));
+        assertNull(database.getOrder("order2"));
+        assertNotNull(database.getOrder("order3"));
+
+        // the indexes no longer return the removed orders
+        assertEquals(set("order3"), getOrderIDs(database.getOrdersByAccount("account1")));
+        assertEquals(set("order3"),
+                getOrderIDs(database.getOrdersByAuthorizationAndStatus("authz1", "pending")));
+        assertNull(database.getOrderByCertificate("cert1"));
+        assertEquals("order3", database.getOrderByCertificate("cert3").getID());
+    }
+
+    @Test
+    public void testAuthorizationIndexes() throws Exception {
+
+        database.addAuthorization(createAuthorization("authz1", "account1", 1000, "chall1", "chall2"));
+        database.addAuthorization(createAuthorization("authz2", "account1", 2000, "chall3"));
+
+        assertEquals("authz1", database.getAuthorizationByChallenge("chall2").getID());
+        assertEquals("authz2", database.getAuthorizationByChallenge("chall3").getID());
+        assertNull(database.getAuthorizationByChallenge("chall4"));
+
+        // only valid and unexpired authorizations can be used for revocation
+        assertTrue(database.getRevocationAuthorizations("account1", new Date(0)).isEmpty());
+
+        ACMEAuthorization authorization = createAuthorization("authz2", "account1", 2000, "chall4");
+        authorization.setStatus("valid");
+        database.updateAuthorization(authorization);
+
+        assertNull(database.getAuthorizationByChallenge("chall3"));
+        assertEquals("authz2", database.getAuthorizationByChallenge("chall4").getID());
+
+        assertEquals(1, database.getRevocationAuthorizations("account1", new Date(0)).size());
+        assertTrue(database.getRevocationAuthorizations("account1", new Date(2000)).isEmpty());
+        assertTrue(database.getRevocationAuthorizations("account2", new Date(0)).isEmpty());
+
+        database.removeExpiredAuthorizations(new Date(1000));
+
+        assertNull(database.getAuthorization("authz1"));
+        assertNull(database.getAuthorizationByChallenge("chall1"));
+        assertNotNull(database.getAuthorization("authz2"));
+    }
+
+    @Test
+    public void testRemoveExpiredNoncesAndCertificates() throws Exception {
+
+        for (int i = 1; i <= 3; i++) {
+
+            ACMENonce nonce = new ACMENonce();
+            nonce.setID("nonce" + i);
+            nonce.setExpirationTime(new Date(i * 1000));
+            database.addNonce(nonce);
+
+            ACMECertificate certificate = new ACMECertificate();
+            certificate.setExpirationTime(new Date(i * 1000));
+            database.addCertificate("cert" + i, certificate);
+        }
+
+        database.removeExpiredNonces(new Date(1000));
+        database.removeExpiredCertificates(new Date(2000));
+
+        assertNull(database.removeNonce("nonce1"));
+        assertNotNull(database.removeNonce("nonce2"));
+
+        assertNull(database.getCertificate("cert1"));
+        assertNull(database.getCertificate("cert2"));
+        assertNotNull(database.getCertificate("cert3"));
+
+        // removing expired records again does not fail
+        database.removeExpiredNonces(new Date(Long.MAX_VALUE));
+        database.removeExpiredCertificates(new Date(Long.MAX_VALUE));
+
+        assertNull(database.removeNonce("nonce3"));
+        assertNull(database.getCertificate("cert3"));
+    }
+}
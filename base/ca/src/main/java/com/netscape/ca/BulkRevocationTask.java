@@ -0,0 +1,517 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.ca;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dogtagpki.server.ca.CAEngine;
+import org.mozilla.jss.netscape.security.x509.RevocationReason;
+import org.mozilla.jss.netscape.security.x509.X509CertImpl;
+
+import com.netscape.certsrv.base.EBaseException;
+import com.netscape.certsrv.base.SessionContext;
+import com.netscape.certsrv.ca.EErrorPublishCRL;
+import com.netscape.certsrv.cert.CertBulkRevokeStatus;
+import com.netscape.certsrv.logging.AuditFormat;
+import com.netscape.certsrv.logging.ILogger;
+import com.netscape.cms.servlet.cert.RevocationProcessor;
+import com.netscape.cmscore.dbs.CertRecord;
+import com.netscape.cmscore.dbs.CertificateRepository;
+import com.netscape.cmscore.request.Request;
+
+/**
+ * This class revokes a large number of certificates in the background.
+ *
+ * The certificates are grouped into batches. Each batch is submitted
+ * as a single revocation request (i.e. one request record and one pair
+ * of audit events per batch) and the batches are processed concurrently.
+ * The CRL update that would normally be triggered by each revocation
+ * request is deferred, and the CRLs are updated and published once
+ * after all batches have been processed.
+ *
+ * At most twice as many batches as there are threads are submitted
+ * at any time, so the search does not get ahead of the revocations
+ * and the pending batches do not accumulate in memory.
+ */
+public class BulkRevocationTask implements Runnable {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(BulkRevocationTask.class);
+
+    public static final int MAX_ERRORS = 100;
+    public static final int MIN_PAGE_SIZE = 100;
+
+    String id;
+    CertificateAuthority authority;
+    Locale locale;
+
+    List<BigInteger> serialNumbers = new ArrayList<>();
+    String filter;
+    int maxSize;
+    int timeLimit;
+
+    RevocationReason revocationReason;
+    Date invalidityDate;
+    String comments;
+
+    int batchSize = 100;
+    int threads = 4;
+
+    // the session context of the caller (e.g. audit subject),
+    // to be copied into the worker threads
+    Map<Object, Object> sessionValues;
+
+    CertBulkRevokeStatus status = new CertBulkRevokeStatus();
+    volatile boolean stopped;
+
+    public BulkRevocationTask(String id, CertificateAuthority authority, Locale locale) {
+        this.id = id;
+        this.authority = authority;
+        this.locale = locale;
+
+        status.setId(id);
+        status.setStatus(CertBulkRevokeStatus.RUNNING);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void addSerialNumber(BigInteger serialNumber) {
+        serialNumbers.add(serialNumber);
+    }
+
+    /**
+     * Sets the LDAP filter for the certificates to revoke.
+     * Only valid certificates matching the filter will be revoked.
+     */
+    public void setFilter(String filter, int maxSize, int timeLimit) {
+        this.filter = filter;
+        this.maxSize = maxSize;
+        this.timeLimit = timeLimit;
+    }
+
+    public void setRevocationReason(RevocationReason revocationReason) {
+        this.revocationReason = revocationReason;
+    }
+
+    public void setInvalidityDate(Date invalidityDate) {
+        this.invalidityDate = invalidityDate;
+    }
+
+    public void setComments(String comments) {
+        this.comments = comments;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize < 1 ? 1 : batchSize;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads < 1 ? 1 : threads;
+    }
+
+    public void setSessionValues(Map<Object, Object> sessionValues) {
+        this.sessionValues = sessionValues;
+    }
+
+    /**
+     * Returns a snapshot of the current progress.
+     */
+    public synchronized CertBulkRevokeStatus getStatus() {
+
+        CertBulkRevokeStatus copy = new CertBulkRevokeStatus();
+        copy.setId(status.getId());
+        copy.setStatus(status.getStatus());
+        copy.setTotal(status.getTotal());
+        copy.setProcessed(status.getProcessed());
+        copy.setRevoked(status.getRevoked());
+        copy.setFailed(status.getFailed());
+        copy.setStartTime(status.getStartTime());
+        copy.setEndTime(status.getEndTime());
+        copy.setCrlUpdated(status.getCrlUpdated());
+        copy.setErrors(status.getErrors());
+
+        return copy;
+    }
+
+    public synchronized boolean isRunning() {
+        return CertBulkRevokeStatus.RUNNING.equals(status.getStatus());
+    }
+
+    /**
+     * Stops submitting new batches. Batches that are already
+     * being processed will be completed.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    synchronized void addFound() {
+        status.setTotal(status.getTotal() + 1);
+    }
+
+    synchronized void addRevoked(int count) {
+        status.setProcessed(status.getProcessed() + count);
+        status.setRevoked(status.getRevoked() + count);
+    }
+
+    synchronized void addFailure(BigInteger serialNumber, String error) {
+
+        status.setProcessed(status.getProcessed() + 1);
+        status.setFailed(status.getFailed() + 1);
+
+        if (status.getErrors().size() < MAX_ERRORS) {
+            status.addError((serialNumber == null ? "" : "0x" + serialNumber.toString(16) + ": ") + error);
+        }
+    }
+
+    synchronized void addError(String error) {
+        if (status.getErrors().size() < MAX_ERRORS) {
+            status.addError(error);
+        }
+    }
+
+    synchronized void finish(String result) {
+        status.setStatus(result);
+        status.setEndTime(new Date());
+    }
+
+    RevocationProcessor createProcessor() throws EBaseException {
+
+        RevocationProcessor processor = new RevocationProcessor("caDoRevoke-agent", locale);
+        processor.setStartTime(new Date().getTime());
+        processor.setInitiative(AuditFormat.FROMAGENT);
+
+        processor.setRevocationReason(revocationReason);
+        processor.setRequestType(revocationReason == RevocationReason.CERTIFICATE_HOLD
+                ? RevocationProcessor.ON_HOLD : RevocationProcessor.REVOKE);
+        processor.setInvalidityDate(invalidityDate);
+        processor.setComments(comments);
+
+        processor.setAuthority(authority);
+
+        return processor;
+    }
+
+    @Override
+    public void run() {
+
+        logger.info("BulkRevocationTask: Starting bulk revocation " + id);
+
+        synchronized (this) {
+            status.setStartTime(new Date());
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "BulkRevocation-" + id + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // limits the number of pending batches
+        Semaphore permits = new Semaphore(threads * 2);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            CAEngine engine = CAEngine.getInstance();
+            CertificateRepository repo = engine.getCertificateRepository();
+            RevocationProcessor validator = createProcessor();
+
+            Set<BigInteger> found = new HashSet<>();
+            List<X509CertImpl> batch = new ArrayList<>();
+
+            for (BigInteger serialNumber : serialNumbers) {
+
+                if (stopped) break;
+                if (!found.add(serialNumber)) continue;
+
+                addFound();
+
+                try {
+                    CertRecord record = repo.readCertificateRecord(serialNumber);
+                    validator.validateCertificateToRevoke(null, record, false);
+                    batch.add(record.getCertificate());
+
+                } catch (Exception e) {
+                    logger.warn("BulkRevocationTask: Unable to revoke certificate 0x"
+                            + serialNumber.toString(16) + ": " + e.getMessage());
+                    addFailure(serialNumber, e.getMessage());
+                    continue;
+                }
+
+                if (batch.size() >= batchSize) {
+                    submit(executor, permits, futures, batch);
+                    batch = new ArrayList<>();
+                }
+            }
+
+            if (filter != null && !stopped) {
+
+                String searchFilter = "(&(" + CertRecord.ATTR_CERT_STATUS + "=" + CertRecord.STATUS_VALID + ")" + filter + ")";
+                logger.info("BulkRevocationTask: Searching for certificates: " + searchFilter);
+
+                // retrieve the records page by page in serial number order
+                // instead of loading all matching records at once
+                int pageSize = Math.max(batchSize, MIN_PAGE_SIZE);
+                int remaining = maxSize;
+                BigInteger start = null;
+
+                while (remaining > 0 && !stopped) {
+
+                    String pageFilter = searchFilter;
+                    if (start != null) {
+                        pageFilter = "(&" + searchFilter + "(" + CertRecord.ATTR_ID + ">=" + start + "))";
+                    }
+
+                    int size = Math.min(pageSize, remaining);
+                    Enumeration<CertRecord> records = repo.searchCertificates(pageFilter, size, timeLimit, "serialno");
+
+                    int count = 0;
+                    while (records.hasMoreElements() && !stopped) {
+
+                        CertRecord record = records.nextElement();
+                        if (record == null) continue;
+
+                        count++;
+                        BigInteger serialNumber = record.getSerialNumber();
+                        if (start == null || serialNumber.compareTo(start) >= 0) {
+                            start = serialNumber.add(BigInteger.ONE);
+                        }
+
+                        if (!found.add(serialNumber)) continue;
+
+                        addFound();
+
+                        try {
+                            validator.validateCertificateToRevoke(null, record, false);
+                            batch.add(record.getCertificate());
+
+                        } catch (Exception e) {
+                            logger.warn("BulkRevocationTask: Unable to revoke certificate 0x"
+                                    + serialNumber.toString(16) + ": " + e.getMessage());
+                            addFailure(serialNumber, e.getMessage());
+                            continue;
+                        }
+
+                        if (batch.size() >= batchSize) {
+                            submit(executor, permits, futures, batch);
+                            batch = new ArrayList<>();
+                        }
+                    }
+
+                    remaining -= count;
+                    if (count < size) break;
+                }
+            }
+
+            if (!batch.isEmpty() && !stopped) {
+                submit(executor, permits, futures, batch);
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // processBatch() does not throw, this should not happen
+                    logger.warn("BulkRevocationTask: " + e.getMessage(), e);
+                }
+            }
+
+            if (getStatus().getRevoked() > 0) {
+                updateCRLs(engine);
+            }
+
+            logger.info("BulkRevocationTask: Bulk revocation " + id + " completed: " + getStatus());
+            finish(stopped ? CertBulkRevokeStatus.FAILED : CertBulkRevokeStatus.COMPLETE);
+
+        } catch (InterruptedException e) {
+            logger.warn("BulkRevocationTask: Bulk revocation " + id + " interrupted");
+            Thread.currentThread().interrupt();
+            addError("Bulk revocation interrupted");
+            finish(CertBulkRevokeStatus.FAILED);
+
+        } catch (Exception e) {
+            logger.error("BulkRevocationTask: Bulk revocation " + id + " failed: " + e.getMessage(), e);
+            addError(e.getMessage());
+            finish(CertBulkRevokeStatus.FAILED);
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits a batch for processing. Blocks while the maximum number
+     * of batches is pending, and removes the completed batches from
+     * the list of pending batches.
+     */
+    void submit(
+            ExecutorService executor,
+            Semaphore permits,
+            List<Future<?>> futures,
+            List<X509CertImpl> batch) throws InterruptedException {
+
+        permits.acquire();
+
+        try {
+            futures.add(executor.submit(() -> {
+                try {
+                    processBatch(batch);
+                } finally {
+                    permits.release();
+                }
+            }));
+
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+
+        futures.removeIf(Future::isDone);
+    }
+
+    /**
+     * Revokes a batch of certificates with a single revocation request.
+     */
+    void processBatch(List<X509CertImpl> certs) {
+
+        SessionContext context = SessionContext.getContext();
+        if (sessionValues != null) {
+            context.putAll(sessionValues);
+        }
+
+        RevocationProcessor processor = null;
+
+        try {
+            processor = createProcessor();
+            processor.setDeferCRLUpdate(true);
+            processor.createCRLExtension();
+
+            for (X509CertImpl cert : certs) {
+                processor.addCertificateToRevoke(cert);
+            }
+
+            processor.createRevocationRequest();
+            processor.auditChangeRequest(ILogger.SUCCESS);
+
+        } catch (Exception e) {
+            logger.warn("BulkRevocationTask: Unable to pre-process revocation request: " + e.getMessage(), e);
+            if (processor != null && processor.getRequest() != null) {
+                processor.auditChangeRequest(ILogger.FAILURE);
+            }
+            for (X509CertImpl cert : certs) {
+                addFailure(cert.getSerialNumber(), e.getMessage());
+            }
+            SessionContext.releaseContext();
+            return;
+        }
+
+        String error = null;
+
+        try {
+            processor.processRevocationRequest();
+            processor.auditChangeRequestProcessed(ILogger.SUCCESS);
+
+        } catch (Exception e) {
+            logger.warn("BulkRevocationTask: Unable to process revocation request "
+                    + processor.getRequest().getRequestId() + ": " + e.getMessage(), e);
+            processor.auditChangeRequestProcessed(ILogger.FAILURE);
+            error = e.getMessage();
+
+        } finally {
+            SessionContext.releaseContext();
+        }
+
+        // the service reports the errors per certificate
+        String[] svcerrors = processor.getRequest().getExtDataInStringArray(Request.SVCERRORS);
+
+        if (error != null && svcerrors == null) {
+            for (X509CertImpl cert : certs) {
+                addFailure(cert.getSerialNumber(), error);
+            }
+            return;
+        }
+
+        int revoked = 0;
+        int i = 0;
+
+        for (X509CertImpl cert : certs) {
+            String svcerror = svcerrors == null || i >= svcerrors.length ? null : svcerrors[i];
+            if (svcerror == null) {
+                revoked++;
+            } else {
+                addFailure(cert.getSerialNumber(), svcerror);
+            }
+            i++;
+        }
+
+        addRevoked(revoked);
+    }
+
+    /**
+     * Updates and publishes the CRLs once for all revoked certificates.
+     * Like RevocationRequestListener, only the CRL issuing points that
+     * are configured to update the CRL on every revocation are updated,
+     * the others will include the certificates in the next scheduled
+     * update.
+     */
+    void updateCRLs(CAEngine engine) {
+
+        boolean updated = true;
+
+        for (CRLIssuingPoint ip : engine.getCRLIssuingPoints()) {
+
+            if (ip == null || !ip.isCRLIssuingPointEnabled() || !ip.getAlwaysUpdate()) continue;
+
+            logger.info("BulkRevocationTask: Updating CRL in " + ip.getId());
+
+            try {
+                ip.updateCRLNow();
+
+            } catch (EErrorPublishCRL e) {
+                // error already logged in updateCRLNow()
+                addError("Unable to publish CRL " + ip.getId() + ": " + e.getMessage());
+
+            } catch (Exception e) {
+                logger.warn("BulkRevocationTask: Unable to update CRL " + ip.getId() + ": " + e.getMessage(), e);
+                addError("Unable to update CRL " + ip.getId() + ": " + e.getMessage());
+                updated = false;
+            }
+        }
+
+        synchronized (this) {
+            status.setCrlUpdated(updated);
+        }
+    }
+}
@@ -26,9 +26,12 @@ import java.security.Principal;
 import java.security.cert.CRLException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.Collection;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Vector;
 
 import org.dogtagpki.ct.CTEngine;
@@ -1013,6 +1016,128 @@ public class CAService implements IService {
     public void revokeCert(RevokedCertImpl crlentry, String requestId)
             throws EBaseException {
 
+        CAEngine engine = CAEngine.getInstance();
+        BigInteger serialno = crlentry.getSerialNumber();
+
+        CertRecord certRec = markAsRevoked(crlentry);
+
+        try {
+            // inform all CRLIssuingPoints about revoked certificate
+
+            for (CRLIssuingPoint ip : engine.getCRLIssuingPoints()) {
+                if (ip != null && isIncluded(ip, certRec)) {
+                    ip.addRevokedCert(serialno, crlentry, requestId);
+                }
+            }
+        } catch (EBaseException e) {
+            String message = CMS.getLogMessage("CMSCORE_CA_ERROR_REVOCATION", serialno.toString(), e.toString());
+            logger.error("CAService.revokeCert:" + message, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Marks multiple certificate records as revoked, then updates the
+     * CRL cache of each CRLIssuingPoint once for all certificates.
+     *
+     * @param crlentries revocation information obtained from revocation request
+     * @param requestId revocation request id
+     * @return errors for certificates that could not be revoked
+     *         (indexed like the entries), or null if there are no errors
+     * @exception EBaseException failed to mark certificate record as revoked
+     */
+    public String[] revokeCerts(RevokedCertImpl[] crlentries, String requestId)
+            throws EBaseException {
+
+        CAEngine engine = CAEngine.getInstance();
+        Collection<CRLIssuingPoint> ips = engine.getCRLIssuingPoints();
+
+        Map<CRLIssuingPoint, Map<BigInteger, RevokedCertImpl>> revokedCerts = new LinkedHashMap<>();
+        for (CRLIssuingPoint ip : ips) {
+            if (ip != null) {
+                revokedCerts.put(ip, new LinkedHashMap<>());
+            }
+        }
+
+        String[] svcerrors = null;
+
+        try {
+            for (int i = 0; i < crlentries.length; i++) {
+
+                RevokedCertImpl crlentry = crlentries[i];
+                BigInteger serialno = crlentry.getSerialNumber();
+
+                CertRecord certRec;
+                try {
+                    certRec = markAsRevoked(crlentry);
+
+                } catch (ECAException e) {
+                    logger.error(CMS.getLogMessage("CMSCORE_CA_CANNOT_REVOKE", Integer.toString(i),
+                            requestId, e.toString()), e);
+                    if (svcerrors == null) {
+                        svcerrors = new String[crlentries.length];
+                    }
+                    svcerrors[i] = e.toString();
+                    continue;
+                }
+
+                for (Map.Entry<CRLIssuingPoint, Map<BigInteger, RevokedCertImpl>> entry : revokedCerts.entrySet()) {
+                    if (isIncluded(entry.getKey(), certRec)) {
+                        entry.getValue().put(serialno, crlentry);
+                    }
+                }
+            }
+
+        } finally {
+            // update the CRL caches even if the revocation was
+            // interrupted since some records were already revoked
+            for (Map.Entry<CRLIssuingPoint, Map<BigInteger, RevokedCertImpl>> entry : revokedCerts.entrySet()) {
+                Map<BigInteger, RevokedCertImpl> certs = entry.getValue();
+                if (!certs.isEmpty()) {
+                    entry.getKey().addRevokedCerts(certs, requestId);
+                }
+            }
+        }
+
+        return svcerrors;
+    }
+
+    /**
+     * Returns true if the revoked certificate should be
+     * included in the CRL of the CRLIssuingPoint.
+     */
+    boolean isIncluded(CRLIssuingPoint ip, CertRecord certRec) throws EBaseException {
+
+        boolean b = true;
+
+        if (ip.isCACertsOnly()) {
+            X509CertImpl cert = certRec.getCertificate();
+
+            if (cert != null)
+                b = cert.getBasicConstraintsIsCA();
+        }
+        if (ip.isProfileCertsOnly()) {
+            MetaInfo metaInfo = certRec.getMetaInfo();
+            if (metaInfo != null) {
+                String profileId = (String) metaInfo.get("profileId");
+                if (profileId != null) {
+                    b = ip.checkCurrentProfile(profileId);
+                }
+            }
+        }
+
+        return b;
+    }
+
+    /**
+     * Marks certificate record as revoked by adding revocation information.
+     *
+     * @param crlentry revocation information obtained from revocation request
+     * @return the certificate record
+     * @exception EBaseException failed to mark certificate record as revoked
+     */
+    CertRecord markAsRevoked(RevokedCertImpl crlentry) throws EBaseException {
+
         CAEngine engine = CAEngine.getInstance();
         CertificateRepository cr = engine.getCertificateRepository();
 
@@ -1104,37 +1229,13 @@ public class CAService implements IService {
             logger.info(CMS.getLogMessage("CMSCORE_CA_CERT_REVOKED",
                     serialno.toString(16)));
 
-            // inform all CRLIssuingPoints about revoked certificate
-
-            for (CRLIssuingPoint ip : engine.getCRLIssuingPoints()) {
-                if (ip != null) {
-                    boolean b = true;
-
-                    if (ip.isCACertsOnly()) {
-                        X509CertImpl cert = certRec.getCertificate();
-
-                        if (cert != null)
-                            b = cert.getBasicConstraintsIsCA();
-                    }
-                    if (ip.isProfileCertsOnly()) {
-                        MetaInfo metaInfo = certRec.getMetaInfo();
-                        if (metaInfo != null) {
-                            String profileId = (String) metaInfo.get("profileId");
-                            if (profileId != null) {
-                                b = ip.checkCurrentProfile(profileId);
-                            }
-                        }
-                    }
-                    if (b)
-                        ip.addRevokedCert(serialno, crlentry, requestId);
-                }
-            }
         } catch (EBaseException e) {
             String message = CMS.getLogMessage("CMSCORE_CA_ERROR_REVOCATION", serialno.toString(), e.toString());
             logger.error(method + ":" + message, e);
             throw e;
         }
-        return;
+
+        return certRec;
     }
 
     /**
@@ -1778,21 +1879,12 @@ class serviceRevoke implements IServant {
 
         RevokedCertImpl revokedCerts[] =
                 new RevokedCertImpl[crlentries.length];
-        String svcerrors[] = null;
+
+        // revoke all certs in the request, then update the CRL caches once
+        String svcerrors[] = mService.revokeCerts(crlentries, request.getRequestId().toString());
 
         for (int i = 0; i < crlentries.length; i++) {
-            try {
-                mService.revokeCert(crlentries[i], request.getRequestId().toString());
-                revokedCerts[i] = crlentries[i];
-            } catch (ECAException e) {
-                logger.error(CMS.getLogMessage("CMSCORE_CA_CANNOT_REVOKE", Integer.toString(i), request
-                        .getRequestId().toString(), e.toString()), e);
-                revokedCerts[i] = null;
-                if (svcerrors == null) {
-                    svcerrors = new String[revokedCerts.length];
-                }
-                svcerrors[i] = e.toString();
-            }
+            revokedCerts[i] = svcerrors != null && svcerrors[i] != null ? null : crlentries[i];
         }
 
         // #605941 - request.get(Request.CERT_INFO) store exact same thing
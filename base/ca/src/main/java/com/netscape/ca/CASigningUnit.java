@@ -18,6 +18,8 @@
 package com.netscape.ca;
 
 import java.security.SignatureException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.mozilla.jss.CryptoManager;
 import org.mozilla.jss.NoSuchTokenException;
@@ -50,6 +52,21 @@ public final class CASigningUnit extends SigningUnit {
 
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CASigningUnit.class);
 
+    // idle signature contexts per algorithm
+    private SignerPool<SignatureAlgorithm, Signature> mSigners;
+    private AtomicLong mCreatedSigners = new AtomicLong();
+
+    // number of signatures between stats log messages
+    private int mStatsInterval;
+
+    // limits concurrent signing operations to the token capacity
+    private Semaphore mSessions;
+
+    private AtomicLong mSignCount = new AtomicLong();
+    private AtomicLong mSignTime = new AtomicLong();
+    private AtomicLong mMaxSignTime = new AtomicLong();
+    private AtomicLong mWaitTime = new AtomicLong();
+
     public CASigningUnit() {
     }
 
@@ -116,6 +133,17 @@ public final class CASigningUnit extends SigningUnit {
             mDefSigningAlgorithm = checkSigningAlgorithmFromName(mDefSigningAlgname);
             logger.debug("SigningUnit: signing algorithm: " + mDefSigningAlgorithm);
 
+            int signerPoolSize = config.getSignerPoolSize();
+            logger.debug("SigningUnit: signer pool size: " + signerPoolSize);
+            mSigners = new SignerPool<>(signerPoolSize);
+
+            mStatsInterval = config.getStatsInterval();
+            logger.debug("SigningUnit: stats interval: " + mStatsInterval);
+
+            int maxSessions = config.getMaxSessions();
+            logger.debug("SigningUnit: max sessions: " + (maxSessions > 0 ? maxSessions : "unlimited"));
+            mSessions = maxSessions > 0 ? new Semaphore(maxSessions, true) : null;
+
             mInited = true;
 
         } catch (java.security.cert.CertificateException e) {
@@ -158,31 +186,154 @@ public final class CASigningUnit extends SigningUnit {
             signAlg = checkSigningAlgorithmFromName(algname);
         }
 
-        // XXX use a pool of signers based on alg ?
-        // XXX Map algor. name to id. hack: use hardcoded define for now.
-        logger.info("CASigningUnit: Getting algorithm context for " + algname + " " + signAlg);
-        Signature signer = mToken.getSignatureContext(signAlg);
+        long waitStart = System.nanoTime();
+        if (mSessions != null) {
+            mSessions.acquire();
+        }
 
-        signer.initSign(mPrivk);
-        signer.update(data);
+        try {
+            long start = System.nanoTime();
+            mWaitTime.addAndGet(start - waitStart);
+
+            Signature signer = getSigner(signAlg);
+            boolean reusable = false;
+
+            try {
+                signer.update(data);
+
+                /* debugging
+                boolean testAutoShutdown = false;
+                testAutoShutdown = mConfig.getBoolean("autoShutdown.test", false);
+                if (testAutoShutdown) {
+                    logger.debug("SigningUnit.sign: test auto shutdown");
+                    CMS.checkForAndAutoShutdown();
+                }
+                */
+
+                logger.info("CASigningUnit: Signing Certificate");
 
-        /* debugging
-        boolean testAutoShutdown = false;
-        testAutoShutdown = mConfig.getBoolean("autoShutdown.test", false);
-        if (testAutoShutdown) {
-            logger.debug("SigningUnit.sign: test auto shutdown");
-            CMS.checkForAndAutoShutdown();
+                boolean testSignatureFailure = mConfig.getTestSignatureFailure();
+                if (testSignatureFailure) {
+                    throw new SignatureException("SignatureException forced for testing");
+                }
+
+                byte[] signature = signer.sign();
+                reusable = true;
+
+                return signature;
+
+            } finally {
+                // only return contexts in a known state to the pool
+                if (reusable) {
+                    mSigners.release(signAlg, signer);
+                }
+                updateStats(System.nanoTime() - start);
+            }
+
+        } finally {
+            if (mSessions != null) {
+                mSessions.release();
+            }
         }
-        */
+    }
+
+    /**
+     * Returns a signature context initialized for signing, reusing
+     * an idle context for the algorithm if available.
+     */
+    private Signature getSigner(SignatureAlgorithm signAlg) throws Exception {
+
+        Signature signer = mSigners.get(signAlg);
+
+        if (signer != null) {
+            // sign() leaves the context initialized with the same key
+            return signer;
+        }
+
+        logger.info("CASigningUnit: Getting algorithm context for " + signAlg);
+        signer = mToken.getSignatureContext(signAlg);
+        signer.initSign(mPrivk);
+        mCreatedSigners.incrementAndGet();
 
-        logger.info("CASigningUnit: Signing Certificate");
+        return signer;
+    }
+
+    private void updateStats(long time) {
+
+        long count = mSignCount.incrementAndGet();
+        mSignTime.addAndGet(time);
+
+        long max = mMaxSignTime.get();
+        while (time > max && !mMaxSignTime.compareAndSet(max, time)) {
+            max = mMaxSignTime.get();
+        }
 
-        boolean testSignatureFailure = mConfig.getTestSignatureFailure();
-        if (testSignatureFailure) {
-            throw new SignatureException("SignatureException forced for testing");
+        if (mStatsInterval > 0 && count % mStatsInterval == 0) {
+            logger.info("CASigningUnit: " + mNickname + ": " + getStats());
         }
+    }
+
+    /**
+     * Returns the number of signatures generated by this unit.
+     */
+    public long getSignCount() {
+        return mSignCount.get();
+    }
+
+    /**
+     * Returns the average signing time in microseconds.
+     */
+    public long getAverageSignTime() {
+        long count = mSignCount.get();
+        return count == 0 ? 0 : mSignTime.get() / count / 1000;
+    }
+
+    /**
+     * Returns the maximum signing time in microseconds.
+     */
+    public long getMaxSignTime() {
+        return mMaxSignTime.get() / 1000;
+    }
+
+    /**
+     * Returns the average time spent waiting for a token session
+     * in microseconds.
+     */
+    public long getAverageWaitTime() {
+        long count = mSignCount.get();
+        return count == 0 ? 0 : mWaitTime.get() / count / 1000;
+    }
+
+    /**
+     * Returns the number of signature contexts created by this unit.
+     */
+    public long getCreatedSigners() {
+        return mCreatedSigners.get();
+    }
+
+    /**
+     * Returns the number of idle signature contexts in the pools.
+     */
+    public int getIdleSigners() {
+        return mSigners == null ? 0 : mSigners.getIdle();
+    }
+
+    /**
+     * Returns the number of signing operations waiting for
+     * a token session.
+     */
+    public int getWaitingSessions() {
+        return mSessions == null ? 0 : mSessions.getQueueLength();
+    }
 
-        return signer.sign();
+    public String getStats() {
+        return "signatures=" + getSignCount() +
+                ", avgTime=" + getAverageSignTime() + "us" +
+                ", maxTime=" + getMaxSignTime() + "us" +
+                ", avgWait=" + getAverageWaitTime() + "us" +
+                ", createdSigners=" + getCreatedSigners() +
+                ", idleSigners=" + getIdleSigners() +
+                ", waiting=" + getWaitingSessions();
     }
 
     @Override
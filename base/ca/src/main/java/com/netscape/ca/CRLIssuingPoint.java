@@ -371,6 +371,13 @@ public class CRLIssuingPoint implements Runnable {
     private boolean mPublishOnStart = false;
     private long[] mSplits = new long[10];
 
+    /**
+     * Keep the latest encoded CRLs in memory for distribution.
+     */
+    private boolean mEnableDistributionCache = true;
+    private volatile CRLSnapshot mCRLSnapshot;
+    private volatile CRLSnapshot mDeltaCRLSnapshot;
+
     private boolean mSaveMemory = false;
 
     /**
@@ -836,6 +843,8 @@ public class CRLIssuingPoint implements Runnable {
         // check if CRL generation is enabled
         mEnableCRLUpdates = config.getEnableCRLUpdates();
 
+        mEnableDistributionCache = config.getEnableDistributionCache();
+
         // get update schema
         mUpdateSchema = config.getUpdateSchema();
         mSchemaCounter = 0;
@@ -999,6 +1008,8 @@ public class CRLIssuingPoint implements Runnable {
                 mNextDeltaUpdate = (mNextUpdate != null) ? new Date(mNextUpdate.getTime()) : null;
             }
 
+            initCRLSnapshots(crlRecord);
+
             mFirstUnsaved = crlRecord.getFirstUnsaved();
             logger.debug("initCRL  CRLNumber=" + mCRLNumber.toString() + "  CRLSize=" + mCRLSize +
                             "  FirstUnsaved=" + mFirstUnsaved);
@@ -1449,6 +1460,65 @@ public class CRLIssuingPoint implements Runnable {
         }
     }
 
+    private void initCRLSnapshots(CRLIssuingPointRecord crlRecord) {
+
+        // the CRLs are only kept in memory if they are generated here,
+        // otherwise (e.g. on clones) the database has the latest CRLs
+        if (!mEnableDistributionCache || !mEnableCRLUpdates) {
+            return;
+        }
+
+        byte[] crl = crlRecord.getCRL();
+        if (crl != null) {
+            mCRLSnapshot = new CRLSnapshot(
+                    crl,
+                    crlRecord.getCRLNumber(),
+                    crlRecord.getThisUpdate(),
+                    crlRecord.getNextUpdate());
+        }
+
+        byte[] deltaCRL = crlRecord.getDeltaCRL();
+        if (deltaCRL != null && crlRecord.getDeltaCRLNumber() != null) {
+            // the delta CRL record does not keep its thisUpdate
+            mDeltaCRLSnapshot = new CRLSnapshot(
+                    deltaCRL,
+                    crlRecord.getDeltaCRLNumber(),
+                    crlRecord.getThisUpdate(),
+                    crlRecord.getNextUpdate());
+        }
+    }
+
+    /**
+     * Returns the latest full CRL kept in memory for
+     * distribution, or null if not available.
+     */
+    public CRLSnapshot getCRLSnapshot() {
+        if (!mEnableDistributionCache || !mEnableCRLUpdates) {
+            return null;
+        }
+        return mCRLSnapshot;
+    }
+
+    /**
+     * Returns the current delta CRL kept in memory for
+     * distribution, or null if not available.
+     */
+    public CRLSnapshot getDeltaCRLSnapshot() {
+
+        if (!mEnableDistributionCache || !mEnableCRLUpdates) {
+            return null;
+        }
+
+        CRLSnapshot snapshot = mDeltaCRLSnapshot;
+
+        // make sure the delta CRL is still current
+        if (snapshot == null || !snapshot.getNumber().equals(getDeltaCRLNumber())) {
+            return null;
+        }
+
+        return snapshot;
+    }
+
     /**
      * This method is called during shutdown.
      * It updates CRL cache and stops thread controlling CRL updates.
@@ -1460,6 +1530,9 @@ public class CRLIssuingPoint implements Runnable {
         }
         mEnable = false;
 
+        mCRLSnapshot = null;
+        mDeltaCRLSnapshot = null;
+
         setAutoUpdates();
         /*
         if (mUpdateThread != null) {
@@ -2538,6 +2611,45 @@ public class CRLIssuingPoint implements Runnable {
         }
     }
 
+    /**
+     * Adds multiple revoked certificates to delta-CRL cache.
+     * The cache is stored into the repository once for all
+     * certificates instead of once per certificate.
+     *
+     * @param revokedCerts revocation information supplied by revocation request
+     *            keyed by serial number
+     * @param requestId revocation request id
+     */
+    public void addRevokedCerts(Map<BigInteger, RevokedCertImpl> revokedCerts, String requestId) {
+
+        if (!mEnable || !mEnableCRLCache) {
+            return;
+        }
+
+        CertRecordProcessor cp = new CertRecordProcessor(mCRLCerts, this, mAllowExtensions);
+        int count = 0;
+
+        for (Map.Entry<BigInteger, RevokedCertImpl> entry : revokedCerts.entrySet()) {
+            RevokedCertImpl revokedCert = entry.getValue();
+            if (!cp.checkRevokedCertExtensions(revokedCert.getExtensions())) {
+                continue;
+            }
+            updateRevokedCert(REVOKED_CERT, entry.getKey(), revokedCert, requestId);
+            count++;
+        }
+
+        logger.debug("CRLIssuingPoint: Added " + count + " revoked certs into " + mId + " cache");
+
+        if (count > 0 && mCacheUpdateInterval == 0) {
+            try {
+                mCRLRepository.updateRevokedCerts(mId, mRevokedCerts, mUnrevokedCerts);
+                mFirstUnsaved = CRLIssuingPointRecord.CLEAN_CACHE;
+            } catch (EBaseException e) {
+                logger.warn(CMS.getLogMessage("CMSCORE_CA_ISSUING_STORE_REVOKED_CERT", mId, e.toString()), e);
+            }
+        }
+    }
+
     /**
      * Adds unrevoked certificate to delta-CRL cache.
      *
@@ -3109,6 +3221,11 @@ public class CRLIssuingPoint implements Runnable {
 
             mDeltaCRLSize = deltaCRLCerts.size();
 
+            if (mEnableDistributionCache) {
+                mDeltaCRLSnapshot = new CRLSnapshot(
+                        newDeltaCRL, mNextDeltaCRLNumber, thisUpdate, mNextDeltaUpdate);
+            }
+
             long totalTime = 0;
             StringBuffer splitTimes = new StringBuffer("  (");
             for (int i = 1; i < mSplits.length && i < 5; i++) {
@@ -3246,6 +3363,10 @@ public class CRLIssuingPoint implements Runnable {
             mNextCRLNumber = mCRLNumber.add(BigInteger.ONE);
             mNextDeltaCRLNumber = mNextCRLNumber;
 
+            if (mEnableDistributionCache) {
+                mCRLSnapshot = new CRLSnapshot(newCRL, mCRLNumber, thisUpdate, nextUpdateDate);
+            }
+
             logger.debug("CRLIssuingPoint: Logging CRL Update to transaction log");
             long totalTime = 0;
             long crlTime = 0;
@@ -113,6 +113,14 @@ public class CRLIssuingPointConfig extends ConfigStore {
         putBoolean("enableCRLUpdates", enableCRLUpdates);
     }
 
+    public boolean getEnableDistributionCache() throws EBaseException {
+        return getBoolean("enableDistributionCache", true);
+    }
+
+    public void setEnableDistributionCache(boolean enableDistributionCache) {
+        putBoolean("enableDistributionCache", enableDistributionCache);
+    }
+
     public boolean getEnableCacheTesting() throws EBaseException {
         return getBoolean("enableCacheTesting", false);
     }
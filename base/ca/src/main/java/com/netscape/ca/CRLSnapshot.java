@@ -0,0 +1,99 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.ca;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.Date;
+
+/**
+ * This class keeps the encoded form of the latest full or delta CRL
+ * of a CRL issuing point in memory so that it can be served to
+ * relying parties without reading it from the database.
+ * The snapshot is immutable; CRLIssuingPoint replaces it after
+ * each CRL update.
+ */
+public class CRLSnapshot {
+
+    private byte[] data;
+    private BigInteger number;
+    private Date thisUpdate;
+    private Date nextUpdate;
+    private String etag;
+
+    public CRLSnapshot(byte[] data, BigInteger number, Date thisUpdate, Date nextUpdate) {
+        this.data = data;
+        this.number = number;
+        this.thisUpdate = thisUpdate;
+        this.nextUpdate = nextUpdate;
+
+        // the CRL number and the update time identify the CRL content
+        long time = thisUpdate == null ? 0 : thisUpdate.getTime();
+        this.etag = "\"" + number.toString(16) + "-" + Long.toHexString(time) + "\"";
+    }
+
+    public BigInteger getNumber() {
+        return number;
+    }
+
+    public Date getThisUpdate() {
+        return thisUpdate;
+    }
+
+    public Date getNextUpdate() {
+        return nextUpdate;
+    }
+
+    public int getSize() {
+        return data.length;
+    }
+
+    /**
+     * Returns the entity tag of the CRL for HTTP conditional requests.
+     */
+    public String getETag() {
+        return etag;
+    }
+
+    /**
+     * Returns the last modification time for HTTP conditional
+     * requests, i.e. the thisUpdate time truncated to seconds.
+     */
+    public long getLastModified() {
+        if (thisUpdate == null) return -1;
+        return thisUpdate.getTime() / 1000 * 1000;
+    }
+
+    /**
+     * Returns the number of seconds the CRL can be cached by
+     * clients, i.e. until the next update.
+     */
+    public long getMaxAge(long now) {
+        if (nextUpdate == null) return 0;
+        long maxAge = (nextUpdate.getTime() - now) / 1000;
+        return maxAge < 0 ? 0 : maxAge;
+    }
+
+    /**
+     * Writes the encoded CRL without copying it.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(data);
+    }
+}
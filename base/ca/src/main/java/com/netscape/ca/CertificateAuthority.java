@@ -488,6 +488,18 @@ public class CertificateAuthority implements IAuthority, ICertificateAuthority,
      */
     @Override
     public void shutdown() {
+
+        if (mSigningUnit != null) {
+            logger.info("CertificateAuthority: Signing unit stats: " + mSigningUnit.getStats());
+        }
+
+        if (mCRLSigningUnit != null && mCRLSigningUnit != mSigningUnit) {
+            logger.info("CertificateAuthority: CRL signing unit stats: " + mCRLSigningUnit.getStats());
+        }
+
+        if (mOCSPSigningUnit != null && mOCSPSigningUnit != mSigningUnit) {
+            logger.info("CertificateAuthority: OCSP signing unit stats: " + mOCSPSigningUnit.getStats());
+        }
     }
 
     /**
@@ -1559,7 +1571,7 @@ public class CertificateAuthority implements IAuthority, ICertificateAuthority,
             OCSPResponse response = new OCSPResponse(
                     OCSPResponseStatus.SUCCESSFUL,
                     new ResponseBytes(ResponseBytes.OCSP_BASIC,
-                            new OCTET_STRING(ASN1Util.encode(basicRes))));
+                            new OCTET_STRING(basicRes.getEncoded())));
 
             //logger.info("done OCSP request");
             long endTime = new Date().getTime();
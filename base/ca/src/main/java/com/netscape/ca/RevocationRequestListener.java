@@ -78,6 +78,11 @@ public class RevocationRequestListener implements IRequestListener {
             }
         }
 
+        if (crlIssuingPoint.mAlwaysUpdate && r.getExtDataInBoolean(Request.DEFER_CRL_UPDATE, false)) {
+            logger.info("RevocationRequestListener: Deferring CRL update in " + crlIssuingPoint.getId());
+            return;
+        }
+
         if (crlIssuingPoint.mAlwaysUpdate) {
 
             logger.info("RevocationRequestListener: Updating CRL in " + crlIssuingPoint.getId());
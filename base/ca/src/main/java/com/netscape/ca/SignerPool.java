@@ -0,0 +1,82 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.ca;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * This class keeps idle signature contexts per algorithm so they
+ * can be reused by subsequent signing operations. At most maxSize
+ * idle contexts are kept per algorithm, additional contexts are
+ * dropped when they are released.
+ *
+ * @param <K> algorithm
+ * @param <S> signature context
+ */
+public class SignerPool<K, S> {
+
+    private Map<K, BlockingQueue<S>> pools = new ConcurrentHashMap<>();
+    private int maxSize;
+
+    public SignerPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns an idle context for the algorithm, or null if there
+     * is none. The caller then has to create a new context.
+     */
+    public S get(K algorithm) {
+        BlockingQueue<S> pool = pools.get(algorithm);
+        return pool == null ? null : pool.poll();
+    }
+
+    /**
+     * Returns a context to the pool.
+     *
+     * @return true if the context was kept, false if it was dropped
+     */
+    public boolean release(K algorithm, S signer) {
+
+        if (maxSize <= 0) return false;
+
+        BlockingQueue<S> pool = pools.computeIfAbsent(
+                algorithm,
+                k -> new LinkedBlockingQueue<>(maxSize));
+
+        return pool.offer(signer);
+    }
+
+    /**
+     * Returns the number of idle contexts for all algorithms.
+     */
+    public int getIdle() {
+        int count = 0;
+        for (BlockingQueue<S> pool : pools.values()) {
+            count += pool.size();
+        }
+        return count;
+    }
+}
@@ -19,7 +19,7 @@ package com.netscape.cms.jobs;
 
 import java.text.DateFormat;
 import java.util.Date;
-import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.dogtagpki.server.ca.CAEngine;
 import org.mozilla.jss.netscape.security.x509.X509CertImpl;
@@ -85,7 +85,10 @@ public class PublishCertsJob extends AJobBase
                     "summary.emailTemplate",
                     "summary.itemTemplate",
                     "summary.senderEmail",
-                    "summary.recipientEmail"
+                    "summary.recipientEmail",
+                    "pageSize",
+                    "threads",
+                    "checkpointInterval"
         };
 
     @Override
@@ -108,6 +111,12 @@ public class PublishCertsJob extends AJobBase
                         "template file of email to be sent",
                 "summary.itemTemplate;string;Fully qualified pathname of " +
                         "file containing template for each item",
+                "pageSize;integer;Number of certificate records retrieved " +
+                        "from the database at a time",
+                "threads;integer;Number of certificate records processed " +
+                        "concurrently when the summary is disabled",
+                "checkpointInterval;integer;Minimum number of seconds between " +
+                        "checkpoints of an interrupted run",
                 IExtendedPluginInfo.HELP_TOKEN +
                         ";configuration-jobrules-unpublishexpiredjobs",
             };
@@ -178,194 +187,193 @@ public class PublishCertsJob extends AJobBase
                 "(!(certMetainfo=" + CertRecord.META_LDAPPUBLISH +
                         ":true))";
 
-        Enumeration<Object> unpublishedCerts = null;
-
-        try {
-            unpublishedCerts = mRepository.findCertRecs(filter);
-            // bug 399150
-            /*
-             CertRecordList list = null;
-             list = mRepository.findCertRecordsInList(filter,  null, "serialno", 5);
-             int size = list.getSize();
-             expired = list.getCertRecords(0, size - 1);
-             */
-        } catch (EBaseException e) {
-            logger.warn("PublishCertsJob: " + CMS.getLogMessage("OPERATION_ERROR", e.toString()), e);
-        }
-
-        int count = 0; // how many have been published successfully
-        int negCount = 0; // how many have NOT been published successfully
+        AtomicInteger count = new AtomicInteger(); // how many have been published successfully
+        AtomicInteger negCount = new AtomicInteger(); // how many have NOT been published successfully
         String contentForm = null;
         String itemForm = null;
-        String itemListContent = null;
+        StringBuilder itemListContent = new StringBuilder();
 
         if (mSummary == true) {
             contentForm = getTemplateContent(mMailForm);
             itemForm = getTemplateContent(mItemForm);
         }
 
+        String itemTemplate = itemForm;
+
         // filter out the invalid ones and publish them
         // publish() will set inLdapPublishDir flag
-        while (unpublishedCerts != null && unpublishedCerts.hasMoreElements()) {
-            CertRecord rec = (CertRecord) unpublishedCerts.nextElement();
+        // the summary items are built sequentially in shared parameters,
+        // so the records are only processed in parallel without summary
+        try {
+            processCertRecords(mRepository, filter, !mSummary, rec -> {
+
+                if (!processCertRecord(rec, date, count, negCount))
+                    return;
+
+                // if summary is enabled, form the item content
+                if (mSummary) {
+                    EmailFormProcessor emailItemFormProcessor = new EmailFormProcessor();
+                    String c = emailItemFormProcessor.getEmailContent(itemTemplate,
+                            mItemParams);
 
-            if (rec == null)
-                break;
-            X509CertImpl cert = rec.getCertificate();
-            Date notAfter = cert.getNotAfter();
+                    // add item content to the item list
+                    itemListContent.append(c);
+                }
+            });
 
-            // skip CA certs
-            if (cert.getBasicConstraintsIsCA() == true)
-                continue;
+        } catch (EBaseException e) {
+            logger.warn("PublishCertsJob: " + CMS.getLogMessage("OPERATION_ERROR", e.toString()), e);
+        }
 
-            // skip the expired certs
-            if (notAfter.before(date))
-                continue;
+        // time for summary
+        if (mSummary == true) {
+            buildContentParams(IEmailFormProcessor.TOKEN_ID,
+                    mId);
+            buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_ITEM_LIST,
+                    itemListContent.toString());
+            buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_TOTAL_NUM,
+                    String.valueOf(count.get() + negCount.get()));
+            buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_SUCCESS_NUM,
+                    String.valueOf(count.get()));
+            buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_FAILURE_NUM,
+                    String.valueOf(negCount.get()));
+            buildContentParams(IEmailFormProcessor.TOKEN_EXECUTION_TIME,
+                    nowString);
 
+            EmailFormProcessor emailFormProcessor = new EmailFormProcessor();
+            String mailContent =
+                    emailFormProcessor.getEmailContent(contentForm,
+                            mContentParams);
+
+            mailSummary(mailContent);
+        }
+    }
+
+    /**
+     * Publishes a single certificate record.
+     *
+     * @return false if the record was skipped
+     */
+    private boolean processCertRecord(CertRecord rec, Date date, AtomicInteger count, AtomicInteger negCount) {
+        X509CertImpl cert = rec.getCertificate();
+        Date notAfter = cert.getNotAfter();
+
+        // skip CA certs
+        if (cert.getBasicConstraintsIsCA() == true)
+            return false;
+
+        // skip the expired certs
+        if (notAfter.before(date))
+            return false;
+
+        if (mSummary == true)
+            buildItemParams(cert);
+
+        // get request id from cert record MetaInfo
+        MetaInfo minfo = null;
+
+        try {
+            minfo = (MetaInfo) rec.get(CertRecord.ATTR_META_INFO);
+        } catch (EBaseException e) {
+            negCount.incrementAndGet();
             if (mSummary == true)
-                buildItemParams(cert);
+                buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                        STATUS_FAILURE);
+            logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_META_INFO_ERROR",
+                            cert.getSerialNumber().toString(16) + e.getMessage()), e);
+        }
 
-            // get request id from cert record MetaInfo
-            MetaInfo minfo = null;
+        String ridString = null;
 
-            try {
-                minfo = (MetaInfo) rec.get(CertRecord.ATTR_META_INFO);
-            } catch (EBaseException e) {
-                negCount += 1;
-                if (mSummary == true)
-                    buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                            STATUS_FAILURE);
-                logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_META_INFO_ERROR",
-                                cert.getSerialNumber().toString(16) + e.getMessage()), e);
-            }
+        try {
+            if (minfo != null)
+                ridString = (String) minfo.get(CertRecord.META_REQUEST_ID);
+        } catch (EBaseException e) {
+            negCount.incrementAndGet();
+            if (mSummary == true)
+                buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                        STATUS_FAILURE);
+            logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
+                            cert.getSerialNumber().toString(16) + e.getMessage()), e);
+        } catch (NullPointerException e) {
+            // no requestId in MetaInfo...skip to next record
+            negCount.incrementAndGet();
+            if (mSummary == true)
+                buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                        STATUS_FAILURE);
+            logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
+                            cert.getSerialNumber().toString(16) + e.getMessage()), e);
+        }
+
+        if (ridString != null) {
+            RequestId rid = new RequestId(ridString);
 
-            String ridString = null;
+            // get request from request id
+            Request req = null;
 
             try {
-                if (minfo != null)
-                    ridString = (String) minfo.get(CertRecord.META_REQUEST_ID);
+                req = requestRepository.readRequest(rid);
+                if (req != null) {
+                    if (mSummary == true)
+                        buildItemParams(req);
+                }
             } catch (EBaseException e) {
-                negCount += 1;
+                negCount.incrementAndGet();
                 if (mSummary == true)
                     buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
                             STATUS_FAILURE);
-                logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
+                logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_FIND_REQUEST_ERROR",
                                 cert.getSerialNumber().toString(16) + e.getMessage()), e);
-            } catch (NullPointerException e) {
-                // no requestId in MetaInfo...skip to next record
-                negCount += 1;
+            }
+            try {
+                if ((mPublisherProcessor != null) &&
+                        mPublisherProcessor.isCertPublishingEnabled()) {
+                    mPublisherProcessor.publishCert(cert, req);
+                    if (mSummary == true)
+                        buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                                STATUS_SUCCESS);
+                    count.incrementAndGet();
+                } else {
+                    negCount.incrementAndGet();
+                }
+            } catch (Exception e) {
+                negCount.incrementAndGet();
                 if (mSummary == true)
                     buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
                             STATUS_FAILURE);
-                logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
+                logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_PUBLISH_ERROR",
                                 cert.getSerialNumber().toString(16) + e.getMessage()), e);
             }
-
-            if (ridString != null) {
-                RequestId rid = new RequestId(ridString);
-
-                // get request from request id
-                Request req = null;
-
-                try {
-                    req = requestRepository.readRequest(rid);
-                    if (req != null) {
-                        if (mSummary == true)
-                            buildItemParams(req);
-                    }
-                } catch (EBaseException e) {
-                    negCount += 1;
-                    if (mSummary == true)
-                        buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                                STATUS_FAILURE);
-                    logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_FIND_REQUEST_ERROR",
-                                    cert.getSerialNumber().toString(16) + e.getMessage()), e);
-                }
-                try {
-                    if ((mPublisherProcessor != null) &&
-                            mPublisherProcessor.isCertPublishingEnabled()) {
-                        mPublisherProcessor.publishCert(cert, req);
-                        if (mSummary == true)
-                            buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                                    STATUS_SUCCESS);
-                        count += 1;
-                    } else {
-                        negCount += 1;
-                    }
-                } catch (Exception e) {
-                    negCount += 1;
-                    if (mSummary == true)
-                        buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                                STATUS_FAILURE);
-                    logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_PUBLISH_ERROR",
-                                    cert.getSerialNumber().toString(16) + e.getMessage()), e);
-                }
-            } // ridString != null
-            else {
-                try {
-                    if ((mPublisherProcessor != null) &&
-                            mPublisherProcessor.isCertPublishingEnabled()) {
-                        mPublisherProcessor.publishCert(cert, null);
-
-                        if (mSummary == true)
-                            buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                                    STATUS_SUCCESS);
-                        count += 1;
-                    } else {
-                        negCount += 1;
-                    }
-                } catch (Exception e) {
-                    negCount += 1;
+        } // ridString != null
+        else {
+            try {
+                if ((mPublisherProcessor != null) &&
+                        mPublisherProcessor.isCertPublishingEnabled()) {
+                    mPublisherProcessor.publishCert(cert, null);
 
                     if (mSummary == true)
                         buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                                STATUS_FAILURE);
-
-                    logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_PUBLISH_ERROR",
-                                    cert.getSerialNumber().toString(16) + e.getMessage()), e);
+                                STATUS_SUCCESS);
+                    count.incrementAndGet();
+                } else {
+                    negCount.incrementAndGet();
                 }
-            } // ridString == null
+            } catch (Exception e) {
+                negCount.incrementAndGet();
 
-            // inLdapPublishDir flag should have been set by the
-            // publish() method
-
-            // if summary is enabled, form the item content
-            if (mSummary) {
-                EmailFormProcessor emailItemFormProcessor = new EmailFormProcessor();
-                String c = emailItemFormProcessor.getEmailContent(itemForm,
-                        mItemParams);
+                if (mSummary == true)
+                    buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                            STATUS_FAILURE);
 
-                // add item content to the item list
-                if (itemListContent == null) {
-                    itemListContent = c;
-                } else {
-                    itemListContent += c;
-                }
+                logger.warn("PublishCertsJob: " + CMS.getLogMessage("JOBS_PUBLISH_ERROR",
+                                cert.getSerialNumber().toString(16) + e.getMessage()), e);
             }
-        }
+        } // ridString == null
 
-        // time for summary
-        if (mSummary == true) {
-            buildContentParams(IEmailFormProcessor.TOKEN_ID,
-                    mId);
-            buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_ITEM_LIST,
-                    itemListContent);
-            buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_TOTAL_NUM,
-                    String.valueOf(count + negCount));
-            buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_SUCCESS_NUM,
-                    String.valueOf(count));
-            buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_FAILURE_NUM,
-                    String.valueOf(negCount));
-            buildContentParams(IEmailFormProcessor.TOKEN_EXECUTION_TIME,
-                    nowString);
-
-            EmailFormProcessor emailFormProcessor = new EmailFormProcessor();
-            String mailContent =
-                    emailFormProcessor.getEmailContent(contentForm,
-                            mContentParams);
+        // inLdapPublishDir flag should have been set by the
+        // publish() method
 
-            mailSummary(mailContent);
-        }
+        return true;
     }
 
     /**
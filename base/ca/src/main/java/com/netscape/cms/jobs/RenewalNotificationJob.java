@@ -20,7 +20,6 @@ package com.netscape.cms.jobs;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.util.Date;
-import java.util.Enumeration;
 import java.util.StringTokenizer;
 
 import org.dogtagpki.server.ca.CAEngine;
@@ -415,18 +414,16 @@ public class RenewalNotificationJob
                 //CertRecordList list = mCertDB.findCertRecordsInList(filter, null, "serialno", 5);
                 //list.processCertRecords(0, list.getSize() - 1, cp);
 
-                Enumeration<Object> en = mCertDB.findCertRecs(filter);
-
-                while (en.hasMoreElements()) {
-                    Object element = en.nextElement();
-
+                // the processor keeps the summary state, so the records
+                // are processed sequentially
+                processCertRecords(mCertDB, filter, false, element -> {
                     try {
                         cp.process(element);
                     } catch (Exception e) {
                         //Don't abort the entire operation. The error should already be logged
                         logger.warn("RenewalNotificationJob: " + CMS.getLogMessage("JOBS_FAILED_PROCESS", e.toString()), e);
                     }
-                }
+                });
 
                 // Now send the summary
 
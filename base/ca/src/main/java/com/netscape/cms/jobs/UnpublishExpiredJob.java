@@ -19,7 +19,7 @@ package com.netscape.cms.jobs;
 
 import java.text.DateFormat;
 import java.util.Date;
-import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.dogtagpki.server.ca.CAEngine;
 import org.mozilla.jss.netscape.security.x509.X509CertImpl;
@@ -83,7 +83,10 @@ public class UnpublishExpiredJob extends AJobBase
                     "summary.emailTemplate",
                     "summary.itemTemplate",
                     "summary.senderEmail",
-                    "summary.recipientEmail"
+                    "summary.recipientEmail",
+                    "pageSize",
+                    "threads",
+                    "checkpointInterval"
         };
 
     @Override
@@ -106,6 +109,12 @@ public class UnpublishExpiredJob extends AJobBase
                         "template file of email to be sent",
                 "summary.itemTemplate;string;Fully qualified pathname of " +
                         "file containing template for each item",
+                "pageSize;integer;Number of certificate records retrieved " +
+                        "from the database at a time",
+                "threads;integer;Number of certificate records processed " +
+                        "concurrently when the summary is disabled",
+                "checkpointInterval;integer;Minimum number of seconds between " +
+                        "checkpoints of an interrupted run",
                 IExtendedPluginInfo.HELP_TOKEN +
                         ";configuration-jobrules-unpublishexpiredjobs",
             };
@@ -181,157 +190,41 @@ public class UnpublishExpiredJob extends AJobBase
         // a test for without CertRecord.META_LDAPPUBLISH
         //String filter = "(x509Cert.notAfter<="+ now +")";
 
-        Enumeration<Object> expired = null;
-
-        try {
-            expired = mRepository.findCertRecs(filter);
-            // bug 399150
-            /*
-             CertRecordList list = null;
-             list = mRepository.findCertRecordsInList(filter,  null, "serialno", 5);
-             int size = list.getSize();
-             expired = list.getCertRecords(0, size - 1);
-             */
-        } catch (EBaseException e) {
-            logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("OPERATION_ERROR", e.toString()), e);
-        }
-
-        int count = 0; // how many have been unpublished successfully
-        int negCount = 0; // how many have NOT been unpublished successfully
+        AtomicInteger count = new AtomicInteger(); // how many have been unpublished successfully
+        AtomicInteger negCount = new AtomicInteger(); // how many have NOT been unpublished successfully
         String contentForm = null;
         String itemForm = null;
-        String itemListContent = null;
+        StringBuilder itemListContent = new StringBuilder();
 
         if (mSummary == true) {
             contentForm = getTemplateContent(mMailForm);
             itemForm = getTemplateContent(mItemForm);
         }
 
-        // unpublish them and unpublish() will set inLdapPublishDir flag
-        while (expired != null && expired.hasMoreElements()) {
-            CertRecord rec = (CertRecord) expired.nextElement();
-
-            if (rec == null)
-                break;
-            X509CertImpl cert = rec.getCertificate();
-
-            if (mSummary == true)
-                buildItemParams(cert);
-
-            // get request id from cert record MetaInfo
-            MetaInfo minfo = null;
-
-            try {
-                minfo = (MetaInfo) rec.get(CertRecord.ATTR_META_INFO);
-            } catch (EBaseException e) {
-                negCount += 1;
-                if (mSummary == true)
-                    buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                            STATUS_FAILURE);
-                logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_INFO_ERROR",
-                                cert.getSerialNumber().toString(16) + e.getMessage()), e);
-            }
-
-            String ridString = null;
+        String itemTemplate = itemForm;
 
-            try {
-                if (minfo != null)
-                    ridString = (String) minfo.get(CertRecord.META_REQUEST_ID);
-            } catch (EBaseException e) {
-                negCount += 1;
-                if (mSummary == true)
-                    buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                            STATUS_FAILURE);
-                logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
-                                cert.getSerialNumber().toString(16) + e.getMessage()), e);
-            } catch (NullPointerException e) {
-                // no requestId in MetaInfo...skip to next record
-                negCount += 1;
-                if (mSummary == true)
-                    buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                            STATUS_FAILURE);
-                logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
-                                cert.getSerialNumber().toString(16) + e.getMessage()), e);
-            }
+        // unpublish them and unpublish() will set inLdapPublishDir flag
+        // the summary items are built sequentially in shared parameters,
+        // so the records are only processed in parallel without summary
+        try {
+            processCertRecords(mRepository, filter, !mSummary, rec -> {
 
-            if (ridString != null) {
-                RequestId rid = new RequestId(ridString);
+                if (!processCertRecord(rec, count, negCount))
+                    return;
 
-                // get request from request id
-                Request req = null;
+                // if summary is enabled, form the item content
+                if (mSummary) {
+                    EmailFormProcessor emailItemFormProcessor = new EmailFormProcessor();
+                    String c = emailItemFormProcessor.getEmailContent(itemTemplate,
+                            mItemParams);
 
-                try {
-                    req = requestRepository.readRequest(rid);
-                    if (req != null) {
-                        if (mSummary == true)
-                            buildItemParams(req);
-                    }
-                } catch (EBaseException e) {
-                    negCount += 1;
-                    if (mSummary == true)
-                        buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                                STATUS_FAILURE);
-                    logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_FIND_REQUEST_ERROR",
-                                    cert.getSerialNumber().toString(16) + e.getMessage()), e);
-                }
-                try {
-                    if ((mPublisherProcessor != null) &&
-                            mPublisherProcessor.isCertPublishingEnabled()) {
-                        mPublisherProcessor.unpublishCert(cert, req);
-                        if (mSummary == true)
-                            buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                                    STATUS_SUCCESS);
-                        count += 1;
-                    } else {
-                        negCount += 1;
-                    }
-                } catch (Exception e) {
-                    negCount += 1;
-                    if (mSummary == true)
-                        buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                                STATUS_FAILURE);
-                    logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_UNPUBLISH_ERROR",
-                                    cert.getSerialNumber().toString(16) + e.getMessage()), e);
+                    // add item content to the item list
+                    itemListContent.append(c);
                 }
-            } // ridString != null
-            else {
-                try {
-                    if ((mPublisherProcessor != null) &&
-                            mPublisherProcessor.isCertPublishingEnabled()) {
-                        mPublisherProcessor.unpublishCert(cert, null);
-                        if (mSummary == true)
-                            buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                                    STATUS_SUCCESS);
-                        count += 1;
-                    } else {
-                        negCount += 1;
-                    }
-                } catch (Exception e) {
-                    negCount += 1;
-                    if (mSummary == true)
-                        buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
-                                STATUS_FAILURE);
-                    logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_UNPUBLISH_ERROR",
-                                    cert.getSerialNumber().toString(16) + e.getMessage()), e);
-                }
-            } // ridString == null
-
-            // inLdapPublishDir flag should have been set by the
-            // unpublish() method
+            });
 
-            // if summary is enabled, form the item content
-            if (mSummary) {
-                EmailFormProcessor emailItemFormProcessor = new EmailFormProcessor();
-                String c = emailItemFormProcessor.getEmailContent(itemForm,
-                        mItemParams);
-
-                // add item content to the item list
-                if (itemListContent == null) {
-                    itemListContent = c;
-                } else {
-                    itemListContent += c;
-                }
-            }
+        } catch (EBaseException e) {
+            logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("OPERATION_ERROR", e.toString()), e);
         }
 
         // time for summary
@@ -339,13 +232,13 @@ public class UnpublishExpiredJob extends AJobBase
             buildContentParams(IEmailFormProcessor.TOKEN_ID,
                     mId);
             buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_ITEM_LIST,
-                    itemListContent);
+                    itemListContent.toString());
             buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_TOTAL_NUM,
-                    String.valueOf(count + negCount));
+                    String.valueOf(count.get() + negCount.get()));
             buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_SUCCESS_NUM,
-                    String.valueOf(count));
+                    String.valueOf(count.get()));
             buildContentParams(IEmailFormProcessor.TOKEN_SUMMARY_FAILURE_NUM,
-                    String.valueOf(negCount));
+                    String.valueOf(negCount.get()));
             buildContentParams(IEmailFormProcessor.TOKEN_EXECUTION_TIME,
                     nowString);
 
@@ -358,6 +251,121 @@ public class UnpublishExpiredJob extends AJobBase
         }
     }
 
+    /**
+     * Unpublishes a single certificate record.
+     *
+     * @return false if the record was skipped
+     */
+    private boolean processCertRecord(CertRecord rec, AtomicInteger count, AtomicInteger negCount) {
+        X509CertImpl cert = rec.getCertificate();
+
+        if (mSummary == true)
+            buildItemParams(cert);
+
+        // get request id from cert record MetaInfo
+        MetaInfo minfo = null;
+
+        try {
+            minfo = (MetaInfo) rec.get(CertRecord.ATTR_META_INFO);
+        } catch (EBaseException e) {
+            negCount.incrementAndGet();
+            if (mSummary == true)
+                buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                        STATUS_FAILURE);
+            logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_INFO_ERROR",
+                            cert.getSerialNumber().toString(16) + e.getMessage()), e);
+        }
+
+        String ridString = null;
+
+        try {
+            if (minfo != null)
+                ridString = (String) minfo.get(CertRecord.META_REQUEST_ID);
+        } catch (EBaseException e) {
+            negCount.incrementAndGet();
+            if (mSummary == true)
+                buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                        STATUS_FAILURE);
+            logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
+                            cert.getSerialNumber().toString(16) + e.getMessage()), e);
+        } catch (NullPointerException e) {
+            // no requestId in MetaInfo...skip to next record
+            negCount.incrementAndGet();
+            if (mSummary == true)
+                buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                        STATUS_FAILURE);
+            logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_META_REQUEST_ERROR",
+                            cert.getSerialNumber().toString(16) + e.getMessage()), e);
+        }
+
+        if (ridString != null) {
+            RequestId rid = new RequestId(ridString);
+
+            // get request from request id
+            Request req = null;
+
+            try {
+                req = requestRepository.readRequest(rid);
+                if (req != null) {
+                    if (mSummary == true)
+                        buildItemParams(req);
+                }
+            } catch (EBaseException e) {
+                negCount.incrementAndGet();
+                if (mSummary == true)
+                    buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                            STATUS_FAILURE);
+                logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_FIND_REQUEST_ERROR",
+                                cert.getSerialNumber().toString(16) + e.getMessage()), e);
+            }
+            try {
+                if ((mPublisherProcessor != null) &&
+                        mPublisherProcessor.isCertPublishingEnabled()) {
+                    mPublisherProcessor.unpublishCert(cert, req);
+                    if (mSummary == true)
+                        buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                                STATUS_SUCCESS);
+                    count.incrementAndGet();
+                } else {
+                    negCount.incrementAndGet();
+                }
+            } catch (Exception e) {
+                negCount.incrementAndGet();
+                if (mSummary == true)
+                    buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                            STATUS_FAILURE);
+                logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_UNPUBLISH_ERROR",
+                                cert.getSerialNumber().toString(16) + e.getMessage()), e);
+            }
+        } // ridString != null
+        else {
+            try {
+                if ((mPublisherProcessor != null) &&
+                        mPublisherProcessor.isCertPublishingEnabled()) {
+                    mPublisherProcessor.unpublishCert(cert, null);
+                    if (mSummary == true)
+                        buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                                STATUS_SUCCESS);
+                    count.incrementAndGet();
+                } else {
+                    negCount.incrementAndGet();
+                }
+            } catch (Exception e) {
+                negCount.incrementAndGet();
+                if (mSummary == true)
+                    buildItemParams(IEmailFormProcessor.TOKEN_STATUS,
+                            STATUS_FAILURE);
+                logger.warn("UnpublishExpiredJob: " + CMS.getLogMessage("JOBS_UNPUBLISH_ERROR",
+                                cert.getSerialNumber().toString(16) + e.getMessage()), e);
+            }
+        } // ridString == null
+
+        // inLdapPublishDir flag should have been set by the
+        // unpublish() method
+
+        return true;
+    }
+
     /**
      * Returns a list of configuration parameter names.
      * The list is passed to the configuration console so instances of
@@ -34,6 +34,7 @@ import org.dogtagpki.server.PKIClientSocketListener;
 import org.dogtagpki.server.ca.CAEngine;
 import org.dogtagpki.server.ca.CAEngineConfig;
 import org.mozilla.jss.netscape.security.util.Utils;
+import org.mozilla.jss.netscape.security.x509.X509CRLImpl;
 
 import com.netscape.certsrv.base.EBaseException;
 import com.netscape.certsrv.base.IExtendedPluginInfo;
@@ -62,6 +63,10 @@ public class OCSPPublisher implements ILdapPublisher, IExtendedPluginInfo {
     private static final String PROP_PATH = "path";
     private static final String PROP_NICK = "nickName";
     private static final String PROP_CLIENT_AUTH_ENABLE = "enableClientAuth";
+    private static final String PROP_BINARY = "binary";
+    private static final String PROP_PUBLISH_DELTA_CRL = "publishDeltaCRL";
+
+    public static final String CRL_CONTENT_TYPE = "application/pkix-crl";
 
     private ConfigStore mConfig;
     private String mHost = null;
@@ -69,6 +74,8 @@ public class OCSPPublisher implements ILdapPublisher, IExtendedPluginInfo {
     private String mPath = null;
     private String mNickname = null;
     private boolean mClientAuthEnabled = true;
+    private boolean mBinary = false;
+    private boolean mPublishDeltaCRL = false;
 
     /**
      * Returns the implementation name.
@@ -94,6 +101,8 @@ public class OCSPPublisher implements ILdapPublisher, IExtendedPluginInfo {
                 PROP_PATH + ";string;URI of CMS's OCSP Secure agent service",
                 PROP_NICK + ";string;Nickname of cert used for client authentication",
                 PROP_CLIENT_AUTH_ENABLE + ";boolean;Client Authentication enabled",
+                PROP_BINARY + ";boolean;Send the CRL in DER format instead of a base-64 encoded form",
+                PROP_PUBLISH_DELTA_CRL + ";boolean;Publish delta CRLs to be applied incrementally by the OCSP responder",
                 IExtendedPluginInfo.HELP_TOKEN +
                         ";configuration-ldappublish-publisher-ocsppublisher",
                 IExtendedPluginInfo.HELP_TEXT +
@@ -114,6 +123,8 @@ public class OCSPPublisher implements ILdapPublisher, IExtendedPluginInfo {
         String path = "";
         String nickname = "";
         String clientAuthEnabled = "";
+        String binary = "";
+        String publishDeltaCRL = "";
 
         try {
             host = mConfig.getString(PROP_HOST);
@@ -140,6 +151,16 @@ public class OCSPPublisher implements ILdapPublisher, IExtendedPluginInfo {
         } catch (EBaseException e) {
         }
         v.addElement(PROP_CLIENT_AUTH_ENABLE + "=" + clientAuthEnabled);
+        try {
+            binary = mConfig.getString(PROP_BINARY, "false");
+        } catch (EBaseException e) {
+        }
+        v.addElement(PROP_BINARY + "=" + binary);
+        try {
+            publishDeltaCRL = mConfig.getString(PROP_PUBLISH_DELTA_CRL, "false");
+        } catch (EBaseException e) {
+        }
+        v.addElement(PROP_PUBLISH_DELTA_CRL + "=" + publishDeltaCRL);
         return v;
     }
 
@@ -168,6 +189,8 @@ public class OCSPPublisher implements ILdapPublisher, IExtendedPluginInfo {
         v.addElement(PROP_PATH + "=/ocsp/agent/ocsp/addCRL");
         v.addElement(PROP_CLIENT_AUTH_ENABLE + "=true");
         v.addElement(PROP_NICK + "=" + nickname);
+        v.addElement(PROP_BINARY + "=false");
+        v.addElement(PROP_PUBLISH_DELTA_CRL + "=false");
         return v;
     }
 
@@ -182,6 +205,8 @@ public class OCSPPublisher implements ILdapPublisher, IExtendedPluginInfo {
         mPath = mConfig.getString(PROP_PATH, "");
         mNickname = mConfig.getString(PROP_NICK, "");
         mClientAuthEnabled = mConfig.getBoolean(PROP_CLIENT_AUTH_ENABLE, true);
+        mBinary = mConfig.getBoolean(PROP_BINARY, false);
+        mPublishDeltaCRL = mConfig.getBoolean(PROP_PUBLISH_DELTA_CRL, false);
     }
 
     @Override
@@ -236,6 +261,12 @@ public class OCSPPublisher implements ILdapPublisher, IExtendedPluginInfo {
 
             X509CRL crl = (X509CRL) object;
 
+            boolean deltaCRL = crl instanceof X509CRLImpl && ((X509CRLImpl) crl).isDeltaCRL();
+            if (deltaCRL && !mPublishDeltaCRL) {
+                logger.debug("OCSPPublisher: Delta CRL publishing is disabled");
+                return;
+            }
+
             // talk to agent port of CMS
 
             // open the connection and prepare it to POST
@@ -246,14 +277,23 @@ public class OCSPPublisher implements ILdapPublisher, IExtendedPluginInfo {
             String path = mPath;
 
             String url = "https://" + host + ":" + port + path;
-            logger.info("OCSPPublisher: Publishing CRL to " + url);
+            logger.info("OCSPPublisher: Publishing " + (deltaCRL ? "delta CRL" : "CRL") + " to " + url);
 
-            StringBuffer query = new StringBuffer();
-            query.append("crl=");
-            query.append(URLEncoder.encode("-----BEGIN CERTIFICATE REVOCATION LIST-----\n", "UTF-8"));
-            query.append(URLEncoder.encode(Utils.base64encode(crl.getEncoded(), true), "UTF-8"));
-            query.append(URLEncoder.encode("\n-----END CERTIFICATE REVOCATION LIST-----", "UTF-8"));
-            query.append("&noui=true");
+            byte[] content = null;
+            StringBuffer query = null;
+
+            if (mBinary) {
+                // send DER directly to avoid base-64 and URL encoding
+                content = crl.getEncoded();
+
+            } else {
+                query = new StringBuffer();
+                query.append("crl=");
+                query.append(URLEncoder.encode("-----BEGIN CERTIFICATE REVOCATION LIST-----\n", "UTF-8"));
+                query.append(URLEncoder.encode(Utils.base64encode(crl.getEncoded(), true), "UTF-8"));
+                query.append(URLEncoder.encode("\n-----END CERTIFICATE REVOCATION LIST-----", "UTF-8"));
+                query.append("&noui=true");
+            }
 
             Socket socket = null;
             JssSSLSocketFactory factory;
@@ -293,13 +333,21 @@ public class OCSPPublisher implements ILdapPublisher, IExtendedPluginInfo {
             httpReq.setURI(path);
             httpReq.setHeader("Connection", "Keep-Alive");
 
-            httpReq.setHeader("Content-Type",
-                    "application/x-www-form-urlencoded");
-            httpReq.setHeader("Content-Transfer-Encoding", "7bit");
+            if (mBinary) {
+                httpReq.setHeader("Content-Type", CRL_CONTENT_TYPE);
+                httpReq.setHeader("Content-Length",
+                        Integer.toString(content.length));
+
+            } else {
+                httpReq.setHeader("Content-Type",
+                        "application/x-www-form-urlencoded");
+                httpReq.setHeader("Content-Transfer-Encoding", "7bit");
+
+                httpReq.setHeader("Content-Length",
+                        Integer.toString(query.length()));
+                httpReq.setContent(query.toString());
+            }
 
-            httpReq.setHeader("Content-Length",
-                    Integer.toString(query.length()));
-            httpReq.setContent(query.toString());
             OutputStream os = socket.getOutputStream();
             OutputStreamWriter outputStreamWriter = new OutputStreamWriter(os, "UTF8");
 
@@ -310,6 +358,11 @@ public class OCSPPublisher implements ILdapPublisher, IExtendedPluginInfo {
 
             httpReq.write(outputStreamWriter);
 
+            if (mBinary) {
+                os.write(content);
+                os.flush();
+            }
+
             long endTime = new Date().getTime();
             logger.debug("OCSPPublisher: done CRL sending endTime=" + endTime + " diff=" + (endTime - startTime));
 
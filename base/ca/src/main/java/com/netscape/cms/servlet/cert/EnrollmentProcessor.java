@@ -17,6 +17,7 @@
 // --- END COPYRIGHT BLOCK ---
 package com.netscape.cms.servlet.cert;
 
+import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -121,6 +122,46 @@ public class EnrollmentProcessor extends CertProcessor {
             AuthToken authToken)
         throws Exception {
 
+        String userData = null;
+        X509Certificate[] clientCerts = null;
+        if (request != null) {
+            userData = request.getParameter("user-data");
+            clientCerts = SSLClientCertProvider.getClientCertificateChain(request);
+        }
+
+        return processEnrollment(data, request, userData, clientCerts, aid, credentials, authToken);
+    }
+
+    /**
+     * Process an enrollment without the HTTP request, e.g. outside of
+     * the thread serving the request. The values needed from the request
+     * have to be retrieved by the caller, and the credentials have to
+     * contain the client host.
+     *
+     * @exception Exception an error has occurred
+     */
+    public HashMap<String, Object> processEnrollment(
+            CertEnrollmentRequest data,
+            String userData,
+            X509Certificate[] clientCerts,
+            AuthorityID aid,
+            AuthCredentials credentials,
+            AuthToken authToken)
+        throws Exception {
+
+        return processEnrollment(data, null, userData, clientCerts, aid, credentials, authToken);
+    }
+
+    private HashMap<String, Object> processEnrollment(
+            CertEnrollmentRequest data,
+            HttpServletRequest request,
+            String userData,
+            X509Certificate[] clientCerts,
+            AuthorityID aid,
+            AuthCredentials credentials,
+            AuthToken authToken)
+        throws Exception {
+
         try {
             if (logger.isDebugEnabled()) {
                 HashMap<String,String> params = data.toParams();
@@ -148,9 +189,6 @@ public class EnrollmentProcessor extends CertProcessor {
             Map<String, String> ctx = new HashMap<>();
 
             // set arbitrary user data into request, if any
-            String userData = null;
-            if (request != null)
-                userData = request.getParameter("user-data");
             if (userData != null)
                 ctx.put(EnrollProfile.REQUEST_USER_DATA, userData);
 
@@ -170,12 +208,21 @@ public class EnrollmentProcessor extends CertProcessor {
             // insert profile context so that input parameter can be retrieved
             SessionContext context = SessionContext.getContext();
             context.put("profileContext", ctx);
-            context.put("sslClientCertProvider", new SSLClientCertProvider(request));
+            context.put("sslClientCertProvider", new SSLClientCertProvider(clientCerts));
             logger.debug("EnrollmentProcessor: set sslClientCertProvider");
 
             // before creating the request, authenticate the request
             if (authToken == null && authenticator != null) {
                 authToken = authenticate(request, null, authenticator, context, false, credentials);
+
+            } else if (authToken != null && authenticator != null) {
+                // reusing a token from a previous authentication (e.g. in a batch),
+                // identify the user for auditing as authenticate() would
+                context.putIfAbsent(SessionContext.AUTH_MANAGER_ID, authenticator.getName());
+                String userid = authToken.getInString(AuthToken.USER_ID);
+                if (userid != null) {
+                    context.putIfAbsent(SessionContext.USER_ID, userid);
+                }
             }
 
             // authentication success, now authorize
@@ -224,6 +271,9 @@ public class EnrollmentProcessor extends CertProcessor {
             ret.put(ARG_ERROR_CODE, errorCode);
             ret.put(ARG_ERROR_REASON, errorReason);
             ret.put(ARG_PROFILE, profile);
+            if (authToken != null) {
+                ret.put(ARG_AUTH_TOKEN, authToken);
+            }
 
             logger.debug("EnrollmentSubmitter: done serving");
             endTiming("enrollment");
@@ -35,6 +35,7 @@ import org.mozilla.jss.netscape.security.util.Utils;
 import org.mozilla.jss.netscape.security.x509.X509CRLImpl;
 
 import com.netscape.ca.CRLIssuingPoint;
+import com.netscape.ca.CRLSnapshot;
 import com.netscape.ca.CertificateAuthority;
 import com.netscape.certsrv.authorization.EAuthzAccessDenied;
 import com.netscape.certsrv.base.EBaseException;
@@ -172,6 +173,12 @@ public class GetCRL extends CMSServlet {
         if (ca != null)
             crlIP = engine.getCRLIssuingPoint(crlId);
 
+        // serve CRL downloads from memory if possible
+        if (crlIP != null && processCRLSnapshot(httpReq, httpResp, crlIP, crlId, op)) {
+            cmsReq.setStatus(CMSRequest.SUCCESS);
+            return;
+        }
+
         try {
             crlRecord = crlRepository.readCRLIssuingPointRecord(crlId);
         } catch (EBaseException e) {
@@ -467,6 +474,107 @@ public class GetCRL extends CMSServlet {
         return;
     }
 
+    /**
+     * Sends the CRL kept in memory by the CRL issuing point
+     * with HTTP caching headers. Conditional requests are answered
+     * with 304 Not Modified.
+     *
+     * @return false if the CRL is not available in memory
+     */
+    private boolean processCRLSnapshot(
+            HttpServletRequest httpReq,
+            HttpServletResponse httpResp,
+            CRLIssuingPoint crlIP,
+            String crlId,
+            String op) throws EBaseException {
+
+        CRLSnapshot snapshot;
+        String mimeType;
+        String filename = null;
+
+        if (op.equals("importCRL") || op.equals("importDeltaCRL")) {
+            if (clientIsMSIE(httpReq))
+                mimeType = "application/pkix-crl";
+            else
+                mimeType = "application/x-pkcs7-crl";
+        } else {
+            mimeType = "application/octet-stream";
+        }
+
+        if (op.equals("getCRL") || op.equals("importCRL")) {
+            snapshot = crlIP.getCRLSnapshot();
+            if (op.equals("getCRL")) filename = crlId + ".crl";
+
+        } else if (op.equals("getDeltaCRL") || op.equals("importDeltaCRL")) {
+            snapshot = crlIP.getDeltaCRLSnapshot();
+            if (op.equals("getDeltaCRL")) filename = "delta-" + crlId + ".crl";
+
+        } else {
+            return false;
+        }
+
+        if (snapshot == null) {
+            return false;
+        }
+
+        logger.debug("GetCRL: Sending CRL " + snapshot.getNumber() + " from memory");
+
+        httpResp.setHeader("ETag", snapshot.getETag());
+        long lastModified = snapshot.getLastModified();
+        if (lastModified >= 0) {
+            httpResp.setDateHeader("Last-Modified", lastModified);
+        }
+        httpResp.setHeader("Cache-Control", "public, max-age=" + snapshot.getMaxAge(System.currentTimeMillis()));
+
+        if (isNotModified(httpReq, snapshot)) {
+            httpResp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        if (filename != null) {
+            httpResp.setHeader("Content-disposition", "attachment; filename=" + filename);
+        }
+
+        try {
+            httpResp.setContentType(mimeType);
+            httpResp.setContentLength(snapshot.getSize());
+            ServletOutputStream out = httpResp.getOutputStream();
+            snapshot.writeTo(out);
+            out.flush();
+        } catch (IOException e) {
+            logger.error(CMS.getLogMessage("CMSGW_ERROR_DISPLAYING_CRLINFO"), e);
+            throw new ECMSGWException(CMS.getUserMessage("CMS_GW_DISPLAYING_CRLINFO_ERROR"), e);
+        }
+
+        return true;
+    }
+
+    private boolean isNotModified(HttpServletRequest httpReq, CRLSnapshot snapshot) {
+
+        // If-None-Match takes precedence over If-Modified-Since
+        String ifNoneMatch = httpReq.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            String etag = snapshot.getETag();
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = httpReq.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        long lastModified = snapshot.getLastModified();
+        return ifModifiedSince >= 0 && lastModified >= 0 && lastModified <= ifModifiedSince;
+    }
+
     private String hexToDecimal(String hex) {
         String newHex = hex.substring(2);
         BigInteger bi = new BigInteger(newHex, 16);
@@ -80,6 +80,7 @@ public class RevocationProcessor extends CertProcessor {
     Date invalidityDate;
     String comments;
     String requestType;
+    boolean deferCRLUpdate;
 
     CRLExtensions entryExtn;
     Collection<X509CertImpl> certificates = new ArrayList<>();
@@ -160,6 +161,19 @@ public class RevocationProcessor extends CertProcessor {
         this.requestType = requestType;
     }
 
+    public boolean getDeferCRLUpdate() {
+        return deferCRLUpdate;
+    }
+
+    /**
+     * If true, the CRL will not be updated after the revocation
+     * request is processed even if the CRL issuing point is
+     * configured to update the CRL on every revocation.
+     */
+    public void setDeferCRLUpdate(boolean deferCRLUpdate) {
+        this.deferCRLUpdate = deferCRLUpdate;
+    }
+
     public RequestStatus getRequestStatus() {
         return requestStatus;
     }
@@ -309,6 +323,10 @@ public class RevocationProcessor extends CertProcessor {
         }
 
         request.setExtData(Request.REVOKED_REASON, revocationReason.getCode());
+
+        if (deferCRLUpdate) {
+            request.setExtData(Request.DEFER_CRL_UPDATE, "true");
+        }
     }
 
     public void processRevocationRequest() throws EBaseException {
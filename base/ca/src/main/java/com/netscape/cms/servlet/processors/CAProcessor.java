@@ -109,6 +109,7 @@ public class CAProcessor extends Processor {
     public final static String ARG_REQUESTS = "requests";
     public final static String ARG_ERROR_CODE = "errorCode";
     public final static String ARG_ERROR_REASON = "errorReason";
+    public final static String ARG_AUTH_TOKEN = "authToken";
     public final static String CERT_ATTR = "javax.servlet.request.X509Certificate";
 
     // servlet config constants
@@ -431,7 +432,11 @@ public class CAProcessor extends Processor {
             }
         }
 
-        credentials.set("clientHost", request.getRemoteHost());
+        // without a request (e.g. in a batch worker) the caller
+        // provides the client host in the credentials
+        if (request != null) {
+            credentials.set("clientHost", request.getRemoteHost());
+        }
 
         AuthToken authToken = authenticator.authenticate(credentials);
         logger.debug("CAProcessor: Token: " + authToken);
@@ -467,10 +472,15 @@ public class CAProcessor extends Processor {
         if (authIds != null) {
             while (authIds.hasMoreElements()) {
                 String authName = authIds.nextElement();
-                String value = request.getParameter(authName);
+                Object value;
+                if (request != null) {
+                    value = request.getParameter(authName);
+                } else {
+                    value = credentials == null ? null : credentials.get(authName);
+                }
                 if (value != null) {
                     if (authName.equals("uid")) {
-                        uid_attempted_cred = value;
+                        uid_attempted_cred = value.toString();
                     }
                 }
             }
@@ -29,10 +29,15 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.StringUtils;
 import org.dogtagpki.legacy.ca.CAPolicy;
@@ -45,6 +50,7 @@ import org.mozilla.jss.netscape.security.x509.X500Name;
 import org.mozilla.jss.netscape.security.x509.X509CertImpl;
 
 import com.netscape.ca.AuthorityMonitor;
+import com.netscape.ca.BulkRevocationTask;
 import com.netscape.ca.CANotify;
 import com.netscape.ca.CAService;
 import com.netscape.ca.CRLConfig;
@@ -132,6 +138,13 @@ public class CAEngine extends CMSEngine {
 
     protected Map<String, CRLIssuingPoint> crlIssuingPoints = new HashMap<>();
 
+    // bulk revocation tasks in submission order
+    public static final int MAX_BULK_REVOCATION_TASKS = 100;
+    protected Map<String, BulkRevocationTask> bulkRevocationTasks = new LinkedHashMap<>();
+
+    // shared by all batch enrollments
+    protected ExecutorService certRequestBatchExecutor;
+
     // for CMC shared secret operations
     protected org.mozilla.jss.crypto.X509Certificate issuanceProtectionCert;
     protected PublicKey issuanceProtectionPublicKey;
@@ -334,6 +347,85 @@ public class CAEngine extends CMSEngine {
         return crlIssuingPoints.remove(id);
     }
 
+    /**
+     * Returns the executor for batch enrollments. The number of threads
+     * is configured in ca.certRequestBatch.threads and is shared by all
+     * batches, so concurrent batches are queued rather than creating
+     * additional threads.
+     */
+    public synchronized ExecutorService getCertRequestBatchExecutor() throws EBaseException {
+
+        if (certRequestBatchExecutor != null) {
+            return certRequestBatchExecutor;
+        }
+
+        int threads = mConfig.getInteger("ca.certRequestBatch.threads", 4);
+        logger.info("CAEngine: Creating batch enrollment executor with " + threads + " thread(s)");
+
+        AtomicInteger counter = new AtomicInteger();
+        certRequestBatchExecutor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "CertRequestBatch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        return certRequestBatchExecutor;
+    }
+
+    public synchronized void shutdownCertRequestBatchExecutor() {
+
+        if (certRequestBatchExecutor == null) {
+            return;
+        }
+
+        certRequestBatchExecutor.shutdownNow();
+        certRequestBatchExecutor = null;
+    }
+
+    /**
+     * Starts a bulk revocation task in the background. Only the
+     * most recent tasks are kept for progress reporting.
+     *
+     * @param task bulk revocation task
+     * @param maxRunning maximum number of concurrently running tasks
+     * @return false if the task was rejected because too many tasks are running
+     */
+    public boolean startBulkRevocationTask(BulkRevocationTask task, int maxRunning) {
+
+        synchronized (bulkRevocationTasks) {
+
+            int running = 0;
+            for (BulkRevocationTask t : bulkRevocationTasks.values()) {
+                if (t.isRunning()) running++;
+            }
+
+            if (running >= maxRunning) {
+                logger.warn("CAEngine: Too many running bulk revocation tasks: " + running);
+                return false;
+            }
+
+            // remove the oldest finished tasks
+            Iterator<BulkRevocationTask> i = bulkRevocationTasks.values().iterator();
+            while (bulkRevocationTasks.size() >= MAX_BULK_REVOCATION_TASKS && i.hasNext()) {
+                if (!i.next().isRunning()) i.remove();
+            }
+
+            bulkRevocationTasks.put(task.getId(), task);
+        }
+
+        Thread thread = new Thread(task, "BulkRevocation-" + task.getId());
+        thread.setDaemon(true);
+        thread.start();
+
+        return true;
+    }
+
+    public BulkRevocationTask getBulkRevocationTask(String id) {
+        synchronized (bulkRevocationTasks) {
+            return bulkRevocationTasks.get(id);
+        }
+    }
+
     /**
      * Get Issuance Protection Certificate
      */
@@ -1691,6 +1783,15 @@ public class CAEngine extends CMSEngine {
     @Override
     protected void shutdownSubsystems() {
 
+        synchronized (bulkRevocationTasks) {
+            for (BulkRevocationTask task : bulkRevocationTasks.values()) {
+                task.stop();
+            }
+            bulkRevocationTasks.clear();
+        }
+
+        shutdownCertRequestBatchExecutor();
+
         super.shutdownSubsystems();
 
         for (CRLIssuingPoint crlIssuingPoint : crlIssuingPoints.values()) {
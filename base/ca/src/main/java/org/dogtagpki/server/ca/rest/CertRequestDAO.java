@@ -19,11 +19,18 @@ package org.dogtagpki.server.ca.rest;
 
 import java.security.Principal;
 import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.UriInfo;
@@ -33,16 +40,26 @@ import org.dogtagpki.server.ca.CAEngine;
 
 import com.netscape.ca.CertificateAuthority;
 import com.netscape.certsrv.authentication.AuthCredentials;
+import com.netscape.certsrv.authentication.EAuthException;
+import com.netscape.certsrv.authorization.EAuthzException;
+import com.netscape.certsrv.base.BadRequestDataException;
 import com.netscape.certsrv.base.EBaseException;
+import com.netscape.certsrv.base.SessionContext;
 import com.netscape.certsrv.ca.AuthorityID;
+import com.netscape.certsrv.cert.CertEnrollmentBatchRequest;
 import com.netscape.certsrv.cert.CertEnrollmentRequest;
+import com.netscape.certsrv.cert.CertEnrollmentResult;
+import com.netscape.certsrv.cert.CertEnrollmentResults;
 import com.netscape.certsrv.cert.CertRequestInfo;
 import com.netscape.certsrv.cert.CertRequestInfos;
 import com.netscape.certsrv.cert.CertReviewResponse;
+import com.netscape.certsrv.profile.ProfileAttribute;
+import com.netscape.certsrv.profile.ProfileInput;
 import com.netscape.certsrv.request.CMSRequestInfo;
 import com.netscape.certsrv.request.CMSRequestInfos;
 import com.netscape.certsrv.request.RequestId;
 import com.netscape.certsrv.request.RequestNotFoundException;
+import com.netscape.cms.profile.ProfileAuthenticator;
 import com.netscape.cms.profile.common.Profile;
 import com.netscape.cms.realm.PKIPrincipal;
 import com.netscape.cms.servlet.cert.CertRequestInfoFactory;
@@ -51,6 +68,7 @@ import com.netscape.cms.servlet.cert.EnrollmentProcessor;
 import com.netscape.cms.servlet.cert.RenewalProcessor;
 import com.netscape.cms.servlet.cert.RequestProcessor;
 import com.netscape.cms.servlet.processors.CAProcessor;
+import com.netscape.cms.servlet.profile.SSLClientCertProvider;
 import com.netscape.cms.servlet.request.CMSRequestDAO;
 import com.netscape.cmscore.profile.ProfileSubsystem;
 import com.netscape.cmscore.request.Request;
@@ -193,7 +211,25 @@ public class CertRequestDAO extends CMSRequestDAO {
             Locale locale)
         throws Exception {
 
-        CertRequestInfos ret = new CertRequestInfos();
+        AuthCredentials credentials = createCredentials(data);
+
+        HashMap<String, Object> results = null;
+        if (data.isRenewal()) {
+            RenewalProcessor processor = new RenewalProcessor("caProfileSubmit", locale);
+            results = processor.processRenewal(data, request, credentials);
+        } else {
+            EnrollmentProcessor processor = new EnrollmentProcessor("caProfileSubmit", locale);
+            results = processor.processEnrollment(data, request, aid, credentials);
+        }
+
+        Request reqs[] = (Request[]) results.get(CAProcessor.ARG_REQUESTS);
+
+        // TODO - what happens if the errorCode is internal error ?
+
+        return createRequestInfos(reqs, uriInfo);
+    }
+
+    private AuthCredentials createCredentials(CertEnrollmentRequest data) throws EBaseException {
 
         AuthCredentials credentials = new AuthCredentials();
         String uid = data.getAttribute("uid");
@@ -205,16 +241,13 @@ public class CertRequestDAO extends CMSRequestDAO {
             credentials.set("pwd", password);
         }
 
-        HashMap<String, Object> results = null;
-        if (data.isRenewal()) {
-            RenewalProcessor processor = new RenewalProcessor("caProfileSubmit", locale);
-            results = processor.processRenewal(data, request, credentials);
-        } else {
-            EnrollmentProcessor processor = new EnrollmentProcessor("caProfileSubmit", locale);
-            results = processor.processEnrollment(data, request, aid, credentials);
-        }
+        return credentials;
+    }
+
+    private static CertRequestInfos createRequestInfos(Request[] reqs, UriInfo uriInfo) {
+
+        CertRequestInfos ret = new CertRequestInfos();
 
-        Request reqs[] = (Request[]) results.get(CAProcessor.ARG_REQUESTS);
         for (Request req : reqs) {
             try {
                 CertRequestInfo info = CertRequestInfoFactory.create(req, uriInfo);
@@ -226,11 +259,274 @@ public class CertRequestDAO extends CMSRequestDAO {
 
         ret.setTotal(ret.getEntries().size());
 
-        // TODO - what happens if the errorCode is internal error ?
-
         return ret;
     }
 
+    /**
+     * Submits a batch of certificate requests for a single profile.
+     *
+     * The profile and the template are checked once for the whole batch.
+     * If the profile authenticator only relies on the client connection
+     * (i.e. SSL client authentication), the first enrollment is
+     * authenticated and its token is reused for the rest of the batch,
+     * otherwise each enrollment is authenticated separately.
+     *
+     * The remaining enrollments are processed concurrently by the batch
+     * executor of the CA. Failures are reported per item, and the results
+     * are returned in the order of the certificate requests.
+     */
+    public CertEnrollmentResults submitRequests(
+            AuthorityID aid,
+            CertEnrollmentBatchRequest batch,
+            HttpServletRequest request,
+            UriInfo uriInfo,
+            Locale locale)
+        throws Exception {
+
+        CertEnrollmentRequest template = batch.getTemplate();
+        String certRequestType = batch.getCertRequestType();
+        List<String> certRequests = batch.getCertRequests();
+
+        String profileId = template.getProfileId();
+        logger.info("CertRequestDAO: Submitting " + certRequests.size() + " requests with " + profileId + " profile");
+
+        Profile profile = ps.getProfile(profileId);
+        if (profile == null) {
+            throw new BadRequestDataException("Profile not found: " + profileId);
+        }
+
+        if (!ps.isProfileEnable(profileId)) {
+            throw new BadRequestDataException("Profile " + profileId + " not enabled");
+        }
+
+        if (template.isRenewal()) {
+            throw new BadRequestDataException("Renewal is not supported in batch enrollment");
+        }
+
+        if (findCertRequestInput(template) == null) {
+            throw new BadRequestDataException("Missing " + CertEnrollmentBatchRequest.CERT_REQUEST + " input in template");
+        }
+
+        ProfileAuthenticator authenticator = ps.getProfileAuthenticator(profile);
+        boolean reuseAuthToken = authenticator == null || authenticator.isSSLClientRequired();
+
+        // the servlet request must not be used outside of the current
+        // thread, so retrieve the values needed by the worker threads
+        String userData = request.getParameter("user-data");
+        X509Certificate[] clientCerts = SSLClientCertProvider.getClientCertificateChain(request);
+        String clientHost = request.getRemoteHost();
+
+        // the session context of the caller (e.g. audit subject),
+        // to be copied into the worker threads
+        SessionContext callerContext = SessionContext.getExistingContext();
+        Map<Object, Object> sessionValues = callerContext == null ? null : new HashMap<>(callerContext);
+
+        int size = certRequests.size();
+        Object[] results = new Object[size];
+
+        // process the first enrollment in the current thread to
+        // fail fast on authentication errors and to obtain the token
+        AuthToken authToken = null;
+        try {
+            CertEnrollmentRequest data = createEnrollmentRequest(template, certRequestType, certRequests.get(0));
+            EnrollmentProcessor processor = new EnrollmentProcessor("caProfileSubmit", locale);
+            HashMap<String, Object> ret = processor.processEnrollment(data, request, aid, createCredentials(template));
+
+            results[0] = ret;
+            if (reuseAuthToken) {
+                authToken = (AuthToken) ret.get(CAProcessor.ARG_AUTH_TOKEN);
+            }
+
+        } catch (EAuthException | EAuthzException e) {
+            throw e;
+
+        } catch (Exception e) {
+            logger.warn("CertRequestDAO: Unable to submit request 0: " + e.getMessage(), e);
+            results[0] = e;
+        }
+
+        if (size > 1) {
+            AuthToken token = authToken;
+            CAEngine engine = CAEngine.getInstance();
+            ExecutorService executor = engine.getCertRequestBatchExecutor();
+
+            processRequests(executor, 1, results, sessionValues, index -> {
+
+                CertEnrollmentRequest data = createEnrollmentRequest(
+                        template, certRequestType, certRequests.get(index));
+
+                // each enrollment gets its own credentials since
+                // the authentication may modify them
+                AuthCredentials credentials = createCredentials(template);
+                credentials.set("clientHost", clientHost);
+
+                EnrollmentProcessor processor = new EnrollmentProcessor("caProfileSubmit", locale);
+                return processor.processEnrollment(data, userData, clientCerts, aid, credentials, token);
+            });
+        }
+
+        // create the request infos in the current thread since
+        // the URI info is bound to the current request
+        return createResults(results, uriInfo);
+    }
+
+    interface BatchTask {
+        Map<String, Object> process(int index) throws Exception;
+    }
+
+    /**
+     * Processes the items of a batch starting from the specified index
+     * using the executor, and waits until all of them are processed.
+     * The result of each item (or the exception that it failed with)
+     * is stored at the index of the item.
+     */
+    static void processRequests(
+            ExecutorService executor,
+            int start,
+            Object[] results,
+            Map<Object, Object> sessionValues,
+            BatchTask task) throws InterruptedException {
+
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = start; i < results.length; i++) {
+                int index = i;
+
+                try {
+                    futures.add(executor.submit(() -> {
+
+                        SessionContext context = SessionContext.getContext();
+                        if (sessionValues != null) {
+                            context.putAll(sessionValues);
+                        }
+
+                        try {
+                            results[index] = task.process(index);
+
+                        } catch (Exception e) {
+                            logger.warn("CertRequestDAO: Unable to submit request " + index + ": " + e.getMessage(), e);
+                            results[index] = e;
+
+                        } finally {
+                            SessionContext.releaseContext();
+                        }
+                    }));
+
+                } catch (RejectedExecutionException e) {
+                    // the executor is shutting down
+                    logger.warn("CertRequestDAO: Unable to submit request " + index + ": " + e.getMessage());
+                    results[index] = new EBaseException("Batch enrollment is not available", e);
+                }
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // the task does not throw, this should not happen
+                    logger.warn("CertRequestDAO: " + e.getMessage(), e);
+                } catch (CancellationException e) {
+                    logger.warn("CertRequestDAO: Batch enrollment cancelled");
+                }
+            }
+
+        } catch (InterruptedException e) {
+            // do not leave the remaining items in the shared executor
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            throw e;
+        }
+    }
+
+    static CertEnrollmentResults createResults(Object[] results, UriInfo uriInfo) {
+
+        CertEnrollmentResults infos = new CertEnrollmentResults();
+
+        for (int i = 0; i < results.length; i++) {
+            CertEnrollmentResult result = new CertEnrollmentResult(i);
+
+            if (results[i] instanceof Exception) {
+                result.setError(((Exception) results[i]).getMessage());
+
+            } else if (results[i] == null) {
+                result.setError("Request not processed");
+
+            } else {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> ret = (Map<String, Object>) results[i];
+                Request[] reqs = (Request[]) ret.get(CAProcessor.ARG_REQUESTS);
+                if (reqs != null) {
+                    result.setRequests(createRequestInfos(reqs, uriInfo));
+                }
+                result.setError((String) ret.get(CAProcessor.ARG_ERROR_REASON));
+            }
+
+            infos.addEntry(result);
+        }
+
+        infos.setTotal(results.length);
+
+        return infos;
+    }
+
+    private ProfileInput findCertRequestInput(CertEnrollmentRequest data) {
+
+        for (ProfileInput input : data.getInputs()) {
+            if (input.getAttribute(CertEnrollmentBatchRequest.CERT_REQUEST) != null) {
+                return input;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates an enrollment request for a single certificate request
+     * in a batch. The template itself is shared across threads so
+     * its inputs are copied rather than modified.
+     */
+    private CertEnrollmentRequest createEnrollmentRequest(
+            CertEnrollmentRequest template,
+            String certRequestType,
+            String certRequest) {
+
+        CertEnrollmentRequest data = new CertEnrollmentRequest();
+        data.setProfileId(template.getProfileId());
+        data.setServerSideKeygenP12Passwd(template.getServerSideKeygenP12Passwd());
+        data.setRemoteHost(template.getRemoteHost());
+        data.setRemoteAddr(template.getRemoteAddr());
+        data.setAttributes(template.getAttributes());
+
+        for (ProfileInput templateInput : template.getInputs()) {
+
+            ProfileInput input = new ProfileInput(
+                    templateInput.getId(),
+                    templateInput.getName(),
+                    templateInput.getClassId());
+
+            for (ProfileAttribute attr : templateInput.getAttributes()) {
+
+                String name = attr.getName();
+                String value = attr.getValue();
+
+                if (CertEnrollmentBatchRequest.CERT_REQUEST.equals(name)) {
+                    value = certRequest;
+
+                } else if (CertEnrollmentBatchRequest.CERT_REQUEST_TYPE.equals(name) && certRequestType != null) {
+                    value = certRequestType;
+                }
+
+                input.addAttribute(new ProfileAttribute(name, value, attr.getDescriptor()));
+            }
+
+            data.addInput(input);
+        }
+
+        return data;
+    }
+
     public void changeRequestState(RequestId id, HttpServletRequest request, CertReviewResponse data,
             Locale locale, String op) throws EBaseException {
         Request ireq = requestRepository.readRequest(id);
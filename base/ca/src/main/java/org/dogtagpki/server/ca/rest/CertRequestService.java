@@ -24,9 +24,11 @@ import java.util.Enumeration;
 import java.util.List;
 
 import javax.ws.rs.PathParam;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.dogtagpki.server.ca.CAEngine;
+import org.dogtagpki.server.ca.CAEngineConfig;
 import org.mozilla.jss.netscape.security.x509.X500Name;
 
 import com.netscape.ca.CertificateAuthority;
@@ -46,7 +48,9 @@ import com.netscape.certsrv.ca.CADisabledException;
 import com.netscape.certsrv.ca.CAMissingCertException;
 import com.netscape.certsrv.ca.CAMissingKeyException;
 import com.netscape.certsrv.ca.CANotFoundException;
+import com.netscape.certsrv.cert.CertEnrollmentBatchRequest;
 import com.netscape.certsrv.cert.CertEnrollmentRequest;
+import com.netscape.certsrv.cert.CertEnrollmentResults;
 import com.netscape.certsrv.cert.CertRequestInfo;
 import com.netscape.certsrv.cert.CertRequestInfos;
 import com.netscape.certsrv.cert.CertRequestResource;
@@ -61,6 +65,7 @@ import com.netscape.certsrv.profile.ProfileInput;
 import com.netscape.certsrv.property.EPropertyException;
 import com.netscape.certsrv.request.RequestId;
 import com.netscape.certsrv.request.RequestNotFoundException;
+import com.netscape.certsrv.util.JSONCodec;
 import com.netscape.cms.profile.common.Profile;
 import com.netscape.cms.servlet.base.PKIService;
 import com.netscape.cmscore.apps.CMS;
@@ -205,6 +210,119 @@ public class CertRequestService extends PKIService implements CertRequestResourc
         return createOKResponse(infos);
     }
 
+    @Override
+    public Response enrollCerts(String batchRequest, String aidString, String adnString) {
+
+        logger.info("CertRequestService: Receiving certificate request batch");
+
+        CertEnrollmentBatchRequest data;
+        try {
+            data = CertEnrollmentBatchRequest.fromJSON(batchRequest);
+        } catch (Exception e) {
+            String message = "Unable to parse enrollment batch: " + e.getMessage();
+            logger.error(message, e);
+            throw new BadRequestException(message, e);
+        }
+
+        if (data == null || data.getTemplate() == null) {
+            String message = "Unable to create enrollment requests: Missing template";
+            logger.error(message);
+            throw new BadRequestException(message);
+        }
+
+        List<String> certRequests = data.getCertRequests();
+        if (certRequests.isEmpty()) {
+            String message = "Unable to create enrollment requests: Missing certificate requests";
+            logger.error(message);
+            throw new BadRequestException(message);
+        }
+
+        CAEngine engine = CAEngine.getInstance();
+        CAEngineConfig cs = engine.getConfig();
+
+        int maxSize;
+        try {
+            maxSize = cs.getInteger("ca.certRequestBatch.maxSize", 1000);
+        } catch (EBaseException e) {
+            throw new PKIException("Unable to get batch configuration: " + e.getMessage(), e);
+        }
+
+        if (certRequests.size() > maxSize) {
+            throw new BadRequestException("Too many certificate requests: " + certRequests.size() + " (max: " + maxSize + ")");
+        }
+
+        if (aidString != null && adnString != null)
+            throw new BadRequestException("Cannot provide both issuer-id and issuer-dn");
+
+        CertificateAuthority ca = engine.getCA();
+
+        AuthorityID aid = null;
+        if (aidString != null) {
+            try {
+                aid = new AuthorityID(aidString);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("invalid AuthorityID: " + aidString, e);
+            }
+
+            ca = engine.getCA(aid);
+
+            if (ca == null)
+                throw new ResourceNotFoundException("CA not found: " + aidString);
+        }
+
+        if (adnString != null) {
+            X500Name adn = null;
+            try {
+                adn = new X500Name(adnString);
+            } catch (IOException e) {
+                throw new BadRequestException("invalid DN: " + adnString, e);
+            }
+
+            ca = engine.getCA(adn);
+
+            if (ca == null)
+                throw new ResourceNotFoundException("CA not found: " + adnString);
+
+            aid = ca.getAuthorityID();
+        }
+
+        if (!ca.getAuthorityEnabled())
+            throw new ConflictingOperationException("CA not enabled: " + aid.toString());
+
+        data.getTemplate().setRemoteHost(servletRequest.getRemoteHost());
+        data.getTemplate().setRemoteAddr(servletRequest.getRemoteAddr());
+
+        CertRequestDAO dao = new CertRequestDAO();
+
+        CertEnrollmentResults results;
+        try {
+            results = dao.submitRequests(aid, data, servletRequest, uriInfo, getLocale(headers));
+
+        } catch (EAuthException e) {
+            String message = "Authentication failed: " + e.getMessage();
+            logger.error(message, e);
+            throw new UnauthorizedException(message, e);
+
+        } catch (EAuthzException e) {
+            String message = "Authorization failed: " + e.getMessage();
+            logger.error(message, e);
+            throw new UnauthorizedException(message, e);
+
+        } catch (BadRequestDataException e) {
+            String message = "Bad request data: " + e.getMessage();
+            logger.error(message, e);
+            throw new BadRequestException(message, e);
+
+        } catch (Exception e) {
+            String message = "Unable to create enrollment requests: " + e.getMessage();
+            logger.error(message, e);
+            throw new PKIException(message, e);
+        }
+
+        // the batch results are only available in JSON
+        return Response.ok(JSONCodec.stream(results)).type(MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
     @Override
     public Response approveRequest(RequestId id, CertReviewResponse data) {
 
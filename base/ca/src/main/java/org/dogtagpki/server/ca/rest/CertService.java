@@ -29,14 +29,18 @@ import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.apache.catalina.realm.GenericPrincipal;
 import org.dogtag.util.cert.CertUtil;
 import org.dogtagpki.server.ca.CAEngine;
+import org.dogtagpki.server.ca.CAEngineConfig;
 import org.mozilla.jss.netscape.security.pkcs.ContentInfo;
 import org.mozilla.jss.netscape.security.pkcs.PKCS7;
 import org.mozilla.jss.netscape.security.pkcs.SignerInfo;
@@ -51,11 +55,17 @@ import org.mozilla.jss.netscape.security.x509.X509CertImpl;
 import org.mozilla.jss.netscape.security.x509.X509ExtensionException;
 import org.mozilla.jss.netscape.security.x509.X509Key;
 
+import com.netscape.ca.BulkRevocationTask;
 import com.netscape.ca.CertificateAuthority;
 import com.netscape.certsrv.base.BadRequestException;
 import com.netscape.certsrv.base.EBaseException;
 import com.netscape.certsrv.base.PKIException;
+import com.netscape.certsrv.base.ResourceNotFoundException;
+import com.netscape.certsrv.base.SessionContext;
+import com.netscape.certsrv.base.ServiceUnavailableException;
 import com.netscape.certsrv.base.UnauthorizedException;
+import com.netscape.certsrv.cert.CertBulkRevokeRequest;
+import com.netscape.certsrv.cert.CertBulkRevokeStatus;
 import com.netscape.certsrv.cert.CertData;
 import com.netscape.certsrv.cert.CertDataInfo;
 import com.netscape.certsrv.cert.CertDataInfos;
@@ -69,6 +79,7 @@ import com.netscape.certsrv.dbs.EDBRecordNotFoundException;
 import com.netscape.certsrv.dbs.certdb.CertId;
 import com.netscape.certsrv.logging.AuditFormat;
 import com.netscape.certsrv.logging.ILogger;
+import com.netscape.certsrv.util.JSONCodec;
 import com.netscape.cms.servlet.base.PKIService;
 import com.netscape.cms.servlet.cert.FilterBuilder;
 import com.netscape.cms.servlet.cert.RevocationProcessor;
@@ -326,6 +337,116 @@ public class CertService extends PKIService implements CertResource {
         }
     }
 
+    @Override
+    public Response revokeCerts(String revokeRequest) {
+
+        logger.info("Revoking certificates");
+
+        CertBulkRevokeRequest data;
+        try {
+            data = CertBulkRevokeRequest.fromJSON(revokeRequest);
+        } catch (Exception e) {
+            String message = "Unable to parse bulk revocation request: " + e.getMessage();
+            logger.error(message, e);
+            throw new BadRequestException(message, e);
+        }
+
+        if (data == null || data.getSerialNumbers().isEmpty() && data.getSearch() == null) {
+            throw new BadRequestException("Unable to revoke certificates: Missing serial numbers or search filter");
+        }
+
+        if (data.getReason() == null) {
+            throw new BadRequestException("Unable to revoke certificates: Missing revocation reason");
+        }
+
+        RevocationReason revReason = RevocationReason.valueOf(data.getReason());
+        if (revReason == null || revReason == RevocationReason.REMOVE_FROM_CRL) {
+            throw new BadRequestException("Unable to revoke certificates: Invalid revocation reason: " + data.getReason());
+        }
+
+        // only agents can revoke certificates of other subjects
+        GenericPrincipal principal = (GenericPrincipal) servletRequest.getUserPrincipal();
+        if (principal == null || !principal.hasRole("Certificate Manager Agents")) {
+            throw new UnauthorizedException(CMS.getLogMessage("CMSGW_UNAUTHORIZED"));
+        }
+
+        CAEngine engine = CAEngine.getInstance();
+        CAEngineConfig cs = engine.getConfig();
+
+        int maxSize;
+        int batchSize;
+        int threads;
+        int maxTasks;
+        try {
+            maxSize = cs.getInteger("ca.bulkRevocation.maxSize", 100000);
+            batchSize = cs.getInteger("ca.bulkRevocation.batchSize", 100);
+            threads = cs.getInteger("ca.bulkRevocation.threads", 4);
+            maxTasks = cs.getInteger("ca.bulkRevocation.maxTasks", 4);
+        } catch (EBaseException e) {
+            throw new PKIException("Unable to get bulk revocation configuration: " + e.getMessage(), e);
+        }
+
+        if (data.getSerialNumbers().size() > maxSize) {
+            throw new BadRequestException("Too many certificates: " + data.getSerialNumbers().size() + " (max: " + maxSize + ")");
+        }
+
+        String id = UUID.randomUUID().toString();
+        BulkRevocationTask task = new BulkRevocationTask(id, authority, getLocale(headers));
+
+        for (String serialNumber : data.getSerialNumbers()) {
+            try {
+                task.addSerialNumber(new CertId(serialNumber).toBigInteger());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid serial number: " + serialNumber, e);
+            }
+        }
+
+        if (data.getSearch() != null) {
+            String filter = createSearchFilter(data.getSearch());
+            logger.info("Search filter: " + filter);
+            task.setFilter(filter, maxSize, DEFAULT_MAXTIME);
+        }
+
+        task.setRevocationReason(revReason);
+        task.setInvalidityDate(data.getInvalidityDate());
+        task.setComments(data.getComments());
+        task.setBatchSize(batchSize);
+        task.setThreads(threads);
+
+        // copy the caller's session (e.g. audit subject) into the task
+        SessionContext context = SessionContext.getExistingContext();
+        if (context != null) {
+            task.setSessionValues(new HashMap<>(context));
+        }
+
+        if (!engine.startBulkRevocationTask(task, maxTasks)) {
+            throw new ServiceUnavailableException("Too many bulk revocations in progress (max: " + maxTasks + ")");
+        }
+
+        return createBulkRevokeResponse(task.getStatus());
+    }
+
+    @Override
+    public Response getRevocationStatus(String id) {
+
+        logger.info("Getting bulk revocation status " + id);
+
+        CAEngine engine = CAEngine.getInstance();
+        BulkRevocationTask task = engine.getBulkRevocationTask(id);
+
+        if (task == null) {
+            throw new ResourceNotFoundException("Bulk revocation not found: " + id);
+        }
+
+        return createBulkRevokeResponse(task.getStatus());
+    }
+
+    private Response createBulkRevokeResponse(CertBulkRevokeStatus status) {
+
+        // the bulk revocation status is only available in JSON
+        return Response.ok(JSONCodec.stream(status)).type(MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
     @Override
     public Response unrevokeCert(CertId id) {
 
@@ -442,20 +563,21 @@ public class CertService extends PKIService implements CertResource {
             }
 
             // store non-null results in a list
-            List<CertDataInfo> results = new ArrayList<>();
+            List<CertRecord> results = new ArrayList<>();
             while (e.hasMoreElements()) {
                 CertRecord rec = e.nextElement();
                 if (rec == null) continue;
-                results.add(createCertDataInfo(rec));
+                results.add(rec);
             }
 
             int total = results.size();
             logger.info("Search results: " + total);
             infos.setTotal(total);
 
-            // return entries in the requested page
+            // return entries in the requested page, only these
+            // certificates need to be decoded
             for (int i = start; i < start + size && i < total ; i++) {
-                infos.addEntry(results.get(i));
+                infos.addEntry(createCertDataInfo(results.get(i)));
             }
         } catch (Exception e) {
             logger.error("Unable to list certificates: " + e.getMessage(), e);
@@ -0,0 +1,178 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.ca;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dogtagpki.server.ca.CAEngine;
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.jss.netscape.security.x509.RevokedCertImpl;
+
+import com.netscape.certsrv.base.EBaseException;
+import com.netscape.certsrv.ca.ECAException;
+import com.netscape.cmscore.dbs.CertRecord;
+
+public class CAServiceTest {
+
+    /**
+     * CRL issuing point that records the certificates added to its cache.
+     */
+    static class TestCRLIssuingPoint extends CRLIssuingPoint {
+
+        int calls;
+        String requestId;
+        Map<BigInteger, RevokedCertImpl> revokedCerts = new LinkedHashMap<>();
+
+        TestCRLIssuingPoint(String id) {
+            mId = id;
+        }
+
+        @Override
+        public void addRevokedCerts(Map<BigInteger, RevokedCertImpl> revokedCerts, String requestId) {
+            calls++;
+            this.requestId = requestId;
+            this.revokedCerts.putAll(revokedCerts);
+        }
+    }
+
+    /**
+     * CA service that revokes the certificates in memory.
+     */
+    static class TestCAService extends CAService {
+
+        Set<BigInteger> invalidCerts = new HashSet<>();
+        List<BigInteger> revokedCerts = new ArrayList<>();
+
+        TestCAService() {
+            super(null);
+        }
+
+        @Override
+        CertRecord markAsRevoked(RevokedCertImpl crlentry) throws EBaseException {
+
+            BigInteger serialNumber = crlentry.getSerialNumber();
+            if (invalidCerts.contains(serialNumber)) {
+                throw new ECAException("Certificate already revoked: " + serialNumber);
+            }
+
+            revokedCerts.add(serialNumber);
+            return new CertRecord(serialNumber, null, null);
+        }
+
+        @Override
+        boolean isIncluded(CRLIssuingPoint ip, CertRecord certRec) throws EBaseException {
+            // the "even" CRL only includes even serial numbers
+            if (ip.getId().equals("even")) {
+                return !certRec.getSerialNumber().testBit(0);
+            }
+            return true;
+        }
+    }
+
+    CAEngine engine;
+    TestCRLIssuingPoint masterCRL;
+    TestCRLIssuingPoint evenCRL;
+
+    @Before
+    public void setUp() {
+
+        engine = new CAEngine();
+
+        masterCRL = new TestCRLIssuingPoint(CertificateAuthority.PROP_MASTER_CRL);
+        engine.addCRLIssuingPoint(masterCRL.getId(), masterCRL);
+
+        evenCRL = new TestCRLIssuingPoint("even");
+        engine.addCRLIssuingPoint(evenCRL.getId(), evenCRL);
+    }
+
+    RevokedCertImpl[] createEntries(int... serialNumbers) {
+
+        RevokedCertImpl[] entries = new RevokedCertImpl[serialNumbers.length];
+        Date revocationDate = new Date();
+
+        for (int i = 0; i < serialNumbers.length; i++) {
+            entries[i] = new RevokedCertImpl(BigInteger.valueOf(serialNumbers[i]), revocationDate);
+        }
+
+        return entries;
+    }
+
+    @Test
+    public void testRevokeCerts() throws Exception {
+
+        TestCAService service = new TestCAService();
+        RevokedCertImpl[] entries = createEntries(1, 2, 3, 4);
+
+        String[] svcerrors = service.revokeCerts(entries, "10");
+        assertNull(svcerrors);
+
+        assertEquals(List.of(BigInteger.valueOf(1), BigInteger.valueOf(2), BigInteger.valueOf(3), BigInteger.valueOf(4)),
+                service.revokedCerts);
+
+        // each CRL cache is updated once for the whole request
+        assertEquals(1, masterCRL.calls);
+        assertEquals("10", masterCRL.requestId);
+        assertEquals(4, masterCRL.revokedCerts.size());
+        assertTrue(masterCRL.revokedCerts.containsKey(BigInteger.valueOf(3)));
+
+        assertEquals(1, evenCRL.calls);
+        assertEquals(2, evenCRL.revokedCerts.size());
+        assertTrue(evenCRL.revokedCerts.containsKey(BigInteger.valueOf(2)));
+        assertTrue(evenCRL.revokedCerts.containsKey(BigInteger.valueOf(4)));
+    }
+
+    @Test
+    public void testRevokeCertsWithErrors() throws Exception {
+
+        TestCAService service = new TestCAService();
+        service.invalidCerts.add(BigInteger.valueOf(2));
+        service.invalidCerts.add(BigInteger.valueOf(5));
+
+        RevokedCertImpl[] entries = createEntries(1, 2, 3, 5);
+
+        String[] svcerrors = service.revokeCerts(entries, "11");
+
+        // errors are indexed like the entries
+        assertNotNull(svcerrors);
+        assertEquals(entries.length, svcerrors.length);
+        assertNull(svcerrors[0]);
+        assertNotNull(svcerrors[1]);
+        assertNull(svcerrors[2]);
+        assertNotNull(svcerrors[3]);
+
+        // only the revoked certificates are added to the CRL caches
+        assertEquals(1, masterCRL.calls);
+        assertEquals(Set.of(BigInteger.valueOf(1), BigInteger.valueOf(3)), masterCRL.revokedCerts.keySet());
+
+        // no even serial number was revoked
+        assertEquals(0, evenCRL.calls);
+    }
+}
@@ -0,0 +1,147 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.ca;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.jss.netscape.security.x509.RevokedCertImpl;
+import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
+
+import com.netscape.certsrv.base.EBaseException;
+import com.netscape.cmscore.dbs.CRLRepository;
+
+public class CRLIssuingPointTest {
+
+    /**
+     * CRL repository that counts the updates of the CRL cache.
+     */
+    static class TestCRLRepository extends CRLRepository {
+
+        int updates;
+        int revokedCerts;
+
+        TestCRLRepository() {
+            super(null);
+        }
+
+        @Override
+        public void updateRevokedCerts(
+                String id,
+                Hashtable<BigInteger, RevokedCertificate> revokedCerts,
+                Hashtable<BigInteger, RevokedCertificate> unrevokedCerts)
+                throws EBaseException {
+            updates++;
+            this.revokedCerts = revokedCerts.size();
+        }
+
+        @Override
+        public void updateCRLCache(String id, Long crlSize,
+                Hashtable<BigInteger, RevokedCertificate> revokedCerts,
+                Hashtable<BigInteger, RevokedCertificate> unrevokedCerts,
+                Hashtable<BigInteger, RevokedCertificate> expiredCerts)
+                throws EBaseException {
+        }
+    }
+
+    TestCRLRepository repository;
+    CRLIssuingPoint ip;
+
+    @Before
+    public void setUp() {
+
+        repository = new TestCRLRepository();
+
+        ip = new CRLIssuingPoint();
+        ip.mId = "MasterCRL";
+        ip.mCRLRepository = repository;
+    }
+
+    Map<BigInteger, RevokedCertImpl> createRevokedCerts(int count) {
+
+        Map<BigInteger, RevokedCertImpl> revokedCerts = new LinkedHashMap<>();
+        Date revocationDate = new Date();
+
+        for (int i = 1; i <= count; i++) {
+            BigInteger serialNumber = BigInteger.valueOf(i);
+            revokedCerts.put(serialNumber, new RevokedCertImpl(serialNumber, revocationDate));
+        }
+
+        return revokedCerts;
+    }
+
+    @Test
+    public void testAddRevokedCerts() throws Exception {
+
+        ip.addRevokedCerts(createRevokedCerts(50), "1");
+
+        assertEquals(50, ip.getNumberOfRecentlyRevokedCerts());
+
+        // the cache is stored once for all certificates
+        assertEquals(1, repository.updates);
+        assertEquals(50, repository.revokedCerts);
+    }
+
+    @Test
+    public void testAddRevokedCertsMatchesAddRevokedCert() throws Exception {
+
+        Map<BigInteger, RevokedCertImpl> revokedCerts = createRevokedCerts(10);
+
+        CRLIssuingPoint ip2 = new CRLIssuingPoint();
+        ip2.mId = "MasterCRL";
+        TestCRLRepository repository2 = new TestCRLRepository();
+        ip2.mCRLRepository = repository2;
+
+        ip.addRevokedCerts(revokedCerts, "2");
+
+        for (Map.Entry<BigInteger, RevokedCertImpl> entry : revokedCerts.entrySet()) {
+            ip2.addRevokedCert(entry.getKey(), entry.getValue(), "2");
+        }
+
+        assertEquals(ip2.getNumberOfRecentlyRevokedCerts(), ip.getNumberOfRecentlyRevokedCerts());
+        assertEquals(1, repository.updates);
+        assertEquals(10, repository2.updates);
+    }
+
+    @Test
+    public void testAddRevokedCertsDisabled() throws Exception {
+
+        ip.enableCRLIssuingPoint(false);
+
+        ip.addRevokedCerts(createRevokedCerts(5), "3");
+
+        assertEquals(0, ip.getNumberOfRecentlyRevokedCerts());
+        assertEquals(0, repository.updates);
+    }
+
+    @Test
+    public void testAddNoRevokedCerts() throws Exception {
+
+        ip.addRevokedCerts(new LinkedHashMap<>(), "4");
+
+        assertEquals(0, ip.getNumberOfRecentlyRevokedCerts());
+        assertEquals(0, repository.updates);
+    }
+}
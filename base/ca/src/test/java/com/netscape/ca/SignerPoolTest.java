@@ -0,0 +1,72 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.ca;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SignerPoolTest {
+
+    @Test
+    public void testReuse() {
+
+        SignerPool<String, Object> pool = new SignerPool<>(2);
+        assertNull(pool.get("SHA256withRSA"));
+
+        Object signer = new Object();
+        assertTrue(pool.release("SHA256withRSA", signer));
+        assertEquals(1, pool.getIdle());
+
+        // contexts are only reused for the same algorithm
+        assertNull(pool.get("SHA512withRSA"));
+
+        assertSame(signer, pool.get("SHA256withRSA"));
+        assertEquals(0, pool.getIdle());
+        assertNull(pool.get("SHA256withRSA"));
+    }
+
+    @Test
+    public void testMaxSize() {
+
+        SignerPool<String, Object> pool = new SignerPool<>(2);
+
+        assertTrue(pool.release("SHA256withRSA", new Object()));
+        assertTrue(pool.release("SHA256withRSA", new Object()));
+        assertFalse(pool.release("SHA256withRSA", new Object()));
+        assertEquals(2, pool.getIdle());
+
+        // the limit applies per algorithm
+        assertTrue(pool.release("SHA512withRSA", new Object()));
+        assertEquals(3, pool.getIdle());
+    }
+
+    @Test
+    public void testDisabled() {
+
+        SignerPool<String, Object> pool = new SignerPool<>(0);
+
+        assertFalse(pool.release("SHA256withRSA", new Object()));
+        assertEquals(0, pool.getIdle());
+        assertNull(pool.get("SHA256withRSA"));
+    }
+}
@@ -0,0 +1,162 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package org.dogtagpki.server.ca.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netscape.certsrv.base.SessionContext;
+import com.netscape.certsrv.cert.CertEnrollmentResult;
+import com.netscape.certsrv.cert.CertEnrollmentResults;
+import com.netscape.cms.servlet.processors.CAProcessor;
+
+public class CertRequestDAOTest {
+
+    ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    Map<String, Object> createResult(String errorReason) {
+        Map<String, Object> ret = new HashMap<>();
+        ret.put(CAProcessor.ARG_ERROR_REASON, errorReason);
+        return ret;
+    }
+
+    List<CertEnrollmentResult> getEntries(CertEnrollmentResults results) {
+        return new ArrayList<>(results.getEntries());
+    }
+
+    @Test
+    public void testResultsInOrder() throws Exception {
+
+        int size = 20;
+        Object[] results = new Object[size];
+
+        // the first item is processed by the caller
+        results[0] = createResult("item 0");
+
+        // later items finish first
+        CertRequestDAO.processRequests(executor, 1, results, null, index -> {
+            Thread.sleep((size - index) * 5);
+            return createResult("item " + index);
+        });
+
+        CertEnrollmentResults infos = CertRequestDAO.createResults(results, null);
+        assertEquals(size, infos.getTotal());
+
+        List<CertEnrollmentResult> entries = getEntries(infos);
+        assertEquals(size, entries.size());
+
+        for (int i = 0; i < size; i++) {
+            CertEnrollmentResult entry = entries.get(i);
+            assertEquals(i, entry.getIndex());
+            assertEquals("item " + i, entry.getError());
+        }
+    }
+
+    @Test
+    public void testPartialFailures() throws Exception {
+
+        int size = 10;
+        Object[] results = new Object[size];
+        results[0] = new Exception("Invalid request 0");
+
+        CertRequestDAO.processRequests(executor, 1, results, null, index -> {
+            if (index % 3 == 0) {
+                throw new Exception("Invalid request " + index);
+            }
+            return createResult(null);
+        });
+
+        List<CertEnrollmentResult> entries = getEntries(CertRequestDAO.createResults(results, null));
+        assertEquals(size, entries.size());
+
+        for (int i = 0; i < size; i++) {
+            CertEnrollmentResult entry = entries.get(i);
+            assertEquals(i, entry.getIndex());
+
+            if (i % 3 == 0) {
+                assertEquals("Invalid request " + i, entry.getError());
+            } else {
+                assertNull(entry.getError());
+            }
+        }
+    }
+
+    @Test
+    public void testSessionContext() throws Exception {
+
+        Map<Object, Object> sessionValues = new HashMap<>();
+        sessionValues.put(SessionContext.USER_ID, "admin");
+
+        int size = 5;
+        Object[] results = new Object[size];
+        Object[] userIDs = new Object[size];
+
+        CertRequestDAO.processRequests(executor, 0, results, sessionValues, index -> {
+            userIDs[index] = SessionContext.getContext().get(SessionContext.USER_ID);
+            return createResult(null);
+        });
+
+        for (int i = 0; i < size; i++) {
+            assertEquals("admin", userIDs[i]);
+            assertNotNull(results[i]);
+        }
+    }
+
+    @Test
+    public void testExecutorShutdown() throws Exception {
+
+        executor.shutdown();
+
+        Object[] results = new Object[3];
+        Map<String, Object> result = createResult(null);
+        results[0] = result;
+
+        CertRequestDAO.processRequests(executor, 1, results, null, index -> createResult(null));
+
+        assertSame(result, results[0]);
+
+        List<CertEnrollmentResult> entries = getEntries(CertRequestDAO.createResults(results, null));
+        assertEquals(3, entries.size());
+        assertNull(entries.get(0).getError());
+        assertEquals("Batch enrollment is not available", entries.get(1).getError());
+        assertEquals("Batch enrollment is not available", entries.get(2).getError());
+    }
+}
@@ -180,11 +180,13 @@ class KeyInfoCollection(object):
         """ Constructor """
         self.key_infos = []
         self.links = []
+        self.next = None
 
     @classmethod
     def from_json(cls, json_value):
         """ Return a KeyInfoCollection object from its JSON representation """
         ret = cls()
+        ret.next = json_value.get('next')
         infos = json_value['entries']
         if not isinstance(infos, list):
             ret.key_infos.append(KeyInfo.from_json(infos))
@@ -563,15 +565,21 @@ class KeyClient(object):
 
     @pki.handle_exceptions()
     def list_keys(self, client_key_id=None, status=None, max_results=None,
-                  max_time=None, start=None, size=None, realm=None):
+                  max_time=None, start=None, size=None, realm=None,
+                  next_page=None):
         """ List/Search archived secrets in the DRM.
 
             See KRAClient.list_keys for the valid values of status.
+            If next_page is specified ("0" for the first page), the keys
+            are listed in key ID order one page at a time, and the
+            continuation token for the following page is returned in
+            the next attribute of the collection.
             Returns a KeyInfoCollection object.
         """
         query_params = {'clientKeyID': client_key_id, 'status': status,
                         'maxResults': max_results, 'maxTime': max_time,
-                        'start': start, 'size': size, 'realm': realm}
+                        'start': start, 'size': size, 'realm': realm,
+                        'next': next_page}
         response = self.connection.get(self.key_url, self.headers,
                                        params=query_params)
         return KeyInfoCollection.from_json(response.json())
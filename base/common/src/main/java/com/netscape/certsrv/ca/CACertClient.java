@@ -30,9 +30,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.netscape.certsrv.authentication.EAuthException;
+import com.netscape.certsrv.cert.CertBulkRevokeRequest;
+import com.netscape.certsrv.cert.CertBulkRevokeStatus;
 import com.netscape.certsrv.cert.CertData;
 import com.netscape.certsrv.cert.CertDataInfos;
+import com.netscape.certsrv.cert.CertEnrollmentBatchRequest;
 import com.netscape.certsrv.cert.CertEnrollmentRequest;
+import com.netscape.certsrv.cert.CertEnrollmentResults;
 import com.netscape.certsrv.cert.CertRequestInfo;
 import com.netscape.certsrv.cert.CertRequestInfos;
 import com.netscape.certsrv.cert.CertRequestResource;
@@ -104,6 +108,16 @@ public class CACertClient extends Client {
         return client.getEntity(response, CertRequestInfo.class);
     }
 
+    public CertBulkRevokeStatus revokeCerts(CertBulkRevokeRequest request) throws Exception {
+        Response response = certClient.revokeCerts(request.toJSON());
+        return client.getEntity(response, CertBulkRevokeStatus.class);
+    }
+
+    public CertBulkRevokeStatus getRevocationStatus(String id) throws Exception {
+        Response response = certClient.getRevocationStatus(id);
+        return client.getEntity(response, CertBulkRevokeStatus.class);
+    }
+
     public CertRequestInfo unrevokeCert(CertId id) throws Exception {
         Response response = certClient.unrevokeCert(id);
         return client.getEntity(response, CertRequestInfo.class);
@@ -124,6 +138,20 @@ public class CACertClient extends Client {
         return client.getEntity(response, CertRequestInfos.class);
     }
 
+    public CertEnrollmentResults enrollRequests(
+            CertEnrollmentBatchRequest data, AuthorityID aid, X500Name adn) throws Exception {
+        String aidString = aid != null ? aid.toString() : null;
+        String adnString = null;
+        if (adn != null) {
+            try {
+                adnString = adn.toLdapDNString();
+            } catch (IOException e) {
+            }
+        }
+        Response response = certRequestClient.enrollCerts(data.toJSON(), aidString, adnString);
+        return client.getEntity(response, CertEnrollmentResults.class);
+    }
+
     public CertRequestInfo getRequest(RequestId id) throws Exception {
         Response response = certRequestClient.getRequestInfo(id);
         return client.getEntity(response, CertRequestInfo.class);
@@ -0,0 +1,110 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.certsrv.cert;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.netscape.certsrv.util.JSONSerializer;
+
+/**
+ * This class represents a request to revoke multiple certificates
+ * at once. The certificates can be specified with a list of serial
+ * numbers and/or a search filter.
+ */
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown=true)
+public class CertBulkRevokeRequest implements JSONSerializer {
+
+    protected List<String> serialNumbers = new ArrayList<>();
+    protected CertSearchRequest search;
+    protected String reason;
+    protected Date invalidityDate;
+    protected String comments;
+
+    /**
+     * Returns the serial numbers of the certificates to revoke
+     * in decimal or hexadecimal (0x-prefixed) format.
+     */
+    public List<String> getSerialNumbers() {
+        return serialNumbers;
+    }
+
+    public void setSerialNumbers(List<String> serialNumbers) {
+        this.serialNumbers.clear();
+        if (serialNumbers == null) return;
+        this.serialNumbers.addAll(serialNumbers);
+    }
+
+    public void addSerialNumber(String serialNumber) {
+        serialNumbers.add(serialNumber);
+    }
+
+    /**
+     * Returns the search filter for the certificates to revoke.
+     * Only valid certificates matching the filter will be revoked.
+     */
+    public CertSearchRequest getSearch() {
+        return search;
+    }
+
+    public void setSearch(CertSearchRequest search) {
+        this.search = search;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public Date getInvalidityDate() {
+        return invalidityDate;
+    }
+
+    public void setInvalidityDate(Date invalidityDate) {
+        this.invalidityDate = invalidityDate;
+    }
+
+    public String getComments() {
+        return comments;
+    }
+
+    public void setComments(String comments) {
+        this.comments = comments;
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return toJSON();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static CertBulkRevokeRequest fromJSON(String json) throws Exception {
+        return JSONSerializer.fromJSON(json, CertBulkRevokeRequest.class);
+    }
+}
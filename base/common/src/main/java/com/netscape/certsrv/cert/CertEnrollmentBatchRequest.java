@@ -0,0 +1,87 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.certsrv.cert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.netscape.certsrv.util.JSONSerializer;
+
+/**
+ * This class represents a batch of certificate enrollments
+ * for a single profile. Each certificate request is submitted
+ * with the inputs of the template, replacing the cert_request
+ * (and optionally cert_request_type) input attribute.
+ */
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown=true)
+public class CertEnrollmentBatchRequest implements JSONSerializer {
+
+    public static final String CERT_REQUEST = "cert_request";
+    public static final String CERT_REQUEST_TYPE = "cert_request_type";
+
+    protected CertEnrollmentRequest template;
+    protected String certRequestType;
+    protected List<String> certRequests = new ArrayList<>();
+
+    public CertEnrollmentRequest getTemplate() {
+        return template;
+    }
+
+    public void setTemplate(CertEnrollmentRequest template) {
+        this.template = template;
+    }
+
+    public String getCertRequestType() {
+        return certRequestType;
+    }
+
+    public void setCertRequestType(String certRequestType) {
+        this.certRequestType = certRequestType;
+    }
+
+    public List<String> getCertRequests() {
+        return certRequests;
+    }
+
+    public void setCertRequests(List<String> certRequests) {
+        this.certRequests.clear();
+        if (certRequests == null) return;
+        this.certRequests.addAll(certRequests);
+    }
+
+    public void addCertRequest(String certRequest) {
+        certRequests.add(certRequest);
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return toJSON();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static CertEnrollmentBatchRequest fromJSON(String json) throws Exception {
+        return JSONSerializer.fromJSON(json, CertEnrollmentBatchRequest.class);
+    }
+}
@@ -38,6 +38,17 @@ public interface CertRequestResource {
         @QueryParam("issuer-id") String caIDString,
         @QueryParam("issuer-dn") String caDNString);
 
+    /**
+     * Used to submit a batch of certificate requests for a single profile.
+     * The batch request and the results are in JSON format.
+     */
+    @POST
+    @Path("certrequests/batch")
+    public Response enrollCerts(
+        String batchRequest,
+        @QueryParam("issuer-id") String caIDString,
+        @QueryParam("issuer-dn") String caDNString);
+
     /**
      * Used to retrieve cert request info for a specific request
      */
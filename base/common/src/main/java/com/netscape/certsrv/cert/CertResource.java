@@ -52,6 +52,18 @@ public interface CertResource {
     @AuthMethodMapping("certs")
     public Response revokeCert(@PathParam("id") CertId id, CertRevokeRequest request);
 
+    @POST
+    @Path("agent/certs/revoke")
+    @ACLMapping("certs")
+    @AuthMethodMapping("certs")
+    public Response revokeCerts(String request);
+
+    @GET
+    @Path("agent/certs/revoke/{id}")
+    @ACLMapping("certs")
+    @AuthMethodMapping("certs")
+    public Response getRevocationStatus(@PathParam("id") String id);
+
     @POST
     @Path("agent/certs/{id}/unrevoke")
     @ACLMapping("certs")
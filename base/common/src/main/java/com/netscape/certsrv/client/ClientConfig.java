@@ -53,6 +53,10 @@ public class ClientConfig implements JSONSerializer {
 
     String messageFormat;
 
+    // maximum number of pooled connections, null for a single connection
+    Integer maxConnections;
+    Integer maxConnectionsPerRoute;
+
     public ClientConfig() {
     }
 
@@ -72,6 +76,9 @@ public class ClientConfig implements JSONSerializer {
         password = config.password;
 
         messageFormat = config.messageFormat;
+
+        maxConnections = config.maxConnections;
+        maxConnectionsPerRoute = config.maxConnectionsPerRoute;
     }
 
     public void setServerURI(URI serverUri) {
@@ -211,11 +218,38 @@ public class ClientConfig implements JSONSerializer {
         this.messageFormat = messageFormat;
     }
 
+    /**
+     * Returns the maximum number of connections in the connection pool.
+     * If not set, the client will use a single connection which cannot
+     * be shared between threads.
+     */
+    public Integer getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(Integer maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Returns the maximum number of pooled connections to the same server.
+     * If not set, the maximum number of connections will be used.
+     */
+    public Integer getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(Integer maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + ((certNickname == null) ? 0 : certNickname.hashCode());
+        result = prime * result + ((maxConnections == null) ? 0 : maxConnections.hashCode());
+        result = prime * result + ((maxConnectionsPerRoute == null) ? 0 : maxConnectionsPerRoute.hashCode());
         result = prime * result + ((messageFormat == null) ? 0 : messageFormat.hashCode());
         result = prime * result + ((nssDatabase == null) ? 0 : nssDatabase.hashCode());
         result = prime * result + ((nssPassword == null) ? 0 : nssPassword.hashCode());
@@ -241,6 +275,16 @@ public class ClientConfig implements JSONSerializer {
                 return false;
         } else if (!certNickname.equals(other.certNickname))
             return false;
+        if (maxConnections == null) {
+            if (other.maxConnections != null)
+                return false;
+        } else if (!maxConnections.equals(other.maxConnections))
+            return false;
+        if (maxConnectionsPerRoute == null) {
+            if (other.maxConnectionsPerRoute != null)
+                return false;
+        } else if (!maxConnectionsPerRoute.equals(other.maxConnectionsPerRoute))
+            return false;
         if (messageFormat == null) {
             if (other.messageFormat != null)
                 return false;
@@ -31,6 +31,7 @@ import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.ws.rs.client.WebTarget;
 
@@ -58,6 +59,8 @@ import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
 import org.apache.http.impl.client.DefaultRedirectStrategy;
 import org.apache.http.impl.client.EntityEnclosingRequestWrapper;
 import org.apache.http.impl.client.RequestWrapper;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
 import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.params.HttpParams;
 import org.apache.http.protocol.HttpContext;
@@ -79,15 +82,15 @@ public class PKIConnection implements AutoCloseable {
 
     ClientConfig config;
 
-    DefaultHttpClient httpClient = new DefaultHttpClient();
+    DefaultHttpClient httpClient;
     SSLCertificateApprovalCallback callback;
 
     ApacheHttpClient4Engine engine;
     javax.ws.rs.client.Client client;
     WebTarget target;
 
-    int requestCounter;
-    int responseCounter;
+    AtomicInteger requestCounter = new AtomicInteger();
+    AtomicInteger responseCounter = new AtomicInteger();
 
     File output;
 
@@ -95,6 +98,31 @@ public class PKIConnection implements AutoCloseable {
 
         this.config = config;
 
+        Integer maxConnections = config.getMaxConnections();
+
+        if (maxConnections == null) {
+            httpClient = new DefaultHttpClient();
+
+        } else {
+            // Use a thread-safe connection pool. Idle connections
+            // (and their SSL sessions) are kept alive and reused
+            // across requests.
+            logger.info("PKIConnection: Max connections: " + maxConnections);
+
+            Integer maxConnectionsPerRoute = config.getMaxConnectionsPerRoute();
+            if (maxConnectionsPerRoute == null) {
+                maxConnectionsPerRoute = maxConnections;
+            }
+            logger.info("PKIConnection: Max connections per route: " + maxConnectionsPerRoute);
+
+            PoolingClientConnectionManager connectionManager =
+                    new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault());
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+            httpClient = new DefaultHttpClient(connectionManager);
+        }
+
         // Register https scheme.
         Scheme scheme = new Scheme("https", 443, new JSSProtocolSocketFactory());
         httpClient.getConnectionManager().getSchemeRegistry().register(scheme);
@@ -116,7 +144,7 @@ public class PKIConnection implements AutoCloseable {
             @Override
             public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
 
-                requestCounter++;
+                int counter = requestCounter.incrementAndGet();
 
                 logger.info("HTTP request: " + request.getRequestLine());
                 for (Header header : request.getAllHeaders()) {
@@ -131,7 +159,7 @@ public class PKIConnection implements AutoCloseable {
                 }
 
                 if (output != null) {
-                    File file = new File(output, "http-request-"+requestCounter);
+                    File file = new File(output, "http-request-"+counter);
                     try (PrintStream out = new PrintStream(file)) {
                         storeRequest(out, request);
                     }
@@ -159,7 +187,7 @@ public class PKIConnection implements AutoCloseable {
             @Override
             public void process(HttpResponse response, HttpContext context) throws HttpException, IOException {
 
-                responseCounter++;
+                int counter = responseCounter.incrementAndGet();
 
                 logger.info("HTTP response: " + response.getStatusLine());
                 for (Header header : response.getAllHeaders()) {
@@ -167,7 +195,7 @@ public class PKIConnection implements AutoCloseable {
                 }
 
                 if (output != null) {
-                    File file = new File(output, "http-response-"+responseCounter);
+                    File file = new File(output, "http-response-"+counter);
                     try (PrintStream out = new PrintStream(file)) {
                         storeResponse(out, response);
                     }
@@ -138,6 +138,7 @@ public interface ScopeDef {
     public final static String SC_JOBS_IMPLS = "impl";
     public final static String SC_JOBS_INSTANCE = "job";
     public final static String SC_JOBS_RULES = "rules";
+    public final static String SC_JOBS_STATS = "stats";
 
     //notification
     public final static String SC_NOTIFICATION_REQ_COMP = "notificationREQC";
@@ -125,14 +125,31 @@ public class KeyClient extends Client {
      */
     public KeyInfoCollection listKeys(String clientKeyID, String status, Integer maxSize, Integer maxTime,
             Integer start, Integer size, String realm) throws Exception {
-        Response response = keyClient.listKeys(clientKeyID, status, maxSize, maxTime, start, size, realm);
+        Response response = keyClient.listKeys(clientKeyID, status, maxSize, maxTime, start, size, realm, null);
+        return client.getEntity(response, KeyInfoCollection.class);
+    }
+
+    /**
+     * List archived secrets in the DRM one page at a time in key ID order.
+     *
+     * @param clientKeyID -- Client Key Identifier
+     * @param status -- Status of the keys to be listed
+     * @param maxTime -- Maximum time for the operation to take
+     * @param size -- Size of the page to be returned.
+     * @param realm - authz realm
+     * @param next -- continuation token from the previous page, or "0" for the first page
+     * @return a KeyInfoCollection object; getNext() returns the token for the next page.
+     */
+    public KeyInfoCollection listKeys(String clientKeyID, String status, Integer maxTime,
+            Integer size, String realm, String next) throws Exception {
+        Response response = keyClient.listKeys(clientKeyID, status, null, maxTime, null, size, realm, next);
         return client.getEntity(response, KeyInfoCollection.class);
     }
 
     /* for backward compatibility */
     public KeyInfoCollection listKeys(String clientKeyID, String status, Integer maxSize, Integer maxTime,
             Integer start, Integer size) throws Exception {
-        Response response = keyClient.listKeys(clientKeyID, status, maxSize, maxTime, start, size, null);
+        Response response = keyClient.listKeys(clientKeyID, status, maxSize, maxTime, start, size, null, null);
         return client.getEntity(response, KeyInfoCollection.class);
     }
 
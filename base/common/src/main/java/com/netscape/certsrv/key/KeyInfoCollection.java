@@ -29,9 +29,23 @@ import com.netscape.certsrv.util.JSONSerializer;
 @JsonIgnoreProperties(ignoreUnknown=true)
 public class KeyInfoCollection extends DataCollection<KeyInfo> implements JSONSerializer {
 
+    String next;
+
     @Override
     public Collection<KeyInfo> getEntries() {
         return super.getEntries();
     }
 
+    /**
+     * Returns the continuation token to retrieve the next page
+     * of a paged listing, or null if there are no more keys.
+     */
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+
 }
@@ -34,6 +34,7 @@ public class SelfTestResult implements JSONSerializer {
     String id;
     String status;
     String output;
+    Long duration;
 
     public String getID() {
         return id;
@@ -59,10 +60,22 @@ public class SelfTestResult implements JSONSerializer {
         this.output = output;
     }
 
+    /**
+     * Returns the execution time of the self test in milliseconds.
+     */
+    public Long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Long duration) {
+        this.duration = duration;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
+        result = prime * result + ((duration == null) ? 0 : duration.hashCode());
         result = prime * result + ((id == null) ? 0 : id.hashCode());
         result = prime * result + ((output == null) ? 0 : output.hashCode());
         result = prime * result + ((status == null) ? 0 : status.hashCode());
@@ -78,6 +91,11 @@ public class SelfTestResult implements JSONSerializer {
         if (getClass() != obj.getClass())
             return false;
         SelfTestResult other = (SelfTestResult) obj;
+        if (duration == null) {
+            if (other.duration != null)
+                return false;
+        } else if (!duration.equals(other.duration))
+            return false;
         if (id == null) {
             if (other.id != null)
                 return false;
@@ -0,0 +1,99 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.certsrv.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+
+/**
+ * This class provides a shared JSON codec. The ObjectMapper is configured
+ * once, and the ObjectReader and ObjectWriter instances derived from it are
+ * immutable and thread-safe, so they are cached and reused instead of being
+ * created on every conversion. The output is compact unless the pretty
+ * methods are used.
+ */
+public class JSONCodec {
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .setAnnotationIntrospector(new JacksonAnnotationIntrospector())
+            .deactivateDefaultTyping();
+
+    private static final ObjectWriter writer = mapper.writer();
+
+    private static final ObjectWriter prettyWriter = mapper.writer(SerializationFeature.INDENT_OUTPUT);
+
+    // do not close the target stream (e.g. servlet output) after writing the object
+    private static final ObjectWriter streamWriter = writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private JSONCodec() {
+    }
+
+    public static ObjectReader getReader(Class<?> clazz) {
+        return readers.computeIfAbsent(clazz, mapper::readerFor);
+    }
+
+    public static ObjectWriter getWriter() {
+        return writer;
+    }
+
+    public static ObjectWriter getPrettyWriter() {
+        return prettyWriter;
+    }
+
+    public static String toJSON(Object object) throws JsonProcessingException {
+        return writer.writeValueAsString(object);
+    }
+
+    public static String toPrettyJSON(Object object) throws JsonProcessingException {
+        return prettyWriter.writeValueAsString(object);
+    }
+
+    public static <T> T fromJSON(String json, Class<T> clazz) throws JsonProcessingException {
+        return getReader(clazz).readValue(json);
+    }
+
+    /**
+     * Writes the object directly into the output stream
+     * without creating the JSON string in memory.
+     */
+    public static void write(OutputStream out, Object object) throws IOException {
+        streamWriter.writeValue(out, object);
+    }
+
+    /**
+     * Returns a REST response entity that writes the object
+     * directly into the response output stream.
+     */
+    public static StreamingOutput stream(Object object) {
+        return out -> write(out, object);
+    }
+}
@@ -11,7 +11,7 @@ import java.util.Collection;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netscape.certsrv.util.JSONCodec;
 
 /**
  * @author Endi S. Dewata
@@ -35,13 +35,11 @@ public class ACMEAccountOrders {
     }
 
     public String toJSON() throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(this);
+        return JSONCodec.toJSON(this);
     }
 
     public static ACMEAccountOrders fromJSON(String json) throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.readValue(json, ACMEAccountOrders.class);
+        return JSONCodec.fromJSON(json, ACMEAccountOrders.class);
     }
 
     @Override
@@ -12,7 +12,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netscape.certsrv.util.JSONCodec;
 
 /**
  * @author Endi S. Dewata
@@ -73,13 +73,11 @@ public class ACMECertificate {
     }
 
     public String toJSON() throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(this);
+        return JSONCodec.toJSON(this);
     }
 
     public static ACMECertificate fromJSON(String json) throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.readValue(json, ACMECertificate.class);
+        return JSONCodec.fromJSON(json, ACMECertificate.class);
     }
 
     @Override
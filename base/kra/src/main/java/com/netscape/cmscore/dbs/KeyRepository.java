@@ -20,8 +20,11 @@ package com.netscape.cmscore.dbs;
 import java.math.BigInteger;
 import java.security.PublicKey;
 import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Vector;
 
 import org.mozilla.jss.netscape.security.x509.X500Name;
@@ -31,6 +34,7 @@ import com.netscape.certsrv.dbs.IDBSearchResults;
 import com.netscape.certsrv.dbs.Modification;
 import com.netscape.certsrv.dbs.ModificationSet;
 import com.netscape.cmscore.apps.DatabaseConfig;
+import com.netscape.cmscore.cert.CertUtils;
 
 /**
  * A class represents a Key repository. This is the container of
@@ -44,6 +48,15 @@ public class KeyRepository extends Repository {
 
     public static final String PROP_KEY_ID_GENERATOR = "key.id.generator";
     public static final String PROP_KEY_ID_LENGTH = "key.id.length";
+    public static final String PROP_KEY_FINGERPRINT_ENABLE = "key.fingerprint.enable";
+    public static final String PROP_KEY_FINGERPRINT_FALLBACK = "key.fingerprint.fallback";
+
+    // store public key fingerprints and use them for lookups
+    protected boolean fingerprintEnabled;
+
+    // fall back to public key data lookups for records
+    // without fingerprint (see pki-server kra-db-upgrade)
+    protected boolean fingerprintFallback;
 
     /**
      * Constructs a key repository. It checks if the key repository
@@ -74,6 +87,12 @@ public class KeyRepository extends Repository {
             setIDGenerator(value);
         }
 
+        fingerprintEnabled = dbConfig.getBoolean(PROP_KEY_FINGERPRINT_ENABLE, false);
+        logger.info("KeyRepository: - public key fingerprint: " + fingerprintEnabled);
+
+        fingerprintFallback = dbConfig.getBoolean(PROP_KEY_FINGERPRINT_FALLBACK, !fingerprintEnabled);
+        logger.info("KeyRepository: - public key fingerprint fallback: " + fingerprintFallback);
+
         if (idGenerator == RANDOM) {
 
             idLength = dbConfig.getInteger(PROP_KEY_ID_LENGTH);
@@ -124,6 +143,10 @@ public class KeyRepository extends Repository {
             reg.registerAttribute(KeyRecord.ATTR_PUBLIC_KEY_DATA, new
                     PublicKeyMapper(KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_DATA));
         }
+        if (!reg.isAttributeRegistered(KeyRecord.ATTR_PUBLIC_KEY_FINGERPRINT)) {
+            reg.registerAttribute(KeyRecord.ATTR_PUBLIC_KEY_FINGERPRINT, new
+                    StringMapper(KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_FINGERPRINT));
+        }
         if (!reg.isAttributeRegistered(KeyRecord.ATTR_DATE_OF_RECOVERY)) {
             reg.registerAttribute(KeyRecord.ATTR_DATE_OF_RECOVERY, new
                     DateArrayMapper(KeyDBSchema.LDAP_ATTR_DATE_OF_RECOVERY));
@@ -246,6 +269,12 @@ public class KeyRepository extends Repository {
      */
     public void addKeyRecord(KeyRecord record) throws EBaseException {
 
+        byte[] publicKeyData = record.getPublicKeyData();
+
+        if (fingerprintEnabled && publicKeyData != null && record.getPublicKeyFingerprint() == null) {
+            record.setPublicKeyFingerprint(KeyRecord.createPublicKeyFingerprint(publicKeyData));
+        }
+
         try (DBSSession s = dbSubsystem.createSession()) {
             String name = "cn" + "=" +
                     record.getSerialNumber().toString() + "," + getDN();
@@ -317,7 +346,7 @@ public class KeyRepository extends Repository {
      */
     public KeyRecord readKeyRecord(PublicKey publicKey)
             throws EBaseException {
-        // XXX - setup binary search attributes
+
         byte data[] = publicKey.getEncoded();
 
         if (data == null)
@@ -326,13 +355,28 @@ public class KeyRepository extends Repository {
         KeyRecord rec = null;
 
         try (DBSSession s = dbSubsystem.createSession()) {
-            String filter = "(" + KeyRecord.ATTR_PUBLIC_KEY_DATA + "=" +
-                    escapeBinaryData(data) + ")";
-            if (s != null) {
+
+            if (fingerprintEnabled) {
+                String filter = "(" + KeyRecord.ATTR_PUBLIC_KEY_FINGERPRINT + "=" +
+                        KeyRecord.createPublicKeyFingerprint(data) + ")";
                 IDBSearchResults res = s.search(getDN(), filter);
 
                 rec = (KeyRecord) res.nextElement();
+
+                if (rec != null || !fingerprintFallback) {
+                    return rec;
+                }
+
+                logger.debug("KeyRepository: Key record not found by fingerprint, searching by public key");
             }
+
+            // binary match on the whole public key, used for
+            // records created before fingerprints were stored
+            String filter = "(" + KeyRecord.ATTR_PUBLIC_KEY_DATA + "=" +
+                    PublicKeyMapper.escapeBinaryData(data) + ")";
+            IDBSearchResults res = s.search(getDN(), filter);
+
+            rec = (KeyRecord) res.nextElement();
         }
         return rec;
     }
@@ -347,6 +391,16 @@ public class KeyRepository extends Repository {
     public KeyRecord readKeyRecord(String cert)
             throws EBaseException {
 
+        if (fingerprintEnabled) {
+            X509Certificate x509cert;
+            try {
+                x509cert = CertUtils.mapCert(cert);
+            } catch (Exception e) {
+                throw new EBaseException("Unable to parse certificate: " + e.getMessage(), e);
+            }
+            return readKeyRecord(x509cert.getPublicKey());
+        }
+
         KeyRecord rec = null;
 
         try (DBSSession s = dbSubsystem.createSession()) {
@@ -458,6 +512,66 @@ public class KeyRepository extends Repository {
         return v.elements();
     }
 
+    /**
+     * Searches for private keys and returns only the specified
+     * attributes (e.g. KeyRecord.SUMMARY_ATTRS) of each record.
+     *
+     * @param filter LDAP filter for the search
+     * @param maxSize maximum number of entries to be returned
+     * @param timeLimit timeout value
+     * @param attrs attributes to be returned, or null for all attributes
+     * @return a list of private key records
+     * @exception EBaseException failed to search keys
+     */
+    public Enumeration<KeyRecord> searchKeys(String filter, int maxSize, int timeLimit, String[] attrs)
+            throws EBaseException {
+
+        Vector<KeyRecord> v = new Vector<>();
+
+        try (DBSSession s = dbSubsystem.createSession()) {
+            IDBSearchResults sr = s.search(getDN(), filter, maxSize, timeLimit, null, attrs);
+            while (sr.hasMoreElements()) {
+                v.add((KeyRecord) sr.nextElement());
+            }
+        }
+        return v.elements();
+    }
+
+    /**
+     * Searches for a page of private keys ordered by serial number,
+     * starting from the specified serial number. The serial number
+     * following the last record of a page can be used to retrieve
+     * the next page, so the number of records held in memory is
+     * bounded by the page size regardless of the number of matches.
+     *
+     * @param filter LDAP filter for the search
+     * @param from first serial number of the page (inclusive)
+     * @param pageSize maximum number of entries to be returned
+     * @param timeLimit timeout value
+     * @param attrs attributes to be returned, or null for all attributes
+     * @return a list of private key records in serial number order
+     * @exception EBaseException failed to search keys
+     */
+    public List<KeyRecord> searchKeys(String filter, BigInteger from, int pageSize, int timeLimit, String[] attrs)
+            throws EBaseException {
+
+        String pageFilter = "(&" + filter + "(" + KeyRecord.ATTR_ID + ">=" + from + "))";
+        logger.debug("KeyRepository: Searching keys with " + pageFilter);
+
+        List<KeyRecord> records = new ArrayList<>();
+
+        try (DBSSession s = dbSubsystem.createSession()) {
+            IDBSearchResults sr = s.search(getDN(), pageFilter, pageSize, timeLimit,
+                    KeyDBSchema.LDAP_ATTR_SERIALNO, attrs);
+            while (sr.hasMoreElements()) {
+                KeyRecord record = (KeyRecord) sr.nextElement();
+                if (record == null) continue;
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
     /**
      * Searches for a list of key records.
      * Here is a list of supported filter attributes:
@@ -0,0 +1,120 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package org.dogtagpki.server.kra.cli;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dogtagpki.cli.CLI;
+import org.dogtagpki.server.cli.SubsystemDBUpgradeCLI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netscape.cmscore.apps.DatabaseConfig;
+import com.netscape.cmscore.apps.EngineConfig;
+import com.netscape.cmscore.dbs.KeyDBSchema;
+import com.netscape.cmscore.dbs.KeyRecord;
+import com.netscape.cmscore.ldapconn.LDAPConfig;
+import com.netscape.cmscore.ldapconn.LdapBoundConnection;
+
+import netscape.ldap.LDAPAttribute;
+import netscape.ldap.LDAPEntry;
+import netscape.ldap.LDAPException;
+import netscape.ldap.LDAPModification;
+import netscape.ldap.LDAPSearchConstraints;
+import netscape.ldap.LDAPSearchResults;
+import netscape.ldap.LDAPv3;
+
+public class KRADBUpgradeCLI extends SubsystemDBUpgradeCLI {
+
+    public static Logger logger = LoggerFactory.getLogger(KRADBUpgradeCLI.class);
+
+    public static final int PAGE_SIZE = 1000;
+
+    public KRADBUpgradeCLI(CLI parent) {
+        super("upgrade", "Upgrade KRA database", parent);
+    }
+
+    @Override
+    public void upgrade(EngineConfig cs, LDAPConfig ldapConfig, LdapBoundConnection conn) throws Exception {
+
+        DatabaseConfig dbConfig = cs.getDatabaseConfig();
+        String keyRepoDN = dbConfig.getSerialDN() + "," + ldapConfig.getBaseDN();
+
+        logger.info("Searching key records with missing " + KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_FINGERPRINT
+                + " in " + keyRepoDN);
+
+        String filter = "(&(objectclass=" + KeyDBSchema.LDAP_OC_KEYRECORD + ")" +
+                "(" + KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_DATA + "=*)" +
+                "(!(" + KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_FINGERPRINT + "=*)))";
+
+        LDAPSearchConstraints cons = new LDAPSearchConstraints();
+        cons.setMaxResults(PAGE_SIZE);
+
+        int count = 0;
+
+        while (true) {
+
+            // updated records no longer match the filter, so each search
+            // returns the next page of records to update
+            LDAPSearchResults results = conn.search(
+                    keyRepoDN,
+                    LDAPv3.SCOPE_ONE,
+                    filter,
+                    new String[] { KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_DATA },
+                    false,
+                    cons);
+
+            List<LDAPEntry> entries = new ArrayList<>();
+            try {
+                while (results.hasMoreElements()) {
+                    entries.add(results.next());
+                }
+            } catch (LDAPException e) {
+                // the remaining records will be returned in the next page
+                if (e.getLDAPResultCode() != LDAPException.SIZE_LIMIT_EXCEEDED) {
+                    throw e;
+                }
+            }
+
+            if (entries.isEmpty()) break;
+
+            for (LDAPEntry entry : entries) {
+
+                logger.info("Updating key record " + entry.getDN());
+
+                LDAPAttribute publicKeyData = entry.getAttribute(KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_DATA);
+                byte[] bytes = publicKeyData.getByteValues().nextElement();
+
+                String fingerprint = KeyRecord.createPublicKeyFingerprint(bytes);
+
+                logger.info("Setting " + KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_FINGERPRINT + " to " + fingerprint);
+                LDAPModification mods = new LDAPModification(
+                        LDAPModification.REPLACE,
+                        new LDAPAttribute(KeyDBSchema.LDAP_ATTR_PUBLIC_KEY_FINGERPRINT, fingerprint));
+                conn.modify(entry.getDN(), mods);
+
+                count++;
+            }
+
+            if (entries.size() < PAGE_SIZE) break;
+        }
+
+        logger.info("Updated " + count + " key record(s)");
+    }
+}
@@ -463,9 +463,11 @@ public class KeyService extends SubsystemService implements KeyResource {
      */
     @Override
     public Response listKeys(String clientKeyID, String status, Integer maxResults, Integer maxTime,
-            Integer start, Integer size, String realm) {
+            Integer start, Integer size, String realm, String next) {
 
-        KeyInfoCollection keys = listKeyInfos(clientKeyID, status, maxResults, maxTime, start, size, realm);
+        KeyInfoCollection keys = next == null
+                ? listKeyInfos(clientKeyID, status, maxResults, maxTime, start, size, realm)
+                : listKeyInfos(clientKeyID, status, maxTime, size, realm, next);
 
         try {
             return createOKResponse(keys);
@@ -513,34 +515,112 @@ public class KeyService extends SubsystemService implements KeyResource {
 
         KeyInfoCollection infos = new KeyInfoCollection();
         try {
-            Enumeration<KeyRecord> e = repo.searchKeys(filter, maxResults, maxTime);
+            // the key data is not needed for the listing
+            Enumeration<KeyRecord> e = repo.searchKeys(filter, maxResults, maxTime, KeyRecord.SUMMARY_ATTRS);
             if (e == null) {
                 return infos;
             }
 
-            logger.info("KeyService: Results:");
-
             // store non-null results in a list
-            List<KeyInfo> results = new ArrayList<>();
+            List<KeyRecord> results = new ArrayList<>();
             while (e.hasMoreElements()) {
                 KeyRecord rec = e.nextElement();
                 if (rec == null) continue;
-
-                KeyInfo info = createKeyDataInfo(rec, false);
-                logger.info("KeyService: - key " + info.getKeyId());
-                results.add(info);
-
-                auditKeyInfoSuccess(info.getKeyId(), null);
+                results.add(rec);
             }
 
             int total = results.size();
             logger.info("KeyService: Total: " + total);
             infos.setTotal(total);
 
+            logger.info("KeyService: Results:");
+
             // return entries in the requested page
             for (int i = start; i < start + size && i < total; i++) {
-                infos.addEntry(results.get(i));
+                KeyInfo info = createKeyDataInfo(results.get(i), false);
+                logger.info("KeyService: - key " + info.getKeyId());
+                infos.addEntry(info);
+
+                auditKeyInfoSuccess(info.getKeyId(), null);
+            }
+        } catch (EBaseException e) {
+            throw new PKIException("Unable to list keys: " + e.getMessage(), e);
+        }
+
+        return infos;
+    }
+
+    /**
+     * Lists one page of keys in key ID order starting from the key ID
+     * in the continuation token. Unlike the offset-based listing, the
+     * matching keys are not loaded beyond the requested page, and the
+     * continuation token of the next page is returned in the collection.
+     */
+    public KeyInfoCollection listKeyInfos(String clientKeyID, String status, Integer maxTime,
+            Integer size, String realm, String next) {
+
+        logger.info("KeyService: Listing keys");
+        logger.info("KeyService: - client key ID: " + clientKeyID);
+        logger.info("KeyService: - status: " + status);
+        logger.info("KeyService: - next: " + next);
+
+        auditInfo = "KeyService.listKeyInfos; status =" + status;
+
+        size = size == null ? DEFAULT_SIZE : size;
+        maxTime = maxTime == null ? DEFAULT_MAXTIME : maxTime;
+
+        if (size < 1) {
+            throw new BadRequestException("Invalid page size: " + size);
+        }
+
+        BigInteger from;
+        try {
+            from = new KeyId(next).toBigInteger();
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid continuation token: " + next, e);
+        }
+
+        if (realm != null) {
+            try {
+                authz.checkRealm(realm, getAuthToken(), null, "certServer.kra.keys", "list");
+
+            } catch (EAuthzAccessDenied e) {
+                throw new UnauthorizedException("Unauthorized: " + e.getMessage(), e);
+
+            } catch (EAuthzUnknownRealm e) {
+                throw new BadRequestException("Unknown realm: " + e.getMessage(), e);
+
+            } catch (EBaseException e) {
+                logger.error("Unable to access realm: " + e.getMessage(), e);
+                throw new PKIException("Unable to access realm: " + e.getMessage(), e);
+            }
+        }
+
+        String filter = createSearchFilter(status, clientKeyID, realm);
+        logger.info("KeyService: - filter: " + filter);
+
+        KeyInfoCollection infos = new KeyInfoCollection();
+        try {
+            // retrieve one more record to find the start of the next page
+            List<KeyRecord> results = repo.searchKeys(filter, from, size + 1, maxTime, KeyRecord.SUMMARY_ATTRS);
+
+            logger.info("KeyService: Results:");
+
+            for (int i = 0; i < size && i < results.size(); i++) {
+                KeyInfo info = createKeyDataInfo(results.get(i), false);
+                logger.info("KeyService: - key " + info.getKeyId());
+                infos.addEntry(info);
+
+                auditKeyInfoSuccess(info.getKeyId(), null);
             }
+
+            infos.setTotal(infos.getEntries().size());
+
+            if (results.size() > size) {
+                KeyId nextKeyID = new KeyId(results.get(size).getSerialNumber());
+                infos.setNext(nextKeyID.toHexString());
+            }
+
         } catch (EBaseException e) {
             throw new PKIException("Unable to list keys: " + e.getMessage(), e);
         }
@@ -91,6 +91,25 @@ public interface IDefStore extends IOCSPStore {
      */
     public void updateCRL(X509CRL crl) throws EBaseException;
 
+    /**
+     * This method specifies whether or not delta CRLs can be applied
+     * incrementally to this store.
+     * <P>
+     *
+     * @return boolean true or false
+     */
+    public boolean isDeltaCRLSupported();
+
+    /**
+     * This method applies the changes in the specified delta CRL
+     * on top of the current full CRL without replacing it.
+     * <P>
+     *
+     * @param deltaCRL the delta CRL to be applied
+     * @exception EBaseException occurs when the delta CRL cannot be applied
+     */
+    public void updateDeltaCRL(X509CRL deltaCRL) throws EBaseException;
+
     /**
      * This method attempts to read the CRL issuing point.
      * <P>
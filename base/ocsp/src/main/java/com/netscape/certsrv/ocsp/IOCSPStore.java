@@ -50,6 +50,23 @@ public interface IOCSPStore {
      */
     public SingleResponse processRequest(Request req) throws Exception;
 
+    /**
+     * Check against the database for the status of multiple certificates.
+     * The responses are returned in the same order as the requests.
+     * Stores can override this method to resolve the issuer of the
+     * certificates only once for all requests of the same issuer.
+     */
+    public default SingleResponse[] processRequests(Request[] reqs) throws Exception {
+
+        SingleResponse[] responses = new SingleResponse[reqs.length];
+
+        for (int i = 0; i < reqs.length; i++) {
+            responses[i] = processRequest(reqs[i]);
+        }
+
+        return responses;
+    }
+
     /**
      * This method retrieves the configuration parameters associated with this
      * OCSP store.
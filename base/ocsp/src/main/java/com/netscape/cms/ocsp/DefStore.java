@@ -17,19 +17,33 @@
 // --- END COPYRIGHT BLOCK ---
 package com.netscape.cms.ocsp;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.cert.X509CRL;
 import java.security.cert.X509CRLEntry;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.mozilla.jss.asn1.GeneralizedTime;
 import org.mozilla.jss.asn1.INTEGER;
+import org.mozilla.jss.netscape.security.util.Utils;
+import org.mozilla.jss.netscape.security.x509.CRLExtensions;
+import org.mozilla.jss.netscape.security.x509.CRLReasonExtension;
+import org.mozilla.jss.netscape.security.x509.DeltaCRLIndicatorExtension;
+import org.mozilla.jss.netscape.security.x509.Extension;
+import org.mozilla.jss.netscape.security.x509.RevocationReason;
 import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
 import org.mozilla.jss.netscape.security.x509.X509CRLImpl;
 import org.mozilla.jss.netscape.security.x509.X509CertImpl;
@@ -70,7 +84,8 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
 
     // refreshInSec is useful in the master-clone situation.
     // clone does not know that the CRL has been updated in
-    // the master (by default no refresh)
+    // the master (by default no refresh). Only the issuing
+    // points whose CRL number has changed are reloaded.
     private static final String PROP_USE_CACHE = "useCache";
 
     private static final String PROP_REFRESH_IN_SEC = "refreshInSec";
@@ -92,7 +107,14 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
     protected boolean mUseCache = true;
     protected boolean mByName = true;
     protected boolean mIncludeNextUpdate = false;
-    protected Hashtable<String, CRLIPContainer> mCacheCRLIssuingPoints = new Hashtable<>();
+
+    // cached issuing points by issuer key hash
+    protected Map<String, CRLIPContainer> mCacheCRLIssuingPoints = new ConcurrentHashMap<>();
+
+    // issuing points being loaded by issuer key hash
+    private Map<String, FutureTask<CRLIPContainer>> mLoadingCRLIssuingPoints = new ConcurrentHashMap<>();
+
+    private DefStoreCRLUpdater mUpdater;
     private ConfigStore mConfig;
     private String mId = null;
     private DBSubsystem dbSubsystem;
@@ -286,14 +308,18 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
         int refresh = mConfig.getInteger(PROP_REFRESH_IN_SEC,
                 DEF_REFRESH_IN_SEC);
         if (refresh > 0) {
-            DefStoreCRLUpdater updater =
-                    new DefStoreCRLUpdater(mCacheCRLIssuingPoints, refresh);
-            updater.start();
+            mUpdater = new DefStoreCRLUpdater(this, refresh);
+            mUpdater.start();
         }
     }
 
     @Override
     public void shutdown() {
+        if (mUpdater != null) {
+            mUpdater.interrupt();
+            mUpdater = null;
+        }
+        mCacheCRLIssuingPoints.clear();
     }
 
     public ConfigStore getConfigStore() {
@@ -316,69 +342,49 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
         // need to find the right CA
 
         CertID cid = req.getCertID();
-        INTEGER serialNo = cid.getSerialNumber();
-        logger.debug("DefStore: processing request for cert 0x" + serialNo.toString(16));
+        return processRequest(cid, getCRLIssuingPoint(cid));
+    }
 
-        // cache result to speed up the performance
-        X509CertImpl theCert = null;
-        X509CRLImpl theCRL = null;
-        CRLIssuingPointRecord theRec = null;
-        byte keyhsh[] = cid.getIssuerKeyHash().toByteArray();
-        CRLIPContainer matched = mCacheCRLIssuingPoints.get(new String(keyhsh));
-
-        if (matched == null) {
-            Enumeration<CRLIssuingPointRecord> recs = searchCRLIssuingPointRecord(
-                    "objectclass=" + CRLIssuingPointRecord.class.getName(),
-                    100);
-
-            while (recs.hasMoreElements()) {
-                CRLIssuingPointRecord rec = recs.nextElement();
-                byte certdata[] = rec.getCACert();
-                X509CertImpl cert = null;
-
-                try {
-                    cert = new X509CertImpl(certdata);
-                } catch (Exception e) {
-                    logger.error(CMS.getLogMessage("OCSP_DECODE_CERT", e.toString()), e);
-                    throw e;
-                }
+    /**
+     * Check against the database for the status of multiple certificates.
+     * The issuing point of each issuer is resolved only once for all
+     * requests of that issuer.
+     */
+    @Override
+    public SingleResponse[] processRequests(Request[] reqs) throws Exception {
 
-                MessageDigest md = MessageDigest.getInstance(cid.getDigestName());
-                X509Key key = (X509Key) cert.getPublicKey();
-                byte digest[] = md.digest(key.getKey());
+        SingleResponse[] responses = new SingleResponse[reqs.length];
+        Map<String, CRLIPContainer> issuers = new HashMap<>();
 
-                if (!Arrays.equals(digest, keyhsh)) {
-                    continue;
-                }
+        for (int i = 0; i < reqs.length; i++) {
 
-                theCert = cert;
-                theRec = rec;
-                incReqCount(theRec.getId());
+            CertID cid = reqs[i].getCertID();
+            byte keyhsh[] = cid.getIssuerKeyHash().toByteArray();
+            String key = Utils.HexEncode(keyhsh);
 
-                byte crldata[] = rec.getCRL();
+            CRLIPContainer matched = issuers.get(key);
+            if (matched == null) {
+                matched = getCRLIssuingPoint(cid, keyhsh, key);
+                issuers.put(key, matched);
+            }
 
-                if (crldata == null) {
-                    throw new Exception("Missing CRL data");
-                }
+            responses[i] = processRequest(cid, matched);
+        }
 
-                if (rec.getCRLCache() == null) {
-                    logger.debug("DefStore: start building x509 crl impl");
-                    try {
-                        theCRL = new X509CRLImpl(crldata);
-                    } catch (Exception e) {
-                        logger.error(CMS.getLogMessage("OCSP_DECODE_CRL", e.toString()), e);
-                        throw e;
-                    }
-                    logger.debug("DefStore: done building x509 crl impl");
-                } else {
-                    logger.debug("DefStore: using crl cache");
-                }
+        return responses;
+    }
 
-                mCacheCRLIssuingPoints.put(new String(digest), new CRLIPContainer(theRec, theCert, theCRL));
-                break;
-            }
+    private SingleResponse processRequest(CertID cid, CRLIPContainer matched) throws Exception {
 
-        } else {
+        INTEGER serialNo = cid.getSerialNumber();
+        logger.debug("DefStore: processing request for cert 0x" + serialNo.toString(16));
+
+        // cache result to speed up the performance
+        X509CertImpl theCert = null;
+        X509CRLImpl theCRL = null;
+        CRLIssuingPointRecord theRec = null;
+
+        if (matched != null) {
             theCert = matched.getX509CertImpl();
             theRec = matched.getCRLIssuingPointRecord();
             theCRL = matched.getX509CRLImpl();
@@ -423,6 +429,45 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
 
         CertStatus certStatus;
 
+        // INTEGER is a BigInteger, no need to convert the serial number
+        BigInteger serial = serialNo;
+
+        // changes from delta CRLs take precedence over the full CRL
+        if (theRec != null) {
+
+            Hashtable<BigInteger, RevokedCertificate> unrevokedCerts = theRec.getUnrevokedCertsNoClone();
+            if (unrevokedCerts != null && unrevokedCerts.containsKey(serial)) {
+                logger.debug("DefStore: certificate removed from CRL by delta CRL");
+                if (isNotFoundGood()) {
+                    certStatus = new GoodInfo();
+                } else {
+                    certStatus = new UnknownInfo();
+                }
+                return new SingleResponse(cid, certStatus, thisUpdate, nextUpdate);
+            }
+
+            Hashtable<BigInteger, RevokedCertificate> revokedCerts = theRec.getRevokedCertsNoClone();
+            RevokedCertificate rc = revokedCerts == null ? null : revokedCerts.get(serial);
+            if (rc != null) {
+                logger.debug("DefStore: certificate revoked by delta CRL");
+                certStatus = new RevokedInfo(new GeneralizedTime(rc.getRevocationDate()));
+                return new SingleResponse(cid, certStatus, thisUpdate, nextUpdate);
+            }
+        }
+
+        // most certificates are not revoked, skip the CRL lookup
+        // if the certificate is definitely not in the CRL
+        RevokedSerialFilter filter = matched.getRevokedSerialFilter();
+        if (filter != null && !filter.mightContain(cid.getSerialNumberBytes())) {
+            logger.debug("DefStore: certificate not in revoked serial filter");
+            if (isNotFoundGood()) {
+                certStatus = new GoodInfo();
+            } else {
+                certStatus = new UnknownInfo();
+            }
+            return new SingleResponse(cid, certStatus, thisUpdate, nextUpdate);
+        }
+
         if (theCRL == null) {
 
             certStatus = new UnknownInfo();
@@ -435,7 +480,7 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
             logger.debug("DefStore: evaluating crl cache");
             Hashtable<BigInteger, RevokedCertificate> cache = theRec.getCRLCacheNoClone();
             if (cache != null) {
-                RevokedCertificate rc = cache.get(new BigInteger(serialNo.toString()));
+                RevokedCertificate rc = cache.get(serial);
                 if (rc == null) {
                     if (isNotFoundGood()) {
                         certStatus = new GoodInfo();
@@ -455,7 +500,7 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
         }
 
         logger.debug("DefStore: evaluating x509 crl impl");
-        X509CRLEntry crlentry = theCRL.getRevokedCertificate(new BigInteger(serialNo.toString()));
+        X509CRLEntry crlentry = theCRL.getRevokedCertificate(serial);
 
         if (crlentry == null) {
             // good or unknown
@@ -474,6 +519,253 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
                 nextUpdate);
     }
 
+    /**
+     * Returns the cached issuing point for the issuer of a certificate.
+     * If the issuing point is not cached yet it will be loaded from the
+     * database. Concurrent requests for the same issuer wait for a single
+     * load instead of each searching the database and decoding the CRL.
+     *
+     * @return the issuing point, or null if the issuer is unknown
+     */
+    CRLIPContainer getCRLIssuingPoint(CertID cid) throws Exception {
+
+        byte keyhsh[] = cid.getIssuerKeyHash().toByteArray();
+        String key = Utils.HexEncode(keyhsh);
+
+        return getCRLIssuingPoint(cid, keyhsh, key);
+    }
+
+    private CRLIPContainer getCRLIssuingPoint(CertID cid, byte keyhsh[], String key) throws Exception {
+
+        CRLIPContainer container = mCacheCRLIssuingPoints.get(key);
+        if (container != null) return container;
+
+        FutureTask<CRLIPContainer> task = new FutureTask<>(() -> loadCRLIssuingPoint(cid, keyhsh, key));
+        FutureTask<CRLIPContainer> loading = mLoadingCRLIssuingPoints.putIfAbsent(key, task);
+
+        if (loading == null) {
+            loading = task;
+            try {
+                task.run();
+            } finally {
+                mLoadingCRLIssuingPoints.remove(key, task);
+            }
+
+        } else {
+            logger.debug("DefStore: waiting for issuing point to be loaded");
+        }
+
+        try {
+            return loading.get();
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private CRLIPContainer loadCRLIssuingPoint(CertID cid, byte keyhsh[], String cacheKey) throws Exception {
+
+        // the issuing point might have been loaded while waiting
+        CRLIPContainer container = mCacheCRLIssuingPoints.get(cacheKey);
+        if (container != null) return container;
+
+        logger.debug("DefStore: loading issuing point");
+
+        Enumeration<CRLIssuingPointRecord> recs = searchCRLIssuingPointRecord(
+                "objectclass=" + CRLIssuingPointRecord.class.getName(),
+                100);
+
+        while (recs.hasMoreElements()) {
+            CRLIssuingPointRecord rec = recs.nextElement();
+            byte certdata[] = rec.getCACert();
+            X509CertImpl cert = null;
+
+            try {
+                cert = new X509CertImpl(certdata);
+            } catch (Exception e) {
+                logger.error(CMS.getLogMessage("OCSP_DECODE_CERT", e.toString()), e);
+                throw e;
+            }
+
+            MessageDigest md = MessageDigest.getInstance(cid.getDigestName());
+            X509Key key = (X509Key) cert.getPublicKey();
+            byte digest[] = md.digest(key.getKey());
+
+            if (!Arrays.equals(digest, keyhsh)) {
+                continue;
+            }
+
+            X509CRLImpl crl = decodeCRL(rec);
+            container = new CRLIPContainer(rec, cert, crl);
+
+            // keep the newer issuing point in case the CRL
+            // has been updated while loading
+            return mCacheCRLIssuingPoints.merge(
+                    cacheKey,
+                    container,
+                    (current, loaded) -> isNewer(loaded.getCRLIssuingPointRecord(), current.getCRLIssuingPointRecord())
+                            ? loaded : current);
+        }
+
+        return null;
+    }
+
+    /**
+     * Decodes the CRL in an issuing point record if the
+     * revoked certificates are not available in the CRL cache.
+     */
+    private X509CRLImpl decodeCRL(CRLIssuingPointRecord rec) throws Exception {
+
+        byte crldata[] = rec.getCRL();
+
+        if (crldata == null) {
+            throw new Exception("Missing CRL data");
+        }
+
+        if (rec.getCRLCache() != null) {
+            logger.debug("DefStore: using crl cache");
+            return null;
+        }
+
+        logger.debug("DefStore: start building x509 crl impl");
+        try {
+            X509CRLImpl crl = new X509CRLImpl(crldata);
+            logger.debug("DefStore: done building x509 crl impl");
+            return crl;
+
+        } catch (Exception e) {
+            logger.error(CMS.getLogMessage("OCSP_DECODE_CRL", e.toString()), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns true if the first issuing point contains a newer CRL
+     * (or the same CRL with a newer delta CRL) than the second one.
+     */
+    private boolean isNewer(CRLIssuingPointRecord rec1, CRLIssuingPointRecord rec2) {
+
+        int result = compareNumbers(rec1.getCRLNumber(), rec2.getCRLNumber());
+        if (result != 0) return result > 0;
+
+        return compareNumbers(rec1.getDeltaCRLNumber(), rec2.getDeltaCRLNumber()) > 0;
+    }
+
+    private int compareNumbers(BigInteger number1, BigInteger number2) {
+        if (number1 == null) number1 = BigInteger.ONE.negate();
+        if (number2 == null) number2 = BigInteger.ONE.negate();
+        return number1.compareTo(number2);
+    }
+
+    /**
+     * Replaces the cached entries of an issuing point with the current
+     * record from the database. The entries are replaced in place, so
+     * requests for this issuer never find an empty cache, and requests
+     * for other issuers are not affected.
+     *
+     * @param id issuing point ID
+     * @param crl the new CRL if already decoded, or null
+     */
+    protected void refreshCRLIssuingPoint(String id, X509CRLImpl crl) throws Exception {
+
+        List<String> keys = new ArrayList<>();
+        CRLIPContainer current = null;
+
+        for (Map.Entry<String, CRLIPContainer> entry : mCacheCRLIssuingPoints.entrySet()) {
+            CRLIPContainer container = entry.getValue();
+            if (!id.equals(container.getCRLIssuingPointRecord().getId())) continue;
+            keys.add(entry.getKey());
+            current = container;
+        }
+
+        if (current == null) {
+            // issuer not cached, it will be loaded on the next request
+            return;
+        }
+
+        CRLIssuingPointRecord rec = readCRLIssuingPoint(id);
+
+        if (!isNewer(rec, current.getCRLIssuingPointRecord())) {
+            logger.debug("DefStore: issuing point " + id + " is up to date");
+            return;
+        }
+
+        logger.info("DefStore: refreshing issuing point " + id + " with CRL " + rec.getCRLNumber());
+
+        if (crl == null || !crl.areEntriesIncluded() || rec.getCRLCache() != null) {
+            crl = decodeCRL(rec);
+        }
+
+        // the CA certificate does not change
+        CRLIPContainer container = new CRLIPContainer(rec, current.getX509CertImpl(), crl);
+
+        for (String key : keys) {
+            mCacheCRLIssuingPoints.merge(
+                    key,
+                    container,
+                    (cached, refreshed) -> isNewer(refreshed.getCRLIssuingPointRecord(), cached.getCRLIssuingPointRecord())
+                            ? refreshed : cached);
+        }
+    }
+
+    /**
+     * Reads only the CRL numbers of an issuing point.
+     */
+    protected CRLIssuingPointRecord readCRLIssuingPointVersion(String id) throws EBaseException {
+
+        String[] attrs = new String[] {
+                "objectclass",
+                CRLIssuingPointRecord.ATTR_ID,
+                CRLIssuingPointRecord.ATTR_CRL_NUMBER,
+                CRLIssuingPointRecord.ATTR_DELTA_NUMBER
+        };
+
+        DBSSession s = dbSubsystem.createSession();
+        try {
+            String dn = "cn=" + transformDN(id) + "," + getBaseDN();
+            return (CRLIssuingPointRecord) s.read(dn, attrs);
+        } finally {
+            s.close();
+        }
+    }
+
+    /**
+     * Refreshes all cached issuing points whose CRL or delta CRL
+     * has been updated in the database (e.g. by another clone).
+     * Only the CRL numbers are read for issuing points that have
+     * not changed. A failure to refresh one issuing point does not
+     * prevent the others from being refreshed.
+     */
+    protected void refreshCRLIssuingPoints() {
+
+        Map<String, CRLIPContainer> issuers = new HashMap<>();
+        for (CRLIPContainer container : mCacheCRLIssuingPoints.values()) {
+            issuers.put(container.getCRLIssuingPointRecord().getId(), container);
+        }
+
+        for (Map.Entry<String, CRLIPContainer> entry : issuers.entrySet()) {
+
+            String id = entry.getKey();
+
+            try {
+                CRLIssuingPointRecord version = readCRLIssuingPointVersion(id);
+
+                if (!isNewer(version, entry.getValue().getCRLIssuingPointRecord())) {
+                    continue;
+                }
+
+                refreshCRLIssuingPoint(id, null);
+
+            } catch (Exception e) {
+                logger.warn("DefStore: Unable to refresh issuing point " + id + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
     private String transformDN(String dn) {
         String newdn = dn;
 
@@ -779,6 +1071,11 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
                 mods.add(CRLIssuingPointRecord.ATTR_CRL_SIZE,
                         Modification.MOD_REPLACE, Long.valueOf(((X509CRLImpl) crl).getNumberOfRevokedCertificates()));
             }
+            // the full CRL includes all changes from previous delta CRLs
+            mods.add(CRLIssuingPointRecord.ATTR_REVOKED_CERTS,
+                    Modification.MOD_REPLACE, new Hashtable<BigInteger, RevokedCertificate>());
+            mods.add(CRLIssuingPointRecord.ATTR_UNREVOKED_CERTS,
+                    Modification.MOD_REPLACE, new Hashtable<BigInteger, RevokedCertificate>());
             BigInteger crlNumber = ((X509CRLImpl) crl).getCRLNumber();
             if (crlNumber == null) {
                 mods.add(CRLIssuingPointRecord.ATTR_CRL_NUMBER,
@@ -800,8 +1097,13 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
             logger.debug("DefStore: done CRL update " +
                     crl.getIssuerDN().getName());
 
-            // update cache
-            mCacheCRLIssuingPoints.clear();
+            // update the cached entries for this issuer only
+            try {
+                refreshCRLIssuingPoint(crl.getIssuerDN().getName(), (X509CRLImpl) crl);
+            } catch (Exception e) {
+                logger.warn("DefStore: Unable to refresh issuing point: " + e.getMessage(), e);
+                removeCRLIssuingPoint(crl.getIssuerDN().getName());
+            }
 
             logger.info("DefStore: Finish Committing CRL." +
                     " thisUpdate=" + crl.getThisUpdate() +
@@ -812,6 +1114,161 @@ public class DefStore implements IDefStore, IExtendedPluginInfo {
         }
     }
 
+    private void removeCRLIssuingPoint(String id) {
+        mCacheCRLIssuingPoints.values().removeIf(
+                container -> id.equals(container.getCRLIssuingPointRecord().getId()));
+    }
+
+    @Override
+    public boolean isDeltaCRLSupported() {
+        return true;
+    }
+
+    /**
+     * Returns the number of the base CRL referenced by a delta CRL.
+     */
+    public BigInteger getDeltaBaseCRLNumber(X509CRLImpl deltaCRL) throws IOException {
+
+        CRLExtensions crlExtensions = deltaCRL.getExtensions();
+        if (crlExtensions == null) return null;
+
+        for (int i = 0; i < crlExtensions.size(); i++) {
+            Extension ext = crlExtensions.elementAt(i);
+            if (DeltaCRLIndicatorExtension.OID.equals(ext.getExtensionId().toString())) {
+                DeltaCRLIndicatorExtension dExt = (DeltaCRLIndicatorExtension) ext;
+                return (BigInteger) dExt.get(DeltaCRLIndicatorExtension.NUMBER);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Applies a delta CRL on top of the current full CRL.
+     *
+     * Delta CRLs are cumulative since their base CRL, so the changes
+     * from the latest delta CRL replace the changes from the previous
+     * ones. Only the (small) list of changes is stored, the full CRL
+     * and its cache are not rewritten.
+     */
+    @Override
+    public void updateDeltaCRL(X509CRL deltaCRL) throws EBaseException {
+        try {
+            mStateCount++;
+
+            X509CRLImpl crl = (X509CRLImpl) deltaCRL;
+            String issuer = crl.getIssuerDN().getName();
+
+            logger.info("DefStore: Applying delta CRL " + crl.getCRLNumber() + " from " + issuer);
+
+            try {
+                if (!crl.areEntriesIncluded())
+                    crl = new X509CRLImpl(crl.getEncoded());
+            } catch (Exception e) {
+                logger.warn("DefStore: " + e.getMessage(), e);
+            }
+
+            BigInteger baseCRLNumber;
+            try {
+                baseCRLNumber = getDeltaBaseCRLNumber(crl);
+            } catch (IOException e) {
+                throw new EBaseException("Unable to get base CRL number: " + e.getMessage(), e);
+            }
+
+            if (baseCRLNumber == null) {
+                throw new EBaseException("Missing delta CRL indicator");
+            }
+
+            CRLIssuingPointRecord rec = readCRLIssuingPoint(issuer);
+            if (rec == null) {
+                throw new EBaseException("Unknown CRL issuing point: " + issuer);
+            }
+
+            BigInteger crlNumber = rec.getCRLNumber();
+            if (crlNumber == null || crlNumber.signum() < 0 || crlNumber.compareTo(baseCRLNumber) < 0) {
+                throw new EBaseException("Base CRL " + baseCRLNumber + " has not been received");
+            }
+
+            BigInteger deltaCRLNumber = crl.getCRLNumber();
+            BigInteger currentDeltaCRLNumber = rec.getDeltaCRLNumber();
+            if (deltaCRLNumber != null && currentDeltaCRLNumber != null
+                    && currentDeltaCRLNumber.compareTo(deltaCRLNumber) >= 0) {
+                logger.info("DefStore: no update, delta CRL " + deltaCRLNumber + " has already been applied");
+                return;
+            }
+
+            if (rec.getThisUpdate() != null && crl.getThisUpdate() != null
+                    && rec.getThisUpdate().after(crl.getThisUpdate())) {
+                logger.info("DefStore: no update, delta CRL is older than current CRL");
+                return;
+            }
+
+            Hashtable<BigInteger, RevokedCertificate> revokedCerts = new Hashtable<>();
+            Hashtable<BigInteger, RevokedCertificate> unrevokedCerts = new Hashtable<>();
+
+            Hashtable<BigInteger, RevokedCertificate> entries = crl.getListOfRevokedCertificates();
+            if (entries != null) {
+                for (RevokedCertificate entry : entries.values()) {
+                    if (isRemovedFromCRL(entry)) {
+                        unrevokedCerts.put(entry.getSerialNumber(), entry);
+                    } else {
+                        revokedCerts.put(entry.getSerialNumber(), entry);
+                    }
+                }
+            }
+
+            ModificationSet mods = new ModificationSet();
+            mods.add(CRLIssuingPointRecord.ATTR_REVOKED_CERTS,
+                    Modification.MOD_REPLACE, revokedCerts);
+            mods.add(CRLIssuingPointRecord.ATTR_UNREVOKED_CERTS,
+                    Modification.MOD_REPLACE, unrevokedCerts);
+            mods.add(CRLIssuingPointRecord.ATTR_DELTA_NUMBER,
+                    Modification.MOD_REPLACE, deltaCRLNumber == null ? new BigInteger("-1") : deltaCRLNumber);
+            mods.add(CRLIssuingPointRecord.ATTR_DELTA_SIZE,
+                    Modification.MOD_REPLACE, Long.valueOf(revokedCerts.size() + unrevokedCerts.size()));
+            try {
+                mods.add(CRLIssuingPointRecord.ATTR_DELTA_CRL,
+                        Modification.MOD_REPLACE, crl.getEncoded());
+            } catch (Exception e) {
+                // ignore
+            }
+
+            modifyCRLIssuingPointRecord(issuer, mods);
+
+            // update cached issuing points in place instead of
+            // reloading and decoding the full CRL
+            for (CRLIPContainer container : mCacheCRLIssuingPoints.values()) {
+                CRLIssuingPointRecord cachedRec = container.getCRLIssuingPointRecord();
+                if (!issuer.equals(cachedRec.getId())) continue;
+                cachedRec.set(CRLIssuingPointRecord.ATTR_REVOKED_CERTS, revokedCerts);
+                cachedRec.set(CRLIssuingPointRecord.ATTR_UNREVOKED_CERTS, unrevokedCerts);
+                cachedRec.set(CRLIssuingPointRecord.ATTR_DELTA_NUMBER, deltaCRLNumber);
+            }
+
+            logger.info("DefStore: Finish applying delta CRL." +
+                    " revoked=" + revokedCerts.size() +
+                    " removed=" + unrevokedCerts.size());
+
+        } finally {
+            mStateCount--;
+        }
+    }
+
+    private boolean isRemovedFromCRL(RevokedCertificate entry) {
+
+        CRLExtensions exts = entry.getExtensions();
+        if (exts == null) return false;
+
+        for (int i = 0; i < exts.size(); i++) {
+            Extension ext = exts.elementAt(i);
+            if (ext instanceof CRLReasonExtension) {
+                return ((CRLReasonExtension) ext).getReason() == RevocationReason.REMOVE_FROM_CRL;
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public int getStateCount() {
         return mStateCount;
@@ -839,11 +1296,28 @@ class CRLIPContainer {
     private CRLIssuingPointRecord mRec = null;
     private X509CertImpl mCert = null;
     private X509CRLImpl mCRL = null;
+    private RevokedSerialFilter mRevokedSerialFilter = null;
 
     public CRLIPContainer(CRLIssuingPointRecord rec, X509CertImpl cert, X509CRLImpl crl) {
         mRec = rec;
         mCert = cert;
         mCRL = crl;
+
+        // the filter covers the full CRL only, delta CRLs
+        // are applied to the cached record in place
+        Hashtable<BigInteger, RevokedCertificate> revokedCerts = null;
+        if (crl != null) {
+            if (crl.areEntriesIncluded()) {
+                revokedCerts = crl.getListOfRevokedCertificates();
+                if (revokedCerts == null) revokedCerts = new Hashtable<>();
+            }
+        } else if (rec != null) {
+            revokedCerts = rec.getCRLCacheNoClone();
+        }
+
+        if (revokedCerts != null) {
+            mRevokedSerialFilter = RevokedSerialFilter.create(revokedCerts.keySet());
+        }
     }
 
     public CRLIssuingPointRecord getCRLIssuingPointRecord() {
@@ -857,29 +1331,44 @@ class CRLIPContainer {
     public X509CRLImpl getX509CRLImpl() {
         return mCRL;
     }
+
+    /**
+     * Returns the filter of the serial numbers revoked by the CRL,
+     * or null if the revoked certificates are not available.
+     */
+    public RevokedSerialFilter getRevokedSerialFilter() {
+        return mRevokedSerialFilter;
+    }
 }
 
 class DefStoreCRLUpdater extends Thread {
 
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(DefStoreCRLUpdater.class);
 
-    private Hashtable<String, CRLIPContainer> mCache = null;
+    private DefStore mDefStore;
     private int mSec = 0;
 
-    public DefStoreCRLUpdater(Hashtable<String, CRLIPContainer> cache, int sec) {
-        mCache = cache;
+    public DefStoreCRLUpdater(DefStore defStore, int sec) {
+        super("DefStoreCRLUpdater");
+        setDaemon(true);
+        mDefStore = defStore;
         mSec = sec;
     }
 
     @Override
     public void run() {
-        while (true) {
+        while (!isInterrupted()) {
             try {
-                logger.debug("DefStore: CRLUpdater invoked");
-                mCache.clear();
                 sleep(mSec * 1000); // turn sec into millis-sec
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            try {
+                logger.debug("DefStore: CRLUpdater invoked");
+                mDefStore.refreshCRLIssuingPoints();
             } catch (Exception e) {
-                // ignore
+                logger.warn("DefStore: Unable to refresh issuing points: " + e.getMessage(), e);
             }
         }
     }
@@ -17,19 +17,29 @@
 // --- END COPYRIGHT BLOCK ---
 package com.netscape.cms.ocsp;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.cert.X509CRL;
 import java.security.cert.X509CRLEntry;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.mozilla.jss.asn1.GeneralizedTime;
 import org.mozilla.jss.asn1.INTEGER;
+import org.mozilla.jss.netscape.security.util.Utils;
 import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
 import org.mozilla.jss.netscape.security.x509.X509CRLImpl;
 import org.mozilla.jss.netscape.security.x509.X509CertImpl;
@@ -82,6 +92,9 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
     private static final String PROP_HOST = "host";
     private static final String PROP_PORT = "port";
 
+    // directory to store memory-mapped CRLs (by default CRLs are kept on heap)
+    private static final String PROP_CRL_DIR = "crlDir";
+
     private final static String PROP_NOT_FOUND_GOOD = "notFoundAsGood";
     private final static String PROP_INCLUDE_NEXT_UPDATE =
             "includeNextUpdate";
@@ -94,6 +107,10 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
     protected Hashtable<String, Long> mReqCounts = new Hashtable<>();
     private Hashtable<X509CertImpl, X509CRLImpl> mCRLs = new Hashtable<>();
 
+    // memory-mapped CRLs, used if crlDir is configured
+    private Path mCRLDir;
+    private Map<X509CertImpl, MappedCRL> mMappedCRLs = new ConcurrentHashMap<>();
+
     /**
      * Constructs the default store.
      */
@@ -140,6 +157,19 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
                     DEF_CA_CERT_ATTR);
         mByName = mConfig.getBoolean(PROP_BY_NAME, true);
 
+        String crlDir = mConfig.getString(PROP_CRL_DIR, null);
+        if (crlDir != null && !crlDir.isEmpty()) {
+            logger.info("LDAPStore: Storing CRLs in " + crlDir);
+            mCRLDir = Paths.get(crlDir);
+        }
+    }
+
+    /**
+     * Returns true if the CRLs are stored in memory-mapped files
+     * instead of the heap.
+     */
+    public boolean isCRLMapped() {
+        return mCRLDir != null;
     }
 
     /**
@@ -179,21 +209,7 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
     public X509CRLImpl locateCRL(LDAPConnection conn, String baseDN)
             throws EBaseException {
         try {
-            LDAPSearchResults results = conn.search(baseDN,
-                    LDAPv3.SCOPE_SUB, mCRLAttr + "=*",
-                    null, false);
-
-            if (!results.hasMoreElements()) {
-                throw new EBaseException("error - no entry");
-            }
-            LDAPEntry entry = results.next();
-            LDAPAttribute crls = entry.getAttribute(mCRLAttr);
-            Enumeration<byte[]> vals = crls.getByteValues();
-
-            if (!vals.hasMoreElements()) {
-                throw new EBaseException("error - no values");
-            }
-            byte crlData[] = vals.nextElement();
+            byte crlData[] = locateCRLData(conn, baseDN);
             X509CRLImpl crl = new X509CRLImpl(crlData);
 
             return crl;
@@ -204,6 +220,80 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
         return null;
     }
 
+    /**
+     * Locates the encoded CRL.
+     */
+    public byte[] locateCRLData(LDAPConnection conn, String baseDN)
+            throws Exception {
+
+        // retrieve only the CRL attribute
+        LDAPSearchResults results = conn.search(baseDN,
+                LDAPv3.SCOPE_SUB, mCRLAttr + "=*",
+                new String[] { mCRLAttr }, false);
+
+        if (!results.hasMoreElements()) {
+            throw new EBaseException("error - no entry");
+        }
+        LDAPEntry entry = results.next();
+        LDAPAttribute crls = entry.getAttribute(mCRLAttr);
+        Enumeration<byte[]> vals = crls.getByteValues();
+
+        if (!vals.hasMoreElements()) {
+            throw new EBaseException("error - no values");
+        }
+
+        return vals.nextElement();
+    }
+
+    /**
+     * Stores the CRL in a memory-mapped file. The CRL is not decoded,
+     * only the revoked serial numbers are indexed.
+     */
+    public void updateMappedCRL(X509CertImpl caCert, byte[] crlData)
+            throws Exception {
+
+        // name the files after the CA key to support multiple CAs
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        X509Key key = (X509Key) caCert.getPublicKey();
+        String name = Utils.HexEncode(md.digest(key.getKey())) + "-" + System.currentTimeMillis();
+
+        MappedCRL oldCRL = mMappedCRLs.get(caCert);
+        MappedCRL crl = MappedCRL.create(mCRLDir, name, crlData);
+
+        if (oldCRL != null && oldCRL.getThisUpdate().getTime() >= crl.getThisUpdate().getTime()) {
+            logger.info("LDAPStore: no update, received CRL is older than current CRL");
+            crl.delete();
+            return; // no update
+        }
+
+        logger.debug("Added '" + caCert.getSubjectName() + "' into CRL files: " + crl.getCRLFile()
+                + " (" + crl.getNumberOfRevokedCertificates() + " entries)");
+        mMappedCRLs.put(caCert, crl);
+
+        if (oldCRL != null) {
+            // requests in progress can still use the old mapping
+            oldCRL.delete();
+        }
+    }
+
+    /**
+     * Removes CRL files left by a previous instance.
+     * The CRLs will be downloaded again.
+     */
+    private void removeCRLFiles() {
+
+        if (!Files.isDirectory(mCRLDir)) return;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(mCRLDir, "*.{crl,idx,tmp}")) {
+            for (Path file : files) {
+                logger.debug("LDAPStore: Removing " + file);
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            logger.warn("LDAPStore: Unable to remove CRL files: " + e.getMessage(), e);
+        }
+    }
+
     public void updateCRLHash(X509CertImpl caCert, X509CRLImpl crl)
             throws EBaseException {
         X509CRLImpl oldCRL = mCRLs.get(caCert);
@@ -222,6 +312,10 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
     public void startup() throws EBaseException {
         int num = mConfig.getInteger(PROP_NUM_CONNS, 0);
 
+        if (isCRLMapped()) {
+            removeCRLFiles();
+        }
+
         for (int i = 0; i < num; i++) {
             String host = mConfig.getString(PROP_HOST + Integer.toString(i), null);
             int port = mConfig.getInteger(PROP_PORT + Integer.toString(i), 0);
@@ -296,6 +390,16 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
         throw new EBaseException("NOT SUPPORTED");
     }
 
+    @Override
+    public boolean isDeltaCRLSupported() {
+        return false;
+    }
+
+    @Override
+    public void updateDeltaCRL(X509CRL deltaCRL) throws EBaseException {
+        throw new EBaseException("NOT SUPPORTED");
+    }
+
     @Override
     public CRLIssuingPointRecord readCRLIssuingPoint(String name)
             throws EBaseException {
@@ -306,6 +410,11 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
     public Enumeration<CRLIssuingPointRecord> searchAllCRLIssuingPointRecord(int maxSize)
             throws EBaseException {
         Vector<CRLIssuingPointRecord> recs = new Vector<>();
+
+        for (Map.Entry<X509CertImpl, MappedCRL> entry : mMappedCRLs.entrySet()) {
+            recs.addElement(new TempCRLIssuingPointRecord(entry.getKey(), entry.getValue()));
+        }
+
         Enumeration<X509CertImpl> keys = mCRLs.keys();
 
         while (keys.hasMoreElements()) {
@@ -371,14 +480,44 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
     public SingleResponse processRequest(Request req) throws Exception {
 
         CertID cid = req.getCertID();
-        INTEGER serialNo = cid.getSerialNumber();
-        logger.debug("LDAPStore: processing request for cert 0x" + serialNo.toString(16));
+        return processRequest(cid, getIssuerCert(cid));
+    }
 
-        // locate the right CRL
-        X509CertImpl theCert = null;
-        X509CRLImpl theCRL = null;
+    /**
+     * Check against the database for the status of multiple certificates.
+     * The issuer certificate is located only once for all requests of
+     * the same issuer.
+     */
+    @Override
+    public SingleResponse[] processRequests(Request[] reqs) throws Exception {
 
-        Enumeration<X509CertImpl> caCerts = mCRLs.keys();
+        SingleResponse[] responses = new SingleResponse[reqs.length];
+        Map<String, X509CertImpl> issuers = new HashMap<>();
+
+        for (int i = 0; i < reqs.length; i++) {
+
+            CertID cid = reqs[i].getCertID();
+            String key = Utils.HexEncode(cid.getIssuerKeyHash().toByteArray());
+
+            X509CertImpl caCert = issuers.get(key);
+            if (caCert == null) {
+                caCert = getIssuerCert(cid);
+                issuers.put(key, caCert);
+            }
+
+            responses[i] = processRequest(cid, caCert);
+        }
+
+        return responses;
+    }
+
+    private X509CertImpl getIssuerCert(CertID cid) throws Exception {
+
+        byte keyhsh[] = cid.getIssuerKeyHash().toByteArray();
+
+        Enumeration<X509CertImpl> caCerts = isCRLMapped()
+                ? Collections.enumeration(mMappedCRLs.keySet())
+                : mCRLs.keys();
 
         while (caCerts.hasMoreElements()) {
             X509CertImpl caCert = caCerts.nextElement();
@@ -390,20 +529,32 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
             }
 
             byte digest[] = md.digest(key.getKey());
-            byte keyhsh[] = cid.getIssuerKeyHash().toByteArray();
 
-            if (!Arrays.equals(digest, keyhsh)) {
-                continue;
+            if (Arrays.equals(digest, keyhsh)) {
+                return caCert;
             }
-
-            theCert = caCert;
-            incReqCount(caCert.getSubjectName().toString());
-            theCRL = mCRLs.get(caCert);
-            break;
         }
 
-        if (theCert == null) {
-            throw new Exception("Missing issuer certificate");
+        throw new Exception("Missing issuer certificate");
+    }
+
+    private SingleResponse processRequest(CertID cid, X509CertImpl caCert) throws Exception {
+
+        INTEGER serialNo = cid.getSerialNumber();
+        logger.debug("LDAPStore: processing request for cert 0x" + serialNo.toString(16));
+
+        incReqCount(caCert.getSubjectName().toString());
+
+        // locate the right CRL
+        X509CRLImpl theCRL = null;
+
+        if (isCRLMapped()) {
+            MappedCRL theMappedCRL = mMappedCRLs.get(caCert);
+            if (theMappedCRL != null) {
+                return processRequest(cid, theMappedCRL);
+            }
+        } else {
+            theCRL = mCRLs.get(caCert);
         }
 
         if (theCRL == null) {
@@ -437,6 +588,31 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
         return new SingleResponse(cid, certStatus, thisUpdate, nextUpdate);
     }
 
+    private SingleResponse processRequest(CertID cid, MappedCRL crl) throws Exception {
+
+        GeneralizedTime thisUpdate = new GeneralizedTime(crl.getThisUpdate());
+        GeneralizedTime nextUpdate = null;
+
+        if (includeNextUpdate() && crl.getNextUpdate() != null) {
+            nextUpdate = new GeneralizedTime(crl.getNextUpdate());
+        }
+
+        CertStatus certStatus;
+        Date revocationDate = crl.getRevocationDate(cid.getSerialNumber());
+
+        if (revocationDate == null) {
+            if (isNotFoundGood1()) {
+                certStatus = new GoodInfo();
+            } else {
+                certStatus = new UnknownInfo();
+            }
+        } else {
+            certStatus = new RevokedInfo(new GeneralizedTime(revocationDate));
+        }
+
+        return new SingleResponse(cid, certStatus, thisUpdate, nextUpdate);
+    }
+
     /**
      * Provides configuration parameters.
      */
@@ -470,6 +646,8 @@ public class LDAPStore implements IDefStore, IExtendedPluginInfo {
                     mConfig.getString(PROP_CA_CERT_ATTR, DEF_CA_CERT_ATTR));
             params.put(PROP_CRL_ATTR,
                     mConfig.getString(PROP_CRL_ATTR, DEF_CRL_ATTR));
+            params.put(PROP_CRL_DIR,
+                    mConfig.getString(PROP_CRL_DIR, ""));
             params.put(PROP_NOT_FOUND_GOOD,
                     mConfig.getString(PROP_NOT_FOUND_GOOD, "true"));
             params.put(PROP_INCLUDE_NEXT_UPDATE,
@@ -514,9 +692,15 @@ class CRLUpdater extends Thread {
                 LDAPConnection conn = mC;
                 logger.debug("Started CRL Update '" + mBaseDN);
                 X509CertImpl caCert = mStore.locateCACert(conn, mBaseDN);
-                X509CRLImpl crl = mStore.locateCRL(conn, mBaseDN);
 
-                mStore.updateCRLHash(caCert, crl);
+                if (mStore.isCRLMapped()) {
+                    byte[] crlData = mStore.locateCRLData(conn, mBaseDN);
+                    mStore.updateMappedCRL(caCert, crlData);
+                } else {
+                    X509CRLImpl crl = mStore.locateCRL(conn, mBaseDN);
+                    mStore.updateCRLHash(caCert, crl);
+                }
+
                 logger.debug("Finished CRL Update - '" + mBaseDN);
                 sleep(mSec * 1000); // turn sec into millis-sec
             } catch (Exception e) {
@@ -531,12 +715,18 @@ class TempCRLIssuingPointRecord extends CRLIssuingPointRecord {
     private static final long serialVersionUID = 5299660983298765746L;
     private X509CertImpl mCACert = null;
     private X509CRLImpl mCRL = null;
+    private MappedCRL mMappedCRL = null;
 
     TempCRLIssuingPointRecord(X509CertImpl caCert, X509CRLImpl crl) {
         mCACert = caCert;
         mCRL = crl;
     }
 
+    TempCRLIssuingPointRecord(X509CertImpl caCert, MappedCRL crl) {
+        mCACert = caCert;
+        mMappedCRL = crl;
+    }
+
     @Override
     public String getId() {
         return mCACert.getSubjectName().toString();
@@ -563,6 +753,9 @@ class TempCRLIssuingPointRecord extends CRLIssuingPointRecord {
      */
     @Override
     public Long getCRLSize() {
+        if (mMappedCRL != null) {
+            return Long.valueOf(mMappedCRL.getNumberOfRevokedCertificates());
+        }
         return Long.valueOf(mCRL.getNumberOfRevokedCertificates());
     }
 
@@ -579,6 +772,9 @@ class TempCRLIssuingPointRecord extends CRLIssuingPointRecord {
      */
     @Override
     public Date getThisUpdate() {
+        if (mMappedCRL != null) {
+            return mMappedCRL.getThisUpdate();
+        }
         return mCRL.getThisUpdate();
     }
 
@@ -587,6 +783,9 @@ class TempCRLIssuingPointRecord extends CRLIssuingPointRecord {
      */
     @Override
     public Date getNextUpdate() {
+        if (mMappedCRL != null) {
+            return mMappedCRL.getNextUpdate();
+        }
         return mCRL.getNextUpdate();
     }
 
@@ -611,6 +810,9 @@ class TempCRLIssuingPointRecord extends CRLIssuingPointRecord {
     @Override
     public byte[] getCRL() {
         try {
+            if (mMappedCRL != null) {
+                return mMappedCRL.getEncoded();
+            }
             return mCRL.getEncoded();
         } catch (Exception e) {
             return null;
@@ -643,6 +845,10 @@ class TempCRLIssuingPointRecord extends CRLIssuingPointRecord {
      */
     @Override
     public Hashtable<BigInteger, RevokedCertificate> getRevokedCerts() {
+        if (mMappedCRL != null) {
+            // the mapped CRL entries are not decoded
+            return null;
+        }
         return mCRL.getListOfRevokedCertificates();
     }
 
@@ -0,0 +1,548 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cms.ocsp;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * This class provides revocation status lookups from a CRL stored
+ * in a local file. The CRL file and a sorted index of the revoked
+ * serial numbers are memory-mapped, so the heap usage does not depend
+ * on the size of the CRL. The CRL entries are not decoded, only the
+ * revocation date of a revoked certificate is decoded when requested.
+ *
+ * The index file contains the offsets of the CRL entries in the CRL
+ * file sorted by serial number. A status lookup is a binary search
+ * that compares the requested serial number with the encoded serial
+ * numbers in the CRL file.
+ */
+public class MappedCRL {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(MappedCRL.class);
+
+    public static final int TAG_INTEGER = 0x02;
+    public static final int TAG_UTC_TIME = 0x17;
+    public static final int TAG_GENERALIZED_TIME = 0x18;
+    public static final int TAG_SEQUENCE = 0x30;
+    public static final int TAG_EXPLICIT_0 = 0xA0;
+
+    private Path crlFile;
+    private Path indexFile;
+
+    private ByteBuffer crl;
+    private IntBuffer index;
+
+    private Date thisUpdate;
+    private Date nextUpdate;
+
+    /**
+     * Stores the CRL in the specified directory, builds the index of
+     * the revoked serial numbers, and maps both files into memory.
+     *
+     * @param dir directory to store the files
+     * @param name base name of the files
+     * @param data DER-encoded CRL
+     */
+    public static MappedCRL create(Path dir, String name, byte[] data) throws IOException {
+
+        Files.createDirectories(dir);
+
+        Path crlFile = dir.resolve(name + ".crl");
+        Path indexFile = dir.resolve(name + ".idx");
+
+        // write to temporary files first so a failed update
+        // does not affect an existing CRL with the same name
+        Path tmpCRLFile = Files.createTempFile(dir, name, ".crl.tmp");
+        Path tmpIndexFile = Files.createTempFile(dir, name, ".idx.tmp");
+
+        try {
+            Files.write(tmpCRLFile, data);
+
+            MappedCRL mappedCRL = new MappedCRL(tmpCRLFile, tmpIndexFile);
+            mappedCRL.crl = map(tmpCRLFile);
+            mappedCRL.parse();
+
+            Files.move(tmpCRLFile, crlFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tmpIndexFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            // the mappings remain valid after the files are renamed
+            mappedCRL.crlFile = crlFile;
+            mappedCRL.indexFile = indexFile;
+
+            return mappedCRL;
+
+        } finally {
+            Files.deleteIfExists(tmpCRLFile);
+            Files.deleteIfExists(tmpIndexFile);
+        }
+    }
+
+    private MappedCRL(Path crlFile, Path indexFile) {
+        this.crlFile = crlFile;
+        this.indexFile = indexFile;
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public Path getCRLFile() {
+        return crlFile;
+    }
+
+    public Date getThisUpdate() {
+        return thisUpdate;
+    }
+
+    public Date getNextUpdate() {
+        return nextUpdate;
+    }
+
+    public int getNumberOfRevokedCertificates() {
+        return index.limit();
+    }
+
+    /**
+     * Returns the DER-encoded CRL.
+     */
+    public byte[] getEncoded() {
+        ByteBuffer buffer = crl.duplicate();
+        buffer.clear();
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+    }
+
+    /**
+     * Parses the CRL and builds the index.
+     *
+     * <pre>
+     * CertificateList ::= SEQUENCE {
+     *     tbsCertList          TBSCertList,
+     *     signatureAlgorithm   AlgorithmIdentifier,
+     *     signatureValue       BIT STRING }
+     *
+     * TBSCertList ::= SEQUENCE {
+     *     version              Version OPTIONAL,
+     *     signature            AlgorithmIdentifier,
+     *     issuer               Name,
+     *     thisUpdate           Time,
+     *     nextUpdate           Time OPTIONAL,
+     *     revokedCertificates  SEQUENCE OF SEQUENCE {
+     *         userCertificate      CertificateSerialNumber,
+     *         revocationDate       Time,
+     *         crlEntryExtensions   Extensions OPTIONAL } OPTIONAL,
+     *     crlExtensions        [0] EXPLICIT Extensions OPTIONAL }
+     * </pre>
+     */
+    private void parse() throws IOException {
+
+        Reader reader = new Reader(crl);
+
+        int crlEnd = reader.enter(TAG_SEQUENCE, crl.limit());
+        int tbsEnd = reader.enter(TAG_SEQUENCE, crlEnd);
+
+        if (reader.peek(tbsEnd) == TAG_INTEGER) {
+            reader.skip(tbsEnd); // version
+        }
+
+        reader.skip(tbsEnd); // signature
+        reader.skip(tbsEnd); // issuer
+
+        thisUpdate = reader.readTime(tbsEnd);
+
+        int tag = reader.peek(tbsEnd);
+        if (tag == TAG_UTC_TIME || tag == TAG_GENERALIZED_TIME) {
+            nextUpdate = reader.readTime(tbsEnd);
+        }
+
+        int[] offsets = new int[0];
+        int count = 0;
+
+        if (reader.peek(tbsEnd) == TAG_SEQUENCE) {
+
+            int listEnd = reader.enter(TAG_SEQUENCE, tbsEnd);
+            offsets = new int[Math.max(16, (listEnd - reader.pos) / 32)];
+
+            while (reader.pos < listEnd) {
+
+                if (count == offsets.length) {
+                    int[] newOffsets = new int[count * 2];
+                    System.arraycopy(offsets, 0, newOffsets, 0, count);
+                    offsets = newOffsets;
+                }
+
+                // store the offset of the serial number
+                int entryEnd = reader.enter(TAG_SEQUENCE, listEnd);
+
+                if (reader.peek(entryEnd) != TAG_INTEGER) {
+                    throw new IOException("Missing serial number in CRL entry");
+                }
+
+                offsets[count++] = reader.pos;
+
+                int serialStart = reader.pos;
+                if (reader.readHeader(entryEnd) == reader.pos) {
+                    throw new IOException("Empty serial number in CRL entry at " + serialStart);
+                }
+
+                reader.pos = entryEnd;
+            }
+        }
+
+        sort(offsets, count);
+
+        int duplicates = 0;
+        for (int i = 1; i < count; i++) {
+            if (compareSerials(offsets[i - 1], offsets[i]) == 0) duplicates++;
+        }
+
+        if (duplicates > 0) {
+            logger.warn("MappedCRL: CRL contains " + duplicates + " duplicate serial numbers");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(count * 4).order(ByteOrder.nativeOrder());
+        buffer.asIntBuffer().put(offsets, 0, count);
+
+        Files.write(indexFile, buffer.array());
+
+        index = map(indexFile).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    /**
+     * Returns the revocation date of a certificate,
+     * or null if the certificate is not in the CRL.
+     */
+    public Date getRevocationDate(BigInteger serialNumber) throws IOException {
+
+        byte[] serial = serialNumber.toByteArray();
+
+        int low = 0;
+        int high = index.limit() - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = index.get(mid);
+            int result = compareSerial(offset, serial);
+
+            if (result < 0) {
+                low = mid + 1;
+
+            } else if (result > 0) {
+                high = mid - 1;
+
+            } else {
+                Reader reader = new Reader(crl);
+                reader.pos = offset;
+                reader.skip(crl.limit()); // serial number
+                return reader.readTime(crl.limit());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Compares the serial number at an offset with the specified
+     * two's-complement serial number.
+     */
+    private int compareSerial(int offset, byte[] serial) {
+
+        int length = getLength(offset);
+        int start = offset + getHeaderLength(offset);
+
+        return compareIntegers(crl, start, length, ByteBuffer.wrap(serial), 0, serial.length);
+    }
+
+    private int compareSerials(int offset1, int offset2) {
+
+        int length1 = getLength(offset1);
+        int start1 = offset1 + getHeaderLength(offset1);
+
+        int length2 = getLength(offset2);
+        int start2 = offset2 + getHeaderLength(offset2);
+
+        return compareIntegers(crl, start1, length1, crl, start2, length2);
+    }
+
+    /**
+     * Compares two's-complement integers. Redundant leading bytes
+     * are skipped, so integers that are not minimally encoded are
+     * compared by value.
+     */
+    static int compareIntegers(ByteBuffer buffer1, int start1, int length1, ByteBuffer buffer2, int start2, int length2) {
+
+        int skip1 = getRedundantBytes(buffer1, start1, length1);
+        start1 += skip1;
+        length1 -= skip1;
+
+        int skip2 = getRedundantBytes(buffer2, start2, length2);
+        start2 += skip2;
+        length2 -= skip2;
+
+        boolean negative1 = length1 > 0 && buffer1.get(start1) < 0;
+        boolean negative2 = length2 > 0 && buffer2.get(start2) < 0;
+
+        if (negative1 != negative2) {
+            return negative1 ? -1 : 1;
+        }
+
+        if (length1 != length2) {
+            // with minimal encoding a longer positive number is larger
+            // and a longer negative number is smaller
+            int result = length1 < length2 ? -1 : 1;
+            return negative1 ? -result : result;
+        }
+
+        for (int i = 0; i < length1; i++) {
+            int b1 = buffer1.get(start1 + i) & 0xff;
+            int b2 = buffer2.get(start2 + i) & 0xff;
+            if (b1 != b2) {
+                return b1 < b2 ? -1 : 1;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns the number of leading bytes that do not change the
+     * value of a two's-complement integer (i.e. 0x00 followed by
+     * a byte with the high bit cleared, or 0xFF followed by a byte
+     * with the high bit set).
+     */
+    static int getRedundantBytes(ByteBuffer buffer, int start, int length) {
+
+        int count = 0;
+
+        while (length - count > 1) {
+            byte b1 = buffer.get(start + count);
+            byte b2 = buffer.get(start + count + 1);
+            if (!(b1 == 0 && b2 >= 0 || b1 == -1 && b2 < 0)) break;
+            count++;
+        }
+
+        return count;
+    }
+
+    private int getHeaderLength(int offset) {
+        int first = crl.get(offset + 1) & 0xff;
+        return first < 0x80 ? 2 : 2 + (first & 0x7f);
+    }
+
+    private int getLength(int offset) {
+
+        int first = crl.get(offset + 1) & 0xff;
+        if (first < 0x80) return first;
+
+        int length = 0;
+        for (int i = 0; i < (first & 0x7f); i++) {
+            length = (length << 8) | (crl.get(offset + 2 + i) & 0xff);
+        }
+
+        return length;
+    }
+
+    /**
+     * Sorts the offsets by serial number (merge sort without boxing).
+     */
+    private void sort(int[] offsets, int count) {
+
+        int[] tmp = new int[count];
+
+        for (int width = 1; width < count; width *= 2) {
+
+            for (int low = 0; low < count - width; low += 2 * width) {
+
+                int mid = low + width;
+                int high = Math.min(low + 2 * width, count);
+
+                // skip ranges that are already in order
+                if (compareSerials(offsets[mid - 1], offsets[mid]) <= 0) continue;
+
+                System.arraycopy(offsets, low, tmp, low, high - low);
+
+                int i = low;
+                int j = mid;
+                int k = low;
+
+                while (i < mid && j < high) {
+                    offsets[k++] = compareSerials(tmp[i], tmp[j]) <= 0 ? tmp[i++] : tmp[j++];
+                }
+
+                while (i < mid) offsets[k++] = tmp[i++];
+                while (j < high) offsets[k++] = tmp[j++];
+            }
+        }
+    }
+
+    /**
+     * Deletes the CRL and index files. The mappings remain
+     * valid until this object is garbage collected.
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(crlFile);
+            Files.deleteIfExists(indexFile);
+        } catch (IOException e) {
+            logger.warn("MappedCRL: Unable to delete " + crlFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Minimal DER reader over a buffer.
+     */
+    static class Reader {
+
+        ByteBuffer buffer;
+        int pos;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int peek(int limit) {
+            return pos < limit ? buffer.get(pos) & 0xff : -1;
+        }
+
+        /**
+         * Reads the tag and the length of the next element.
+         *
+         * @return the end of the element
+         */
+        int readHeader(int limit) throws IOException {
+
+            if (pos + 2 > limit) {
+                throw new IOException("Truncated CRL");
+            }
+
+            pos++; // tag
+            int length = buffer.get(pos++) & 0xff;
+
+            if (length == 0x80) {
+                throw new IOException("Indefinite length is not allowed in DER");
+
+            } else if (length > 0x80) {
+                int count = length & 0x7f;
+                if (count > 4 || pos + count > limit) {
+                    throw new IOException("Invalid length in CRL");
+                }
+
+                length = 0;
+                for (int i = 0; i < count; i++) {
+                    length = (length << 8) | (buffer.get(pos++) & 0xff);
+                }
+
+                if (length < 0) {
+                    throw new IOException("Invalid length in CRL");
+                }
+            }
+
+            if (length > limit - pos) {
+                throw new IOException("Element exceeds enclosing element in CRL");
+            }
+
+            return pos + length;
+        }
+
+        /**
+         * Moves into a constructed element.
+         *
+         * @return the end of the element
+         */
+        int enter(int tag, int limit) throws IOException {
+            int actualTag = peek(limit);
+            if (actualTag != tag) {
+                throw new IOException("Expected tag 0x" + Integer.toHexString(tag)
+                        + " in CRL, found 0x" + Integer.toHexString(actualTag));
+            }
+            return readHeader(limit);
+        }
+
+        void skip(int limit) throws IOException {
+            pos = readHeader(limit);
+        }
+
+        Date readTime(int limit) throws IOException {
+
+            int tag = peek(limit);
+            int end = readHeader(limit);
+
+            byte[] value = new byte[end - pos];
+            for (int i = 0; i < value.length; i++) {
+                value[i] = buffer.get(pos + i);
+            }
+            pos = end;
+
+            String time = new String(value, StandardCharsets.US_ASCII);
+
+            int year;
+            int index;
+
+            if (tag == TAG_UTC_TIME) {
+                // YYMMDDHHMMSSZ, years 50-99 are 19xx (RFC 5280)
+                year = Integer.parseInt(time.substring(0, 2));
+                year += year < 50 ? 2000 : 1900;
+                index = 2;
+
+            } else if (tag == TAG_GENERALIZED_TIME) {
+                // YYYYMMDDHHMMSSZ
+                year = Integer.parseInt(time.substring(0, 4));
+                index = 4;
+
+            } else {
+                throw new IOException("Invalid time in CRL: tag 0x" + Integer.toHexString(tag));
+            }
+
+            if (time.length() != index + 11 || time.charAt(index + 10) != 'Z') {
+                throw new IOException("Invalid time in CRL: " + time);
+            }
+
+            Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            calendar.clear();
+            calendar.set(
+                    year,
+                    Integer.parseInt(time.substring(index, index + 2)) - 1,
+                    Integer.parseInt(time.substring(index + 2, index + 4)),
+                    Integer.parseInt(time.substring(index + 4, index + 6)),
+                    Integer.parseInt(time.substring(index + 6, index + 8)),
+                    Integer.parseInt(time.substring(index + 8, index + 10)));
+
+            return calendar.getTime();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cms.ocsp;
+
+import java.math.BigInteger;
+import java.util.Collection;
+
+/**
+ * This class provides a Bloom filter of the serial numbers revoked
+ * by a CRL. Most OCSP requests are for certificates that are not
+ * revoked. If the filter does not contain a serial number the
+ * certificate is definitely not revoked by the CRL, so the status
+ * can be returned without looking up the revoked certificates.
+ * A positive result can be a false positive, so it has to be
+ * confirmed with the CRL.
+ *
+ * The serial numbers are hashed in their minimal two's complement
+ * encoding (i.e. the content of a DER INTEGER), so a serial number
+ * from an encoded request can be checked without creating a
+ * BigInteger.
+ *
+ * The filter is not modified after it has been built.
+ */
+public class RevokedSerialFilter {
+
+    // 10 bits per entry and 7 hash functions
+    // give about 1% false positives
+    public static final int BITS_PER_ENTRY = 10;
+    public static final int HASH_FUNCTIONS = 7;
+
+    private long[] bits;
+    private long numBits;
+
+    public RevokedSerialFilter(int entries) {
+        long n = Math.max(64, (long) entries * BITS_PER_ENTRY);
+        bits = new long[(int) ((n + 63) >>> 6)];
+        numBits = (long) bits.length << 6;
+    }
+
+    public static RevokedSerialFilter create(Collection<BigInteger> serialNumbers) {
+
+        RevokedSerialFilter filter = new RevokedSerialFilter(serialNumbers.size());
+
+        for (BigInteger serialNumber : serialNumbers) {
+            filter.add(serialNumber);
+        }
+
+        return filter;
+    }
+
+    public void add(BigInteger serialNumber) {
+        byte[] bytes = serialNumber.toByteArray();
+        add(bytes, 0, bytes.length);
+    }
+
+    public void add(byte[] data, int offset, int length) {
+
+        long hash = hash(data, offset, length);
+
+        for (int i = 1; i <= HASH_FUNCTIONS; i++) {
+            long index = getIndex(hash, i);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    /**
+     * Returns false if the encoded serial number is definitely not
+     * in the filter, or true if the serial number might be in the
+     * filter. The serial number does not need to be minimally encoded.
+     */
+    public boolean mightContain(byte[] data) {
+        return mightContain(data, 0, data.length);
+    }
+
+    public boolean mightContain(byte[] data, int offset, int length) {
+
+        long hash = hash(data, offset, length);
+
+        for (int i = 1; i <= HASH_FUNCTIONS; i++) {
+            long index = getIndex(hash, i);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private long getIndex(long hash, int i) {
+        // derive the hash functions from two 32-bit hashes
+        long hash1 = hash & 0xFFFFFFFFL;
+        long hash2 = hash >>> 32;
+        return (hash1 + i * hash2) % numBits;
+    }
+
+    /**
+     * Computes a 64-bit hash of a two's complement integer.
+     * Redundant leading bytes are skipped so that different
+     * encodings of the same value produce the same hash.
+     */
+    private static long hash(byte[] data, int offset, int length) {
+
+        while (length > 1
+                && (data[offset] == 0 && data[offset + 1] >= 0
+                || data[offset] == -1 && data[offset + 1] < 0)) {
+            offset++;
+            length--;
+        }
+
+        // FNV-1a
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < length; i++) {
+            hash ^= data[offset + i] & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+
+        // MurmurHash3 finalizer to spread sequential serial numbers
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
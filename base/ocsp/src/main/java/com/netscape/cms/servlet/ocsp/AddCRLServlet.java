@@ -18,6 +18,7 @@
 package com.netscape.cms.servlet.ocsp;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.security.cert.CRLException;
 import java.security.cert.X509CRL;
@@ -73,6 +74,11 @@ public class AddCRLServlet extends CMSServlet {
             "-----BEGIN CERTIFICATE REVOCATION LIST-----";
     public static final String END_HEADER =
             "-----END CERTIFICATE REVOCATION LIST-----";
+    public static final String CRL_CONTENT_TYPE = "application/pkix-crl";
+
+    // maximum size of a binary CRL in the request body
+    public static final String PROP_MAX_CRL_SIZE = "ocsp.maxCRLSize";
+    public static final int DEFAULT_MAX_CRL_SIZE = 64 * 1024 * 1024;
 
     private final static String TPL_FILE = "addCRL.template";
     private String mFormPath = null;
@@ -108,6 +114,8 @@ public class AddCRLServlet extends CMSServlet {
      * <li>http.param crl certificate revocation list, base-64, DER encoded wrapped in -----BEGIN CERTIFICATE REVOCATION
      * LIST-----, -----END CERTIFICATE REVOCATION LIST----- strings
      * <li>http.param noui if true, use minimal hardcoded text response
+     * <li>alternatively the request body may contain a DER encoded full or delta CRL
+     * with application/pkix-crl content type, in which case the minimal text response is used
      * <li>signed.audit LOGGING_SIGNED_AUDIT_CRL_RETRIEVAL used when CRLs are retrieved by the OCSP Responder ("agent"
      * or "EE")
      * <li>signed.audit LOGGING_SIGNED_AUDIT_CRL_VALIDATION used when CRL is retrieved and validation process occurs
@@ -176,10 +184,27 @@ public class AddCRLServlet extends CMSServlet {
                 }
             }
             logger.info("AddCRLServlet");
-            String b64 = cmsReq.getHttpReq().getParameter("crl");
-            logger.debug("AddCRLServlet: b64=" + b64);
 
-            if (b64 == null) {
+            String contentType = req.getContentType();
+            boolean binary = contentType != null && contentType.startsWith(CRL_CONTENT_TYPE);
+
+            String b64 = null;
+            byte[] crlData = null;
+
+            if (binary) {
+                int maxSize = cs.getInteger(PROP_MAX_CRL_SIZE, DEFAULT_MAX_CRL_SIZE);
+                try {
+                    crlData = readContent(req.getInputStream(), req.getContentLengthLong(), maxSize);
+                    logger.debug("AddCRLServlet: received " + crlData.length + " bytes");
+                } catch (IOException e) {
+                    logger.error("AddCRLServlet: Unable to read CRL: " + e.getMessage(), e);
+                }
+            } else {
+                b64 = cmsReq.getHttpReq().getParameter("crl");
+                logger.debug("AddCRLServlet: b64=" + b64);
+            }
+
+            if (b64 == null && crlData == null) {
                 // store a message in the signed audit log file
                 auditMessage = CMS.getLogMessage(
                         AuditEvent.CRL_RETRIEVAL,
@@ -196,7 +221,7 @@ public class AddCRLServlet extends CMSServlet {
             String nouiParm = cmsReq.getHttpReq().getParameter("noui");
             boolean noUI = false;
 
-            if (nouiParm != null && nouiParm.equals("true")) {
+            if (binary || nouiParm != null && nouiParm.equals("true")) {
                 noUI = true;
                 logger.debug("AddCRLServlet: noUI=true");
             } else {
@@ -230,7 +255,7 @@ public class AddCRLServlet extends CMSServlet {
             ArgBlock fixed = new ArgBlock();
             CMSTemplateParams argSet = new CMSTemplateParams(header, fixed);
 
-            if (b64.indexOf(BEGIN_HEADER) == -1) {
+            if (b64 != null && b64.indexOf(BEGIN_HEADER) == -1) {
                 logger.error(CMS.getLogMessage("CMSGW_MISSING_CRL_HEADER"));
 
                 // store a message in the signed audit log file
@@ -245,7 +270,7 @@ public class AddCRLServlet extends CMSServlet {
                 throw new ECMSGWException(CMS.getUserMessage(getLocale(req),
                                           "CMS_GW_MISSING_CRL_HEADER"));
             }
-            if (b64.indexOf(END_HEADER) == -1) {
+            if (b64 != null && b64.indexOf(END_HEADER) == -1) {
                 logger.error(CMS.getLogMessage("CMSGW_MISSING_CRL_FOOTER"));
 
                 // store a message in the signed audit log file
@@ -271,7 +296,7 @@ public class AddCRLServlet extends CMSServlet {
                 if (statsSub != null) {
                     statsSub.startTiming("decode_crl");
                 }
-                crl = mapCRL1(b64);
+                crl = binary ? mapCRL(crlData) : mapCRL1(b64);
                 if (statsSub != null) {
                     statsSub.endTiming("decode_crl");
                 }
@@ -403,7 +428,8 @@ public class AddCRLServlet extends CMSServlet {
                 }
             }
 
-            if ((pt.getThisUpdate() != null) &&
+            // delta CRLs are ordered by CRL number in the store
+            if (!crl.isDeltaCRL() && (pt.getThisUpdate() != null) &&
                     (pt.getThisUpdate().getTime() >=
                     crl.getThisUpdate().getTime())) {
 
@@ -439,7 +465,7 @@ public class AddCRLServlet extends CMSServlet {
                 }
             }
 
-            if (crl.isDeltaCRL()) {
+            if (crl.isDeltaCRL() && !defStore.isDeltaCRLSupported()) {
 
                 logger.warn("AddCRLServlet: no update, " + CMS.getUserMessage("CMS_GW_DELTA_CRL_NOT_SUPPORTED"));
 
@@ -460,37 +486,44 @@ public class AddCRLServlet extends CMSServlet {
                 }
             }
 
-            logger.info("AddCRLServlet: Start Committing CRL");
+            if (crl.isDeltaCRL()) {
+                // delta CRLs are small, apply them synchronously
+                logger.info("AddCRLServlet: Applying delta CRL");
+                defStore.updateDeltaCRL(crl);
 
-            // *****************************************************
-            // The commit transaction may take long time and
-            // there may have a system crash during the transaction
-            // *****************************************************
+            } else {
+                logger.info("AddCRLServlet: Start Committing CRL");
 
-            RepositoryRecord repRec = defStore.createRepositoryRecord();
+                // *****************************************************
+                // The commit transaction may take long time and
+                // there may have a system crash during the transaction
+                // *****************************************************
 
-            repRec.set(RepositoryRecord.ATTR_SERIALNO,
-                    new BigInteger(Long.toString(crl.getThisUpdate().getTime())));
-            try {
-                defStore.addRepository(
-                        crl.getIssuerDN().getName(),
-                        Long.toString(crl.getThisUpdate().getTime()),
-                        repRec);
-                logger.info("AddCRLServlet: Added CRL Updated " + Long.toString(crl.getThisUpdate().getTime()));
-            } catch (Exception e) {
-                logger.warn("AddCRLServlet: add repository: " + e.getMessage(), e);
-            }
+                RepositoryRecord repRec = defStore.createRepositoryRecord();
 
-            logger.info("AddCRLServlet: Created CRL Repository " + Long.toString(crl.getThisUpdate().getTime()));
+                repRec.set(RepositoryRecord.ATTR_SERIALNO,
+                        new BigInteger(Long.toString(crl.getThisUpdate().getTime())));
+                try {
+                    defStore.addRepository(
+                            crl.getIssuerDN().getName(),
+                            Long.toString(crl.getThisUpdate().getTime()),
+                            repRec);
+                    logger.info("AddCRLServlet: Added CRL Updated " + Long.toString(crl.getThisUpdate().getTime()));
+                } catch (Exception e) {
+                    logger.warn("AddCRLServlet: add repository: " + e.getMessage(), e);
+                }
 
-            if (defStore.waitOnCRLUpdate()) {
-                defStore.updateCRL(crl);
-            } else {
-                // when the CRL large, the thread is terminiated by the
-                // servlet framework before it can finish its work
-                UpdateCRLThread uct = new UpdateCRLThread(defStore, crl);
+                logger.info("AddCRLServlet: Created CRL Repository " + Long.toString(crl.getThisUpdate().getTime()));
 
-                uct.start();
+                if (defStore.waitOnCRLUpdate()) {
+                    defStore.updateCRL(crl);
+                } else {
+                    // when the CRL large, the thread is terminiated by the
+                    // servlet framework before it can finish its work
+                    UpdateCRLThread uct = new UpdateCRLThread(defStore, crl);
+
+                    uct.start();
+                }
             }
 
             try {
@@ -556,6 +589,11 @@ public class AddCRLServlet extends CMSServlet {
         mime64 = Cert.stripCRLBrackets(mime64.trim());
 
         byte rawPub[] = Utils.base64decode(mime64);
+        return mapCRL(rawPub);
+    }
+
+    public X509CRLImpl mapCRL(byte[] rawPub)
+            throws IOException {
         X509CRLImpl crl = null;
 
         try {
@@ -565,6 +603,34 @@ public class AddCRLServlet extends CMSServlet {
         }
         return crl;
     }
+
+    /**
+     * Reads the request body. Bodies larger than maxSize bytes are
+     * rejected without reading past the limit.
+     *
+     * @param is request body
+     * @param contentLength declared content length, or -1 if unknown
+     * @param maxSize maximum size in bytes
+     * @return request body
+     * @exception IOException if the body is too large or cannot be read
+     */
+    static byte[] readContent(InputStream is, long contentLength, int maxSize) throws IOException {
+
+        if (contentLength > maxSize) {
+            throw new IOException("CRL too large: " + contentLength + " bytes (max: " + maxSize + ")");
+        }
+
+        try (InputStream in = is) {
+            byte[] data = in.readNBytes(maxSize);
+
+            // the declared length may be missing or wrong
+            if (data.length == maxSize && in.read() != -1) {
+                throw new IOException("CRL too large (max: " + maxSize + " bytes)");
+            }
+
+            return data;
+        }
+    }
 }
 
 class UpdateCRLThread extends Thread {
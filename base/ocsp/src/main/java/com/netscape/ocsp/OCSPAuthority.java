@@ -18,17 +18,21 @@
 package com.netscape.ocsp;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.SignatureException;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateParsingException;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
-import java.util.Vector;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.dogtagpki.server.ocsp.OCSPConfig;
 import org.dogtagpki.server.ocsp.OCSPEngine;
@@ -40,7 +44,6 @@ import org.mozilla.jss.asn1.OBJECT_IDENTIFIER;
 import org.mozilla.jss.asn1.OCTET_STRING;
 import org.mozilla.jss.crypto.TokenException;
 import org.mozilla.jss.netscape.security.util.DerOutputStream;
-import org.mozilla.jss.netscape.security.util.DerValue;
 import org.mozilla.jss.netscape.security.x509.AlgorithmId;
 import org.mozilla.jss.netscape.security.x509.X500Name;
 import org.mozilla.jss.netscape.security.x509.X509CertImpl;
@@ -70,6 +73,7 @@ import com.netscape.cmsutil.ocsp.KeyHashID;
 import com.netscape.cmsutil.ocsp.NameID;
 import com.netscape.cmsutil.ocsp.OCSPRequest;
 import com.netscape.cmsutil.ocsp.OCSPResponse;
+import com.netscape.cmsutil.ocsp.OCSPResponseWriter;
 import com.netscape.cmsutil.ocsp.OCSPResponseStatus;
 import com.netscape.cmsutil.ocsp.Request;
 import com.netscape.cmsutil.ocsp.ResponderID;
@@ -103,6 +107,11 @@ public class OCSPAuthority implements IOCSPAuthority, IOCSPService, IAuthority {
     private String[] mOCSPSigningAlgorithms = null;
     private IOCSPStore mDefStore = null;
 
+    // cached encodings used to build signed responses
+    private Map<String, byte[]> mEncodedAlgorithms = new ConcurrentHashMap<>();
+    private java.security.cert.X509Certificate[] mCachedCertChain;
+    private byte[] mEncodedCertChain;
+
     public long mNumOCSPRequest = 0;
     public long mTotalTime = 0;
     public long mTotalData = 0;
@@ -376,20 +385,22 @@ public class OCSPAuthority implements IOCSPAuthority, IOCSPService, IAuthority {
 
         try {
             // (3) look into database to check the certificate's status
-            Vector<SingleResponse> singleResponses = new Vector<>();
-
             if (statsSub != null) {
                 statsSub.startTiming("lookup");
             }
 
             long lookupStartTime = new Date().getTime();
 
-            for (int i = 0; i < tbsReq.getRequestCount(); i++) {
-                Request req = tbsReq.getRequestAt(i);
-                SingleResponse sr = mDefStore.processRequest(req);
-                singleResponses.addElement(sr);
+            Request reqs[] = new Request[tbsReq.getRequestCount()];
+
+            for (int i = 0; i < reqs.length; i++) {
+                reqs[i] = tbsReq.getRequestAt(i);
             }
 
+            // look up all certificates at once so that the store
+            // can resolve each issuer only once
+            SingleResponse res[] = mDefStore.processRequests(reqs);
+
             long lookupEndTime = new Date().getTime();
             incLookupTime(lookupEndTime - lookupStartTime);
 
@@ -401,9 +412,6 @@ public class OCSPAuthority implements IOCSPAuthority, IOCSPService, IAuthority {
                 statsSub.startTiming("build_response");
             }
 
-            SingleResponse res[] = new SingleResponse[singleResponses.size()];
-            singleResponses.copyInto(res);
-
             ResponderID rid = null;
 
             if (mDefStore.isByName()) {
@@ -448,7 +456,7 @@ public class OCSPAuthority implements IOCSPAuthority, IOCSPService, IAuthority {
             response = new OCSPResponse(
                     OCSPResponseStatus.SUCCESSFUL,
                     new ResponseBytes(ResponseBytes.OCSP_BASIC,
-                            new OCTET_STRING(ASN1Util.encode(basicRes))));
+                            new OCTET_STRING(basicRes.getEncoded())));
 
         } catch (EBaseException e) {
             logger.error(CMS.getLogMessage("OCSP_REQUEST_FAILURE", e.toString()), e);
@@ -503,6 +511,48 @@ public class OCSPAuthority implements IOCSPAuthority, IOCSPService, IAuthority {
         mSigningUnit.setDefaultAlgorithm(algorithm);
     }
 
+    /**
+     * Returns the encoded AlgorithmIdentifier of a signing algorithm.
+     * The encodings are cached since only a few algorithms are used.
+     */
+    byte[] getEncodedAlgorithm(String algname) throws NoSuchAlgorithmException, IOException {
+
+        byte[] encoded = mEncodedAlgorithms.get(algname);
+        if (encoded != null) return encoded;
+
+        try (DerOutputStream out = new DerOutputStream()) {
+            AlgorithmId.get(algname).encode(out);
+            encoded = out.toByteArray();
+        }
+
+        mEncodedAlgorithms.put(algname, encoded);
+        return encoded;
+    }
+
+    /**
+     * Returns the concatenated encoding of the signing certificate chain.
+     * The encoding is cached until the certificate chain changes.
+     */
+    synchronized byte[] getEncodedCertChain() throws CertificateEncodingException {
+
+        java.security.cert.X509Certificate chains[] = mSigningUnit.getCertChain().getChain();
+
+        if (mEncodedCertChain != null && Arrays.equals(chains, mCachedCertChain)) {
+            return mEncodedCertChain;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < chains.length; i++) {
+            byte[] encoded = chains[i].getEncoded();
+            out.write(encoded, 0, encoded.length);
+        }
+
+        mCachedCertChain = chains;
+        mEncodedCertChain = out.toByteArray();
+
+        return mEncodedCertChain;
+    }
+
     /**
      * Signs the Response Data.
      */
@@ -512,42 +562,27 @@ public class OCSPAuthority implements IOCSPAuthority, IOCSPService, IAuthority {
 
         OCSPEngine engine = OCSPEngine.getInstance();
 
-        try (DerOutputStream out = new DerOutputStream()) {
-            DerOutputStream tmp = new DerOutputStream();
-
+        try {
             String algname = mSigningUnit.getDefaultAlgorithm();
 
+            // the encoded response data is signed and
+            // also included as is in the response
             byte rd_data[] = ASN1Util.encode(rd);
             if (rd_data != null) {
                 mTotalData += rd_data.length;
             }
 
-            rd.encode(tmp);
-            AlgorithmId.get(algname).encode(tmp);
-
             logger.debug("OCSPAuthority: adding signature");
             byte[] signature = mSigningUnit.sign(rd_data, algname);
 
-            tmp.putBitString(signature);
-            // XXX - optional, put the certificate chains in also
-
-            DerOutputStream tmpChain = new DerOutputStream();
-            DerOutputStream tmp1 = new DerOutputStream();
-            java.security.cert.X509Certificate chains[] = mSigningUnit.getCertChain().getChain();
-
-            for (int i = 0; i < chains.length; i++) {
-                tmpChain.putDerValue(new DerValue(chains[i].getEncoded()));
-            }
-
-            tmp1.write(DerValue.tag_Sequence, tmpChain);
-            tmp.write(DerValue.createTag(DerValue.TAG_CONTEXT, true, (byte) 0),
-                    tmp1);
-
-            out.write(DerValue.tag_Sequence, tmp);
-
-            BasicOCSPResponse response = new BasicOCSPResponse(out.toByteArray());
+            byte[] data = OCSPResponseWriter.encodeBasicResponse(
+                    rd_data,
+                    getEncodedAlgorithm(algname),
+                    signature,
+                    getEncodedCertChain());
 
-            return response;
+            // the response data is already known, no need to decode the response
+            return new BasicOCSPResponse(rd, data);
 
         } catch (NoSuchAlgorithmException e) {
             logger.error(CMS.getLogMessage("OPERATION_ERROR", e.toString()), e);
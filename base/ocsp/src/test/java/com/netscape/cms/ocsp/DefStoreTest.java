@@ -0,0 +1,377 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cms.ocsp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.jss.asn1.INTEGER;
+import org.mozilla.jss.asn1.OBJECT_IDENTIFIER;
+import org.mozilla.jss.asn1.OCTET_STRING;
+import org.mozilla.jss.netscape.security.x509.AlgorithmId;
+import org.mozilla.jss.netscape.security.x509.CRLExtensions;
+import org.mozilla.jss.netscape.security.x509.CRLNumberExtension;
+import org.mozilla.jss.netscape.security.x509.CRLReasonExtension;
+import org.mozilla.jss.netscape.security.x509.DeltaCRLIndicatorExtension;
+import org.mozilla.jss.netscape.security.x509.RevokedCertImpl;
+import org.mozilla.jss.netscape.security.x509.RevokedCertificate;
+import org.mozilla.jss.netscape.security.x509.X500Name;
+import org.mozilla.jss.netscape.security.x509.X509CRLImpl;
+import org.mozilla.jss.pkix.primitive.AlgorithmIdentifier;
+
+import com.netscape.certsrv.base.EBaseException;
+import com.netscape.certsrv.dbs.Modification;
+import com.netscape.certsrv.dbs.ModificationSet;
+import com.netscape.cmscore.dbs.CRLIssuingPointRecord;
+import com.netscape.cmsutil.ocsp.CertID;
+
+public class DefStoreTest {
+
+    static final String ISSUER = "CN=Test CA";
+
+    // 2022-01-01T00:00:00Z
+    static final long BASE_TIME = 1640995200000L;
+
+    /**
+     * Default store that keeps the issuing point records in memory.
+     */
+    static class TestDefStore extends DefStore {
+
+        Map<String, CRLIssuingPointRecord> records = new HashMap<>();
+        Set<String> failures = new HashSet<>();
+
+        int reads;
+        int modifications;
+
+        AtomicInteger searches = new AtomicInteger();
+        CountDownLatch searchLatch = new CountDownLatch(0);
+
+        @Override
+        public CRLIssuingPointRecord readCRLIssuingPoint(String name) {
+            reads++;
+            return records.get(name);
+        }
+
+        @Override
+        protected CRLIssuingPointRecord readCRLIssuingPointVersion(String id) throws EBaseException {
+
+            if (failures.contains(id)) {
+                throw new EBaseException("Unable to read " + id);
+            }
+
+            CRLIssuingPointRecord rec = records.get(id);
+            return new CRLIssuingPointRecord(
+                    id,
+                    rec.getCRLNumber(),
+                    null,
+                    null,
+                    null,
+                    rec.getDeltaCRLNumber(),
+                    null,
+                    null,
+                    null,
+                    null);
+        }
+
+        @Override
+        public Enumeration<CRLIssuingPointRecord> searchCRLIssuingPointRecord(String filter, int maxSize) {
+
+            searches.incrementAndGet();
+
+            try {
+                searchLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            // no issuing points
+            return Collections.emptyEnumeration();
+        }
+
+        @Override
+        public synchronized void modifyCRLIssuingPointRecord(
+                String name,
+                ModificationSet mods) throws EBaseException {
+
+            CRLIssuingPointRecord rec = records.get(name);
+
+            Enumeration<Modification> e = mods.getModifications();
+            while (e.hasMoreElements()) {
+                Modification mod = e.nextElement();
+                rec.set(mod.getName(), mod.getValue());
+            }
+
+            modifications++;
+        }
+    }
+
+    TestDefStore store;
+    CRLIssuingPointRecord rec;
+
+    @Before
+    public void setUp() throws Exception {
+
+        store = new TestDefStore();
+
+        // full CRL 5 has been received, no delta CRL yet
+        rec = new CRLIssuingPointRecord(
+                ISSUER,
+                BigInteger.valueOf(5),
+                Long.valueOf(0),
+                new Date(BASE_TIME),
+                new Date(BASE_TIME + 86400000L));
+
+        store.records.put(ISSUER, rec);
+    }
+
+    X509CRLImpl createDeltaCRL(
+            long baseCRLNumber,
+            long deltaCRLNumber,
+            Date thisUpdate,
+            RevokedCertificate... entries) throws Exception {
+
+        CRLExtensions exts = new CRLExtensions();
+        exts.set(CRLNumberExtension.NAME, new CRLNumberExtension(BigInteger.valueOf(deltaCRLNumber)));
+        exts.set(DeltaCRLIndicatorExtension.NAME, new DeltaCRLIndicatorExtension(BigInteger.valueOf(baseCRLNumber)));
+
+        Hashtable<BigInteger, RevokedCertificate> revokedCerts = new Hashtable<>();
+        for (RevokedCertificate entry : entries) {
+            revokedCerts.put(entry.getSerialNumber(), entry);
+        }
+
+        return new X509CRLImpl(
+                new X500Name(ISSUER),
+                AlgorithmId.get("SHA256withRSA"),
+                thisUpdate,
+                new Date(thisUpdate.getTime() + 3600000L),
+                revokedCerts,
+                exts);
+    }
+
+    CRLIssuingPointRecord createRecord(String id, long crlNumber) throws EBaseException {
+
+        CRLIssuingPointRecord rec = new CRLIssuingPointRecord(
+                id,
+                BigInteger.valueOf(crlNumber),
+                Long.valueOf(0),
+                new Date(BASE_TIME),
+                new Date(BASE_TIME + 86400000L));
+
+        // use the CRL cache instead of decoding the CRL
+        rec.set(CRLIssuingPointRecord.ATTR_CRL, new byte[0]);
+        rec.set(CRLIssuingPointRecord.ATTR_CRL_CACHE, new Hashtable<BigInteger, RevokedCertificate>());
+
+        return rec;
+    }
+
+    /**
+     * Adds an issuing point into the cache of the store.
+     */
+    void cache(String key, CRLIssuingPointRecord rec) {
+        store.records.put(rec.getId(), rec);
+        store.mCacheCRLIssuingPoints.put(key, new CRLIPContainer(rec, null, null));
+    }
+
+    RevokedCertificate createEntry(long serialNumber, CRLReasonExtension reason) throws Exception {
+
+        CRLExtensions exts = new CRLExtensions();
+        exts.set(CRLReasonExtension.NAME, reason);
+
+        return new RevokedCertImpl(BigInteger.valueOf(serialNumber), new Date(BASE_TIME), exts);
+    }
+
+    @Test
+    public void testMissingBaseCRL() throws Exception {
+
+        // delta CRL based on a full CRL that has not been received
+        X509CRLImpl deltaCRL = createDeltaCRL(6, 7, new Date(BASE_TIME + 1000));
+        assertThrows(EBaseException.class, () -> store.updateDeltaCRL(deltaCRL));
+
+        // delta CRL from an unknown issuing point
+        store.records.clear();
+        X509CRLImpl deltaCRL2 = createDeltaCRL(5, 6, new Date(BASE_TIME + 1000));
+        assertThrows(EBaseException.class, () -> store.updateDeltaCRL(deltaCRL2));
+
+        assertEquals(0, store.modifications);
+    }
+
+    @Test
+    public void testDuplicateDeltaCRL() throws Exception {
+
+        store.updateDeltaCRL(createDeltaCRL(5, 7, new Date(BASE_TIME + 1000)));
+        assertEquals(1, store.modifications);
+        assertEquals(BigInteger.valueOf(7), rec.getDeltaCRLNumber());
+
+        // same delta CRL again
+        store.updateDeltaCRL(createDeltaCRL(5, 7, new Date(BASE_TIME + 1000)));
+        assertEquals(1, store.modifications);
+
+        // older delta CRL
+        store.updateDeltaCRL(createDeltaCRL(5, 6, new Date(BASE_TIME + 500)));
+        assertEquals(1, store.modifications);
+        assertEquals(BigInteger.valueOf(7), rec.getDeltaCRLNumber());
+
+        // newer delta CRL
+        store.updateDeltaCRL(createDeltaCRL(5, 8, new Date(BASE_TIME + 2000)));
+        assertEquals(2, store.modifications);
+        assertEquals(BigInteger.valueOf(8), rec.getDeltaCRLNumber());
+    }
+
+    @Test
+    public void testDeltaCRLOlderThanFullCRL() throws Exception {
+
+        // delta CRL issued before the current full CRL
+        store.updateDeltaCRL(createDeltaCRL(5, 7, new Date(BASE_TIME - 1000)));
+
+        assertEquals(0, store.modifications);
+        assertNull(rec.getDeltaCRLNumber());
+    }
+
+    @Test
+    public void testRemoveFromCRL() throws Exception {
+
+        store.updateDeltaCRL(createDeltaCRL(5, 7, new Date(BASE_TIME + 1000),
+                createEntry(1, CRLReasonExtension.KEY_COMPROMISE),
+                createEntry(2, CRLReasonExtension.REMOVE_FROM_CRL),
+                createEntry(3, CRLReasonExtension.CERTIFICATE_HOLD)));
+
+        Hashtable<BigInteger, RevokedCertificate> revokedCerts = rec.getRevokedCerts();
+        assertEquals(2, revokedCerts.size());
+        assertTrue(revokedCerts.containsKey(BigInteger.ONE));
+        assertTrue(revokedCerts.containsKey(BigInteger.valueOf(3)));
+
+        Hashtable<BigInteger, RevokedCertificate> unrevokedCerts = rec.getUnrevokedCerts();
+        assertEquals(1, unrevokedCerts.size());
+        assertTrue(unrevokedCerts.containsKey(BigInteger.TWO));
+
+        // the next delta CRL replaces the changes
+        store.updateDeltaCRL(createDeltaCRL(5, 8, new Date(BASE_TIME + 2000),
+                createEntry(1, CRLReasonExtension.KEY_COMPROMISE)));
+
+        assertEquals(1, rec.getRevokedCerts().size());
+        assertEquals(0, rec.getUnrevokedCerts().size());
+    }
+
+    @Test
+    public void testConcurrentMisses() throws Exception {
+
+        int threads = 8;
+
+        // block the search until all threads are waiting
+        store.searchLatch = new CountDownLatch(1);
+
+        CertID certID = new CertID(
+                new AlgorithmIdentifier(new OBJECT_IDENTIFIER("1.3.14.3.2.26")),
+                new OCTET_STRING(new byte[20]),
+                new OCTET_STRING(new byte[20]),
+                new INTEGER(1));
+
+        List<Object> results = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> list = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    results.add(String.valueOf(store.getCRLIssuingPoint(certID)));
+                } catch (Exception e) {
+                    results.add(e);
+                }
+            });
+            list.add(thread);
+            thread.start();
+        }
+
+        // one thread is searching, the others are waiting for the result
+        for (Thread thread : list) {
+            while (thread.getState() != Thread.State.WAITING) {
+                Thread.sleep(10);
+            }
+        }
+
+        store.searchLatch.countDown();
+
+        for (Thread thread : list) {
+            thread.join();
+        }
+
+        assertEquals(1, store.searches.get());
+        assertEquals(Collections.nCopies(threads, "null"), results);
+    }
+
+    @Test
+    public void testRefreshUnchangedCRL() throws Exception {
+
+        CRLIssuingPointRecord rec = createRecord("CN=CA 1", 5);
+        cache("key1", rec);
+
+        store.refreshCRLIssuingPoints();
+
+        // the full record is not read again
+        assertEquals(0, store.reads);
+        assertSame(rec, store.mCacheCRLIssuingPoints.get("key1").getCRLIssuingPointRecord());
+
+        // a new CRL is loaded
+        CRLIssuingPointRecord newRec = createRecord("CN=CA 1", 6);
+        store.records.put("CN=CA 1", newRec);
+
+        store.refreshCRLIssuingPoints();
+
+        assertEquals(1, store.reads);
+        assertSame(newRec, store.mCacheCRLIssuingPoints.get("key1").getCRLIssuingPointRecord());
+    }
+
+    @Test
+    public void testRefreshFailure() throws Exception {
+
+        cache("key1", createRecord("CN=CA 1", 5));
+        cache("key2", createRecord("CN=CA 2", 5));
+
+        CRLIssuingPointRecord newRec1 = createRecord("CN=CA 1", 6);
+        store.records.put("CN=CA 1", newRec1);
+
+        CRLIssuingPointRecord newRec2 = createRecord("CN=CA 2", 6);
+        store.records.put("CN=CA 2", newRec2);
+
+        // the first issuer cannot be read, the second one is still refreshed
+        store.failures.add("CN=CA 1");
+
+        store.refreshCRLIssuingPoints();
+
+        assertEquals(BigInteger.valueOf(5), store.mCacheCRLIssuingPoints.get("key1").getCRLIssuingPointRecord().getCRLNumber());
+        assertSame(newRec2, store.mCacheCRLIssuingPoints.get("key2").getCRLIssuingPointRecord());
+    }
+}
@@ -0,0 +1,329 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cms.ocsp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedCRLTest {
+
+    // 2022-01-01T00:00:00Z
+    static final long BASE_TIME = 1640995200000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static byte[] tlv(int tag, byte[]... contents) throws IOException {
+
+        ByteArrayOutputStream value = new ByteArrayOutputStream();
+        for (byte[] content : contents) {
+            value.write(content);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(tag);
+
+        int length = value.size();
+        if (length < 0x80) {
+            out.write(length);
+        } else if (length < 0x100) {
+            out.write(0x81);
+            out.write(length);
+        } else if (length < 0x10000) {
+            out.write(0x82);
+            out.write(length >> 8);
+            out.write(length);
+        } else {
+            out.write(0x83);
+            out.write(length >> 16);
+            out.write(length >> 8);
+            out.write(length);
+        }
+
+        value.writeTo(out);
+        return out.toByteArray();
+    }
+
+    static byte[] time(int tag, Date date) throws IOException {
+        String pattern = tag == MappedCRL.TAG_UTC_TIME ? "yyMMddHHmmss'Z'" : "yyyyMMddHHmmss'Z'";
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return tlv(tag, format.format(date).getBytes("US-ASCII"));
+    }
+
+    static byte[] entry(byte[] serialNumber, Date revocationDate) throws IOException {
+        return tlv(MappedCRL.TAG_SEQUENCE,
+                tlv(MappedCRL.TAG_INTEGER, serialNumber),
+                time(MappedCRL.TAG_UTC_TIME, revocationDate));
+    }
+
+    static byte[] entry(BigInteger serialNumber, Date revocationDate) throws IOException {
+        return entry(serialNumber.toByteArray(), revocationDate);
+    }
+
+    /**
+     * Creates an (unsigned) X.509 v2 CRL.
+     */
+    static byte[] createCRL(byte[] thisUpdate, byte[] nextUpdate, List<byte[]> entries) throws IOException {
+
+        byte[] algorithm = tlv(MappedCRL.TAG_SEQUENCE,
+                new byte[] { 0x06, 0x09, 0x2A, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xF7, 0x0D, 0x01, 0x01, 0x0B },
+                new byte[] { 0x05, 0x00 });
+
+        // CN=Test CA
+        byte[] issuer = tlv(MappedCRL.TAG_SEQUENCE,
+                tlv(0x31, tlv(MappedCRL.TAG_SEQUENCE,
+                        new byte[] { 0x06, 0x03, 0x55, 0x04, 0x03 },
+                        tlv(0x0C, "Test CA".getBytes("UTF-8")))));
+
+        // CRL number
+        byte[] extensions = tlv(MappedCRL.TAG_EXPLICIT_0,
+                tlv(MappedCRL.TAG_SEQUENCE,
+                        tlv(MappedCRL.TAG_SEQUENCE,
+                                new byte[] { 0x06, 0x03, 0x55, 0x1D, 0x14 },
+                                tlv(0x04, tlv(MappedCRL.TAG_INTEGER, new byte[] { 0x01 })))));
+
+        List<byte[]> tbs = new ArrayList<>();
+        tbs.add(tlv(MappedCRL.TAG_INTEGER, new byte[] { 0x01 }));
+        tbs.add(algorithm);
+        tbs.add(issuer);
+        tbs.add(thisUpdate);
+        if (nextUpdate != null) tbs.add(nextUpdate);
+        if (!entries.isEmpty()) tbs.add(tlv(MappedCRL.TAG_SEQUENCE, entries.toArray(new byte[0][])));
+        tbs.add(extensions);
+
+        return tlv(MappedCRL.TAG_SEQUENCE,
+                tlv(MappedCRL.TAG_SEQUENCE, tbs.toArray(new byte[0][])),
+                algorithm,
+                tlv(0x03, new byte[17]));
+    }
+
+    static Date getRevocationDate(int i) {
+        return new Date(BASE_TIME + i * 1000L);
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+
+        BigInteger[] serialNumbers = {
+                BigInteger.ONE,
+                BigInteger.valueOf(127),
+                BigInteger.valueOf(128),
+                BigInteger.valueOf(255),
+                BigInteger.valueOf(256),
+                BigInteger.valueOf(65536),
+                BigInteger.valueOf(-1),
+                BigInteger.valueOf(-128),
+                BigInteger.valueOf(-129),
+                new BigInteger("7fffffffffffffffffffffffffffffffffffffff", 16),
+                new BigInteger("8000000000000000000000000000000000000000", 16),
+                new BigInteger("123456789abcdef0123456789abcdef012345678", 16)
+        };
+
+        List<byte[]> entries = new ArrayList<>();
+        for (int i = 0; i < serialNumbers.length; i++) {
+            entries.add(entry(serialNumbers[i], getRevocationDate(i)));
+        }
+
+        Date thisUpdate = new Date(BASE_TIME);
+        Date nextUpdate = new Date(BASE_TIME + 86400000L);
+
+        byte[] data = createCRL(
+                time(MappedCRL.TAG_UTC_TIME, thisUpdate),
+                time(MappedCRL.TAG_GENERALIZED_TIME, nextUpdate),
+                entries);
+
+        MappedCRL crl = MappedCRL.create(folder.getRoot().toPath(), "test", data);
+
+        assertEquals(thisUpdate, crl.getThisUpdate());
+        assertEquals(nextUpdate, crl.getNextUpdate());
+        assertEquals(serialNumbers.length, crl.getNumberOfRevokedCertificates());
+        assertArrayEquals(data, crl.getEncoded());
+
+        for (int i = 0; i < serialNumbers.length; i++) {
+            assertEquals(getRevocationDate(i), crl.getRevocationDate(serialNumbers[i]));
+        }
+
+        BigInteger[] absent = {
+                BigInteger.ZERO,
+                BigInteger.valueOf(2),
+                BigInteger.valueOf(129),
+                BigInteger.valueOf(-2),
+                BigInteger.valueOf(-127),
+                new BigInteger("8000000000000000000000000000000000000001", 16),
+                new BigInteger("-8000000000000000000000000000000000000000", 16)
+        };
+
+        for (BigInteger serialNumber : absent) {
+            assertNull(crl.getRevocationDate(serialNumber));
+        }
+
+        // the CRL should match the JDK CRL parser
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        X509CRL jdkCRL = (X509CRL) cf.generateCRL(new ByteArrayInputStream(data));
+
+        assertEquals(jdkCRL.getThisUpdate(), crl.getThisUpdate());
+        assertEquals(jdkCRL.getNextUpdate(), crl.getNextUpdate());
+        assertEquals(jdkCRL.getRevokedCertificates().size(), crl.getNumberOfRevokedCertificates());
+
+        for (X509CRLEntry entry : jdkCRL.getRevokedCertificates()) {
+            assertEquals(entry.getRevocationDate(), crl.getRevocationDate(entry.getSerialNumber()));
+        }
+    }
+
+    @Test
+    public void testNonMinimalSerialNumbers() throws Exception {
+
+        List<byte[]> entries = new ArrayList<>();
+
+        // 5 with redundant leading zeros, sorted after 4
+        entries.add(entry(new byte[] { 0x00, 0x00, 0x05 }, getRevocationDate(0)));
+        entries.add(entry(new byte[] { 0x04 }, getRevocationDate(1)));
+
+        // -128 with a redundant leading 0xFF, sorted before -127
+        entries.add(entry(new byte[] { (byte) 0xFF, (byte) 0x80 }, getRevocationDate(2)));
+        entries.add(entry(new byte[] { (byte) 0x81 }, getRevocationDate(3)));
+
+        // 200 with a redundant leading zero
+        entries.add(entry(new byte[] { 0x00, 0x00, (byte) 0xC8 }, getRevocationDate(4)));
+        entries.add(entry(new byte[] { 0x01, 0x00 }, getRevocationDate(5)));
+
+        byte[] data = createCRL(
+                time(MappedCRL.TAG_UTC_TIME, new Date(BASE_TIME)),
+                null,
+                entries);
+
+        MappedCRL crl = MappedCRL.create(folder.getRoot().toPath(), "test", data);
+
+        assertEquals(getRevocationDate(0), crl.getRevocationDate(BigInteger.valueOf(5)));
+        assertEquals(getRevocationDate(1), crl.getRevocationDate(BigInteger.valueOf(4)));
+        assertEquals(getRevocationDate(2), crl.getRevocationDate(BigInteger.valueOf(-128)));
+        assertEquals(getRevocationDate(3), crl.getRevocationDate(BigInteger.valueOf(-127)));
+        assertEquals(getRevocationDate(4), crl.getRevocationDate(BigInteger.valueOf(200)));
+        assertEquals(getRevocationDate(5), crl.getRevocationDate(BigInteger.valueOf(256)));
+
+        assertNull(crl.getRevocationDate(BigInteger.valueOf(6)));
+        assertNull(crl.getRevocationDate(BigInteger.valueOf(-129)));
+        assertNull(crl.getRevocationDate(BigInteger.valueOf(201)));
+    }
+
+    @Test
+    public void testDuplicateSerialNumbers() throws Exception {
+
+        List<byte[]> entries = new ArrayList<>();
+        entries.add(entry(BigInteger.valueOf(3), getRevocationDate(0)));
+        entries.add(entry(BigInteger.valueOf(7), getRevocationDate(1)));
+        entries.add(entry(BigInteger.valueOf(3), getRevocationDate(0)));
+        entries.add(entry(BigInteger.valueOf(5), getRevocationDate(2)));
+
+        byte[] data = createCRL(
+                time(MappedCRL.TAG_UTC_TIME, new Date(BASE_TIME)),
+                null,
+                entries);
+
+        MappedCRL crl = MappedCRL.create(folder.getRoot().toPath(), "test", data);
+
+        assertEquals(4, crl.getNumberOfRevokedCertificates());
+        assertEquals(getRevocationDate(0), crl.getRevocationDate(BigInteger.valueOf(3)));
+        assertEquals(getRevocationDate(1), crl.getRevocationDate(BigInteger.valueOf(7)));
+        assertEquals(getRevocationDate(2), crl.getRevocationDate(BigInteger.valueOf(5)));
+        assertNull(crl.getRevocationDate(BigInteger.valueOf(4)));
+    }
+
+    @Test
+    public void testWithoutNextUpdate() throws Exception {
+
+        // GeneralizedTime thisUpdate, no nextUpdate, no entries
+        Date thisUpdate = new Date(BASE_TIME);
+
+        byte[] data = createCRL(
+                time(MappedCRL.TAG_GENERALIZED_TIME, thisUpdate),
+                null,
+                new ArrayList<>());
+
+        MappedCRL crl = MappedCRL.create(folder.getRoot().toPath(), "test", data);
+
+        assertEquals(thisUpdate, crl.getThisUpdate());
+        assertNull(crl.getNextUpdate());
+        assertEquals(0, crl.getNumberOfRevokedCertificates());
+        assertNull(crl.getRevocationDate(BigInteger.ONE));
+    }
+
+    @Test
+    public void testManyEntries() throws Exception {
+
+        // enough entries to require long lengths and several merge passes
+        List<byte[]> entries = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // descending odd serial numbers
+            entries.add(entry(BigInteger.valueOf(2 * (5000 - i) + 1), getRevocationDate(i)));
+        }
+
+        byte[] data = createCRL(
+                time(MappedCRL.TAG_UTC_TIME, new Date(BASE_TIME)),
+                time(MappedCRL.TAG_UTC_TIME, new Date(BASE_TIME + 86400000L)),
+                entries);
+
+        MappedCRL crl = MappedCRL.create(folder.getRoot().toPath(), "test", data);
+
+        for (int i = 0; i < 5000; i++) {
+            BigInteger serialNumber = BigInteger.valueOf(2 * (5000 - i) + 1);
+            assertEquals(getRevocationDate(i), crl.getRevocationDate(serialNumber));
+            assertNull(crl.getRevocationDate(serialNumber.add(BigInteger.ONE)));
+        }
+    }
+
+    @Test
+    public void testInvalidEntry() throws Exception {
+
+        // entry without a serial number
+        List<byte[]> entries = new ArrayList<>();
+        entries.add(tlv(MappedCRL.TAG_SEQUENCE, time(MappedCRL.TAG_UTC_TIME, getRevocationDate(0))));
+
+        byte[] data = createCRL(
+                time(MappedCRL.TAG_UTC_TIME, new Date(BASE_TIME)),
+                null,
+                entries);
+
+        Path dir = folder.getRoot().toPath();
+        assertThrows(IOException.class, () -> MappedCRL.create(dir, "test", data));
+
+        // the files of a rejected CRL are removed
+        assertEquals(0, dir.toFile().list().length);
+    }
+}
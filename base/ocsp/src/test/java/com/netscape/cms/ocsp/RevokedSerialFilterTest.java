@@ -0,0 +1,185 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cms.ocsp;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class RevokedSerialFilterTest {
+
+    static List<BigInteger> createSerialNumbers(Random random, int count) {
+
+        List<BigInteger> serialNumbers = new ArrayList<>();
+
+        serialNumbers.add(BigInteger.ZERO);
+        serialNumbers.add(BigInteger.ONE);
+        serialNumbers.add(BigInteger.valueOf(-1));
+        serialNumbers.add(BigInteger.valueOf(127));
+        serialNumbers.add(BigInteger.valueOf(128));
+        serialNumbers.add(BigInteger.valueOf(-128));
+        serialNumbers.add(BigInteger.valueOf(-129));
+
+        while (serialNumbers.size() < count) {
+            // random 128-bit serial numbers, positive and negative
+            BigInteger serialNumber = new BigInteger(128, random);
+            if (random.nextBoolean()) {
+                serialNumber = serialNumber.negate();
+            }
+            serialNumbers.add(serialNumber);
+        }
+
+        return serialNumbers;
+    }
+
+    /**
+     * Encodes a serial number with a redundant leading sign byte.
+     */
+    static byte[] encodeNonMinimal(BigInteger serialNumber) {
+
+        byte[] bytes = serialNumber.toByteArray();
+        byte[] result = new byte[bytes.length + 1];
+
+        result[0] = (byte) (serialNumber.signum() < 0 ? 0xFF : 0x00);
+        System.arraycopy(bytes, 0, result, 1, bytes.length);
+
+        return result;
+    }
+
+    @Test
+    public void testAddedSerialNumbers() throws Exception {
+
+        List<BigInteger> serialNumbers = createSerialNumbers(new Random(1), 1000);
+        RevokedSerialFilter filter = RevokedSerialFilter.create(serialNumbers);
+
+        for (BigInteger serialNumber : serialNumbers) {
+            assertTrue("Missing serial number " + serialNumber,
+                    filter.mightContain(serialNumber.toByteArray()));
+        }
+    }
+
+    @Test
+    public void testNonMinimalEncoding() throws Exception {
+
+        List<BigInteger> serialNumbers = createSerialNumbers(new Random(2), 1000);
+        RevokedSerialFilter filter = RevokedSerialFilter.create(serialNumbers);
+
+        for (BigInteger serialNumber : serialNumbers) {
+            byte[] bytes = encodeNonMinimal(serialNumber);
+            assertTrue("Missing non-minimal serial number " + serialNumber,
+                    filter.mightContain(bytes));
+
+            bytes = encodeNonMinimal(new BigInteger(bytes));
+            assertTrue("Missing non-minimal serial number " + serialNumber,
+                    filter.mightContain(bytes));
+        }
+    }
+
+    @Test
+    public void testNonMinimalEncodingWithOffset() throws Exception {
+
+        BigInteger serialNumber = new BigInteger("-8000000000000000", 16);
+
+        RevokedSerialFilter filter = new RevokedSerialFilter(1);
+        filter.add(serialNumber);
+
+        byte[] bytes = encodeNonMinimal(serialNumber);
+        byte[] data = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, data, 2, bytes.length);
+
+        assertTrue(filter.mightContain(data, 2, bytes.length));
+    }
+
+    @Test
+    public void testSignedSerialNumbers() throws Exception {
+
+        RevokedSerialFilter filter = RevokedSerialFilter.create(Collections.singletonList(BigInteger.valueOf(255)));
+
+        // 255 is encoded as 00 FF, the same bytes without the
+        // sign byte represent -1 which was not added
+        assertTrue(filter.mightContain(new byte[] { 0x00, (byte) 0xFF }));
+        assertFalse(filter.mightContain(new byte[] { (byte) 0xFF }));
+        assertFalse(filter.mightContain(new byte[] { (byte) 0xFF, (byte) 0xFF }));
+    }
+
+    @Test
+    public void testEmptyFilter() throws Exception {
+
+        RevokedSerialFilter filter = RevokedSerialFilter.create(Collections.emptyList());
+
+        for (BigInteger serialNumber : createSerialNumbers(new Random(3), 1000)) {
+            assertFalse(filter.mightContain(serialNumber.toByteArray()));
+        }
+    }
+
+    @Test
+    public void testRandomFalsePositiveRate() throws Exception {
+
+        Random random = new Random(4);
+
+        List<BigInteger> serialNumbers = createSerialNumbers(random, 10000);
+        RevokedSerialFilter filter = RevokedSerialFilter.create(serialNumbers);
+
+        Set<BigInteger> revoked = new HashSet<>(serialNumbers);
+        int falsePositives = 0;
+        int count = 0;
+
+        for (BigInteger serialNumber : createSerialNumbers(random, 100000)) {
+            if (revoked.contains(serialNumber)) continue;
+            count++;
+            if (filter.mightContain(serialNumber.toByteArray())) falsePositives++;
+        }
+
+        // the filter is sized for about 1% false positives
+        double rate = (double) falsePositives / count;
+        assertTrue("False positive rate too high: " + rate, rate < 0.02);
+    }
+
+    @Test
+    public void testSequentialFalsePositiveRate() throws Exception {
+
+        // CA serial numbers are often sequential
+        List<BigInteger> serialNumbers = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            serialNumbers.add(BigInteger.valueOf(0x10000 + 2 * i));
+        }
+
+        RevokedSerialFilter filter = RevokedSerialFilter.create(serialNumbers);
+
+        int falsePositives = 0;
+        int count = 0;
+
+        for (int i = 0; i < 100000; i++) {
+            BigInteger serialNumber = BigInteger.valueOf(0x10000 + 2 * i + 1);
+            count++;
+            if (filter.mightContain(serialNumber.toByteArray())) falsePositives++;
+        }
+
+        double rate = (double) falsePositives / count;
+        assertTrue("False positive rate too high: " + rate, rate < 0.02);
+    }
+}
@@ -0,0 +1,59 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cms.servlet.ocsp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class AddCRLServletTest {
+
+    @Test
+    public void testReadContent() throws Exception {
+
+        byte[] data = new byte[100];
+
+        assertArrayEquals(data, AddCRLServlet.readContent(new ByteArrayInputStream(data), 100, 100));
+        assertArrayEquals(data, AddCRLServlet.readContent(new ByteArrayInputStream(data), -1, 1000));
+    }
+
+    @Test
+    public void testContentLengthTooLarge() {
+
+        byte[] data = new byte[100];
+
+        assertThrows(IOException.class,
+                () -> AddCRLServlet.readContent(new ByteArrayInputStream(data), 100, 99));
+    }
+
+    @Test
+    public void testBodyTooLarge() {
+
+        byte[] data = new byte[100];
+
+        // missing or understated content length
+        assertThrows(IOException.class,
+                () -> AddCRLServlet.readContent(new ByteArrayInputStream(data), -1, 99));
+        assertThrows(IOException.class,
+                () -> AddCRLServlet.readContent(new ByteArrayInputStream(data), 10, 99));
+    }
+}
@@ -21,6 +21,7 @@ import pki.server.cli.subsystem
 # TODO: auto-populate this map from /usr/share/pki/acme/database
 DATABASE_CLASSES = {
     'ds': 'org.dogtagpki.acme.database.DSDatabase',
+    'file': 'org.dogtagpki.acme.database.FileDatabase',
     'in-memory': 'org.dogtagpki.acme.database.InMemoryDatabase',
     'ldap': 'org.dogtagpki.acme.database.LDAPDatabase',
     'openldap': 'org.dogtagpki.acme.database.OpenLDAPDatabase',
@@ -831,6 +832,17 @@ class ACMEDatabaseModifyCLI(pki.cli.CLI):
             config.pop('user', None)
             config.pop('password', None)
 
+        elif database_type == 'file':
+            config.pop('url', None)
+            config.pop('user', None)
+            config.pop('password', None)
+
+            print()
+            print('Enter the location of the database files.')
+            directory = config.get('directory')
+            directory = pki.util.read_text('  Directory', default=directory, required=True)
+            pki.util.set_property(config, 'directory', directory)
+
         elif database_type in ['ds', 'ldap', 'openldap']:
 
             print()
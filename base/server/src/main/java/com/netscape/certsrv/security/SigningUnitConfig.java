@@ -93,6 +93,30 @@ public class SigningUnitConfig extends ConfigStore {
         return getBoolean("testSignatureFailure", false);
     }
 
+    /**
+     * Returns the maximum number of concurrent signing operations
+     * on the token (0 = unlimited).
+     */
+    public int getMaxSessions() throws EBaseException {
+        return getInteger("maxSessions", 0);
+    }
+
+    /**
+     * Returns the maximum number of idle signature contexts
+     * kept per algorithm.
+     */
+    public int getSignerPoolSize() throws EBaseException {
+        return getInteger("signerPoolSize", 16);
+    }
+
+    /**
+     * Returns the number of signatures between the signing
+     * statistics log messages (0 = disabled).
+     */
+    public int getStatsInterval() throws EBaseException {
+        return getInteger("statsInterval", 10000);
+    }
+
     public String getDefaultSigningAlgorithm() throws EBaseException {
         return getString("defaultSigningAlgorithm");
     }
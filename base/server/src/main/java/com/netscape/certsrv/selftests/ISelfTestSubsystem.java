@@ -57,6 +57,9 @@ public interface ISelfTestSubsystem
     public static final String PROP_ORDER = "order";
     public static final String PROP_ON_DEMAND = "onDemand";
     public static final String PROP_STARTUP = "startup";
+    public static final String PROP_THREADS = "threads";
+    public static final String PROP_TIMEOUT = "timeout";
+    public static final String PROP_CACHE_TTL = "cacheTTL";
 
     ///////////////////////////////////////
     // ISubsystem parameters (inherited) //
@@ -19,9 +19,12 @@ package com.netscape.cms.authentication;
 
 // ldap java sdk
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.StringTokenizer;
 import java.util.Vector;
 
@@ -48,14 +51,17 @@ import com.netscape.certsrv.ldap.ILdapConnFactory;
 import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.apps.CMSEngine;
 import com.netscape.cmscore.apps.EngineConfig;
+import com.netscape.cmscore.base.ConfigStore;
 import com.netscape.cmscore.ldapconn.LDAPAuthenticationConfig;
 import com.netscape.cmscore.ldapconn.LDAPConfig;
 import com.netscape.cmscore.ldapconn.LdapAnonConnFactory;
+import com.netscape.cmscore.ldapconn.LdapBindConnPool;
 import com.netscape.cmscore.ldapconn.LdapBoundConnFactory;
 import com.netscape.cmscore.ldapconn.PKISocketConfig;
 
 import netscape.ldap.LDAPAttribute;
 import netscape.ldap.LDAPConnection;
+import netscape.ldap.LDAPControl;
 import netscape.ldap.LDAPEntry;
 import netscape.ldap.LDAPException;
 import netscape.ldap.LDAPSearchResults;
@@ -90,6 +96,18 @@ public abstract class DirBasedAuthentication
     protected static final String PROP_LDAPSTRINGATTRS = "ldapStringAttributes";
     protected static final String PROP_LDAPBYTEATTRS = "ldapByteAttributes";
     protected static final String PROP_LDAP_BOUND_CONN = "ldapBoundConn";
+    protected static final String PROP_BIND_POOL = "bindPool";
+
+    // Password Policy request control (draft-behera-ldap-password-policy)
+    protected static final String OID_PASSWORD_POLICY = "1.3.6.1.4.1.42.2.27.8.5.1";
+
+    // Authorization Identity controls (RFC 3829)
+    protected static final String OID_AUTHZID_REQUEST = "2.16.840.1.113730.3.4.16";
+    protected static final String OID_AUTHZID_RESPONSE = "2.16.840.1.113730.3.4.15";
+
+    // Password expired and expiring response controls
+    protected static final String OID_PASSWORD_EXPIRED = "2.16.840.1.113730.3.4.4";
+    protected static final String OID_PASSWORD_EXPIRING = "2.16.840.1.113730.3.4.5";
 
     // members
 
@@ -120,6 +138,12 @@ public abstract class DirBasedAuthentication
     /* factory of anonymous ldap connections */
     protected ILdapConnFactory mConnFactory = null;
 
+    /* separate connection pool to verify user passwords */
+    protected LdapBindConnPool mBindConnPool = null;
+
+    /* controls sent with user bind requests */
+    protected LDAPControl[] mBindControls = null;
+
     /* the subject DN pattern */
     protected DNPattern mPattern = null;
 
@@ -321,6 +345,8 @@ public abstract class DirBasedAuthentication
             mConnFactory = connFactory;
         }
 
+        initBindConnPool(socketConfig);
+
         /* initialize dn pattern */
         String pattern = mConfig.getString(PROP_DNPATTERN, null);
 
@@ -387,6 +413,108 @@ public abstract class DirBasedAuthentication
         logger.info("DirBasedAuthentication: Initialization complete");
     }
 
+    /**
+     * Initializes the connection pool to verify user passwords if
+     * ldap.bindPool.enable is true. With the bind pool the user entry
+     * including the attributes and the groups is retrieved with a single
+     * search, then the password is verified on a separate connection, so
+     * the search connection never needs to be rebound or reset.
+     */
+    protected void initBindConnPool(PKISocketConfig socketConfig) throws EBaseException {
+
+        ConfigStore bindPoolConfig = mLdapConfig.getSubStore(PROP_BIND_POOL, ConfigStore.class);
+
+        boolean enable = bindPoolConfig.getBoolean("enable", false);
+        logger.info("DirBasedAuthentication: Bind pool enable: " + enable);
+
+        if (!enable) return;
+
+        int maxConns = bindPoolConfig.getInteger(LdapBindConnPool.PROP_MAXCONNS, LdapBindConnPool.DEFAULT_MAXCONNS);
+
+        mBindConnPool = new LdapBindConnPool(mName);
+        mBindConnPool.init(socketConfig, mLdapConfig.getConnectionConfig(), maxConns);
+
+        List<LDAPControl> controls = new ArrayList<>();
+
+        boolean passwordPolicy = bindPoolConfig.getBoolean("passwordPolicy", false);
+        logger.info("DirBasedAuthentication: Bind with password policy control: " + passwordPolicy);
+
+        if (passwordPolicy) {
+            controls.add(new LDAPControl(OID_PASSWORD_POLICY, false, null));
+        }
+
+        boolean authzID = bindPoolConfig.getBoolean("authzID", false);
+        logger.info("DirBasedAuthentication: Bind with authorization identity control: " + authzID);
+
+        if (authzID) {
+            controls.add(new LDAPControl(OID_AUTHZID_REQUEST, false, null));
+        }
+
+        if (!controls.isEmpty()) {
+            mBindControls = controls.toArray(new LDAPControl[controls.size()]);
+        }
+    }
+
+    /**
+     * Verifies the user password. If the bind pool is enabled the password
+     * is verified on a pooled bind connection. Otherwise the provided
+     * connection will be rebound as the user.
+     *
+     * @exception LDAPException If the bind failed, e.g. with invalid credentials.
+     */
+    protected void bindUser(LDAPConnection conn, String userdn, String password)
+            throws LDAPException, EBaseException {
+
+        if (mBindConnPool == null) {
+            conn.authenticate(userdn, password);
+            return;
+        }
+
+        LDAPControl[] responseControls;
+        try {
+            responseControls = mBindConnPool.bind(userdn, password, mBindControls);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EBaseException("Interrupted while verifying password for " + userdn, e);
+        }
+
+        if (responseControls == null) return;
+
+        for (LDAPControl control : responseControls) {
+
+            String oid = control.getID();
+            byte[] value = control.getValue();
+
+            if (OID_PASSWORD_EXPIRED.equals(oid)) {
+                logger.error("DirBasedAuthentication: Password has expired for " + userdn);
+                throw new EInvalidCredentials(CMS.getUserMessage("CMS_AUTHENTICATION_INVALID_CREDENTIAL"));
+
+            } else if (OID_PASSWORD_EXPIRING.equals(oid)) {
+                String seconds = value == null ? null : new String(value, StandardCharsets.UTF_8);
+                logger.warn("DirBasedAuthentication: Password for " + userdn + " will expire in " + seconds + " seconds");
+
+            } else if (OID_AUTHZID_RESPONSE.equals(oid)) {
+                String authzID = value == null ? null : new String(value, StandardCharsets.UTF_8);
+                logger.info("DirBasedAuthentication: Authorization identity: " + authzID);
+            }
+        }
+    }
+
+    /**
+     * Authenticates a user and returns the user entry including the
+     * attributes returned by getLdapAttrs(). This method is only called
+     * if the bind pool is enabled. The default implementation returns
+     * null which means the user will be authenticated with
+     * authenticate(LDAPConnection, AuthCredentials, AuthToken) and the
+     * attributes will be retrieved with a separate search.
+     */
+    protected LDAPEntry authenticateUser(
+            LDAPConnection conn, AuthCredentials authCreds, AuthToken token)
+            throws EBaseException {
+        return null;
+    }
+
     /**
      * gets the name of this authentication manager instance
      */
@@ -465,7 +593,15 @@ public abstract class DirBasedAuthentication
 
             // authenticate the user and get a user entry.
             logger.debug(method + " before authenticate() call");
-            userdn = authenticate(conn, authCred, authToken);
+
+            LDAPEntry entry = mBindConnPool == null ? null : authenticateUser(conn, authCred, authToken);
+
+            if (entry != null) {
+                userdn = entry.getDN();
+            } else {
+                userdn = authenticate(conn, authCred, authToken);
+            }
+
             logger.debug(method + " after authenticate() call");
             authToken.set(USER_DN, userdn);
 
@@ -474,7 +610,12 @@ public abstract class DirBasedAuthentication
             // in the request queue.
             X509CertInfo certInfo = new X509CertInfo();
 
-            formCertInfo(conn, userdn, certInfo, authToken);
+            if (entry != null) {
+                // the attributes have been retrieved with the user entry
+                formCertInfo(entry, certInfo, authToken);
+            } else {
+                formCertInfo(conn, userdn, certInfo, authToken);
+            }
 
             // set subject name.
             try {
@@ -550,6 +691,11 @@ public abstract class DirBasedAuthentication
      */
     @Override
     public void shutdown() {
+
+        if (mBindConnPool != null) {
+            mBindConnPool.reset();
+        }
+
         try {
             if (mConnFactory != null) {
                 mConnFactory.reset();
@@ -681,6 +827,49 @@ public abstract class DirBasedAuthentication
         }
     }
 
+    /**
+     * Formulate the cert info from a user entry that already
+     * contains the attributes returned by getLdapAttrs().
+     *
+     * @param entry The user's entry.
+     * @param certinfo A certinfo object to fill.
+     * @param token A authentication token to fill.
+     * @exception EBaseException If an internal error occurs.
+     */
+    protected void formCertInfo(LDAPEntry entry,
+            X509CertInfo certinfo,
+            AuthToken token)
+            throws EBaseException {
+
+        String userdn = entry.getDN();
+
+        // formulate the subject dn
+        String dn = formSubjectName(entry);
+        logger.info("DirBasedAuthentication: DN: " + dn);
+
+        // Put selected values from the entry into the token
+        setAuthTokenValues(entry, token);
+
+        if (dn.length() == 0) {
+            EBaseException ex = new EAuthException(CMS.getUserMessage("CMS_AUTHENTICATION_EMPTY_DN_FORMED", mName));
+            logger.error("DirBasedAuthentication: " + CMS.getLogMessage("CMS_AUTH_NO_DN_ERROR", ex.toString()));
+            throw ex;
+        }
+
+        try {
+            X500Name subjectdn = new X500Name(dn);
+            certinfo.set(X509CertInfo.SUBJECT, new CertificateSubjectName(subjectdn));
+
+        } catch (IOException e) {
+            logger.error("DirBasedAuthentication: " + CMS.getLogMessage("CMS_AUTH_CREATE_SUBJECT_ERROR", userdn, e.getMessage()), e);
+            throw new EFormSubjectDN(CMS.getUserMessage("CMS_AUTHENTICATION_FORM_SUBJECTDN_ERROR"));
+
+        } catch (CertificateException e) {
+            logger.error("DirBasedAuthentication: " + CMS.getLogMessage("CMS_AUTH_CREATE_CERTINFO_ERROR", userdn, e.getMessage()));
+            throw new EFormSubjectDN(CMS.getUserMessage("CMS_AUTHENTICATION_FORM_SUBJECTDN_ERROR"));
+        }
+    }
+
     /**
      * Copy values from the LDAPEntry into the AuthToken. The
      * list of values that should be store this way is given in
@@ -160,6 +160,54 @@ public class UidPwdDirAuthentication extends DirBasedAuthentication
             AuthToken token)
             throws EBaseException {
 
+        String emptyAttrs[] = {};
+        String groupAttrs[] = {"memberOf"};
+
+        /*
+         * first try and see if the directory server supports "memberOf"
+         * if so, use it, if not, then pull all groups to check
+         */
+        String[] attrs = mGroupsEnable ? groupAttrs : emptyAttrs;
+
+        LDAPEntry entry = authenticate(conn, authCreds, token, attrs);
+        return entry.getDN();
+    }
+
+    /**
+     * Authenticates a user based on uid, pwd in the directory and
+     * returns the user entry including the attributes needed to
+     * formulate the cert info and the groups, so the entry does not
+     * need to be retrieved again.
+     *
+     * @param authCreds The authentication credentials.
+     * @return The user's ldap entry.
+     * @exception EInvalidCredentials If the uid and password are not valid
+     * @exception EBaseException If an internal error occurs.
+     */
+    @Override
+    protected LDAPEntry authenticateUser(LDAPConnection conn,
+            AuthCredentials authCreds,
+            AuthToken token)
+            throws EBaseException {
+
+        String[] attrs = getLdapAttrs();
+
+        if (attrs != null && mGroupsEnable) {
+            String[] userAttrs = new String[attrs.length + 1];
+            System.arraycopy(attrs, 0, userAttrs, 0, attrs.length);
+            userAttrs[attrs.length] = "memberOf";
+            attrs = userAttrs;
+        }
+
+        return authenticate(conn, authCreds, token, attrs);
+    }
+
+    protected LDAPEntry authenticate(LDAPConnection conn,
+            AuthCredentials authCreds,
+            AuthToken token,
+            String[] attrs)
+            throws EBaseException {
+
         String uid = null;
 
         // authenticate by binding to ldap server with password.
@@ -185,13 +233,6 @@ public class UidPwdDirAuthentication extends DirBasedAuthentication
                 throw new EInvalidCredentials(CMS.getUserMessage("CMS_AUTHENTICATION_INVALID_CREDENTIAL"));
             }
 
-            /*
-             * first try and see if the directory server supports "memberOf"
-             * if so, use it, if not, then pull all groups to check
-             */
-            String emptyAttrs[] = {};
-            String groupAttrs[] = {"memberOf"};
-
             // get user dn.
             logger.info("UidPwdDirAuthentication: Searching for user " + uid);
 
@@ -200,10 +241,13 @@ public class UidPwdDirAuthentication extends DirBasedAuthentication
             String filter = "(" + mUserIDName + "=" + LDAPUtil.escapeFilter(uid) + ")";
             logger.info("UidPwdDirAuthentication: - filter: " + filter);
 
-            String[] attrs = mGroupsEnable ? groupAttrs : emptyAttrs;
-            logger.info("DirBasedAuthentication: - attributes:");
-            for (String attr : attrs) {
-                logger.info("DirBasedAuthentication:   - " + attr);
+            if (attrs == null) {
+                logger.info("UidPwdDirAuthentication: - attributes: all");
+            } else {
+                logger.info("UidPwdDirAuthentication: - attributes:");
+                for (String attr : attrs) {
+                    logger.info("UidPwdDirAuthentication:   - " + attr);
+                }
             }
 
             LDAPSearchResults results = conn.search(
@@ -223,7 +267,7 @@ public class UidPwdDirAuthentication extends DirBasedAuthentication
             logger.debug("UidPwdDirAuthentication: Found user " + userdn);
 
             // bind as user dn and pwd - authenticates user with pwd.
-            conn.authenticate(userdn, pwd);
+            bindUser(conn, userdn, pwd);
 
             LDAPAttribute attribute = entry.getAttribute("memberOf");
 
@@ -246,15 +290,19 @@ public class UidPwdDirAuthentication extends DirBasedAuthentication
             token.set(AuthToken.UID, uid);
             token.set(AuthToken.USER_ID, uid);
 
-            return userdn;
+            return entry;
 
         } catch (LDAPException e) {
             logger.error("Authenticating: User authentication failure: " + e.getMessage(), e);
-            logger.debug("Authenticating: closing bad connection");
-            try {
-                conn.disconnect();
-            } catch (Exception f) {
-                logger.warn("Authenticating: conn.disconnect() exception =" + f.getMessage(), e);
+
+            // with the bind pool a bad password does not affect the search connection
+            if (mBindConnPool == null || e.getLDAPResultCode() != LDAPException.INVALID_CREDENTIALS) {
+                logger.debug("Authenticating: closing bad connection");
+                try {
+                    conn.disconnect();
+                } catch (Exception f) {
+                    logger.warn("Authenticating: conn.disconnect() exception =" + f.getMessage(), e);
+                }
             }
             switch (e.getLDAPResultCode()) {
             case LDAPException.NO_SUCH_OBJECT:
@@ -18,7 +18,24 @@
 package com.netscape.cms.jobs;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.mozilla.jss.netscape.security.x509.X509CertImpl;
 
@@ -32,6 +49,9 @@ import com.netscape.certsrv.notification.IMailNotification;
 import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.apps.CMSEngine;
 import com.netscape.cmscore.base.ConfigStore;
+import com.netscape.cmscore.dbs.CertRecord;
+import com.netscape.cmscore.dbs.CertificateRepository;
+import com.netscape.cmscore.jobs.JobCron;
 import com.netscape.cmscore.notification.EmailTemplate;
 import com.netscape.cmscore.request.Request;
 
@@ -54,6 +74,12 @@ public abstract class AJobBase implements IJob, Runnable {
     protected static final String PROP_ITEM_TEMPLATE = "itemTemplate";
     protected static final String PROP_SENDER_EMAIL = "senderEmail";
     protected static final String PROP_RECEIVER_EMAIL = "recipientEmail";
+    protected static final String PROP_PAGE_SIZE = "pageSize";
+    protected static final String PROP_THREADS = "threads";
+    protected static final String PROP_CHECKPOINT_INTERVAL = "checkpointInterval";
+
+    protected static final int DEFAULT_PAGE_SIZE = 100;
+    protected static final int DEFAULT_CHECKPOINT_INTERVAL = 60; // seconds
 
     protected static final String STATUS_FAILURE = "failed";
     protected static final String STATUS_SUCCESS = "succeeded";
@@ -78,6 +104,23 @@ public abstract class AJobBase implements IJob, Runnable {
 
     boolean stopped;
 
+    // number of items processed in the current run
+    protected AtomicLong mProcessedCount = new AtomicLong();
+
+    // start time of the current run
+    protected long mRunStartTime;
+
+    // time of the last checkpoint in the current run
+    protected long mCheckpointTime;
+
+    /**
+     * Processes a single certificate record found by
+     * processCertRecords().
+     */
+    public interface CertRecordHandler {
+        void handle(CertRecord record) throws Exception;
+    }
+
     public AJobBase() {
     }
 
@@ -263,6 +306,256 @@ public abstract class AJobBase implements IJob, Runnable {
         }
     }
 
+    public long getProcessedCount() {
+        return mProcessedCount.get();
+    }
+
+    public void resetProcessedCount() {
+        mProcessedCount.set(0);
+    }
+
+    /**
+     * Returns the file that stores the checkpoint of this job. The
+     * checkpoint is kept outside of CS.cfg so that it can be updated
+     * during a run without rewriting the shared configuration.
+     */
+    protected Path getCheckpointFile() {
+        CMSEngine engine = CMS.getCMSEngine();
+        return Paths.get(engine.getInstanceDir(), engine.getID(), "jobs", mId + ".checkpoint");
+    }
+
+    /**
+     * Returns the serial number where the previous interrupted run
+     * should be resumed, or null if there is no checkpoint.
+     * <p>
+     * A checkpoint left by a run that is older than one job interval
+     * (e.g. the server was down while the job was scheduled) is
+     * removed, since the records below the checkpoint may have
+     * changed since then.
+     */
+    protected synchronized BigInteger loadCheckpoint() {
+
+        Path file = getCheckpointFile();
+        if (!Files.exists(file)) return null;
+
+        try {
+            Properties checkpoint = new Properties();
+            try (Reader reader = Files.newBufferedReader(file)) {
+                checkpoint.load(reader);
+            }
+
+            long runStartTime = Long.parseLong(checkpoint.getProperty("runStartTime"));
+
+            if (isStaleCheckpoint(runStartTime, mRunStartTime)) {
+                logger.info("AJobBase: Removing stale checkpoint for job " + mId + " from " + new Date(runStartTime));
+                clearCheckpoint();
+                return null;
+            }
+
+            return new BigInteger(checkpoint.getProperty("serialNumber"));
+
+        } catch (Exception e) {
+            logger.warn("AJobBase: Invalid checkpoint for job " + mId + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns true if the checkpoint of a run that started at
+     * runStartTime should not be resumed by a run that starts at
+     * the given time, i.e. if the job was scheduled more than once
+     * since the interrupted run.
+     */
+    protected boolean isStaleCheckpoint(long runStartTime, long time) {
+
+        if (!(mJobCron instanceof JobCron)) {
+            return false;
+        }
+
+        JobCron cron = (JobCron) mJobCron;
+
+        // the run that should resume the checkpoint
+        long next = cron.getNextTime(runStartTime);
+        if (next < 0) return false;
+
+        // the run after that
+        long after = cron.getNextTime(next);
+        return after >= 0 && time >= after;
+    }
+
+    /**
+     * Stores the serial number where the next run should be
+     * resumed if the current run is interrupted, together with
+     * the start time of the current run.
+     */
+    protected synchronized void saveCheckpoint(BigInteger serialNumber) {
+
+        Path file = getCheckpointFile();
+
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("runStartTime", Long.toString(mRunStartTime));
+        checkpoint.setProperty("serialNumber", serialNumber.toString());
+
+        try {
+            Files.createDirectories(file.getParent());
+
+            // replace the file atomically so a crash does not leave
+            // a partially written checkpoint
+            Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmpFile)) {
+                checkpoint.store(writer, null);
+            }
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            mCheckpointTime = System.currentTimeMillis();
+
+        } catch (IOException e) {
+            logger.warn("AJobBase: Unable to store checkpoint for job " + mId + ": " + e.getMessage(), e);
+        }
+    }
+
+    protected synchronized void clearCheckpoint() {
+        try {
+            Files.deleteIfExists(getCheckpointFile());
+
+        } catch (IOException e) {
+            logger.warn("AJobBase: Unable to clear checkpoint for job " + mId + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Finds the certificate records matching the filter page by page
+     * in serial number order and passes them to the handler.
+     * <p>
+     * The page size is configured with the <b>pageSize</b> parameter.
+     * If parallel is true, the records in each page are handled
+     * concurrently by the number of threads configured with the
+     * <b>threads</b> parameter (default: 1), so the handler must be
+     * thread-safe.
+     * <p>
+     * The next serial number is stored as a checkpoint at most once
+     * per <b>checkpointInterval</b> seconds (default: 60) and when the
+     * job is stopped, so a run that is interrupted (e.g. by a server
+     * restart) resumes close to where it stopped. The checkpoint is
+     * removed once all records have been processed, and it is ignored
+     * if the job has been scheduled more than once since it was stored.
+     *
+     * @param repository certificate repository
+     * @param filter search filter
+     * @param parallel whether the records can be handled concurrently
+     * @param handler certificate record handler
+     * @exception EBaseException failed to search the repository
+     */
+    protected void processCertRecords(
+            CertificateRepository repository,
+            String filter,
+            boolean parallel,
+            CertRecordHandler handler) throws EBaseException {
+
+        int pageSize = mConfig.getInteger(PROP_PAGE_SIZE, DEFAULT_PAGE_SIZE);
+        int threads = parallel ? mConfig.getInteger(PROP_THREADS, 1) : 1;
+        long checkpointInterval = mConfig.getInteger(PROP_CHECKPOINT_INTERVAL, DEFAULT_CHECKPOINT_INTERVAL) * 1000L;
+
+        mRunStartTime = System.currentTimeMillis();
+
+        BigInteger start = loadCheckpoint();
+        if (start != null) {
+            logger.info("AJobBase: Resuming job " + mId + " from serial number " + start);
+        }
+
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        mCheckpointTime = System.currentTimeMillis();
+
+        try {
+            while (!stopped) {
+
+                String pageFilter = filter;
+                if (start != null) {
+                    pageFilter = "(&" + filter + "(" + CertRecord.ATTR_ID + ">=" + start + "))";
+                }
+
+                Enumeration<CertRecord> e = repository.searchCertificates(pageFilter, pageSize, 0, "serialno");
+
+                List<CertRecord> records = new ArrayList<>();
+                while (e.hasMoreElements()) {
+                    CertRecord record = e.nextElement();
+                    if (record == null) continue;
+                    records.add(record);
+                }
+
+                if (records.isEmpty()) break;
+
+                logger.debug("AJobBase: Processing " + records.size() + " record(s) for job " + mId);
+
+                BigInteger last = null;
+
+                if (executor == null) {
+                    for (CertRecord record : records) {
+                        handle(handler, record);
+                    }
+
+                } else {
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (CertRecord record : records) {
+                        futures.add(executor.submit(() -> handle(handler, record)));
+                    }
+                    for (Future<?> future : futures) {
+                        waitFor(future);
+                    }
+                }
+
+                for (CertRecord record : records) {
+                    BigInteger serialNumber = record.getSerialNumber();
+                    if (last == null || serialNumber.compareTo(last) > 0) {
+                        last = serialNumber;
+                    }
+                }
+
+                start = last.add(BigInteger.ONE);
+
+                if (records.size() < pageSize) break;
+
+                if (stopped || System.currentTimeMillis() - mCheckpointTime >= checkpointInterval) {
+                    saveCheckpoint(start);
+                }
+            }
+
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        if (!stopped) {
+            clearCheckpoint();
+        }
+    }
+
+    private void handle(CertRecordHandler handler, CertRecord record) {
+        try {
+            handler.handle(record);
+
+        } catch (Exception e) {
+            logger.warn("AJobBase: Unable to process certificate " + record.getSerialNumber().toString(16) + ": " + e.getMessage(), e);
+
+        } finally {
+            mProcessedCount.incrementAndGet();
+        }
+    }
+
+    private void waitFor(Future<?> future) throws EBaseException {
+        try {
+            future.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EBaseException("Job " + mId + " interrupted", e);
+
+        } catch (ExecutionException e) {
+            logger.warn("AJobBase: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public void stop() {
         stopped = true;
@@ -38,6 +38,7 @@ import com.netscape.certsrv.jobs.JobPlugin;
 import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.apps.CMSEngine;
 import com.netscape.cmscore.base.ConfigStore;
+import com.netscape.cmscore.jobs.JobStats;
 import com.netscape.cmscore.jobs.JobsScheduler;
 
 /**
@@ -173,6 +174,8 @@ public class JobsAdminServlet extends AdminServlet {
                     getConfig(req, resp);
                 else if (scope.equals(ScopeDef.SC_JOBS_INSTANCE))
                     getInstConfig(req, resp);
+                else if (scope.equals(ScopeDef.SC_JOBS_STATS))
+                    getJobStats(req, resp);
                 else if (scope.equals(ScopeDef.SC_EXTENDED_PLUGIN_INFO)) {
                     try {
                         getExtendedPluginInfo(req, resp);
@@ -725,6 +728,47 @@ public class JobsAdminServlet extends AdminServlet {
         return;
     }
 
+    /**
+     * Get the execution statistics of a job plugin instance, or
+     * a summary of the statistics of all jobs if no ID is specified.
+     */
+    private void getJobStats(HttpServletRequest req,
+            HttpServletResponse resp) throws ServletException,
+            IOException, EBaseException {
+
+        String id = req.getParameter(Constants.RS_ID);
+        NameValuePairs params = new NameValuePairs();
+
+        if (id == null) {
+            for (JobStats stats : mJobsSched.getJobStats().values()) {
+                params.put(stats.getID(), stats.toString());
+            }
+            sendResponse(SUCCESS, null, params, resp);
+            return;
+        }
+
+        JobStats stats = mJobsSched.getJobStats(id);
+
+        if (stats == null) {
+            sendResponse(ERROR,
+                    new EJobsException(CMS.getUserMessage(getLocale(req), "CMS_JOB_SRVLT_JOB_NOT_FOUND",
+                            id)).toString(),
+                    null, resp);
+            return;
+        }
+
+        params.put("runs", Long.toString(stats.getRuns()));
+        params.put("failures", Long.toString(stats.getFailures()));
+        params.put("lastStartTime", Long.toString(stats.getLastStartTime()));
+        params.put("lastDuration", Long.toString(stats.getLastDuration()));
+        params.put("lastProcessed", Long.toString(stats.getLastProcessed()));
+        params.put("lastThroughput", String.format("%.2f", stats.getLastThroughput()));
+        params.put("totalDuration", Long.toString(stats.getTotalDuration()));
+        params.put("totalProcessed", Long.toString(stats.getTotalProcessed()));
+
+        sendResponse(SUCCESS, null, params, resp);
+    }
+
     /**
      * Modify job plugin instance.
      * This will actually create a new instance with new configuration
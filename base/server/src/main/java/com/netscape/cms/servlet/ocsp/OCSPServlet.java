@@ -18,7 +18,6 @@
 package com.netscape.cms.servlet.ocsp;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
@@ -31,7 +30,6 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.dogtagpki.server.authentication.AuthToken;
 import org.dogtagpki.server.authorization.AuthzToken;
-import org.mozilla.jss.asn1.ASN1Util;
 import org.mozilla.jss.netscape.security.util.Utils;
 
 import com.netscape.certsrv.base.EBaseException;
@@ -44,7 +42,9 @@ import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.apps.CMSEngine;
 import com.netscape.cmsutil.ocsp.BasicOCSPResponse;
 import com.netscape.cmsutil.ocsp.OCSPRequest;
+import com.netscape.cmsutil.ocsp.OCSPRequestParser;
 import com.netscape.cmsutil.ocsp.OCSPResponse;
+import com.netscape.cmsutil.ocsp.OCSPResponseWriter;
 import com.netscape.cmsutil.ocsp.ResponseBytes;
 import com.netscape.cmsutil.ocsp.ResponseData;
 import com.netscape.cmsutil.ocsp.SingleResponse;
@@ -181,8 +181,6 @@ public class OCSPServlet extends CMSServlet {
                         }
                     }
                 }
-                is = new ByteArrayInputStream(reqbuf);
-
             } else {
 
                 logger.debug("OCSPServlet: processing GET request");
@@ -193,8 +191,7 @@ public class OCSPServlet extends CMSServlet {
                         (pathInfo.substring(1).equals(""))) {
                     throw new Exception("OCSPServlet: OCSP request not provided in GET method");
                 }
-                is = new ByteArrayInputStream(
-                        Utils.base64decode(pathInfo.substring(1)));
+                reqbuf = Utils.base64decode(pathInfo.substring(1));
             }
 
             // (1) retrieve OCSP request
@@ -202,17 +199,14 @@ public class OCSPServlet extends CMSServlet {
             OCSPResponse response = null;
 
             try {
-                OCSPRequest.Template reqTemplate =
-                        new OCSPRequest.Template();
-
-                if ((is == null) ||
-                        (is.toString().equals(""))) {
+                if ((reqbuf == null) ||
+                        (reqbuf.length == 0)) {
                     throw new Exception("OCSPServlet: OCSP request is "
                                        + "empty or malformed");
                 }
 
                 logger.debug("OCSPServlet: decoding request");
-                ocspReq = (OCSPRequest) reqTemplate.decode(is);
+                ocspReq = OCSPRequestParser.parse(reqbuf);
 
                 if ((ocspReq == null) ||
                         (ocspReq.toString().equals(""))) {
@@ -236,20 +230,18 @@ public class OCSPServlet extends CMSServlet {
             }
 
             if (response != null) {
-                ByteArrayOutputStream fos1 = new ByteArrayOutputStream();
-
-                response.encode(fos1);
-                fos1.close();
 
-                byte[] respbytes;
-
-                respbytes = fos1.toByteArray();
+                // the encoded response is written without being
+                // copied into another buffer
+                OCSPResponseWriter writer = new OCSPResponseWriter(response);
 
                 // print out OCSP response in debug mode so that
                 // we can validate the response
                 if (logger.isDebugEnabled()) {
+                    byte[] respbytes = writer.toByteArray();
+
                     logger.debug("OCSPServlet: OCSP Request:");
-                    logger.debug("OCSPServlet: " + Utils.base64encode(ASN1Util.encode(ocspReq), true));
+                    logger.debug("OCSPServlet: " + Utils.base64encode(reqbuf, true));
 
                     TBSRequest tbsReq = ocspReq.getTBSRequest();
                     for (int i = 0; i < tbsReq.getRequestCount(); i++) {
@@ -291,10 +283,10 @@ public class OCSPServlet extends CMSServlet {
 
                 httpResp.setContentType("application/ocsp-response");
 
-                httpResp.setContentLength(respbytes.length);
+                httpResp.setContentLength(writer.getLength());
                 OutputStream ooss = httpResp.getOutputStream();
 
-                ooss.write(respbytes);
+                writer.writeTo(ooss);
                 ooss.flush();
                 if (statsSub != null) {
                     statsSub.endTiming("ocsp");
@@ -25,16 +25,32 @@ import com.netscape.certsrv.authentication.ISSLClientCertProvider;
 
 public class SSLClientCertProvider implements ISSLClientCertProvider {
     private HttpServletRequest mRequest = null;
+    private X509Certificate[] mCerts = null;
 
     public SSLClientCertProvider(HttpServletRequest request) {
         mRequest = request;
     }
 
+    /**
+     * Creates a provider for a client certificate chain that has
+     * already been retrieved from the request, e.g. to be used
+     * outside of the thread serving the request.
+     */
+    public SSLClientCertProvider(X509Certificate[] certs) {
+        mCerts = certs;
+    }
+
+    public static X509Certificate[] getClientCertificateChain(HttpServletRequest request) {
+        return (X509Certificate[]) request.getAttribute("javax.servlet.request.X509Certificate");
+    }
+
     @Override
     public X509Certificate[] getClientCertificateChain() {
-        X509Certificate[] allCerts = (X509Certificate[])
-                mRequest.getAttribute("javax.servlet.request.X509Certificate");
 
-        return allCerts;
+        if (mRequest == null) {
+            return mCerts;
+        }
+
+        return getClientCertificateChain(mRequest);
     }
 }
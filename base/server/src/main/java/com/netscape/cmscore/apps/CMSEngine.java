@@ -885,6 +885,7 @@ public class CMSEngine {
             SubsystemInfo subsystemInfo = new SubsystemInfo(id);
             subsystemInfo.setEnabled(enabled);
             subsystemInfo.setUpdateIdOnInit(true);
+            subsystemInfo.setDependencies(subsystemConfig.getDependencies());
 
             subsystems.put(id, subsystem);
             subsystemInfos.put(id, subsystemInfo);
@@ -901,12 +902,21 @@ public class CMSEngine {
         subsystem.init(subsystemConfig);
     }
 
+    public SubsystemLauncher createSubsystemLauncher() throws EBaseException {
+
+        SubsystemsConfig subsystemsConfig = mConfig.getSubsystemsConfig();
+        int threads = subsystemsConfig.getStartupThreads();
+
+        return new SubsystemLauncher(subsystems, subsystemInfos, threads);
+    }
+
     public void initSubsystems() throws Exception {
 
-        for (String id : subsystems.keySet()) {
+        SubsystemLauncher launcher = createSubsystemLauncher();
+
+        Map<String, Long> times = launcher.run("init", (id, subsystem) -> {
             logger.info("CMSEngine: Initializing " + id + " subsystem");
 
-            ISubsystem subsystem = subsystems.get(id);
             SubsystemInfo subsystemInfo = subsystemInfos.get(id);
 
             if (subsystemInfo.updateIdOnInit) {
@@ -915,11 +925,15 @@ public class CMSEngine {
 
             if (!subsystemInfo.enabled) {
                 logger.info("CMSEngine: " + id + " subsystem is disabled");
-                continue;
+                return;
             }
 
             ConfigStore subsystemConfig = mConfig.getSubStore(id, ConfigStore.class);
             initSubsystem(subsystem, subsystemConfig);
+        });
+
+        for (String id : times.keySet()) {
+            subsystemInfos.get(id).setInitTime(times.get(id));
         }
     }
 
@@ -1110,9 +1124,15 @@ public class CMSEngine {
 
     protected void startupSubsystems() throws Exception {
 
-        for (ISubsystem subsystem : subsystems.values()) {
+        SubsystemLauncher launcher = createSubsystemLauncher();
+
+        Map<String, Long> times = launcher.run("startup", (id, subsystem) -> {
             logger.info("CMSEngine: Starting " + subsystem.getId() + " subsystem");
             subsystem.startup();
+        });
+
+        for (String id : times.keySet()) {
+            subsystemInfos.get(id).setStartupTime(times.get(id));
         }
 
         // global admin servlet. (anywhere else more fit for this ?)
@@ -1134,6 +1154,7 @@ public class CMSEngine {
 
         logger.info("Starting " + name + " engine");
 
+        long startTime = System.currentTimeMillis();
         ready = false;
 
         String catalinaBase = System.getProperty("catalina.base");
@@ -1159,10 +1180,13 @@ public class CMSEngine {
         // problem in needing dbsubsystem in constructor. and it's not used.
         initRequestSubsystem();
 
+        long initTime = System.currentTimeMillis();
         init();
 
+        long startupTime = System.currentTimeMillis();
         startupSubsystems();
 
+        long servicesTime = System.currentTimeMillis();
         initAuthSubsystem();
         initAuthzSubsystem();
         initJobsScheduler();
@@ -1178,7 +1202,11 @@ public class CMSEngine {
 
         mStartupTime = System.currentTimeMillis();
 
-        logger.info(name + " engine started");
+        logger.info(name + " engine started in " + (mStartupTime - startTime) + " ms");
+        logger.info("CMSEngine: - core services: " + (initTime - startTime) + " ms");
+        logger.info("CMSEngine: - subsystem init: " + (startupTime - initTime) + " ms");
+        logger.info("CMSEngine: - subsystem startup: " + (servicesTime - startupTime) + " ms");
+        logger.info("CMSEngine: - post-startup services: " + (mStartupTime - servicesTime) + " ms");
         // Register TomcatJSS socket listener
         TomcatJSS tomcatJss = TomcatJSS.getInstance();
         if(serverSocketListener == null) {
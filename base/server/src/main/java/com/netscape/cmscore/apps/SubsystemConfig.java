@@ -17,6 +17,9 @@
 // --- END COPYRIGHT BLOCK ---
 package com.netscape.cmscore.apps;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.netscape.certsrv.base.EBaseException;
 import com.netscape.cmscore.base.ConfigStorage;
 import com.netscape.cmscore.base.ConfigStore;
@@ -47,4 +50,24 @@ public class SubsystemConfig extends ConfigStore {
     public void setEnabled(boolean enabled) throws EBaseException {
         putBoolean("enabled", enabled);
     }
+
+    /**
+     * Returns the IDs of the subsystems that must be initialized
+     * and started before this subsystem, or null if the subsystem
+     * depends on all preceding subsystems.
+     */
+    public List<String> getDependencies() throws EBaseException {
+
+        String value = getString("dependsOn", null);
+        if (value == null) return null;
+
+        List<String> dependencies = new ArrayList<>();
+        for (String dependency : value.split(",")) {
+            dependency = dependency.trim();
+            if (dependency.isEmpty()) continue;
+            dependencies.add(dependency);
+        }
+
+        return dependencies;
+    }
 }
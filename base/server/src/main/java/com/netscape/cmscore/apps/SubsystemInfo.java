@@ -17,12 +17,20 @@
 // --- END COPYRIGHT BLOCK ---
 package com.netscape.cmscore.apps;
 
+import java.util.List;
+
 public class SubsystemInfo {
 
     public String id;
     public boolean enabled;
     public boolean updateIdOnInit;
 
+    // null means the subsystem depends on all preceding subsystems
+    public List<String> dependencies;
+
+    public long initTime;
+    public long startupTime;
+
     public SubsystemInfo(String id) {
         this.id = id;
         this.enabled = true;
@@ -52,4 +60,28 @@ public class SubsystemInfo {
     public void setUpdateIdOnInit(boolean updateIdOnInit) {
         this.updateIdOnInit = updateIdOnInit;
     }
+
+    public List<String> getDependencies() {
+        return dependencies;
+    }
+
+    public void setDependencies(List<String> dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    public long getInitTime() {
+        return initTime;
+    }
+
+    public void setInitTime(long initTime) {
+        this.initTime = initTime;
+    }
+
+    public long getStartupTime() {
+        return startupTime;
+    }
+
+    public void setStartupTime(long startupTime) {
+        this.startupTime = startupTime;
+    }
 }
@@ -0,0 +1,217 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.apps;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netscape.certsrv.base.EBaseException;
+import com.netscape.certsrv.base.ISubsystem;
+
+/**
+ * This class runs a startup phase (e.g. init or startup) over
+ * the configured subsystems following the dependency graph
+ * declared in SubsystemInfo. Subsystems whose dependencies have
+ * completed are executed concurrently on a bounded thread pool.
+ * With a single thread the subsystems are executed sequentially
+ * in the configured order.
+ */
+public class SubsystemLauncher {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SubsystemLauncher.class);
+
+    public interface Task {
+        void run(String id, ISubsystem subsystem) throws Exception;
+    }
+
+    private Map<String, ISubsystem> subsystems;
+    private Map<String, SubsystemInfo> subsystemInfos;
+    private int threads;
+
+    public SubsystemLauncher(
+            Map<String, ISubsystem> subsystems,
+            Map<String, SubsystemInfo> subsystemInfos,
+            int threads) {
+
+        this.subsystems = subsystems;
+        this.subsystemInfos = subsystemInfos;
+        this.threads = threads < 1 ? 1 : threads;
+    }
+
+    /**
+     * Returns the subsystem IDs in an order that satisfies
+     * the declared dependencies.
+     */
+    public List<String> getExecutionOrder() throws EBaseException {
+
+        List<String> order = new ArrayList<>();
+        Map<String, Boolean> visiting = new LinkedHashMap<>();
+
+        for (String id : subsystems.keySet()) {
+            visit(id, order, visiting);
+        }
+
+        return order;
+    }
+
+    private void visit(String id, List<String> order, Map<String, Boolean> visiting) throws EBaseException {
+
+        if (order.contains(id)) return;
+
+        if (visiting.containsKey(id)) {
+            throw new EBaseException("Circular subsystem dependency: " + String.join(" -> ", visiting.keySet()) + " -> " + id);
+        }
+
+        visiting.put(id, Boolean.TRUE);
+
+        for (String dependency : getDependencies(id)) {
+            visit(dependency, order, visiting);
+        }
+
+        visiting.remove(id);
+        order.add(id);
+    }
+
+    private List<String> getDependencies(String id) throws EBaseException {
+
+        SubsystemInfo subsystemInfo = subsystemInfos.get(id);
+        List<String> dependencies = subsystemInfo.getDependencies();
+
+        if (dependencies != null) {
+            for (String dependency : dependencies) {
+                if (!subsystems.containsKey(dependency)) {
+                    throw new EBaseException("Unknown dependency for " + id + " subsystem: " + dependency);
+                }
+            }
+            return dependencies;
+        }
+
+        // no declared dependencies, depend on all preceding subsystems
+        List<String> preceding = new ArrayList<>();
+        for (String name : subsystems.keySet()) {
+            if (name.equals(id)) break;
+            preceding.add(name);
+        }
+
+        return preceding;
+    }
+
+    /**
+     * Runs the task for each subsystem and returns
+     * the time spent on each subsystem in milliseconds.
+     */
+    public Map<String, Long> run(String phase, Task task) throws Exception {
+
+        List<String> order = getExecutionOrder();
+        Map<String, Long> times = new LinkedHashMap<>();
+
+        long start = System.currentTimeMillis();
+
+        if (threads == 1) {
+            for (String id : order) {
+                times.put(id, execute(id, task));
+            }
+
+        } else {
+            runParallel(phase, order, task, times);
+        }
+
+        long total = System.currentTimeMillis() - start;
+
+        logger.info("SubsystemLauncher: Subsystem " + phase + " completed in " + total + " ms");
+        for (String id : order) {
+            Long time = times.get(id);
+            if (time == null) continue;
+            logger.info("SubsystemLauncher: - " + id + ": " + time + " ms");
+        }
+
+        return times;
+    }
+
+    private void runParallel(
+            String phase,
+            List<String> order,
+            Task task,
+            Map<String, Long> times) throws Exception {
+
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "SubsystemLauncher-" + phase + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+
+        try {
+            for (String id : order) {
+
+                List<String> dependencies = getDependencies(id);
+                CompletableFuture<?>[] prerequisites = new CompletableFuture<?>[dependencies.size()];
+
+                for (int i = 0; i < prerequisites.length; i++) {
+                    prerequisites[i] = futures.get(dependencies.get(i));
+                }
+
+                CompletableFuture<Void> future = CompletableFuture.allOf(prerequisites).thenRunAsync(() -> {
+                    try {
+                        long time = execute(id, task);
+                        synchronized (times) {
+                            times.put(id, time);
+                        }
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+
+                futures.put(id, future);
+            }
+
+            try {
+                CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                while (cause instanceof CompletionException && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long execute(String id, Task task) throws Exception {
+
+        long start = System.currentTimeMillis();
+        task.run(id, subsystems.get(id));
+        return System.currentTimeMillis() - start;
+    }
+}
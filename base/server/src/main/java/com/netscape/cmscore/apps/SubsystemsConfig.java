@@ -22,6 +22,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import com.netscape.certsrv.base.EBaseException;
 import com.netscape.cmscore.base.ConfigStorage;
 import com.netscape.cmscore.base.ConfigStore;
 import com.netscape.cmscore.base.SimpleProperties;
@@ -57,4 +58,12 @@ public class SubsystemsConfig extends ConfigStore {
     public SubsystemConfig getSubsystemConfig(String name) {
         return getSubStore(name, SubsystemConfig.class);
     }
+
+    /**
+     * Returns the number of threads used to initialize and start
+     * the subsystems. The default is 1 (sequential startup).
+     */
+    public int getStartupThreads() throws EBaseException {
+        return getInteger("startupThreads", 1);
+    }
 }
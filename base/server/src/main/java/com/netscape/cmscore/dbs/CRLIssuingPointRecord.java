@@ -374,6 +374,26 @@ public class CRLIssuingPointRecord implements IDBObj {
             return (Hashtable<BigInteger, RevokedCertificate>) mUnrevokedCerts.clone();
     }
 
+    /**
+     * Retrieves the certificates revoked since the base CRL
+     * without cloning the list.
+     *
+     * @return list of recently revoked certificates
+     */
+    public Hashtable<BigInteger, RevokedCertificate> getRevokedCertsNoClone() {
+        return mRevokedCerts;
+    }
+
+    /**
+     * Retrieves the certificates released from hold since the base CRL
+     * without cloning the list.
+     *
+     * @return list of certificates recently released from hold
+     */
+    public Hashtable<BigInteger, RevokedCertificate> getUnrevokedCertsNoClone() {
+        return mUnrevokedCerts;
+    }
+
     /**
      * Retrieves cache information about expired certificates.
      *
@@ -19,12 +19,14 @@ package com.netscape.cmscore.dbs;
 
 import java.math.BigInteger;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Vector;
 
 import org.mozilla.jss.netscape.security.x509.CRLExtensions;
 import org.mozilla.jss.netscape.security.x509.CRLReasonExtension;
+import org.mozilla.jss.netscape.security.x509.CertificateValidity;
 import org.mozilla.jss.netscape.security.x509.RevocationReason;
 import org.mozilla.jss.netscape.security.x509.X509CertImpl;
 import org.mozilla.jss.netscape.security.x509.X509ExtensionException;
@@ -118,8 +120,33 @@ public class CertRecord implements IDBObj {
     public final static String ATTR_X509CERT_PUBLIC_KEY_DATA =
             ATTR_X509CERT + "." + X509CERT_PUBLIC_KEY_DATA;
 
+    /**
+     * Attributes of a certificate record without the certificate
+     * data. The validity is still available from the record.
+     */
+    public final static String[] SUMMARY_ATTRS = {
+            "objectclass",
+            ATTR_ID,
+            ATTR_META_INFO,
+            ATTR_REVO_INFO,
+            ATTR_CREATE_TIME,
+            ATTR_MODIFY_TIME,
+            ATTR_CERT_STATUS,
+            ATTR_AUTO_RENEW,
+            ATTR_ISSUED_BY,
+            ATTR_REVOKED_BY,
+            ATTR_REVOKED_ON,
+            CertificateValidity.NOT_BEFORE,
+            CertificateValidity.NOT_AFTER
+    };
+
     private BigInteger mId = null;
     private X509CertImpl mX509Certificate = null;
+    // DER encoding of the certificate that has not been decoded yet
+    private byte[] mEncodedCert = null;
+    // validity from the database when the certificate was not retrieved
+    private Date mNotBefore = null;
+    private Date mNotAfter = null;
     private String mStatus = null;
     private String mAutoRenew = null;
     private MetaInfo mMetaInfo = null;
@@ -179,7 +206,7 @@ public class CertRecord implements IDBObj {
         } else if (name.equalsIgnoreCase(ATTR_META_INFO)) {
             mMetaInfo = (MetaInfo) obj;
         } else if (name.equalsIgnoreCase(ATTR_X509CERT)) {
-            mX509Certificate = (X509CertImpl) obj;
+            setCertificate((X509CertImpl) obj);
         } else if (name.equalsIgnoreCase(ATTR_CERT_STATUS)) {
             mStatus = (String) obj;
         } else if (name.equalsIgnoreCase(ATTR_AUTO_RENEW)) {
@@ -211,7 +238,7 @@ public class CertRecord implements IDBObj {
         } else if (name.equalsIgnoreCase(ATTR_META_INFO)) {
             return mMetaInfo;
         } else if (name.equalsIgnoreCase(ATTR_X509CERT)) {
-            return mX509Certificate;
+            return getCertificate();
         } else if (name.equalsIgnoreCase(ATTR_CERT_STATUS)) {
             return mStatus;
         } else if (name.equalsIgnoreCase(ATTR_AUTO_RENEW)) {
@@ -254,10 +281,60 @@ public class CertRecord implements IDBObj {
      *
      * @return certificate
      */
-    public X509CertImpl getCertificate() {
+    public synchronized X509CertImpl getCertificate() {
+
+        if (mX509Certificate == null && mEncodedCert != null) {
+            try {
+                mX509Certificate = new X509CertImpl(mEncodedCert);
+            } catch (CertificateException e) {
+                logger.warn("CertRecord: Unable to decode certificate " + mId + ": " + e.getMessage(), e);
+            }
+            mEncodedCert = null;
+        }
+
         return mX509Certificate;
     }
 
+    private synchronized void setCertificate(X509CertImpl cert) {
+        mX509Certificate = cert;
+        mEncodedCert = null;
+    }
+
+    /**
+     * Stores the DER encoding of the certificate. The certificate
+     * will only be decoded when it is actually used.
+     *
+     * @param der DER encoded certificate
+     */
+    public synchronized void setEncodedCertificate(byte[] der) {
+        mX509Certificate = null;
+        mEncodedCert = der;
+    }
+
+    /**
+     * Retrieves the DER encoding of the certificate without
+     * decoding it if possible.
+     *
+     * @return DER encoded certificate, or null if not available
+     */
+    public synchronized byte[] getEncodedCertificate() throws CertificateException {
+
+        if (mEncodedCert != null) {
+            return mEncodedCert;
+        }
+
+        return mX509Certificate == null ? null : mX509Certificate.getEncoded();
+    }
+
+    /**
+     * Stores the certificate validity for records retrieved
+     * without the certificate itself.
+     */
+    public void setValidity(Date notBefore, Date notAfter) {
+        mNotBefore = notBefore;
+        mNotAfter = notAfter;
+    }
+
     /**
      * Retrieves meta information.
      *
@@ -336,18 +413,29 @@ public class CertRecord implements IDBObj {
      * @return certificate serial number
      */
     public BigInteger getCertificateSerialNumber() {
-        return mX509Certificate.getSerialNumber();
+        return getCertificate().getSerialNumber();
     }
 
     /**
      * Retrieves not after.
      */
     public Date getNotAfter() {
-        return mX509Certificate.getNotAfter();
+        // avoid decoding the certificate just for the validity
+        if (mNotAfter != null && !isCertificateDecoded()) {
+            return mNotAfter;
+        }
+        return getCertificate().getNotAfter();
     }
 
     public Date getNotBefore() {
-        return mX509Certificate.getNotBefore();
+        if (mNotBefore != null && !isCertificateDecoded()) {
+            return mNotBefore;
+        }
+        return getCertificate().getNotBefore();
+    }
+
+    private synchronized boolean isCertificateDecoded() {
+        return mX509Certificate != null;
     }
 
     /**
@@ -1113,12 +1113,30 @@ public class CertificateRepository extends Repository {
      */
     public Enumeration<CertRecord> searchCertificates(String filter, int maxSize,
             int timeLimit,String sortAttribute) throws EBaseException {
+        return searchCertificates(filter, maxSize, timeLimit, sortAttribute, null);
+    }
+
+    /**
+     * Finds a list of certificate records that satisifies
+     * the filter and retrieves only the selected attributes,
+     * e.g. CertRecord.SUMMARY_ATTRS to skip the certificate data.
+     *
+     * @param filter search filter
+     * @param maxSize max size to return
+     * @param timeLimit timeout value
+     * @param sortAttribute Attribute of CertRecord to sort the results
+     * @param attrs attributes of CertRecord to retrieve (null for all)
+     * @return a list of certificates
+     * @exception EBaseException failed to search
+     */
+    public Enumeration<CertRecord> searchCertificates(String filter, int maxSize,
+            int timeLimit, String sortAttribute, String[] attrs) throws EBaseException {
 
         Vector<CertRecord> v = new Vector<>();
 
         logger.debug("searchCertificateswith time limit filter " + filter);
         try (DBSSession s = dbSubsystem.createSession()) {
-            IDBSearchResults sr = s.search(mBaseDN, filter, maxSize, timeLimit,sortAttribute);
+            IDBSearchResults sr = s.search(mBaseDN, filter, maxSize, timeLimit, sortAttribute, attrs);
             while (sr.hasMoreElements()) {
                 v.add((CertRecord) sr.nextElement());
             }
@@ -1862,7 +1880,9 @@ public class CertificateRepository extends Repository {
             String[] attrs = null;
 
             if (mConsistencyCheck == false) {
-                attrs = new String[] { "objectclass", CertRecord.ATTR_ID, CertRecord.ATTR_X509CERT };
+                // only the validity is needed, skip the certificate data
+                attrs = new String[] { "objectclass", CertRecord.ATTR_ID,
+                            CertificateValidity.NOT_BEFORE, CertificateValidity.NOT_AFTER };
             }
 
             logger.debug("getInvalidCertificatesByNotBeforeDate filter " + ldapfilter);
@@ -1899,7 +1919,8 @@ public class CertificateRepository extends Repository {
             String[] attrs = null;
 
             if (mConsistencyCheck == false) {
-                attrs = new String[] { "objectclass", CertRecord.ATTR_ID, CertRecord.ATTR_X509CERT };
+                attrs = new String[] { "objectclass", CertRecord.ATTR_ID,
+                            CertificateValidity.NOT_BEFORE, CertificateValidity.NOT_AFTER };
             }
 
             logger.debug("getValidCertsByNotAfterDate filter " + ldapfilter);
@@ -1932,7 +1953,7 @@ public class CertificateRepository extends Repository {
 
             if (mConsistencyCheck == false) {
                 attrs = new String[] { "objectclass", CertRecord.ATTR_REVOKED_ON, CertRecord.ATTR_ID,
-                            CertRecord.ATTR_REVO_INFO, CertificateValidity.NOT_AFTER, CertRecord.ATTR_X509CERT };
+                            CertRecord.ATTR_REVO_INFO, CertificateValidity.NOT_BEFORE, CertificateValidity.NOT_AFTER };
             }
 
             logger.debug("getRevokedCertificatesByNotAfterDate filter " + ldapfilter);
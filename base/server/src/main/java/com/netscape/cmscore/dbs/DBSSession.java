@@ -194,6 +194,30 @@ public class DBSSession implements AutoCloseable {
         return null;
     }
 
+    /**
+     * Searchs for a list of objects that match the
+     * filter and retrieves only the selected attributes.
+     *
+     * @param base starting point of the search
+     * @param filter search filter
+     * @param maxSize max number of entries
+     * @param timeLimit timeout limit
+     * @param sortAttribute Field to sort the records on
+     * @param attrs selected attributes (null for all attributes)
+     * @return search results
+     * @exception EBaseException failed to search
+     */
+    public IDBSearchResults search(
+            String base,
+            String filter,
+            int maxSize,
+            int timeLimit,
+            String sortAttribute,
+            String[] attrs
+            ) throws EBaseException {
+        return null;
+    }
+
     /**
      * Retrieves a list of object that satifies the given
      * filter.
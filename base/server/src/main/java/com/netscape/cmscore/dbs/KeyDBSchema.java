@@ -37,6 +37,7 @@ public class KeyDBSchema {
     public static final String LDAP_ATTR_PRIVATE_KEY_DATA = "privateKeyData";
     public static final String LDAP_ATTR_KEY_RECORD_ID = "keyRecordId";
     public static final String LDAP_ATTR_PUBLIC_KEY_DATA = "publicKeyData";
+    public static final String LDAP_ATTR_PUBLIC_KEY_FINGERPRINT = "publicKeyFingerprint";
     public static final String LDAP_ATTR_KEY_SIZE = "keySize";
     public static final String LDAP_ATTR_ALGORITHM = "algorithm";
     public static final String LDAP_ATTR_STATE = "keyState";
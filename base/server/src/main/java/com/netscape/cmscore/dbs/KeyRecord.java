@@ -18,12 +18,14 @@
 package com.netscape.cmscore.dbs;
 
 import java.math.BigInteger;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Vector;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
 import org.mozilla.jss.asn1.OBJECT_IDENTIFIER;
 import org.mozilla.jss.crypto.EncryptionAlgorithm;
 import org.mozilla.jss.crypto.IVParameterSpec;
@@ -54,6 +56,7 @@ public class KeyRecord implements IDBObj {
     public static final String ATTR_OWNER_NAME = "keyOwnerName";
     public static final String ATTR_PRIVATE_KEY_DATA = "privateKey";
     public static final String ATTR_PUBLIC_KEY_DATA = "publicKey";
+    public static final String ATTR_PUBLIC_KEY_FINGERPRINT = "publicKeyFingerprint";
     public static final String ATTR_DATE_OF_RECOVERY = "dateOfRecovery";
     public static final String ATTR_CREATE_TIME = "keyCreateTime";
     public static final String ATTR_MODIFY_TIME = "keyModifyTime";
@@ -64,6 +67,29 @@ public class KeyRecord implements IDBObj {
     public static final String ATTR_STATUS = "status";
     public static final String ATTR_REALM = "realm";
 
+    /**
+     * Attributes of a key record without the private and public
+     * key data, for listings that only need the key information.
+     */
+    public static final String[] SUMMARY_ATTRS = {
+            "objectclass",
+            ATTR_ID,
+            ATTR_STATE,
+            ATTR_ALGORITHM,
+            ATTR_KEY_SIZE,
+            ATTR_OWNER_NAME,
+            ATTR_PUBLIC_KEY_FINGERPRINT,
+            ATTR_DATE_OF_RECOVERY,
+            ATTR_META_INFO,
+            ATTR_CREATE_TIME,
+            ATTR_MODIFY_TIME,
+            ATTR_ARCHIVED_BY,
+            ATTR_CLIENT_ID,
+            ATTR_STATUS,
+            ATTR_DATA_TYPE,
+            ATTR_REALM
+    };
+
     // key state
     public static final String STATUS_ANY = "ANY";
     public static final String STATUS_VALID = "VALID";
@@ -75,6 +101,7 @@ public class KeyRecord implements IDBObj {
     private String mAlgorithm = null;
     private byte mPrivateKey[] = null;
     private byte mPublicKey[] = null;
+    private String mPublicKeyFingerprint = null;
     private Integer mSize = null;
     private String mOwnerName = null;
     private Date mDatesOfRecovery[] = null;
@@ -96,6 +123,7 @@ public class KeyRecord implements IDBObj {
         mNames.addElement(ATTR_ALGORITHM);
         mNames.addElement(ATTR_PRIVATE_KEY_DATA);
         mNames.addElement(ATTR_PUBLIC_KEY_DATA);
+        mNames.addElement(ATTR_PUBLIC_KEY_FINGERPRINT);
         mNames.addElement(ATTR_DATE_OF_RECOVERY);
         mNames.addElement(ATTR_META_INFO);
         mNames.addElement(ATTR_CREATE_TIME);
@@ -153,6 +181,8 @@ public class KeyRecord implements IDBObj {
             mPrivateKey = (byte[]) object;
         } else if (name.equalsIgnoreCase(ATTR_PUBLIC_KEY_DATA)) {
             mPublicKey = (byte[]) object;
+        } else if (name.equalsIgnoreCase(ATTR_PUBLIC_KEY_FINGERPRINT)) {
+            mPublicKeyFingerprint = (String) object;
         } else if (name.equalsIgnoreCase(ATTR_DATE_OF_RECOVERY)) {
             mDatesOfRecovery = (Date[]) object;
         } else if (name.equalsIgnoreCase(ATTR_META_INFO)) {
@@ -196,6 +226,8 @@ public class KeyRecord implements IDBObj {
             return mPrivateKey;
         } else if (name.equalsIgnoreCase(ATTR_PUBLIC_KEY_DATA)) {
             return mPublicKey;
+        } else if (name.equalsIgnoreCase(ATTR_PUBLIC_KEY_FINGERPRINT)) {
+            return mPublicKeyFingerprint;
         } else if (name.equalsIgnoreCase(ATTR_DATE_OF_RECOVERY)) {
             return mDatesOfRecovery;
         } else if (name.equalsIgnoreCase(ATTR_CREATE_TIME)) {
@@ -371,6 +403,37 @@ public class KeyRecord implements IDBObj {
         mPublicKey = key;
     }
 
+    /**
+     * Retrieves the public key fingerprint.
+     *
+     * @return SHA-256 hash of the public key data in hex
+     */
+    public String getPublicKeyFingerprint() {
+        return mPublicKeyFingerprint;
+    }
+
+    /**
+     * Sets the public key fingerprint.
+     */
+    public void setPublicKeyFingerprint(String fingerprint) {
+        mPublicKeyFingerprint = fingerprint;
+    }
+
+    /**
+     * Computes the fingerprint of an encoded public key
+     * (SubjectPublicKeyInfo), i.e. its SHA-256 hash in
+     * lowercase hex.
+     */
+    public static String createPublicKeyFingerprint(byte[] publicKeyData) throws EBaseException {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Hex.encodeHexString(md.digest(publicKeyData));
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new EBaseException("Unable to create public key fingerprint: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Retrieves the date(s) of revocation.
      *
@@ -17,12 +17,20 @@
 // --- END COPYRIGHT BLOCK ---
 package com.netscape.cmscore.dbs;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,6 +73,9 @@ public class LDAPRegistry extends DBRegistry {
     private IFilterConverter mConverter = null;
     private Vector<DBDynAttrMapper> mDynAttrMappers = new Vector<>();
 
+    // mapping plans per sorted object classes, built on first use
+    private Map<String, MappingPlan> mMappingPlans = new ConcurrentHashMap<>();
+
     /**
      * Constructs registry.
      */
@@ -124,6 +135,7 @@ public class LDAPRegistry extends DBRegistry {
         mOCclassNames.clear();
         mOCldapNames.clear();
         mAttrufNames.clear();
+        mMappingPlans.clear();
     }
 
     /**
@@ -136,9 +148,9 @@ public class LDAPRegistry extends DBRegistry {
             Class<?> c = Class.forName(className);
 
             mOCclassNames.put(className, ldapNames);
-            mOCldapNames.put(sortAndConcate(
-                    ldapNames).toLowerCase(),
-                    new NameAndObject(className, c));
+            String key = sortAndConcate(ldapNames);
+            mOCldapNames.put(key, new NameAndObject(className, c));
+            mMappingPlans.remove(key);
         } catch (ClassNotFoundException e) {
 
             /*LogDoc
@@ -169,6 +181,9 @@ public class LDAPRegistry extends DBRegistry {
         // should not allows 'objectclass' as attribute; it has
         // special meaning
         mAttrufNames.put(ufName.toLowerCase(), mapper);
+
+        // rebuild the plans with the new mapper
+        mMappingPlans.clear();
     }
 
     /**
@@ -504,20 +519,56 @@ public class LDAPRegistry extends DBRegistry {
 
         attrs.remove("objectclass");
 
-        // sort the object class values
+        String sorted = sortAndConcate(attr.getStringValueArray());
+        MappingPlan plan = getMappingPlan(sorted);
+
+        try {
+            return plan.createObject(attrs);
+
+        } catch (Exception e) {
+
+            /*LogDoc
+             *
+             * @phase create ldap attr
+             * @reason failed to create object class
+             * @message DBRegistry: <attr> is not registered
+             */
+            logger.error("LDAPRegistry: " + CMS.getUserMessage("CMS_DBS_INVALID_ATTRS") + ": " + e.getMessage(), e);
+            throw new EDBException(CMS.getUserMessage("CMS_DBS_INVALID_ATTRS") + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the mapping plan for the sorted object classes.
+     * The plan is built once and reused for all entries.
+     */
+    private MappingPlan getMappingPlan(String sorted) throws EDBException {
+
+        MappingPlan plan = mMappingPlans.get(sorted);
+        if (plan != null) return plan;
 
-        String[] s = attr.getStringValueArray();
-        String sorted = sortAndConcate(s).toLowerCase();
         NameAndObject no = mOCldapNames.get(sorted);
 
         if (no == null) {
             throw new EDBException(
                     CMS.getUserMessage("CMS_DBS_INVALID_CLASS_NAME", sorted));
         }
+
         Class<?> c = (Class<?>) no.getObject();
 
         try {
-            IDBObj obj = (IDBObj) c.getDeclaredConstructor().newInstance();
+            logger.debug("LDAPRegistry: Creating mapping plan for " + c.getName());
+
+            MethodHandle constructor = MethodHandles.lookup()
+                    .unreflectConstructor(c.getDeclaredConstructor())
+                    .asType(MethodType.methodType(IDBObj.class));
+
+            // get the attribute names from a sample object
+            IDBObj obj = (IDBObj) constructor.invokeExact();
+
+            List<String> names = new ArrayList<>();
+            List<DBAttrMapper> mappers = new ArrayList<>();
+
             Enumeration<String> ee = obj.getSerializableAttrNames();
 
             while (ee.hasMoreElements()) {
@@ -528,50 +579,81 @@ public class LDAPRegistry extends DBRegistry {
                     throw new EDBException(
                             CMS.getUserMessage("CMS_DBS_NO_MAPPER_FOUND", oname));
                 }
-                mapper.mapLDAPAttributeSetToObject(attrs,
-                        oname, obj);
+
+                names.add(oname);
+                mappers.add(mapper);
             }
-            return obj;
-        } catch (Exception e) {
 
-            /*LogDoc
-             *
-             * @phase create ldap attr
-             * @reason failed to create object class
-             * @message DBRegistry: <attr> is not registered
-             */
+            plan = new MappingPlan(
+                    constructor,
+                    names.toArray(new String[names.size()]),
+                    mappers.toArray(new DBAttrMapper[mappers.size()]));
+
+        } catch (EDBException e) {
+            logger.error("LDAPRegistry: " + e.getMessage(), e);
+            throw e;
+
+        } catch (Throwable e) {
             logger.error("LDAPRegistry: " + CMS.getUserMessage("CMS_DBS_INVALID_ATTRS") + ": " + e.getMessage(), e);
             throw new EDBException(CMS.getUserMessage("CMS_DBS_INVALID_ATTRS") + ": " + e.getMessage(), e);
         }
+
+        mMappingPlans.put(sorted, plan);
+        return plan;
     }
 
     /**
      * Sorts and concate given strings.
      */
     private String sortAndConcate(String s[]) {
-        Vector<String> v = new Vector<>();
 
-        // sort it first
+        String[] names = new String[s.length];
         for (int i = 0; i < s.length; i++) {
-            for (int j = 0; j < v.size(); j++) {
-                String t = v.elementAt(j);
+            names[i] = s[i].toLowerCase();
+        }
 
-                if (s[i].compareTo(t) < 0) {
-                    v.insertElementAt(s[i], j);
-                    break;
-                }
-            }
-            if (i != (v.size() - 1))
-                v.addElement(s[i]);
+        Arrays.sort(names);
+
+        return String.join("", names);
+    }
+
+    /**
+     * Precomputed conversion of LDAP entries into objects of
+     * a registered object class: a constructor handle and the
+     * attribute mappers in the order of the serializable attributes.
+     */
+    static class MappingPlan {
+
+        MethodHandle constructor;
+        String[] names;
+        DBAttrMapper[] mappers;
+
+        MappingPlan(MethodHandle constructor, String[] names, DBAttrMapper[] mappers) {
+            this.constructor = constructor;
+            this.names = names;
+            this.mappers = mappers;
         }
 
-       return inStringFormat(v);
+        IDBObj createObject(LDAPAttributeSet attrs) throws Exception {
+
+            IDBObj obj;
+            try {
+                obj = (IDBObj) constructor.invokeExact();
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new EDBException(e.getMessage(), e);
+            }
+
+            for (int i = 0; i < mappers.length; i++) {
+                mappers[i].mapLDAPAttributeSetToObject(attrs, names[i], obj);
+            }
+
+            return obj;
+        }
     }
 }
 
-/**
- * Just a convenient container class.
- */
 class NameAndObject {
 
     private String mN = null;
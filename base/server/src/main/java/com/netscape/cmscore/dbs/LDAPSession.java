@@ -403,11 +403,22 @@ public class LDAPSession extends DBSSession {
     @Override
     public IDBSearchResults search(String base, String filter, int maxSize,
             int timeLimit, String sortAttribute) throws EBaseException {
+        return search(base, filter, maxSize, timeLimit, sortAttribute, null);
+    }
+
+    @Override
+    public IDBSearchResults search(String base, String filter, int maxSize,
+            int timeLimit, String sortAttribute, String[] attrs) throws EBaseException {
 
         logger.info("LDAPSession: Searching " + base + " for " + filter);
 
         try {
             String ldapattrs[] = null;
+
+            if (attrs != null) {
+                ldapattrs = dbSubsystem.getRegistry().getLDAPAttributes(attrs);
+            }
+
             String ldapfilter =
                     dbSubsystem.getRegistry().getFilter(filter);
 
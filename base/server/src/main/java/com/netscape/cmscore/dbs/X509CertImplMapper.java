@@ -306,6 +306,26 @@ public class X509CertImplMapper extends DBAttrMapper {
                 attr = attrs.getAttribute(
                             CertDBSchema.LDAP_ATTR_SIGNED_CERT + ";binary");
             }
+            if (parent instanceof CertRecord) {
+                CertRecord certRecord = (CertRecord) parent;
+
+                // the validity is available even if the search
+                // did not retrieve the certificate itself
+                LDAPAttribute notBefore = attrs.getAttribute(CertDBSchema.LDAP_ATTR_NOT_BEFORE);
+                LDAPAttribute notAfter = attrs.getAttribute(CertDBSchema.LDAP_ATTR_NOT_AFTER);
+                if (notBefore != null && notAfter != null) {
+                    certRecord.setValidity(
+                            DateMapper.dateFromDB(notBefore.getStringValues().nextElement()),
+                            DateMapper.dateFromDB(notAfter.getStringValues().nextElement()));
+                }
+
+                if (attr != null) {
+                    // defer decoding until the certificate is used
+                    certRecord.setEncodedCertificate(attr.getByteValues().nextElement());
+                }
+                return;
+            }
+
             if (attr != null) {
                 byte der[] = attr.getByteValues().nextElement();
                 X509CertImpl impl = new X509CertImpl(der);
@@ -341,4 +341,53 @@ public class JobCron implements IJobCron {
 
         return cronMoy;
     }
+
+    /**
+     * Is the job scheduled in the minute of the given time?
+     *
+     * @param time the Calendar value represents a moment of time
+     * @return true if the time matches the cron
+     */
+    public boolean matches(Calendar time) {
+
+        if (!isElement(MOY_cal2cron(time), cMOY.getElements())) {
+            return false;
+        }
+
+        if (!isElement(DOW_cal2cron(time), cDOW.getElements()) &&
+                !isElement(time.get(Calendar.DAY_OF_MONTH), cDOM.getElements())) {
+            return false;
+        }
+
+        if (!isElement(time.get(Calendar.HOUR_OF_DAY), cHour.getElements())) {
+            return false;
+        }
+
+        return isElement(time.get(Calendar.MINUTE), cMinute.getElements());
+    }
+
+    /**
+     * Returns the first minute after the given time in which
+     * the job is scheduled.
+     *
+     * @param time time in milliseconds
+     * @return the next scheduled time in milliseconds, or -1 if the
+     *         job is not scheduled within the following year
+     */
+    public long getNextTime(long time) {
+
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(time);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+
+        for (int i = 0; i < 366 * 24 * 60; i++) {
+            cal.add(Calendar.MINUTE, 1);
+            if (matches(cal)) {
+                return cal.getTimeInMillis();
+            }
+        }
+
+        return -1;
+    }
 }
@@ -0,0 +1,113 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.jobs;
+
+/**
+ * This class keeps the execution statistics of a scheduled job.
+ */
+public class JobStats {
+
+    String id;
+
+    long runs;
+    long failures;
+
+    long lastStartTime;
+    long lastDuration;
+    long lastProcessed;
+
+    long totalDuration;
+    long totalProcessed;
+
+    public JobStats(String id) {
+        this.id = id;
+    }
+
+    public String getID() {
+        return id;
+    }
+
+    public synchronized long getRuns() {
+        return runs;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    public synchronized long getLastStartTime() {
+        return lastStartTime;
+    }
+
+    /**
+     * Returns the duration of the last run in milliseconds.
+     */
+    public synchronized long getLastDuration() {
+        return lastDuration;
+    }
+
+    /**
+     * Returns the number of items processed in the last run.
+     */
+    public synchronized long getLastProcessed() {
+        return lastProcessed;
+    }
+
+    public synchronized long getTotalDuration() {
+        return totalDuration;
+    }
+
+    public synchronized long getTotalProcessed() {
+        return totalProcessed;
+    }
+
+    /**
+     * Returns the number of items processed per second in the last run.
+     */
+    public synchronized double getLastThroughput() {
+        if (lastDuration == 0) return 0;
+        return lastProcessed * 1000.0 / lastDuration;
+    }
+
+    public synchronized void start(long startTime) {
+        lastStartTime = startTime;
+    }
+
+    public synchronized void finish(long duration, long processed, boolean failed) {
+
+        runs++;
+        if (failed) failures++;
+
+        lastDuration = duration;
+        lastProcessed = processed;
+
+        totalDuration += duration;
+        totalProcessed += processed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "JobStats[id=" + id +
+                ", runs=" + runs +
+                ", failures=" + failures +
+                ", lastDuration=" + lastDuration + "ms" +
+                ", lastProcessed=" + lastProcessed +
+                ", lastThroughput=" + String.format("%.2f", getLastThroughput()) + "/s" +
+                "]";
+    }
+}
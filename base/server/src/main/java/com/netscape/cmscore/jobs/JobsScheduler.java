@@ -20,7 +20,12 @@ package com.netscape.cmscore.jobs;
 import java.util.Calendar;
 import java.util.Enumeration;
 import java.util.Hashtable;
-import java.util.Vector;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.netscape.certsrv.base.EBaseException;
 import com.netscape.certsrv.base.ISubsystem;
@@ -28,6 +33,7 @@ import com.netscape.certsrv.jobs.EJobsException;
 import com.netscape.certsrv.jobs.IJob;
 import com.netscape.certsrv.jobs.IJobCron;
 import com.netscape.certsrv.jobs.JobPlugin;
+import com.netscape.cms.jobs.AJobBase;
 import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.base.ConfigStore;
 
@@ -35,8 +41,12 @@ import com.netscape.cmscore.base.ConfigStore;
  * This is a daemon thread that handles scheduled jobs like cron would
  * do with different jobs. This daemon wakes up at a pre-configured
  * interval to see
- * if there is any job to be done, if so, a thread is created to execute
- * the job(s).
+ * if there is any job to be done, if so, the job(s) will be executed
+ * on a bounded thread pool.
+ * <p>
+ * The size of the thread pool <b>jobsScheduler.threads</b> limits the
+ * number of jobs that can run at the same time. If not set, the default
+ * is 5 threads.
  * <p>
  * The interval <b>jobsScheduler.interval</b> in the configuration is specified as number of minutes. If not set, the
  * default is 1 minute. Note that the cron specification for each job CAN NOT be finer than the granularity of the
@@ -102,6 +112,15 @@ public class JobsScheduler implements Runnable, ISubsystem {
      */
     public static final String PROP_PLUGIN = "pluginName";
 
+    /**
+     * constant that represents the configuration parameter
+     * "threads" for this component in CMS.cfg. The value of which
+     * tells CMS the maximum number of jobs that can run concurrently
+     */
+    public static final String PROP_THREADS = "threads";
+
+    public static final int DEFAULT_THREADS = 5;
+
     protected static final long MINUTE_MILLI = 60000;
     protected static final String DELIM = ",";
 
@@ -113,7 +132,10 @@ public class JobsScheduler implements Runnable, ISubsystem {
 
     public Hashtable<String, JobPlugin> mJobPlugins = new Hashtable<>();
     public Hashtable<String, IJob> mJobs = new Hashtable<>();
-    private Hashtable<String, Thread> mJobThreads = new Hashtable<>();
+    private Map<String, Future<?>> mJobFutures = new ConcurrentHashMap<>();
+    private Map<String, JobStats> mJobStats = new ConcurrentHashMap<>();
+
+    private ExecutorService mExecutor;
 
     private ConfigStore mConfig;
 
@@ -158,6 +180,16 @@ public class JobsScheduler implements Runnable, ISubsystem {
         }
         setInterval(i);
 
+        int threads = mConfig.getInteger(PROP_THREADS, DEFAULT_THREADS);
+        logger.info("JobsScheduler: - threads: " + threads);
+
+        AtomicInteger counter = new AtomicInteger();
+        mExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "JobsScheduler-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
         ConfigStore c = mConfig.getSubStore(PROP_IMPL, ConfigStore.class);
         Enumeration<String> mImpls = c.getSubStoreNames();
 
@@ -323,17 +355,14 @@ public class JobsScheduler implements Runnable, ISubsystem {
                 if (isShowTime(job, cal) == true) {
                     //	logger.info("JobsScheduler: show time for: "+job.getId());
 
-                    // if previous thread still alive, skip
-                    Thread jthread = mJobThreads.get(job.getId());
-
-                    if ((jthread == null) || (!jthread.isAlive())) {
-                        Thread jobThread = new Thread((Runnable) job, job.getId());
+                    // if previous run still in progress, skip
+                    Future<?> future = mJobFutures.get(job.getId());
 
-                        jobThread.start();
-                        // put into job thread control
-                        mJobThreads.put(job.getId(), jobThread);
+                    if (future == null || future.isDone()) {
+                        // put into job control
+                        mJobFutures.put(job.getId(), mExecutor.submit(() -> runJob(job)));
                     } else {
-                        // previous thread still alive, log it
+                        // previous run still in progress, log it
                         logger.info("JobsScheduler: Job " + job.getId() + " still running...skipping this round");
                     }
                 }
@@ -342,6 +371,61 @@ public class JobsScheduler implements Runnable, ISubsystem {
         }
     }
 
+    /**
+     * Executes a job and records its statistics.
+     */
+    protected void runJob(IJob job) {
+
+        String id = job.getId();
+        JobStats stats = mJobStats.computeIfAbsent(id, JobStats::new);
+
+        AJobBase jobBase = job instanceof AJobBase ? (AJobBase) job : null;
+        if (jobBase != null) {
+            jobBase.resetProcessedCount();
+        }
+
+        long start = System.currentTimeMillis();
+        stats.start(start);
+
+        boolean failed = false;
+        String name = Thread.currentThread().getName();
+        Thread.currentThread().setName(name + "-" + id);
+
+        try {
+            ((Runnable) job).run();
+
+        } catch (Throwable e) {
+            failed = true;
+            logger.error("JobsScheduler: Job " + id + " failed: " + e.getMessage(), e);
+
+        } finally {
+            Thread.currentThread().setName(name);
+
+            long duration = System.currentTimeMillis() - start;
+            long processed = jobBase == null ? 0 : jobBase.getProcessedCount();
+
+            stats.finish(duration, processed, failed);
+            logger.info("JobsScheduler: Job " + id + " completed in " + duration + " ms, " + processed + " item(s) processed");
+        }
+    }
+
+    /**
+     * Retrieves the execution statistics of a job.
+     *
+     * @param id job ID
+     * @return job statistics, or null if the job has not been executed
+     */
+    public JobStats getJobStats(String id) {
+        return mJobStats.get(id);
+    }
+
+    /**
+     * Retrieves the execution statistics of all jobs that have been executed.
+     */
+    public Map<String, JobStats> getJobStats() {
+        return mJobStats;
+    }
+
     /**
      * Creates a job cron. Each job is associated with a "cron" which
      * specifies the rule of frequency that this job should be
@@ -370,59 +454,7 @@ public class JobsScheduler implements Runnable, ISubsystem {
             return false;
         }
 
-        /**
-         * is it the right month?
-         */
-        Vector<CronRange> moy =
-                jcron.getItem(JobCron.CRON_MONTH_OF_YEAR).getElements();
-
-        int cronMoy = jcron.MOY_cal2cron(now);
-
-        if (jcron.isElement(cronMoy, moy) == false) {
-            return false;
-        }
-        // is the right month!
-
-        /**
-         * is it the right date?
-         */
-        Vector<CronRange> dow = jcron.getItem(JobCron.CRON_DAY_OF_WEEK).getElements();
-        Vector<CronRange> dom = jcron.getItem(JobCron.CRON_DAY_OF_MONTH).getElements();
-
-        // can't be both empty
-        if ((dow.isEmpty()) && dom.isEmpty()) {
-            // throw... or return false?
-        }
-
-        int cronDow = jcron.DOW_cal2cron(now);
-
-        if ((jcron.isElement(cronDow, dow) == false) &&
-                (jcron.isElement(now.get(Calendar.DAY_OF_MONTH), dom) == false)) {
-            return false;
-        }
-        // is the right date!
-
-        /**
-         * is it the right hour?
-         */
-        Vector<CronRange> hour = jcron.getItem(JobCron.CRON_HOUR).getElements();
-
-        if (jcron.isElement(now.get(Calendar.HOUR_OF_DAY), hour) == false) {
-            return false;
-        }
-        // is the right hour!
-
-        /**
-         * is it the right minute?
-         */
-        Vector<CronRange> minute = jcron.getItem(JobCron.CRON_MINUTE).getElements();
-
-        if (jcron.isElement(now.get(Calendar.MINUTE), minute) == false) {
-            return false;
-        }
-        // is the right minute!  We're on!
-
-        return true;
+        return jcron.matches(now);
     }
 
     /**
@@ -477,6 +509,10 @@ public class JobsScheduler implements Runnable, ISubsystem {
         for (IJob job : mJobs.values()) {
             job.stop();
         }
+
+        if (mExecutor != null) {
+            mExecutor.shutdownNow();
+        }
     }
 
     /**
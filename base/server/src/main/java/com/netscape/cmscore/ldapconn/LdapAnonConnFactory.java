@@ -416,11 +416,16 @@ public class LdapAnonConnFactory implements ILdapConnFactory {
         // this returned connection might authenticate as someone other than
         // anonymonus. Reset it to anonymous first before it returns
         // to the pool.  Do this by calling connect() again on this connection
-        // to avoid doing an explicit anonymous bind
-        try {
-            anon.connect(mConnInfo.getHost(), mConnInfo.getPort());
-        } catch (LDAPException e) {
-            logger.warn("LdapAnonConnFactory: Unable to reauthenticate as anonymous");
+        // to avoid doing an explicit anonymous bind. Connections that are
+        // still connected and were never rebound are returned as is.
+        String authDN = anon.getAuthenticationDN();
+
+        if (!anon.isConnected() || authDN != null && !authDN.isEmpty()) {
+            try {
+                anon.connect(mConnInfo.getHost(), mConnInfo.getPort());
+            } catch (LDAPException e) {
+                logger.warn("LdapAnonConnFactory: Unable to reauthenticate as anonymous");
+            }
         }
 
         // return the connection even if can't reauthentication anon.
@@ -0,0 +1,199 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.ldapconn;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+
+import com.netscape.certsrv.base.EBaseException;
+import com.netscape.certsrv.ldap.ELdapException;
+
+import netscape.ldap.LDAPConnection;
+import netscape.ldap.LDAPConstraints;
+import netscape.ldap.LDAPControl;
+import netscape.ldap.LDAPException;
+
+/**
+ * This class keeps a pool of LDAP connections that are only used to
+ * verify user passwords with bind operations. Since the connections are
+ * not used for any other operation, a connection bound as one user can
+ * be reused for the next bind without being reset to anonymous first.
+ */
+public class LdapBindConnPool {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(LdapBindConnPool.class);
+
+    public static final String PROP_MAXCONNS = "maxConns";
+
+    public static final int DEFAULT_MAXCONNS = 5;
+
+    private String id;
+    private LdapConnInfo connInfo;
+    private PKISocketFactory socketFactory;
+    private int maxConns = DEFAULT_MAXCONNS;
+
+    private Deque<LDAPConnection> conns = new ArrayDeque<>();
+    private Semaphore permits;
+
+    public LdapBindConnPool(String id) {
+        this.id = id;
+    }
+
+    public int getMaxConns() {
+        return maxConns;
+    }
+
+    /**
+     * @param config socket configuration
+     * @param connConfig LDAP server connection parameters
+     * @param maxConns maximum number of concurrent bind operations
+     */
+    public void init(PKISocketConfig config, LDAPConnectionConfig connConfig, int maxConns)
+            throws EBaseException {
+
+        init(maxConns);
+
+        this.connInfo = new LdapConnInfo(connConfig);
+
+        socketFactory = new PKISocketFactory(connInfo.getSecure());
+        socketFactory.init(config);
+
+        logger.info("LdapBindConnPool(" + id + "): Server: " + connInfo.getHost() + ":" + connInfo.getPort());
+    }
+
+    /**
+     * @param maxConns maximum number of concurrent bind operations
+     */
+    protected void init(int maxConns) throws EBaseException {
+
+        if (maxConns <= 0) {
+            throw new ELdapException("Invalid maximum number of connections: " + maxConns);
+        }
+
+        this.maxConns = maxConns;
+        permits = new Semaphore(maxConns, true);
+
+        logger.info("LdapBindConnPool(" + id + "): Maximum connections: " + maxConns);
+    }
+
+    /**
+     * Creates a new connection to the LDAP server.
+     */
+    protected LDAPConnection createConn() throws LDAPException {
+        return new LdapAnonConnection(socketFactory, connInfo);
+    }
+
+    private LDAPConnection getConn() throws LDAPException {
+
+        LDAPConnection conn;
+        synchronized (conns) {
+            conn = conns.poll();
+        }
+
+        if (conn != null && conn.isConnected()) {
+            return conn;
+        }
+
+        logger.debug("LdapBindConnPool(" + id + "): Creating connection");
+        return createConn();
+    }
+
+    private void returnConn(LDAPConnection conn) {
+        synchronized (conns) {
+            conns.push(conn);
+        }
+    }
+
+    private void close(LDAPConnection conn) {
+        try {
+            conn.disconnect();
+        } catch (LDAPException e) {
+            logger.warn("LdapBindConnPool(" + id + "): Unable to disconnect: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Binds as the specified user to verify the password. The request
+     * controls (if any) are sent with the bind request.
+     *
+     * @return the response controls returned by the server
+     * @throws LDAPException if the bind failed (e.g. invalid credentials)
+     */
+    public LDAPControl[] bind(String dn, String password, LDAPControl[] controls)
+            throws LDAPException, InterruptedException {
+
+        LDAPConstraints cons = new LDAPConstraints();
+        if (controls != null) {
+            cons.setServerControls(controls);
+        }
+
+        permits.acquire();
+
+        LDAPConnection conn = null;
+        try {
+            conn = getConn();
+
+            try {
+                conn.authenticate(LdapConnInfo.LDAP_VERSION_3, dn, password, cons);
+
+            } catch (LDAPException e) {
+
+                if (e.getLDAPResultCode() != LDAPException.SERVER_DOWN
+                        && e.getLDAPResultCode() != LDAPException.CONNECT_ERROR) {
+                    throw e;
+                }
+
+                // the pooled connection may have been closed by the server, retry once
+                logger.debug("LdapBindConnPool(" + id + "): Reconnecting: " + e.getMessage());
+                close(conn);
+
+                conn = createConn();
+                conn.authenticate(LdapConnInfo.LDAP_VERSION_3, dn, password, cons);
+            }
+
+            return conn.getResponseControls();
+
+        } finally {
+            if (conn != null) {
+                // failed binds (e.g. invalid credentials) leave the connection usable
+                if (conn.isConnected()) {
+                    returnConn(conn);
+                } else {
+                    close(conn);
+                }
+            }
+            permits.release();
+        }
+    }
+
+    /**
+     * Disconnects all idle connections.
+     */
+    public void reset() {
+
+        logger.debug("LdapBindConnPool(" + id + "): Closing connections");
+
+        synchronized (conns) {
+            for (LDAPConnection conn : conns) {
+                close(conn);
+            }
+            conns.clear();
+        }
+    }
+}
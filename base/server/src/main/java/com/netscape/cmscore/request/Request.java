@@ -32,6 +32,7 @@ import java.util.Iterator;
 import java.util.Locale;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.dogtagpki.server.authentication.AuthToken;
 import org.mozilla.jss.netscape.security.util.DerInputStream;
@@ -172,6 +173,9 @@ public class Request {
     public static final String CRL_UPDATE_ERROR = "crlUpdateError";
     public static final String CRL_PUBLISH_STATUS = "crlPublishStatus";
     public static final String CRL_PUBLISH_ERROR = "crlPublishError";
+    // skip the CRL update after a revocation (e.g. bulk revocation
+    // which updates the CRL once at the end)
+    public static final String DEFER_CRL_UPDATE = "deferCRLUpdate";
     public static final String REQUESTOR_TYPE = "requestorType";
 
     // Netkey request attributes
@@ -369,9 +373,16 @@ public class Request {
     protected String realm;
     protected ExtDataHashtable<Object> mExtData = new ExtDataHashtable<>();
 
+    // ext data keys changed since the request was last read or written
+    protected Set<String> mModifiedExtData = ConcurrentHashMap.newKeySet();
+
     Date mCreationTime = new Date();
     Date mModificationTime = new Date();
 
+    // write-behind state maintained by RequestRepository
+    boolean mDeferUpdates;
+    boolean mUpdatePending;
+
     public Request(RequestId id) {
         mRequestId = id;
         setRequestStatus(RequestStatus.BEGIN);
@@ -525,6 +536,7 @@ public class Request {
         }
 
         mExtData.put(key, value);
+        mModifiedExtData.add(key.toLowerCase());
         return true;
     }
 
@@ -534,6 +546,7 @@ public class Request {
         }
 
         mExtData.put(key, new ExtDataHashtable<>(value));
+        mModifiedExtData.add(key.toLowerCase());
         return true;
     }
 
@@ -572,6 +585,26 @@ public class Request {
         mExtData.remove(type);
     }
 
+    /**
+     * Returns the (lowercase) ext data keys that have been set
+     * since the request was last read from or written to the
+     * database.
+     */
+    public Set<String> getModifiedExtDataKeys() {
+        return mModifiedExtData;
+    }
+
+    public boolean isExtDataModified() {
+        return !mModifiedExtData.isEmpty();
+    }
+
+    /**
+     * Marks all ext data as persisted.
+     */
+    public void clearModifiedExtData() {
+        mModifiedExtData.clear();
+    }
+
     public boolean setExtData(String key, String subkey, String value) {
         if (!(isValidExtDataKey(key) && isValidExtDataKey(subkey))) {
             return false;
@@ -590,6 +623,7 @@ public class Request {
             mExtData.put(key, existingValue);
         }
         existingValue.put(subkey, value);
+        mModifiedExtData.add(key.toLowerCase());
         return true;
     }
 
@@ -186,6 +186,24 @@ public class RequestQueue {
     }
 
     protected void stateEngine(Request r) throws EBaseException {
+
+        INotify notifier = runStateEngine(r);
+
+        if (notifier != null) {
+            notifier.notify(r);
+        }
+    }
+
+    /**
+     * Moves the request through the states until it is completed
+     * or has to wait, without calling the notifier.
+     *
+     * @param r request to be processed
+     * @return notifier to be called for the final state, or null
+     * @exception EBaseException failed to process request
+     */
+    protected INotify runStateEngine(Request r) throws EBaseException {
+        INotify notifier = null;
         boolean complete = false;
 
         while (!complete) {
@@ -213,8 +231,7 @@ public class RequestQueue {
                     requestRepository.updateRequest(r);
                 }
             } else if (rs == RequestStatus.PENDING) {
-                if (mPendingNotify != null)
-                    mPendingNotify.notify(r);
+                notifier = mPendingNotify;
 
                 complete = true;
             } else if (rs == RequestStatus.APPROVED) {
@@ -234,22 +251,21 @@ public class RequestQueue {
             } else if (rs == RequestStatus.SVC_PENDING) {
                 complete = true;
             } else if (rs == RequestStatus.CANCELED) {
-                if (mNotify != null)
-                    mNotify.notify(r);
+                notifier = mNotify;
 
                 complete = true;
             } else if (rs == RequestStatus.REJECTED) {
-                if (mNotify != null)
-                    mNotify.notify(r);
+                notifier = mNotify;
 
                 complete = true;
             } else if (rs == RequestStatus.COMPLETE) {
-                if (mNotify != null)
-                    mNotify.notify(r);
+                notifier = mNotify;
 
                 complete = true;
             }
         }
+
+        return notifier;
     }
 
     /**
@@ -673,6 +689,10 @@ public class RequestQueue {
             scheduler.requestIn(r);
         }
 
+        // with write-behind enabled the state transitions
+        // are written to the database once at the end
+        boolean deferred = requestRepository.deferUpdates(r);
+
         try {
             // 1. Check for valid state
             RequestStatus rs = r.getRequestStatus();
@@ -681,7 +701,33 @@ public class RequestQueue {
                 throw new EBaseException("Invalid Status");
             }
 
-            stateEngine(r);
+            INotify notifier;
+
+            try {
+                notifier = runStateEngine(r);
+
+            } catch (EBaseException | RuntimeException e) {
+                if (deferred) {
+                    deferred = false;
+                    try {
+                        // keep the state reached before the failure
+                        requestRepository.flushUpdates(r);
+                    } catch (EBaseException ex) {
+                        logger.warn("RequestQueue: Unable to write deferred update: " + ex.getMessage(), ex);
+                    }
+                }
+                throw e;
+            }
+
+            // write the deferred update before calling the notifier
+            // so the listeners see the final state in the database
+            if (deferred) {
+                requestRepository.flushUpdates(r);
+            }
+
+            if (notifier != null) {
+                notifier.notify(r);
+            }
 
         } finally {
             if (scheduler != null) {
@@ -17,6 +17,7 @@
 // --- END COPYRIGHT BLOCK ---
 package com.netscape.cmscore.request;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
@@ -245,7 +246,13 @@ public class RequestRecord implements IDBObj {
         mods.add(ATTR_SOURCE_ID, Modification.MOD_REPLACE, r.getSourceId());
         mods.add(ATTR_REQUEST_OWNER, Modification.MOD_REPLACE, r.getRequestOwner());
         mods.add(ATTR_MODIFY_TIME, Modification.MOD_REPLACE, r.getModificationTime());
-        mods.add(ATTR_EXT_DATA, Modification.MOD_REPLACE, loadExtDataFromRequest(r));
+
+        // only replace the ext data that has changed since
+        // the request was read or last written
+        if (r.isExtDataModified()) {
+            Enumeration<String> keys = Collections.enumeration(r.getModifiedExtDataKeys());
+            mods.add(ATTR_EXT_DATA, Modification.MOD_REPLACE, loadExtDataFromRequest(r, keys));
+        }
 
         // TODO(alee) - realm cannot be changed once set.  Can the code be refactored to eliminate
         // the next few lines?
@@ -285,6 +292,13 @@ public class RequestRecord implements IDBObj {
         { Schema.LDAP_OC_TOP, Schema.LDAP_OC_REQUEST, Schema.LDAP_OC_EXTENSIBLE };
 
     protected static Hashtable<String, Object> loadExtDataFromRequest(Request r) throws EBaseException {
+        return loadExtDataFromRequest(r, r.getExtDataKeys());
+    }
+
+    protected static Hashtable<String, Object> loadExtDataFromRequest(
+            Request r,
+            Enumeration<String> e) throws EBaseException {
+
         Hashtable<String, Object> h = new Hashtable<>();
         String reqType = r.getExtDataInString("cert_request_type");
         if (reqType == null || reqType.equals("")) {
@@ -292,7 +306,6 @@ public class RequestRecord implements IDBObj {
             reqType = r.getExtDataInString("auth_token.cert_request_type");
         }
         CMSEngine engine = CMS.getCMSEngine();
-        Enumeration<String> e = r.getExtDataKeys();
         while (e.hasMoreElements()) {
             String key = e.nextElement();
             if (r.isSimpleExtDataValue(key)) {
@@ -325,7 +338,12 @@ public class RequestRecord implements IDBObj {
                 }
                 h.put(key, r.getExtDataInString(key));
             } else {
-                h.put(key, r.getExtDataInHashtable(key));
+                Hashtable<String, String> value = r.getExtDataInHashtable(key);
+                if (value == null) {
+                    // deleted key
+                    continue;
+                }
+                h.put(key, value);
             }
         }
 
@@ -352,6 +370,7 @@ public class RequestRecord implements IDBObj {
     public Request toRequest() throws EBaseException {
         Request record = new Request(mRequestId);
         read(record);
+        record.clearModifiedExtData();
         return record;
     }
 
@@ -56,9 +56,12 @@ public class RequestRepository extends Repository {
 
     public static final String PROP_REQUEST_ID_GENERATOR = "request.id.generator";
     public static final String PROP_REQUEST_ID_LENGTH = "request.id.length";
+    public static final String PROP_REQUEST_WRITE_BEHIND = "request.writeBehind";
 
     protected String filter;
 
+    protected boolean writeBehind;
+
     /**
      * Create a request repository that uses the LDAP database
      * <p>
@@ -89,6 +92,9 @@ public class RequestRepository extends Repository {
             setIDGenerator(value);
         }
 
+        writeBehind = dbConfig.getBoolean(PROP_REQUEST_WRITE_BEHIND, false);
+        logger.debug("RequestRepository: - write behind: " + writeBehind);
+
         if (idGenerator == RANDOM) {
 
             idLength = dbConfig.getInteger(PROP_REQUEST_ID_LENGTH);
@@ -223,6 +229,7 @@ public class RequestRepository extends Repository {
         try {
             String dn = "cn=" + requestRecord.mRequestId + "," + mBaseDN;
             dbs.add(dn, requestRecord);
+            request.clearModifiedExtData();
 
         } catch (EBaseException e) {
             logger.error("RequestRepository: " + e.getMessage(), e);
@@ -284,6 +291,60 @@ public class RequestRepository extends Repository {
             return;
         }
 
+        if (request.mDeferUpdates) {
+            // write-behind: coalesce with the following updates,
+            // see flushUpdates()
+            request.mUpdatePending = true;
+            return;
+        }
+
+        commitRequest(request);
+    }
+
+    /**
+     * Starts deferring the updates of a request until
+     * flushUpdates() is called, so that the state transitions
+     * during one request processing are written to the database
+     * in a single operation. This only takes effect if write-behind
+     * is enabled with dbs.request.writeBehind.
+     *
+     * @param request the request being processed
+     * @return true if the updates will be deferred, false if write-behind
+     *  is disabled or the updates are already deferred by the caller
+     */
+    public boolean deferUpdates(Request request) {
+
+        if (!writeBehind || request.mDeferUpdates) {
+            return false;
+        }
+
+        request.mDeferUpdates = true;
+        return true;
+    }
+
+    /**
+     * Stops deferring the updates of a request and writes
+     * the pending update to the database, if any.
+     *
+     * @param request the request being processed
+     * @exception EBaseException failed to update request
+     */
+    public void flushUpdates(Request request) throws EBaseException {
+
+        request.mDeferUpdates = false;
+
+        if (!request.mUpdatePending) {
+            return;
+        }
+
+        logger.debug("RequestRepository: Writing deferred update for request " + request.getRequestId());
+
+        request.mUpdatePending = false;
+        commitRequest(request);
+    }
+
+    protected void commitRequest(Request request) throws EBaseException {
+
         // TODO: use a state flag to determine whether to call
         // addRequest or modifyRequest (see newRequest as well)
 
@@ -322,6 +383,7 @@ public class RequestRepository extends Repository {
         try {
             String dn = "cn=" + request.getRequestId() + "," + mBaseDN;
             dbs.modify(dn, mods);
+            request.clearModifiedExtData();
 
         } catch (EBaseException e) {
             logger.warn("RequestRepository: " + e.getMessage(), e);
@@ -0,0 +1,347 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.selftests;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netscape.certsrv.logging.ILogEventListener;
+import com.netscape.certsrv.selftests.ESelfTestException;
+import com.netscape.certsrv.selftests.ISelfTest;
+
+/**
+ * This class executes self tests. Independent self tests can be
+ * executed concurrently with a per-test timeout, and the results
+ * can be cached for a limited time so that frequent requests
+ * (e.g. health probes) do not rerun the tests every time.
+ */
+public class SelfTestRunner {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SelfTestRunner.class);
+
+    /**
+     * The outcome of a single self test execution.
+     */
+    public static class Result {
+
+        String name;
+        Exception exception;
+        long timestamp;
+        long duration;
+        boolean cached;
+
+        public Result(String name, Exception exception, long timestamp, long duration) {
+            this.name = name;
+            this.exception = exception;
+            this.timestamp = timestamp;
+            this.duration = duration;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isPassed() {
+            return exception == null;
+        }
+
+        public Exception getException() {
+            return exception;
+        }
+
+        /**
+         * Returns the time the self test was started in milliseconds.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Returns the execution time of the self test in milliseconds.
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        public boolean isCached() {
+            return cached;
+        }
+
+        Result copy(boolean cached) {
+            Result result = new Result(name, exception, timestamp, duration);
+            result.cached = cached;
+            return result;
+        }
+    }
+
+    private int threads;
+    private long timeout;
+    private long cacheTTL;
+
+    private ExecutorService executor;
+    private ScheduledExecutorService watchdog;
+    private Map<String, Result> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param threads maximum number of self tests executed concurrently
+     * @param timeout per-test timeout in seconds (0 = no timeout)
+     * @param cacheTTL result cache lifetime in seconds (0 = no cache)
+     */
+    public SelfTestRunner(int threads, long timeout, long cacheTTL) {
+        this.threads = threads < 1 ? 1 : threads;
+        this.timeout = timeout;
+        this.cacheTTL = cacheTTL;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public long getCacheTTL() {
+        return cacheTTL;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+
+        if (executor == null) {
+            AtomicInteger counter = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "SelfTestRunner-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return executor;
+    }
+
+    private synchronized ScheduledExecutorService getWatchdog() {
+
+        if (watchdog == null) {
+            watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "SelfTestRunner-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return watchdog;
+    }
+
+    /**
+     * A self test queued for asynchronous execution. The timeout
+     * starts when the self test starts running, not when it is
+     * queued, so a slow self test does not use up the timeout of
+     * the self tests queued after it.
+     */
+    class Execution implements Runnable {
+
+        String name;
+        FutureTask<Result> task;
+        volatile long startTime;
+
+        Execution(String name, ISelfTest test, ILogEventListener listener) {
+            this.name = name;
+            this.task = new FutureTask<>(() -> execute(name, test, listener));
+        }
+
+        @Override
+        public void run() {
+
+            startTime = System.currentTimeMillis();
+
+            ScheduledFuture<?> timer = null;
+            if (timeout > 0) {
+                timer = getWatchdog().schedule(() -> task.cancel(true), timeout, TimeUnit.SECONDS);
+            }
+
+            try {
+                task.run();
+            } finally {
+                if (timer != null) timer.cancel(false);
+            }
+        }
+    }
+
+    private Result getCachedResult(String name) {
+
+        if (cacheTTL <= 0) return null;
+
+        Result result = cache.get(name);
+        if (result == null) return null;
+
+        long age = System.currentTimeMillis() - result.timestamp;
+        if (age > cacheTTL * 1000) {
+            cache.remove(name);
+            return null;
+        }
+
+        return result.copy(true);
+    }
+
+    private Result execute(String name, ISelfTest test, ILogEventListener listener) {
+
+        logger.debug("SelfTestRunner: running " + name);
+
+        long start = System.currentTimeMillis();
+        Exception exception = null;
+
+        try {
+            test.runSelfTest(listener);
+
+        } catch (Exception e) {
+            exception = e;
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        logger.debug("SelfTestRunner: " + name + " completed in " + duration + " ms");
+
+        return new Result(name, exception, start, duration);
+    }
+
+    /**
+     * Executes the specified self tests and returns the results
+     * in the same order. Cached results are reused if useCache
+     * is true and they have not expired.
+     */
+    public Map<String, Result> run(
+            Map<String, ISelfTest> tests,
+            ILogEventListener listener,
+            boolean useCache) {
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        Map<String, Execution> executions = new LinkedHashMap<>();
+
+        boolean async = threads > 1 || timeout > 0;
+
+        for (Map.Entry<String, ISelfTest> entry : tests.entrySet()) {
+
+            String name = entry.getKey();
+            ISelfTest test = entry.getValue();
+
+            Result result = useCache ? getCachedResult(name) : null;
+            if (result != null) {
+                logger.debug("SelfTestRunner: using cached result for " + name);
+                results.put(name, result);
+                continue;
+            }
+
+            // reserve the position to preserve the order of the results
+            results.put(name, null);
+
+            if (!async) {
+                results.put(name, store(execute(name, test, listener)));
+                continue;
+            }
+
+            Execution execution = new Execution(name, test, listener);
+            getExecutor().execute(execution);
+            executions.put(name, execution);
+        }
+
+        for (Execution execution : executions.values()) {
+            results.put(execution.name, store(waitFor(execution)));
+        }
+
+        return results;
+    }
+
+    /**
+     * Executes a single self test.
+     */
+    public Result run(String name, ISelfTest test, ILogEventListener listener, boolean useCache) {
+        Map<String, ISelfTest> tests = new LinkedHashMap<>();
+        tests.put(name, test);
+        return run(tests, listener, useCache).get(name);
+    }
+
+    private Result waitFor(Execution execution) {
+
+        String name = execution.name;
+
+        try {
+            return execution.task.get();
+
+        } catch (CancellationException e) {
+            long start = execution.startTime;
+            long duration = System.currentTimeMillis() - start;
+            logger.warn("SelfTestRunner: " + name + " timed out after " + timeout + " seconds");
+            return new Result(name, new ESelfTestException("Selftest timed out after " + timeout + " seconds"), start, duration);
+
+        } catch (InterruptedException e) {
+            execution.task.cancel(true);
+            Thread.currentThread().interrupt();
+            long start = execution.startTime;
+            long duration = start == 0 ? 0 : System.currentTimeMillis() - start;
+            return new Result(name, new ESelfTestException("Selftest interrupted"), start, duration);
+
+        } catch (ExecutionException e) {
+            // execute() does not throw, this should not happen
+            long start = execution.startTime;
+            long duration = System.currentTimeMillis() - start;
+            Throwable cause = e.getCause();
+            Exception exception = cause instanceof Exception ? (Exception) cause : new ESelfTestException(cause.toString());
+            return new Result(name, exception, start, duration);
+        }
+    }
+
+    private Result store(Result result) {
+        if (cacheTTL > 0) {
+            cache.put(result.getName(), result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    public Collection<Result> getCachedResults() {
+        return cache.values();
+    }
+
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+            watchdog = null;
+        }
+        cache.clear();
+    }
+}
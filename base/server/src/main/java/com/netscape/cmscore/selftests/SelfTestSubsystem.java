@@ -28,7 +28,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.Vector;
 
@@ -93,6 +95,8 @@ public class SelfTestSubsystem
     public Vector<SelfTestOrderedInstance> mOnDemandOrder = new Vector<>();
     public Vector<SelfTestOrderedInstance> mStartupOrder = new Vector<>();
 
+    private SelfTestRunner runner = new SelfTestRunner(1, 0, 0);
+
     ///////////////////////////
     // ISubsystem parameters //
     ///////////////////////////
@@ -489,9 +493,47 @@ public class SelfTestSubsystem
 
         logger.debug("SelfTestSubsystem: runSelfTestsOnDemand()");
 
-        // loop through all self test plugin instances
-        // specified to be executed on demand
-        Enumeration<SelfTestOrderedInstance> instances = mOnDemandOrder.elements();
+        Map<String, ISelfTest> tests = getSelfTests(mOnDemandOrder);
+        Map<String, SelfTestRunner.Result> results = runner.run(tests, mLogger, false);
+
+        for (SelfTestRunner.Result result : results.values()) {
+
+            if (result.isPassed()) continue;
+
+            String instanceName = result.getName();
+            String instanceFullName = getFullName(mPrefix, instanceName);
+            Exception e = result.getException();
+
+            // Check to see if the self test was critical:
+            if (isSelfTestCriticalOnDemand(instanceName)) {
+                log(mLogger,
+                        CMS.getLogMessage(
+                                "CMSCORE_SELFTESTS_RUN_ON_DEMAND_FAILED",
+                                instanceFullName));
+
+                logger.error("SelfTestSubsystem: Disabling subsystem due to selftest failure: " + e.getMessage(), e);
+
+                CMSEngine engine = CMS.getCMSEngine();
+                engine.disableSubsystem();
+
+                throw new ESelfTestException("Selftest failed: " + e.getMessage(), e);
+            }
+
+            logger.warn("SelfTestSubsystem: Selftest failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the self test plugin instances in the specified order.
+     *
+     * @exception EMissingSelfTestException subsystem has missing name
+     */
+    private Map<String, ISelfTest> getSelfTests(Vector<SelfTestOrderedInstance> order)
+            throws EMissingSelfTestException {
+
+        Map<String, ISelfTest> tests = new LinkedHashMap<>();
+
+        Enumeration<SelfTestOrderedInstance> instances = order.elements();
 
         while (instances.hasMoreElements()) {
 
@@ -520,29 +562,10 @@ public class SelfTestSubsystem
                 throw new EMissingSelfTestException(instanceFullName);
             }
 
-            try {
-                runSelfTest(instanceName);
-
-            } catch (Exception e) {
-
-                // Check to see if the self test was critical:
-                if (isSelfTestCriticalOnDemand(instanceName)) {
-                    log(mLogger,
-                            CMS.getLogMessage(
-                                    "CMSCORE_SELFTESTS_RUN_ON_DEMAND_FAILED",
-                                    instanceFullName));
-
-                    logger.error("SelfTestSubsystem: Disabling subsystem due to selftest failure: " + e.getMessage(), e);
-
-                    CMSEngine engine = CMS.getCMSEngine();
-                    engine.disableSubsystem();
-
-                    throw new ESelfTestException("Selftest failed: " + e.getMessage(), e);
-                }
-
-                logger.warn("SelfTestSubsystem: Selftest failed: " + e.getMessage(), e);
-            }
+            tests.put(instanceName, mSelfTestInstances.get(instanceName));
         }
+
+        return tests;
     }
 
     @Override
@@ -556,7 +579,44 @@ public class SelfTestSubsystem
             throw new EMissingSelfTestException(instanceName);
         }
 
-        test.runSelfTest(mLogger);
+        SelfTestRunner.Result result = runner.run(instanceName, test, mLogger, true);
+
+        if (!result.isPassed()) {
+            throw result.getException();
+        }
+    }
+
+    /**
+     * Execute the specified self tests concurrently (if enabled) and
+     * return the results in the same order. Results that are still
+     * within the configured cache lifetime are reused.
+     *
+     * @param instanceNames instance names of self tests
+     * @return self test results
+     * @exception EMissingSelfTestException subsystem has missing name
+     */
+    public Map<String, SelfTestRunner.Result> runSelfTests(Collection<String> instanceNames)
+            throws EMissingSelfTestException {
+
+        logger.debug("SelfTestSubsystem: runSelfTests(" + instanceNames + ")");
+
+        Map<String, ISelfTest> tests = new LinkedHashMap<>();
+
+        for (String instanceName : instanceNames) {
+            ISelfTest test = mSelfTestInstances.get(instanceName);
+
+            if (test == null) {
+                throw new EMissingSelfTestException(instanceName);
+            }
+
+            tests.put(instanceName, test);
+        }
+
+        return runner.run(tests, mLogger, true);
+    }
+
+    public SelfTestRunner getSelfTestRunner() {
+        return runner;
     }
 
     //
@@ -812,60 +872,31 @@ public class SelfTestSubsystem
                 CMS.getLogMessage(
                         "CMSCORE_SELFTESTS_RUN_AT_STARTUP"));
 
-        // loop through all self test plugin instances
-        // specified to be executed at server startup
-        Enumeration<SelfTestOrderedInstance> instances = mStartupOrder.elements();
+        Map<String, ISelfTest> tests = getSelfTests(mStartupOrder);
+        Map<String, SelfTestRunner.Result> results = runner.run(tests, mLogger, false);
 
-        while (instances.hasMoreElements()) {
-            SelfTestOrderedInstance instance = instances.nextElement();
+        for (SelfTestRunner.Result result : results.values()) {
 
-            String instanceFullName = null;
-            String instanceName = instance.getSelfTestName();
+            if (result.isPassed()) continue;
 
-            if (instanceName == null) {
-                log(mLogger,
-                        CMS.getLogMessage(
-                                "CMSCORE_SELFTESTS_PROPERTY_NAME_IS_NULL"));
-
-                throw new EMissingSelfTestException();
-            }
-
-            instanceName = instanceName.trim();
-            instanceFullName = getFullName(mPrefix, instanceName);
-
-            if (!mSelfTestInstances.containsKey(instanceName)) {
-                // self test plugin instance property name is not present
-                log(mLogger,
-                        CMS.getLogMessage(
-                                "CMSCORE_SELFTESTS_PROPERTY_MISSING_NAME",
-                                instanceFullName));
+            String instanceName = result.getName();
+            String instanceFullName = getFullName(mPrefix, instanceName);
+            Exception e = result.getException();
 
-                throw new EMissingSelfTestException(instanceFullName);
+            // Check to see if the self test was critical:
+            if (!isSelfTestCriticalAtStartup(instanceName)) {
+                logger.warn("SelfTestSubsystem: selftest failed: " + e.getMessage(), e);
+                continue;
             }
 
-            ISelfTest test = mSelfTestInstances.get(instanceName);
-
-            try {
-                logger.debug("SelfTestSubsystem: running " + test.getSelfTestName());
-                test.runSelfTest(mLogger);
+            logger.error("SelfTestSubsystem: selftest failed: " + e.getMessage(), e);
 
-            } catch (Exception e) {
-
-                // Check to see if the self test was critical:
-                if (!isSelfTestCriticalAtStartup(instanceName)) {
-                    logger.warn("SelfTestSubsystem: selftest failed: " + e.getMessage(), e);
-                    continue;
-                }
-
-                logger.error("SelfTestSubsystem: selftest failed: " + e.getMessage(), e);
-
-                log(mLogger,
-                        CMS.getLogMessage(
-                                "CMSCORE_SELFTESTS_RUN_AT_STARTUP_FAILED",
-                                instanceFullName));
+            log(mLogger,
+                    CMS.getLogMessage(
+                            "CMSCORE_SELFTESTS_RUN_AT_STARTUP_FAILED",
+                            instanceFullName));
 
-                throw e;
-            }
+            throw e;
         }
 
         // log that execution of all "critical" startup self tests
@@ -1224,6 +1255,17 @@ public class SelfTestSubsystem
             mRootPrefix = mConfig.getName().trim();
         }
 
+        ConfigStore containerConfig = mConfig.getSubStore(PROP_CONTAINER, ConfigStore.class);
+        int threads = containerConfig.getInteger(PROP_THREADS, 1);
+        int timeout = containerConfig.getInteger(PROP_TIMEOUT, 0);
+        int cacheTTL = containerConfig.getInteger(PROP_CACHE_TTL, 0);
+
+        logger.debug("SelfTestSubsystem: - threads: " + threads);
+        logger.debug("SelfTestSubsystem: - timeout: " + timeout);
+        logger.debug("SelfTestSubsystem: - cache TTL: " + cacheTTL);
+
+        runner = new SelfTestRunner(threads, timeout, cacheTTL);
+
         int loadStatus = 0;
 
         // NOTE:  Obviously, we must load the self test logger parameters
@@ -1816,6 +1858,9 @@ public class SelfTestSubsystem
      */
     @Override
     public void shutdown() {
+
+        runner.shutdown();
+
         // reverse order of all self test plugin instances
         Collection<ISelfTest> collection = mSelfTestInstances.values();
         Vector<ISelfTest> list = new Vector<>(collection);
@@ -89,7 +89,7 @@ public class SubsystemDBUpgradeCLI extends SubsystemCLI {
         LdapBoundConnection conn = new LdapBoundConnection(socketFactory, connInfo, authInfo);
 
         try {
-            upgrade(ldapConfig, conn);
+            upgrade(cs, ldapConfig, conn);
 
         } finally {
             conn.disconnect();
@@ -98,6 +98,10 @@ public class SubsystemDBUpgradeCLI extends SubsystemCLI {
         System.out.println(parent.parent.name.toUpperCase() + " database upgraded");
     }
 
+    public void upgrade(EngineConfig cs, LDAPConfig ldapConfig, LdapBoundConnection conn) throws Exception {
+        upgrade(ldapConfig, conn);
+    }
+
     public void upgrade(LDAPConfig ldapConfig, LdapBoundConnection conn) throws Exception {
     }
 }
@@ -23,8 +23,11 @@ import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Map;
 
 import javax.ws.rs.core.Response;
 
@@ -40,6 +43,8 @@ import com.netscape.certsrv.selftests.SelfTestResults;
 import com.netscape.cms.servlet.base.PKIService;
 import com.netscape.cmscore.apps.CMS;
 import com.netscape.cmscore.apps.CMSEngine;
+import com.netscape.cmscore.selftests.SelfTestRunner;
+import com.netscape.cmscore.selftests.SelfTestSubsystem;
 
 /**
  * @author Endi S. Dewata
@@ -176,11 +181,16 @@ public class SelfTestService extends PKIService implements SelfTestResource {
 
         CMSEngine engine = CMS.getCMSEngine();
         try {
-            ISelfTestSubsystem subsystem = (ISelfTestSubsystem) engine.getSubsystem(ISelfTestSubsystem.ID);
-            for (String selfTestID : subsystem.listSelfTestsEnabledOnDemand()) {
-                Response response = runSelfTest(selfTestID);
-                SelfTestResult result = (SelfTestResult)response.getEntity();
-                results.addEntry(result);
+            SelfTestSubsystem subsystem = (SelfTestSubsystem) engine.getSubsystem(ISelfTestSubsystem.ID);
+
+            String[] selfTestIDs = subsystem.listSelfTestsEnabledOnDemand();
+            if (selfTestIDs != null) {
+                // run the self tests concurrently (if enabled)
+                Map<String, SelfTestRunner.Result> selfTestResults = subsystem.runSelfTests(Arrays.asList(selfTestIDs));
+
+                for (SelfTestRunner.Result selfTestResult : selfTestResults.values()) {
+                    results.addEntry(createSelfTestResult(selfTestResult));
+                }
             }
 
         } catch (Exception e) {
@@ -201,19 +211,38 @@ public class SelfTestService extends PKIService implements SelfTestResource {
 
         CMSEngine engine = CMS.getCMSEngine();
         try {
-            ISelfTestSubsystem subsystem = (ISelfTestSubsystem) engine.getSubsystem(ISelfTestSubsystem.ID);
-            subsystem.runSelfTest(selfTestID);
-            result.setStatus("PASSED");
+            SelfTestSubsystem subsystem = (SelfTestSubsystem) engine.getSubsystem(ISelfTestSubsystem.ID);
+            Map<String, SelfTestRunner.Result> selfTestResults = subsystem.runSelfTests(Collections.singletonList(selfTestID));
+            result = createSelfTestResult(selfTestResults.get(selfTestID));
 
         } catch (Exception e) {
             result.setStatus("FAILED");
-
-            StringWriter sw = new StringWriter();
-            PrintWriter out = new PrintWriter(sw);
-            e.printStackTrace(out);
-            result.setOutput(sw.toString());
+            result.setOutput(getStackTrace(e));
         }
 
         return createOKResponse(result);
     }
+
+    public SelfTestResult createSelfTestResult(SelfTestRunner.Result selfTestResult) {
+
+        SelfTestResult result = new SelfTestResult();
+        result.setID(selfTestResult.getName());
+        result.setDuration(selfTestResult.getDuration());
+
+        if (selfTestResult.isPassed()) {
+            result.setStatus("PASSED");
+        } else {
+            result.setStatus("FAILED");
+            result.setOutput(getStackTrace(selfTestResult.getException()));
+        }
+
+        return result;
+    }
+
+    public String getStackTrace(Exception e) {
+        StringWriter sw = new StringWriter();
+        PrintWriter out = new PrintWriter(sw);
+        e.printStackTrace(out);
+        return sw.toString();
+    }
 }
@@ -0,0 +1,247 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cms.authentication;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dogtagpki.server.authentication.AuthToken;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netscape.certsrv.authentication.AuthCredentials;
+import com.netscape.certsrv.authentication.EInvalidCredentials;
+import com.netscape.cmscore.ldapconn.LdapBindConnPool;
+
+import netscape.ldap.LDAPConnection;
+import netscape.ldap.LDAPControl;
+import netscape.ldap.LDAPEntry;
+import netscape.ldap.LDAPException;
+
+public class DirBasedAuthenticationTest {
+
+    static class TestConnection extends LDAPConnection {
+
+        List<String> binds = new ArrayList<>();
+        boolean connected = true;
+
+        @Override
+        public void authenticate(String dn, String password) throws LDAPException {
+            binds.add(dn);
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public void disconnect() throws LDAPException {
+            connected = false;
+        }
+    }
+
+    static class TestBindConnPool extends LdapBindConnPool {
+
+        List<String> binds = new ArrayList<>();
+        LDAPControl[] requestControls;
+        LDAPControl[] responseControls;
+        LDAPException exception;
+
+        TestBindConnPool() {
+            super("test");
+        }
+
+        @Override
+        public LDAPControl[] bind(String dn, String password, LDAPControl[] controls) throws LDAPException {
+
+            binds.add(dn);
+            requestControls = controls;
+
+            if (exception != null) throw exception;
+            return responseControls;
+        }
+    }
+
+    static class TestAuthentication extends UidPwdDirAuthentication {
+
+        String[] attrs;
+
+        @Override
+        protected LDAPEntry authenticate(LDAPConnection conn,
+                AuthCredentials authCreds,
+                AuthToken token,
+                String[] attrs) {
+
+            this.attrs = attrs;
+            return new LDAPEntry("uid=testuser,ou=people,dc=example,dc=com");
+        }
+    }
+
+    TestAuthentication authentication;
+    TestConnection conn;
+    TestBindConnPool bindConnPool;
+
+    @Before
+    public void setUp() throws Exception {
+
+        authentication = new TestAuthentication();
+        authentication.mName = "test";
+        authentication.mLdapAttrs = new String[] { "mail", "cn", "jpegPhoto" };
+
+        conn = new TestConnection();
+        bindConnPool = new TestBindConnPool();
+    }
+
+    @Test
+    public void testAuthenticateUserWithGroups() throws Exception {
+
+        authentication.mGroupsEnable = true;
+
+        LDAPEntry entry = authentication.authenticateUser(conn, new AuthCredentials(), new AuthToken());
+
+        assertEquals("uid=testuser,ou=people,dc=example,dc=com", entry.getDN());
+
+        // the user entry is retrieved with the attributes and the groups
+        assertArrayEquals(new String[] { "mail", "cn", "jpegPhoto", "memberOf" }, authentication.attrs);
+
+        // the configured attributes are not modified
+        assertArrayEquals(new String[] { "mail", "cn", "jpegPhoto" }, authentication.getLdapAttrs());
+    }
+
+    @Test
+    public void testAuthenticateUserWithoutGroups() throws Exception {
+
+        authentication.mGroupsEnable = false;
+
+        authentication.authenticateUser(conn, new AuthCredentials(), new AuthToken());
+
+        assertArrayEquals(new String[] { "mail", "cn", "jpegPhoto" }, authentication.attrs);
+    }
+
+    @Test
+    public void testAuthenticateUserWithAllAttributes() throws Exception {
+
+        authentication.mGroupsEnable = true;
+        authentication.mLdapAttrs = null;
+
+        authentication.authenticateUser(conn, new AuthCredentials(), new AuthToken());
+
+        // all attributes are retrieved
+        assertNull(authentication.attrs);
+    }
+
+    @Test
+    public void testAuthenticateWithGroups() throws Exception {
+
+        authentication.mGroupsEnable = true;
+
+        String userdn = authentication.authenticate(conn, new AuthCredentials(), new AuthToken());
+
+        assertEquals("uid=testuser,ou=people,dc=example,dc=com", userdn);
+
+        // without the bind pool only the groups are retrieved with the user entry
+        assertArrayEquals(new String[] { "memberOf" }, authentication.attrs);
+    }
+
+    @Test
+    public void testBindUserWithoutPool() throws Exception {
+
+        authentication.bindUser(conn, "uid=testuser", "password");
+
+        // the search connection is rebound as the user
+        assertEquals(List.of("uid=testuser"), conn.binds);
+    }
+
+    @Test
+    public void testBindUserWithPool() throws Exception {
+
+        authentication.mBindConnPool = bindConnPool;
+
+        authentication.bindUser(conn, "uid=testuser", "password");
+
+        assertEquals(List.of("uid=testuser"), bindConnPool.binds);
+        assertTrue(conn.binds.isEmpty());
+    }
+
+    @Test
+    public void testBindUserInvalidCredentials() throws Exception {
+
+        authentication.mBindConnPool = bindConnPool;
+        bindConnPool.exception = new LDAPException("Invalid credentials", LDAPException.INVALID_CREDENTIALS);
+
+        LDAPException e = assertThrows(LDAPException.class,
+                () -> authentication.bindUser(conn, "uid=testuser", "wrong"));
+        assertEquals(LDAPException.INVALID_CREDENTIALS, e.getLDAPResultCode());
+
+        // the search connection is not used for the bind
+        assertTrue(conn.binds.isEmpty());
+        assertTrue(conn.isConnected());
+
+        // the next bind goes through the pool again
+        bindConnPool.exception = null;
+        authentication.bindUser(conn, "uid=testuser", "password");
+
+        assertEquals(List.of("uid=testuser", "uid=testuser"), bindConnPool.binds);
+        assertTrue(conn.binds.isEmpty());
+    }
+
+    @Test
+    public void testBindUserControls() throws Exception {
+
+        LDAPControl[] controls = new LDAPControl[] {
+                new LDAPControl(DirBasedAuthentication.OID_PASSWORD_POLICY, false, null)
+        };
+
+        authentication.mBindConnPool = bindConnPool;
+        authentication.mBindControls = controls;
+
+        bindConnPool.responseControls = new LDAPControl[] {
+                new LDAPControl(DirBasedAuthentication.OID_PASSWORD_EXPIRING, false,
+                        "3600".getBytes(StandardCharsets.UTF_8)),
+                new LDAPControl(DirBasedAuthentication.OID_AUTHZID_RESPONSE, false,
+                        "dn:uid=testuser".getBytes(StandardCharsets.UTF_8))
+        };
+
+        // an expiring password is accepted
+        authentication.bindUser(conn, "uid=testuser", "password");
+
+        assertArrayEquals(controls, bindConnPool.requestControls);
+    }
+
+    @Test
+    public void testBindUserPasswordExpired() throws Exception {
+
+        authentication.mBindConnPool = bindConnPool;
+
+        bindConnPool.responseControls = new LDAPControl[] {
+                new LDAPControl(DirBasedAuthentication.OID_PASSWORD_EXPIRED, false,
+                        "0".getBytes(StandardCharsets.UTF_8))
+        };
+
+        assertThrows(EInvalidCredentials.class,
+                () -> authentication.bindUser(conn, "uid=testuser", "password"));
+    }
+}
@@ -0,0 +1,217 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cms.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Vector;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.netscape.certsrv.base.ISubsystem;
+import com.netscape.cmscore.base.ConfigStore;
+import com.netscape.cmscore.dbs.CertRecord;
+import com.netscape.cmscore.dbs.CertificateRepository;
+import com.netscape.cmscore.jobs.JobCron;
+
+public class AJobBaseTest {
+
+    static final String FILTER = "(certStatus=VALID)";
+
+    static class TestJob extends AJobBase {
+
+        Path checkpointFile;
+
+        @Override
+        public void init(ISubsystem owner, String id, String implName, ConfigStore config) {
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public String[] getConfigParams() {
+            return null;
+        }
+
+        @Override
+        protected Path getCheckpointFile() {
+            return checkpointFile;
+        }
+    }
+
+    /**
+     * Certificate repository that returns the records with
+     * serial numbers 1 to size in serial number order.
+     */
+    static class TestRepository extends CertificateRepository {
+
+        int size;
+
+        TestRepository(int size) {
+            super(null);
+            this.size = size;
+        }
+
+        @Override
+        public Enumeration<CertRecord> searchCertificates(
+                String filter,
+                int maxSize,
+                int timeLimit,
+                String sortAttribute) {
+
+            int start = 1;
+
+            String prefix = CertRecord.ATTR_ID + ">=";
+            int i = filter.indexOf(prefix);
+            if (i >= 0) {
+                i += prefix.length();
+                start = Integer.parseInt(filter.substring(i, filter.indexOf(')', i)));
+            }
+
+            Vector<CertRecord> records = new Vector<>();
+            for (int n = start; n <= size && records.size() < maxSize; n++) {
+                records.add(new CertRecord(BigInteger.valueOf(n), null, null));
+            }
+
+            return records.elements();
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    TestJob job;
+    TestRepository repository = new TestRepository(25);
+    List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws Exception {
+
+        job = new TestJob();
+        job.mId = "testJob";
+        job.mConfig = new ConfigStore();
+        job.mConfig.putInteger(AJobBase.PROP_PAGE_SIZE, 10);
+        job.checkpointFile = folder.getRoot().toPath().resolve("jobs").resolve("testJob.checkpoint");
+    }
+
+    void process() throws Exception {
+        job.processCertRecords(repository, FILTER, false, record -> {
+            handled.add(record.getSerialNumber().intValue());
+        });
+    }
+
+    @Test
+    public void testClearCheckpointOnCompletion() throws Exception {
+
+        job.mRunStartTime = System.currentTimeMillis();
+        job.saveCheckpoint(BigInteger.valueOf(21));
+        assertTrue(Files.exists(job.checkpointFile));
+
+        process();
+
+        // resumed from the checkpoint
+        assertEquals(5, handled.size());
+        assertEquals(21, (int) handled.get(0));
+        assertEquals(5, job.getProcessedCount());
+
+        assertFalse(Files.exists(job.checkpointFile));
+    }
+
+    @Test
+    public void testResumeAfterStop() throws Exception {
+
+        // stop the job during the first page
+        job.processCertRecords(repository, FILTER, false, record -> {
+            handled.add(record.getSerialNumber().intValue());
+            if (handled.size() == 5) job.stop();
+        });
+
+        // the current page is completed before stopping
+        assertEquals(10, handled.size());
+        assertTrue(Files.exists(job.checkpointFile));
+
+        job.stopped = false;
+        handled.clear();
+
+        process();
+
+        assertEquals(15, handled.size());
+        assertEquals(11, (int) handled.get(0));
+        assertEquals(25, (int) handled.get(14));
+        assertFalse(Files.exists(job.checkpointFile));
+    }
+
+    @Test
+    public void testStaleCheckpoint() throws Exception {
+
+        job.mJobCron = new JobCron("0 * * * *");
+
+        // checkpoint left by a run three hours ago
+        job.mRunStartTime = System.currentTimeMillis() - 3 * 60 * 60 * 1000L;
+        job.saveCheckpoint(BigInteger.valueOf(21));
+
+        process();
+
+        // all records are processed
+        assertEquals(25, handled.size());
+        assertEquals(1, (int) handled.get(0));
+        assertFalse(Files.exists(job.checkpointFile));
+    }
+
+    @Test
+    public void testIsStaleCheckpoint() throws Exception {
+
+        // hourly job
+        job.mJobCron = new JobCron("0 * * * *");
+
+        Calendar cal = Calendar.getInstance();
+        cal.set(2022, Calendar.MARCH, 1, 10, 0, 1);
+        long runStartTime = cal.getTimeInMillis();
+
+        // the next scheduled run resumes the checkpoint
+        cal.set(Calendar.HOUR_OF_DAY, 11);
+        assertFalse(job.isStaleCheckpoint(runStartTime, cal.getTimeInMillis()));
+
+        cal.set(Calendar.MINUTE, 59);
+        assertFalse(job.isStaleCheckpoint(runStartTime, cal.getTimeInMillis()));
+
+        // a scheduled run has been missed
+        cal.set(Calendar.HOUR_OF_DAY, 12);
+        cal.set(Calendar.MINUTE, 0);
+        assertTrue(job.isStaleCheckpoint(runStartTime, cal.getTimeInMillis()));
+
+        // without a cron the checkpoint is always resumed
+        job.mJobCron = null;
+        assertFalse(job.isStaleCheckpoint(runStartTime, cal.getTimeInMillis()));
+    }
+}
@@ -0,0 +1,64 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.jobs;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class JobStatsTest {
+
+    @Test
+    public void testInitialStats() {
+
+        JobStats stats = new JobStats("testJob");
+
+        assertEquals("testJob", stats.getID());
+        assertEquals(0, stats.getRuns());
+        assertEquals(0, stats.getFailures());
+        assertEquals(0, stats.getLastThroughput(), 0);
+    }
+
+    @Test
+    public void testRuns() {
+
+        JobStats stats = new JobStats("testJob");
+
+        stats.start(1000);
+        stats.finish(2000, 500, false);
+
+        assertEquals(1000, stats.getLastStartTime());
+        assertEquals(1, stats.getRuns());
+        assertEquals(0, stats.getFailures());
+        assertEquals(2000, stats.getLastDuration());
+        assertEquals(500, stats.getLastProcessed());
+        assertEquals(250, stats.getLastThroughput(), 0.001);
+
+        stats.start(5000);
+        stats.finish(1000, 100, true);
+
+        assertEquals(5000, stats.getLastStartTime());
+        assertEquals(2, stats.getRuns());
+        assertEquals(1, stats.getFailures());
+        assertEquals(1000, stats.getLastDuration());
+        assertEquals(100, stats.getLastProcessed());
+        assertEquals(3000, stats.getTotalDuration());
+        assertEquals(600, stats.getTotalProcessed());
+        assertEquals(100, stats.getLastThroughput(), 0.001);
+    }
+}
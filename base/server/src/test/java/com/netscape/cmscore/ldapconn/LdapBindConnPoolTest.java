@@ -0,0 +1,237 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.ldapconn;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netscape.certsrv.ldap.ELdapException;
+
+import netscape.ldap.LDAPConnection;
+import netscape.ldap.LDAPConstraints;
+import netscape.ldap.LDAPControl;
+import netscape.ldap.LDAPException;
+
+public class LdapBindConnPoolTest {
+
+    static class TestConnection extends LDAPConnection {
+
+        boolean connected = true;
+        List<String> binds = new ArrayList<>();
+        LDAPControl[] bindControls;
+        Deque<LDAPException> failures = new ArrayDeque<>();
+
+        @Override
+        public void authenticate(int version, String dn, String password, LDAPConstraints cons)
+                throws LDAPException {
+
+            binds.add(dn);
+            bindControls = cons.getServerControls();
+
+            LDAPException e = failures.poll();
+            if (e == null) return;
+
+            if (e.getLDAPResultCode() == LDAPException.SERVER_DOWN) {
+                connected = false;
+            }
+
+            throw e;
+        }
+
+        @Override
+        public LDAPControl[] getResponseControls() {
+            return bindControls;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public void disconnect() throws LDAPException {
+            connected = false;
+        }
+    }
+
+    static class TestPool extends LdapBindConnPool {
+
+        List<TestConnection> conns = new ArrayList<>();
+        Deque<LDAPException> failures = new ArrayDeque<>();
+
+        TestPool(int maxConns) throws Exception {
+            super("test");
+            init(maxConns);
+        }
+
+        @Override
+        protected LDAPConnection createConn() throws LDAPException {
+
+            LDAPException e = failures.poll();
+            if (e != null) throw e;
+
+            TestConnection conn = new TestConnection();
+            conns.add(conn);
+            return conn;
+        }
+    }
+
+    TestPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new TestPool(2);
+    }
+
+    @Test
+    public void testReuseConnection() throws Exception {
+
+        pool.bind("uid=user1", "password", null);
+        pool.bind("uid=user2", "password", null);
+
+        assertEquals(1, pool.conns.size());
+
+        TestConnection conn = pool.conns.get(0);
+        assertEquals(List.of("uid=user1", "uid=user2"), conn.binds);
+    }
+
+    @Test
+    public void testReuseAfterInvalidCredentials() throws Exception {
+
+        pool.bind("uid=user1", "password", null);
+
+        TestConnection conn = pool.conns.get(0);
+        conn.failures.add(new LDAPException("Invalid credentials", LDAPException.INVALID_CREDENTIALS));
+
+        LDAPException e = assertThrows(LDAPException.class,
+                () -> pool.bind("uid=user2", "wrong", null));
+        assertEquals(LDAPException.INVALID_CREDENTIALS, e.getLDAPResultCode());
+
+        // the failed bind does not close the connection
+        assertTrue(conn.isConnected());
+
+        pool.bind("uid=user2", "password", null);
+
+        assertEquals(1, pool.conns.size());
+        assertEquals(List.of("uid=user1", "uid=user2", "uid=user2"), conn.binds);
+    }
+
+    @Test
+    public void testReconnectAfterServerDown() throws Exception {
+
+        pool.bind("uid=user1", "password", null);
+
+        // the server closed the idle connection
+        TestConnection conn1 = pool.conns.get(0);
+        conn1.failures.add(new LDAPException("Server down", LDAPException.SERVER_DOWN));
+
+        pool.bind("uid=user2", "password", null);
+
+        // the bind is retried once on a new connection
+        assertEquals(2, pool.conns.size());
+        assertFalse(conn1.isConnected());
+
+        TestConnection conn2 = pool.conns.get(1);
+        assertEquals(List.of("uid=user2"), conn2.binds);
+
+        // the new connection replaces the closed one in the pool
+        pool.bind("uid=user3", "password", null);
+
+        assertEquals(2, pool.conns.size());
+        assertEquals(List.of("uid=user2", "uid=user3"), conn2.binds);
+    }
+
+    @Test
+    public void testServerDownAfterRetry() throws Exception {
+
+        pool.bind("uid=user1", "password", null);
+
+        TestConnection conn1 = pool.conns.get(0);
+        conn1.failures.add(new LDAPException("Server down", LDAPException.SERVER_DOWN));
+        pool.failures.add(new LDAPException("Connect error", LDAPException.CONNECT_ERROR));
+
+        LDAPException e = assertThrows(LDAPException.class,
+                () -> pool.bind("uid=user2", "password", null));
+        assertEquals(LDAPException.CONNECT_ERROR, e.getLDAPResultCode());
+
+        // the pool recovers once the server is back
+        pool.bind("uid=user3", "password", null);
+
+        assertEquals(2, pool.conns.size());
+        assertEquals(List.of("uid=user3"), pool.conns.get(1).binds);
+    }
+
+    @Test
+    public void testDiscardClosedConnection() throws Exception {
+
+        pool.bind("uid=user1", "password", null);
+
+        TestConnection conn1 = pool.conns.get(0);
+        conn1.disconnect();
+
+        pool.bind("uid=user2", "password", null);
+
+        assertEquals(2, pool.conns.size());
+        assertEquals(List.of("uid=user1"), conn1.binds);
+        assertEquals(List.of("uid=user2"), pool.conns.get(1).binds);
+    }
+
+    @Test
+    public void testControls() throws Exception {
+
+        LDAPControl control = new LDAPControl("1.2.3.4", false, null);
+        LDAPControl[] controls = new LDAPControl[] { control };
+
+        // the response controls of the test connection are the request controls
+        LDAPControl[] responseControls = pool.bind("uid=user1", "password", controls);
+
+        assertArrayEquals(controls, responseControls);
+        assertSame(control, pool.conns.get(0).bindControls[0]);
+    }
+
+    @Test
+    public void testReset() throws Exception {
+
+        pool.bind("uid=user1", "password", null);
+
+        TestConnection conn1 = pool.conns.get(0);
+        pool.reset();
+
+        assertFalse(conn1.isConnected());
+
+        pool.bind("uid=user2", "password", null);
+        assertEquals(2, pool.conns.size());
+    }
+
+    @Test
+    public void testInvalidMaxConns() throws Exception {
+        assertThrows(ELdapException.class, () -> new TestPool(0));
+    }
+}
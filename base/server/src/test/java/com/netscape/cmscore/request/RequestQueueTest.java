@@ -1,10 +1,14 @@
 package com.netscape.cmscore.request;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 
 import com.netscape.certsrv.base.EBaseException;
+import com.netscape.certsrv.request.RequestId;
+import com.netscape.certsrv.request.RequestStatus;
 import com.netscape.cmscore.test.CMSBaseTestCase;
 
 import junit.framework.Test;
@@ -50,6 +54,37 @@ public class RequestQueueTest extends CMSBaseTestCase {
         assertTrue(request.getExtDataKeysCalled);
     }
 
+    public void testNotifyAfterDeferredUpdate() throws EBaseException {
+
+        List<String> events = new ArrayList<>();
+
+        RequestRepository repository = new RequestRepository(dbSubsystem, null) {
+            @Override
+            protected void commitRequest(Request r) {
+                events.add("commit " + r.getRequestStatus());
+            }
+        };
+        repository.writeBehind = true;
+
+        RequestQueue queue = new RequestQueue(
+                dbSubsystem,
+                repository,
+                null,
+                r -> true,
+                r -> events.add("notify " + r.getRequestStatus()),
+                null);
+
+        Request request = new Request(new RequestId(1));
+        queue.processRequest(request);
+
+        // the state transitions are written once,
+        // before the notifier is called
+        assertEquals(
+                Arrays.asList("commit " + RequestStatus.COMPLETE, "notify " + RequestStatus.COMPLETE),
+                events);
+        assertFalse(request.mDeferUpdates);
+    }
+
     static class RequestStub extends RequestDefaultStub {
         private static final long serialVersionUID = -9058189963961484835L;
 
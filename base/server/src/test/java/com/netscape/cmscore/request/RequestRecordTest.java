@@ -102,6 +102,26 @@ public class RequestRecordTest extends CMSBaseTestCase {
         assertEquals(mods.addExtDataObject, request.mExtData);
     }
 
+    public void testModModifiedExtDataOnly() throws EBaseException {
+        request.setExtData("foo", "bar");
+        request.setExtData("baz", "qux");
+        request.clearModifiedExtData();
+
+        ModificationSetStub mods = new ModificationSetStub();
+        RequestRecord.mod(mods, request);
+        assertFalse(mods.addCalledWithExtData);
+
+        request.setExtData("foo", "bar2");
+
+        mods = new ModificationSetStub();
+        RequestRecord.mod(mods, request);
+
+        assertTrue(mods.addCalledWithExtData);
+        Hashtable<?, ?> extData = (Hashtable<?, ?>) mods.addExtDataObject;
+        assertEquals(1, extData.size());
+        assertEquals("bar2", extData.get("foo"));
+    }
+
     public void testRegister() throws EDBException {
         DBSubsystemStub db = new DBSubsystemStub();
 
@@ -0,0 +1,208 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmscore.selftests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.netscape.certsrv.logging.ILogEventListener;
+import com.netscape.certsrv.selftests.ESelfTestException;
+import com.netscape.certsrv.selftests.ISelfTest;
+import com.netscape.certsrv.selftests.ISelfTestSubsystem;
+import com.netscape.cmscore.base.ConfigStore;
+
+public class SelfTestRunnerTest {
+
+    interface Body {
+        void run() throws Exception;
+    }
+
+    static class TestSelfTest implements ISelfTest {
+
+        String name;
+        Body body;
+
+        TestSelfTest(String name, Body body) {
+            this.name = name;
+            this.body = body;
+        }
+
+        @Override
+        public void initSelfTest(ISelfTestSubsystem subsystem, String instanceName, ConfigStore parameters) {
+        }
+
+        @Override
+        public void startupSelfTest() {
+        }
+
+        @Override
+        public void shutdownSelfTest() {
+        }
+
+        @Override
+        public String getSelfTestName() {
+            return name;
+        }
+
+        @Override
+        public ConfigStore getSelfTestConfigStore() {
+            return null;
+        }
+
+        @Override
+        public String getSelfTestDescription(Locale locale) {
+            return name;
+        }
+
+        @Override
+        public void runSelfTest(ILogEventListener logger) throws Exception {
+            body.run();
+        }
+    }
+
+    SelfTestRunner runner;
+
+    @After
+    public void tearDown() {
+        if (runner != null) runner.shutdown();
+    }
+
+    Map<String, ISelfTest> createTests(Object... args) {
+        Map<String, ISelfTest> tests = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            String name = (String) args[i];
+            tests.put(name, new TestSelfTest(name, (Body) args[i + 1]));
+        }
+        return tests;
+    }
+
+    @Test
+    public void testResultsInOrder() throws Exception {
+
+        runner = new SelfTestRunner(4, 0, 0);
+
+        // the first tests finish last
+        Map<String, ISelfTest> tests = createTests(
+                "test1", (Body) () -> Thread.sleep(300),
+                "test2", (Body) () -> Thread.sleep(200),
+                "test3", (Body) () -> Thread.sleep(100),
+                "test4", (Body) () -> { });
+
+        Map<String, SelfTestRunner.Result> results = runner.run(tests, null, false);
+
+        List<String> names = new ArrayList<>(results.keySet());
+        assertEquals(List.of("test1", "test2", "test3", "test4"), names);
+
+        for (SelfTestRunner.Result result : results.values()) {
+            assertTrue(result.isPassed());
+            assertFalse(result.isCached());
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+
+        runner = new SelfTestRunner(2, 0, 0);
+
+        Exception exception = new ESelfTestException("critical failure");
+
+        Map<String, ISelfTest> tests = createTests(
+                "test1", (Body) () -> { },
+                "test2", (Body) () -> { throw exception; },
+                "test3", (Body) () -> { });
+
+        Map<String, SelfTestRunner.Result> results = runner.run(tests, null, false);
+
+        assertTrue(results.get("test1").isPassed());
+
+        // the failure is reported with the original exception
+        SelfTestRunner.Result result = results.get("test2");
+        assertFalse(result.isPassed());
+        assertSame(exception, result.getException());
+
+        // the other tests are still executed
+        assertTrue(results.get("test3").isPassed());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+
+        runner = new SelfTestRunner(1, 1, 0);
+
+        // with a single thread test2 and test3 can only start
+        // after test1 has timed out
+        Map<String, ISelfTest> tests = createTests(
+                "test1", (Body) () -> Thread.sleep(60000),
+                "test2", (Body) () -> Thread.sleep(700),
+                "test3", (Body) () -> Thread.sleep(700));
+
+        long start = System.currentTimeMillis();
+        Map<String, SelfTestRunner.Result> results = runner.run(tests, null, false);
+        long duration = System.currentTimeMillis() - start;
+
+        SelfTestRunner.Result result1 = results.get("test1");
+        assertFalse(result1.isPassed());
+        assertTrue(result1.getException() instanceof ESelfTestException);
+        assertTrue(result1.getDuration() >= 1000);
+
+        // the timeout of the queued tests starts when they start
+        // running, so they are not affected by the hung test
+        SelfTestRunner.Result result2 = results.get("test2");
+        assertTrue(result2.isPassed());
+        assertTrue(result2.getTimestamp() >= result1.getTimestamp() + 1000);
+
+        SelfTestRunner.Result result3 = results.get("test3");
+        assertTrue(result3.isPassed());
+
+        assertTrue(duration < 60000);
+    }
+
+    @Test
+    public void testCache() throws Exception {
+
+        runner = new SelfTestRunner(1, 0, 60);
+
+        int[] counter = new int[1];
+        Map<String, ISelfTest> tests = createTests(
+                "test1", (Body) () -> counter[0]++);
+
+        runner.run(tests, null, true);
+        SelfTestRunner.Result result = runner.run(tests, null, true).get("test1");
+
+        assertNotNull(result);
+        assertTrue(result.isCached());
+        assertEquals(1, counter[0]);
+
+        // cached results are ignored if not requested
+        result = runner.run(tests, null, false).get("test1");
+        assertFalse(result.isCached());
+        assertEquals(2, counter[0]);
+    }
+}
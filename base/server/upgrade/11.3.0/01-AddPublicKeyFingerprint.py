@@ -0,0 +1,54 @@
+#
+# Copyright Red Hat, Inc.
+#
+# SPDX-License-Identifier: GPL-2.0-or-later
+#
+from __future__ import absolute_import
+import logging
+
+import pki.server.upgrade
+
+logger = logging.getLogger(__name__)
+
+
+class AddPublicKeyFingerprint(pki.server.upgrade.PKIServerUpgradeScriptlet):
+
+    def __init__(self):
+        super(AddPublicKeyFingerprint, self).__init__()
+        self.message = 'Add public key fingerprint to KRA database'
+
+    def upgrade_subsystem(self, instance, subsystem):
+
+        if subsystem.name != 'kra':
+            return
+
+        if 'dbs.key.fingerprint.enable' in subsystem.config:
+            return
+
+        try:
+            # add publicKeyFingerprint attribute into the schema,
+            # then create and build the index for the new attribute
+            logger.info('Updating KRA database schema and indexes')
+            subsystem.init_database(setup_schema=True, rebuild_indexes=True)
+
+            # add publicKeyFingerprint into existing key records
+            logger.info('Updating key records')
+            subsystem.upgrade_database()
+
+        except Exception as e:  # pylint: disable=broad-except
+            logger.warning('Unable to upgrade KRA database: %s', e)
+            logger.warning('Update the KRA database schema and indexes, '
+                           'run pki-server kra-db-upgrade, then set '
+                           'dbs.key.fingerprint.enable=true and '
+                           'dbs.key.fingerprint.fallback=false in %s',
+                           subsystem.cs_conf)
+            return
+
+        self.backup(subsystem.cs_conf)
+
+        subsystem.config['dbs.key.fingerprint.enable'] = 'true'
+
+        # all key records have been backfilled, so lookups no longer
+        # need to fall back to the unindexed publicKeyData search
+        subsystem.config['dbs.key.fingerprint.fallback'] = 'false'
+        subsystem.save()
@@ -52,6 +52,11 @@ public class SelfTestRunCLI extends CommandCLI {
         String status = result.getStatus();
         System.out.println("  Status: " + status);
 
+        Long duration = result.getDuration();
+        if (duration != null) {
+            System.out.println("  Duration (ms): " + duration);
+        }
+
         String output = result.getOutput();
         if (StringUtils.isNotEmpty(output)) {
             System.out.println("  Output:");
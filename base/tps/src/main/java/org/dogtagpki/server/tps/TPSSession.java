@@ -108,6 +108,11 @@ public class TPSSession {
 
         int result = EndOpMsg.RESULT_ERROR;
         BeginOpMsg beginOp = (BeginOpMsg) firstMsg;
+
+        TPSEngine engine = TPSEngine.getInstance();
+        TPSSubsystem tps = (TPSSubsystem) engine.getSubsystem(TPSSubsystem.ID);
+        tps.tdb.tdbBeginSession();
+
         try {
             switch (op_type) {
             case OP_FORMAT:
@@ -149,6 +154,17 @@ public class TPSSession {
             // We get here we are done.
             throw e;
 
+        } finally {
+            // write the token changes before reporting the result to the client
+            try {
+                tps.tdb.tdbEndSession();
+            } catch (Exception e) {
+                logger.error("TPSSession.process: Unable to update token database: " + e.getMessage(), e);
+                if (status == EndOpMsg.TPSStatus.STATUS_NO_ERROR) {
+                    status = EndOpMsg.TPSStatus.STATUS_ERROR_UPDATE_TOKENDB_FAILED;
+                }
+                result = EndOpMsg.RESULT_ERROR;
+            }
         }
 
         EndOpMsg endOp = new EndOpMsg(firstMsg.getOpType(), result, status);
@@ -31,6 +31,7 @@ import org.dogtagpki.server.tps.config.ConnectorDatabase;
 import org.dogtagpki.server.tps.config.ProfileDatabase;
 import org.dogtagpki.server.tps.config.ProfileMappingDatabase;
 import org.dogtagpki.server.tps.dbs.ActivityDatabase;
+import org.dogtagpki.server.tps.dbs.ActivityWriter;
 import org.dogtagpki.server.tps.dbs.TPSCertDatabase;
 import org.dogtagpki.server.tps.dbs.TPSCertRecord;
 import org.dogtagpki.server.tps.dbs.TokenDatabase;
@@ -112,6 +113,15 @@ public class TPSSubsystem implements IAuthority {
         String activityDatabaseDN = cs.getString("tokendb.activityBaseDN");
         activityDatabase = new ActivityDatabase(dbSubsystem, activityDatabaseDN);
 
+        boolean activityAsync = cs.getBoolean("tokendb.activity.async.enable", false);
+        if (activityAsync) {
+            int queueSize = cs.getInteger("tokendb.activity.async.queueSize", 10000);
+            int batchSize = cs.getInteger("tokendb.activity.async.batchSize", 100);
+            ActivityWriter activityWriter = new ActivityWriter(activityDatabase, queueSize, batchSize);
+            activityWriter.start();
+            activityDatabase.setWriter(activityWriter);
+        }
+
         String certDatabaseDN = cs.getString("tokendb.certBaseDN");
         certDatabase = new TPSCertDatabase(dbSubsystem, certDatabaseDN);
 
@@ -141,6 +151,7 @@ public class TPSSubsystem implements IAuthority {
 
         configureTPSConnection(cs);
         tdb = new TPSTokendb(this);
+        tdb.setBatchEnabled(cs.getBoolean("tokendb.batchUpdates.enable", false));
 
         tpsEngine = new TPSEngine();
         tpsEngine.init();
@@ -307,6 +318,11 @@ public class TPSSubsystem implements IAuthority {
 
     @Override
     public void shutdown() {
+        ActivityWriter activityWriter = activityDatabase == null ? null : activityDatabase.getWriter();
+        if (activityWriter != null) {
+            activityWriter.stop();
+            activityDatabase.setWriter(null);
+        }
     }
 
     @Override
@@ -24,11 +24,14 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.dogtagpki.server.tps.cms.CARemoteRequestHandler;
 import org.dogtagpki.server.tps.cms.CARevokeCertResponse;
 import org.dogtagpki.server.tps.dbs.ActivityDatabase;
+import org.dogtagpki.server.tps.dbs.ActivityRecord;
+import org.dogtagpki.server.tps.dbs.ActivityWriter;
 import org.dogtagpki.server.tps.dbs.TPSCertRecord;
 import org.dogtagpki.server.tps.dbs.TokenCertStatus;
 import org.dogtagpki.server.tps.dbs.TokenRecord;
@@ -48,8 +51,22 @@ public class TPSTokendb {
 
     public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TPSTokendb.class);
 
+    /*
+     * Changes accumulated during a token operation. Token updates are
+     * coalesced per token and activities are kept in order; both are
+     * written when the operation ends.
+     */
+    static class Session {
+        int depth;
+        Map<String, TokenRecord> tokenRecords = new LinkedHashMap<>();
+        List<ActivityRecord> activityRecords = new ArrayList<>();
+    }
+
     private TPSSubsystem tps;
 
+    private boolean batchEnabled;
+    private ThreadLocal<Session> sessions = new ThreadLocal<>();
+
     public TPSTokendb(TPSSubsystem tps) throws EBaseException {
         if (tps == null) {
             String msg = "TPStokendb.TPSTokendb: tps cannot be null";
@@ -59,6 +76,120 @@ public class TPSTokendb {
         this.tps = tps;
     }
 
+    public boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    public void setBatchEnabled(boolean batchEnabled) {
+        this.batchEnabled = batchEnabled;
+    }
+
+    /*
+     * tdbBeginSession starts a unit of work for the current thread;
+     * token updates and activities will be held until tdbEndSession.
+     * Sessions can be nested, only the outermost one writes the changes.
+     */
+    public void tdbBeginSession() {
+        if (!batchEnabled) {
+            return;
+        }
+
+        Session session = sessions.get();
+        if (session == null) {
+            session = new Session();
+            sessions.set(session);
+        }
+        session.depth++;
+    }
+
+    /*
+     * tdbEndSession writes the changes accumulated since tdbBeginSession.
+     * It must be called in a finally block so the changes are written
+     * regardless of the operation result. If the token updates cannot
+     * be written the exception is thrown so the operation can be
+     * reported as failed; the activities are written in any case.
+     */
+    public void tdbEndSession() throws Exception {
+        Session session = sessions.get();
+        if (session == null) {
+            return;
+        }
+
+        if (--session.depth > 0) {
+            return;
+        }
+
+        sessions.remove();
+
+        try {
+            flushTokenRecords(session);
+        } finally {
+            flushActivityRecords(session);
+        }
+    }
+
+    private void flushTokenRecords(Session session) throws Exception {
+        if (session.tokenRecords.isEmpty()) {
+            return;
+        }
+
+        logger.debug("TPSTokendb: writing " + session.tokenRecords.size() + " token update(s)");
+
+        try {
+            for (TokenRecord tokenRecord : session.tokenRecords.values()) {
+                writeTokenEntry(tokenRecord);
+            }
+        } finally {
+            session.tokenRecords.clear();
+        }
+    }
+
+    private void flushActivityRecords(Session session) {
+        if (session.activityRecords.isEmpty()) {
+            return;
+        }
+
+        logger.debug("TPSTokendb: writing " + session.activityRecords.size() + " activities");
+
+        try {
+            ActivityWriter writer = tps.activityDatabase.getWriter();
+            if (writer != null) {
+                writer.submit(session.activityRecords);
+            } else {
+                tps.activityDatabase.addRecords(session.activityRecords);
+            }
+        } catch (Exception e) {
+            logger.warn("TPSTokendb: tokendb activity logging failure: " + e.getMessage(), e);
+        } finally {
+            session.activityRecords.clear();
+        }
+    }
+
+    /*
+     * flushes pending token updates before searching the token database
+     * so the search results reflect the current operation
+     */
+    private void flushPendingTokenRecords() throws Exception {
+        Session session = sessions.get();
+        if (session != null) {
+            flushTokenRecords(session);
+        }
+    }
+
+    private void logActivity(
+            String ip, String tokenID, String op, String result,
+            String msg, String userID, String tokenType) throws Exception {
+
+        Session session = sessions.get();
+        if (session == null) {
+            tps.activityDatabase.log(ip, tokenID, op, result, msg, userID, tokenType);
+            return;
+        }
+
+        session.activityRecords.add(tps.activityDatabase.createRecord(
+                ip, tokenID, op, result, msg, userID, tokenType));
+    }
+
     public boolean isTransitionAllowed(TokenRecord tokenRecord, TokenStatus newState) throws Exception {
         boolean result = false;
         TokenStatus currentTokenStatus = tokenRecord.getTokenStatus();
@@ -84,7 +215,7 @@ public class TPSTokendb {
     public void tdbActivity(
             String op, TokenRecord tokenRecord, String ip, String msg, String result) {
         try {
-            tps.activityDatabase.log(
+            logActivity(
                     ip,
                     (tokenRecord != null)? tokenRecord.getId():null,
                     op,
@@ -103,7 +234,7 @@ public class TPSTokendb {
     public void tdbActivity(
             String op, TokenRecord tokenRecord, String ip, String msg, String result, String uid) {
         try {
-            tps.activityDatabase.log(
+            logActivity(
                     ip,
                     (tokenRecord != null)? tokenRecord.getId():null,
                     op,
@@ -118,6 +249,11 @@ public class TPSTokendb {
     }
 
     public boolean isTokenPresent(String cuid) {
+        Session session = sessions.get();
+        if (session != null && session.tokenRecords.containsKey(cuid)) {
+            return true;
+        }
+
         boolean present = false;
         try {
             tps.tokenDatabase.getRecord(cuid);
@@ -131,6 +267,13 @@ public class TPSTokendb {
 
     public TokenRecord tdbGetTokenEntry(String cuid)
             throws Exception {
+        Session session = sessions.get();
+        if (session != null) {
+            TokenRecord tokenRecord = session.tokenRecords.get(cuid);
+            if (tokenRecord != null) {
+                return tokenRecord;
+            }
+        }
         return tps.tokenDatabase.getRecord(cuid);
     }
 
@@ -142,6 +285,8 @@ public class TPSTokendb {
     public ArrayList<TokenRecord> tdbFindTokenRecordsByUID(String uid)
             throws Exception {
 
+        flushPendingTokenRecords();
+
         // search for tokens with (userID=<UID>) filter which will be
         // translated into (tokenUserID=<UID>) LDAP filter as defined
         // in TokenRecord
@@ -211,6 +356,27 @@ public class TPSTokendb {
             throws Exception {
         String method = "TPSTokendb.tdbUpdateTokenEntry:";
         String id = tokenRecord.getId();
+
+        Session session = sessions.get();
+        if (session != null) {
+            if (!isTokenPresent(id)) {
+                String logMsg = method + " token entry not found: " + id;
+                logger.error(logMsg);
+                throw new TPSException(logMsg);
+            }
+            // the last update of the token in this session will be written
+            logger.debug(method + " deferring update with status: " + tokenRecord.getTokenStatus());
+            session.tokenRecords.put(id, tokenRecord);
+            return;
+        }
+
+        writeTokenEntry(tokenRecord);
+    }
+
+    private void writeTokenEntry(TokenRecord tokenRecord)
+            throws Exception {
+        String method = "TPSTokendb.tdbUpdateTokenEntry:";
+        String id = tokenRecord.getId();
         TokenRecord existingTokenRecord;
         try {
             existingTokenRecord = tps.tokenDatabase.getRecord(id);
@@ -19,12 +19,14 @@
 package org.dogtagpki.server.tps.dbs;
 
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.Map;
 
 import org.dogtagpki.tps.main.Util;
 
 import com.netscape.certsrv.base.EBaseException;
+import com.netscape.cmscore.dbs.DBSSession;
 import com.netscape.cmscore.dbs.DBSubsystem;
 import com.netscape.cmscore.dbs.LDAPDatabase;
 import com.netscape.cmsutil.ldap.LDAPUtil;
@@ -54,13 +56,48 @@ public class ActivityDatabase extends LDAPDatabase<ActivityRecord> {
 
     public final static String OP_KEY_CHANGEOVER = "key_changeover";
 
+    private ActivityWriter writer;
+
     public ActivityDatabase(DBSubsystem dbSubsystem, String baseDN) throws EBaseException {
         super("Activity", dbSubsystem, baseDN, ActivityRecord.class);
     }
 
+    public ActivityWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * Sets the writer used to store activity records asynchronously.
+     * If null, the activity records will be stored synchronously.
+     */
+    public void setWriter(ActivityWriter writer) {
+        this.writer = writer;
+    }
+
     public ActivityRecord log(
             String ip, String tokenID, String operation, String result,
             String message, String userID, String tokenType) throws Exception {
+
+        ActivityRecord activityRecord = createRecord(
+                ip, tokenID, operation, result, message, userID, tokenType);
+
+        if (writer != null) {
+            writer.submit(activityRecord);
+        } else {
+            super.addRecord(activityRecord.getId(), activityRecord);
+        }
+
+        return activityRecord;
+    }
+
+    /**
+     * Creates an activity record without storing it. The record ID
+     * and date are assigned at creation time so that the record can
+     * be stored later without changing its position in the log.
+     */
+    public ActivityRecord createRecord(
+            String ip, String tokenID, String operation, String result,
+            String message, String userID, String tokenType) {
         Calendar c = Calendar.getInstance();
 
         String timeString = Util.getTimeStampString(true);
@@ -79,11 +116,35 @@ public class ActivityDatabase extends LDAPDatabase<ActivityRecord> {
         activityRecord.setType(tokenType);
         activityRecord.setDate(c.getTime());
 
-        super.addRecord(id, activityRecord);
-
         return activityRecord;
     }
 
+    /**
+     * Stores the activity records as created (i.e. without resetting
+     * the date) using a single database session. Records that cannot
+     * be stored are logged and skipped.
+     *
+     * @return number of records stored
+     */
+    public int addRecords(Collection<ActivityRecord> activityRecords) throws Exception {
+
+        int count = 0;
+
+        try (DBSSession session = dbSubsystem.createSession()) {
+            for (ActivityRecord activityRecord : activityRecords) {
+                String dn = createDN(activityRecord.getId());
+                try {
+                    session.add(dn, activityRecord);
+                    count++;
+                } catch (EBaseException e) {
+                    logger.warn("ActivityDatabase: Unable to add " + dn + ": " + e.getMessage(), e);
+                }
+            }
+        }
+
+        return count;
+    }
+
     @Override
     public void addRecord(String id, ActivityRecord activityRecord) throws Exception {
         activityRecord.setDate(new Date());
@@ -0,0 +1,153 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+
+package org.dogtagpki.server.tps.dbs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class stores activity records in the background so that
+ * token operations do not wait for the activity log. Records are
+ * queued in a bounded buffer and written in batches, each batch
+ * using a single database session. If the buffer is full the
+ * record is written synchronously so that no activity is lost.
+ */
+public class ActivityWriter implements Runnable {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ActivityWriter.class);
+
+    private ActivityDatabase database;
+    private BlockingQueue<ActivityRecord> queue;
+    private int batchSize;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    public ActivityWriter(ActivityDatabase database, int queueSize, int batchSize) {
+        this.database = database;
+        this.queue = new LinkedBlockingQueue<>(queueSize < 1 ? 1 : queueSize);
+        this.batchSize = batchSize < 1 ? 1 : batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the number of records waiting to be stored.
+     */
+    public int getPendingRecords() {
+        return queue.size();
+    }
+
+    public synchronized void start() {
+
+        if (thread != null) return;
+
+        logger.info("ActivityWriter: Starting activity writer");
+        logger.info("ActivityWriter: - queue size: " + (queue.size() + queue.remainingCapacity()));
+        logger.info("ActivityWriter: - batch size: " + batchSize);
+
+        running = true;
+        thread = new Thread(this, "ActivityWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void submit(ActivityRecord activityRecord) throws Exception {
+
+        if (running && queue.offer(activityRecord)) return;
+
+        logger.debug("ActivityWriter: Storing activity " + activityRecord.getId() + " synchronously");
+        database.addRecords(Collections.singletonList(activityRecord));
+    }
+
+    public void submit(Collection<ActivityRecord> activityRecords) throws Exception {
+        for (ActivityRecord activityRecord : activityRecords) {
+            submit(activityRecord);
+        }
+    }
+
+    @Override
+    public void run() {
+
+        List<ActivityRecord> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                ActivityRecord activityRecord = queue.poll(1, TimeUnit.SECONDS);
+                if (activityRecord == null) continue;
+
+                batch.add(activityRecord);
+                queue.drainTo(batch, batchSize - 1);
+
+                write(batch);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<ActivityRecord> batch) {
+        try {
+            int count = database.addRecords(batch);
+            logger.debug("ActivityWriter: Stored " + count + " of " + batch.size() + " activities");
+
+        } catch (Exception e) {
+            logger.warn("ActivityWriter: Unable to store " + batch.size() + " activities: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops the background thread and stores the remaining records.
+     */
+    public synchronized void stop() {
+
+        if (thread == null) return;
+
+        logger.info("ActivityWriter: Stopping activity writer");
+
+        // the thread will exit once the queue is empty
+        running = false;
+
+        try {
+            thread.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        thread = null;
+
+        List<ActivityRecord> batch = new ArrayList<>();
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 
 import org.mozilla.jss.asn1.ASN1Template;
+import org.mozilla.jss.asn1.ASN1Util;
 import org.mozilla.jss.asn1.ASN1Value;
 import org.mozilla.jss.asn1.BIT_STRING;
 import org.mozilla.jss.asn1.EXPLICIT;
@@ -76,6 +77,38 @@ public class BasicOCSPResponse implements Response {
         _certs = resp.getCerts();
     }
 
+    /**
+     * Creates a response from its encoding and the ResponseData that
+     * has been signed. The signature algorithm, the signature, and the
+     * certificates are only decoded if they are needed.
+     */
+    public BasicOCSPResponse(ResponseData rd, byte data[]) {
+        mData = data;
+        _rd = rd;
+    }
+
+    private synchronized void decode() {
+
+        if (mData == null || _signAlg != null) return;
+
+        try {
+            BasicOCSPResponse resp = (BasicOCSPResponse) getTemplate().decode(new ByteArrayInputStream(mData));
+            _signAlg = resp.getSignatureAlgorithm();
+            _signature = resp.getSignature();
+            _certs = resp.getCerts();
+
+        } catch (InvalidBERException | IOException e) {
+            throw new RuntimeException("Unable to decode BasicOCSPResponse: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the DER encoding of this response.
+     */
+    public byte[] getEncoded() {
+        return mData != null ? mData : ASN1Util.encode(this);
+    }
+
     private static final Tag TAG = SEQUENCE.TAG;
 
     @Override
@@ -119,22 +152,27 @@ public class BasicOCSPResponse implements Response {
     }
 
     public AlgorithmIdentifier getSignatureAlgorithm() {
+        decode();
         return _signAlg;
     }
 
     public BIT_STRING getSignature() {
+        decode();
         return _signature;
     }
 
     public int getCertsCount() {
+        decode();
         return (_certs != null) ? _certs.length : 0;
     }
 
     public Certificate[] getCerts() {
+        decode();
         return _certs;
     }
 
     public Certificate getCertificateAt(int pos) {
+        decode();
         return (_certs != null) ? _certs[pos] : null;
     }
 
@@ -54,6 +54,7 @@ public class CertID implements ASN1Value {
     private OCTET_STRING issuerNameHash;
     private OCTET_STRING issuerKeyHash;
     private INTEGER serialNumber;
+    private byte[] serialNumberBytes;
     private SEQUENCE sequence;
 
     public AlgorithmIdentifier getHashAlgorithm() {
@@ -68,10 +69,32 @@ public class CertID implements ASN1Value {
         return issuerKeyHash;
     }
 
+    /**
+     * Returns the serial number. If the CertID was parsed from an
+     * encoded request the INTEGER is only created when needed.
+     */
     public INTEGER getSerialNumber() {
+        if (serialNumber == null) {
+            serialNumber = new INTEGER(serialNumberBytes);
+        }
         return serialNumber;
     }
 
+    /**
+     * Returns the serial number in two's complement encoding
+     * (i.e. the content of the INTEGER). If the CertID was parsed
+     * from an encoded request the bytes are taken from the request
+     * without re-encoding the serial number.
+     *
+     * The returned array is shared and must not be modified.
+     */
+    public byte[] getSerialNumberBytes() {
+        if (serialNumberBytes == null) {
+            serialNumberBytes = serialNumber.toByteArray();
+        }
+        return serialNumberBytes;
+    }
+
     ///////////////////////////////////////////////////////////////////////
     // Constructors
     ///////////////////////////////////////////////////////////////////////
@@ -79,19 +102,22 @@ public class CertID implements ASN1Value {
     public CertID(AlgorithmIdentifier hashAlgorithm,
             OCTET_STRING issuerNameHash, OCTET_STRING issuerKeyHash,
             INTEGER serialNumber) {
-        sequence = new SEQUENCE();
-
         this.hashAlgorithm = hashAlgorithm;
-        sequence.addElement(hashAlgorithm);
-
         this.issuerNameHash = issuerNameHash;
-        sequence.addElement(issuerNameHash);
-
         this.issuerKeyHash = issuerKeyHash;
-        sequence.addElement(issuerKeyHash);
-
         this.serialNumber = serialNumber;
-        sequence.addElement(serialNumber);
+    }
+
+    /**
+     * @param serialNumberBytes content of the encoded serial number
+     */
+    public CertID(AlgorithmIdentifier hashAlgorithm,
+            OCTET_STRING issuerNameHash, OCTET_STRING issuerKeyHash,
+            byte[] serialNumberBytes) {
+        this.hashAlgorithm = hashAlgorithm;
+        this.issuerNameHash = issuerNameHash;
+        this.issuerKeyHash = issuerKeyHash;
+        this.serialNumberBytes = serialNumberBytes;
     }
 
     ///////////////////////////////////////////////////////////////////////
@@ -113,6 +139,16 @@ public class CertID implements ASN1Value {
     @Override
     public void encode(Tag implicitTag, OutputStream ostream)
             throws IOException {
+
+        if (sequence == null) {
+            SEQUENCE seq = new SEQUENCE();
+            seq.addElement(hashAlgorithm);
+            seq.addElement(issuerNameHash);
+            seq.addElement(issuerKeyHash);
+            seq.addElement(getSerialNumber());
+            sequence = seq;
+        }
+
         sequence.encode(implicitTag, ostream);
     }
 
@@ -0,0 +1,310 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmsutil.ocsp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mozilla.jss.asn1.ANY;
+import org.mozilla.jss.asn1.ASN1Template;
+import org.mozilla.jss.asn1.ASN1Util;
+import org.mozilla.jss.asn1.ASN1Value;
+import org.mozilla.jss.asn1.INTEGER;
+import org.mozilla.jss.asn1.InvalidBERException;
+import org.mozilla.jss.asn1.OCTET_STRING;
+import org.mozilla.jss.asn1.SEQUENCE;
+import org.mozilla.jss.pkix.cert.Extension;
+import org.mozilla.jss.pkix.primitive.AlgorithmIdentifier;
+
+/**
+ * This class parses DER-encoded OCSP requests (RFC 6960) without
+ * going through the generic ASN.1 template engine. Only the parts
+ * of the request that are always present (the CertIDs) are parsed
+ * directly. The optional parts (requestor name, extensions, and
+ * signature) are rare and small, so they are still decoded with
+ * their templates. The hash algorithm identifiers are cached since
+ * clients use only a few of them.
+ *
+ * Requests that are not valid DER (e.g. BER with indefinite lengths)
+ * are decoded with OCSPRequest.Template.
+ */
+public class OCSPRequestParser {
+
+    public static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(OCSPRequestParser.class);
+
+    public static final int TAG_INTEGER = 0x02;
+    public static final int TAG_OCTET_STRING = 0x04;
+    public static final int TAG_SEQUENCE = 0x30;
+
+    public static final int TAG_EXPLICIT_0 = 0xA0;
+    public static final int TAG_EXPLICIT_1 = 0xA1;
+    public static final int TAG_EXPLICIT_2 = 0xA2;
+
+    public static final int MAX_CACHED_ALGORITHMS = 32;
+
+    private static final Map<ByteBuffer, AlgorithmIdentifier> algorithms = new ConcurrentHashMap<>();
+
+    private byte[] data;
+    private int pos;
+
+    // content of the last element read
+    private int start;
+    private int end;
+
+    private OCSPRequestParser(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Parses a DER-encoded OCSP request. If the request cannot be parsed
+     * as DER, it will be decoded with the ASN.1 template.
+     */
+    public static OCSPRequest parse(byte[] data) throws InvalidBERException, IOException {
+
+        try {
+            return new OCSPRequestParser(data).parseRequest();
+
+        } catch (InvalidBERException e) {
+            logger.debug("OCSPRequestParser: Unable to parse request as DER: " + e.getMessage());
+            logger.debug("OCSPRequestParser: Decoding request with ASN.1 template");
+            return (OCSPRequest) OCSPRequest.getTemplate().decode(new ByteArrayInputStream(data));
+        }
+    }
+
+    private OCSPRequest parseRequest() throws InvalidBERException, IOException {
+
+        // OCSPRequest ::= SEQUENCE {
+        //     tbsRequest              TBSRequest,
+        //     optionalSignature   [0] EXPLICIT Signature OPTIONAL }
+        int requestEnd = readElement(TAG_SEQUENCE, data.length);
+        if (requestEnd != data.length) {
+            throw new InvalidBERException("Trailing data after OCSP request");
+        }
+
+        TBSRequest tbsRequest = parseTBSRequest(requestEnd);
+
+        Signature signature = null;
+        if (pos < requestEnd) {
+            readElement(TAG_EXPLICIT_0, requestEnd);
+            signature = (Signature) decode(new Signature.Template(), start, end);
+            pos = end;
+        }
+
+        if (pos != requestEnd) {
+            throw new InvalidBERException("Invalid OCSP request");
+        }
+
+        return new OCSPRequest(tbsRequest, signature);
+    }
+
+    private TBSRequest parseTBSRequest(int limit) throws InvalidBERException, IOException {
+
+        // TBSRequest ::= SEQUENCE {
+        //     version             [0] EXPLICIT Version DEFAULT v1,
+        //     requestorName       [1] EXPLICIT GeneralName OPTIONAL,
+        //     requestList             SEQUENCE OF Request,
+        //     requestExtensions   [2] EXPLICIT Extensions OPTIONAL }
+        int tbsEnd = readElement(TAG_SEQUENCE, limit);
+
+        INTEGER version = null;
+        if (peek(tbsEnd) == TAG_EXPLICIT_0) {
+            readElement(TAG_EXPLICIT_0, tbsEnd);
+            readElement(TAG_INTEGER, end);
+            version = new INTEGER(copy(start, end));
+            pos = end;
+        }
+
+        ANY requestorName = null;
+        if (peek(tbsEnd) == TAG_EXPLICIT_1) {
+            readElement(TAG_EXPLICIT_1, tbsEnd);
+            requestorName = (ANY) decode(new ANY.Template(), start, end);
+            pos = end;
+        }
+
+        int listEnd = readElement(TAG_SEQUENCE, tbsEnd);
+        SEQUENCE requestList = new SEQUENCE();
+
+        while (pos < listEnd) {
+            requestList.addElement(parseSingleRequest(listEnd));
+        }
+
+        SEQUENCE requestExtensions = null;
+        if (peek(tbsEnd) == TAG_EXPLICIT_2) {
+            readElement(TAG_EXPLICIT_2, tbsEnd);
+            requestExtensions = (SEQUENCE) decode(
+                    new SEQUENCE.OF_Template(new Extension.Template()), start, end);
+            pos = end;
+        }
+
+        if (pos != tbsEnd) {
+            throw new InvalidBERException("Invalid TBSRequest");
+        }
+
+        return new TBSRequest(version, requestorName, requestList, requestExtensions);
+    }
+
+    private Request parseSingleRequest(int limit) throws InvalidBERException, IOException {
+
+        // Request ::= SEQUENCE {
+        //     reqCert                     CertID,
+        //     singleRequestExtensions [0] EXPLICIT Extensions OPTIONAL }
+        int requestEnd = readElement(TAG_SEQUENCE, limit);
+
+        CertID certID = parseCertID(requestEnd);
+
+        SEQUENCE extensions = null;
+        if (peek(requestEnd) == TAG_EXPLICIT_0) {
+            readElement(TAG_EXPLICIT_0, requestEnd);
+            extensions = (SEQUENCE) decode(
+                    new SEQUENCE.OF_Template(new Extension.Template()), start, end);
+            pos = end;
+        }
+
+        if (pos != requestEnd) {
+            throw new InvalidBERException("Invalid Request");
+        }
+
+        return new Request(certID, extensions);
+    }
+
+    private CertID parseCertID(int limit) throws InvalidBERException, IOException {
+
+        // CertID ::= SEQUENCE {
+        //     hashAlgorithm       AlgorithmIdentifier,
+        //     issuerNameHash      OCTET STRING,
+        //     issuerKeyHash       OCTET STRING,
+        //     serialNumber        CertificateSerialNumber }
+        int certIDEnd = readElement(TAG_SEQUENCE, limit);
+
+        int algStart = pos;
+        readElement(TAG_SEQUENCE, certIDEnd);
+        pos = end;
+        AlgorithmIdentifier hashAlgorithm = getAlgorithm(algStart, end);
+
+        readElement(TAG_OCTET_STRING, certIDEnd);
+        OCTET_STRING issuerNameHash = new OCTET_STRING(copy(start, end));
+        pos = end;
+
+        readElement(TAG_OCTET_STRING, certIDEnd);
+        OCTET_STRING issuerKeyHash = new OCTET_STRING(copy(start, end));
+        pos = end;
+
+        readElement(TAG_INTEGER, certIDEnd);
+        if (start == end) {
+            throw new InvalidBERException("Empty serial number");
+        }
+        // keep the encoded serial number for lookups that do not
+        // need a BigInteger (see CertID.getSerialNumberBytes()),
+        // the INTEGER is created by CertID.getSerialNumber() if needed
+        byte[] serialNumberBytes = copy(start, end);
+        pos = end;
+
+        if (pos != certIDEnd) {
+            throw new InvalidBERException("Invalid CertID");
+        }
+
+        return new CertID(hashAlgorithm, issuerNameHash, issuerKeyHash, serialNumberBytes);
+    }
+
+    private AlgorithmIdentifier getAlgorithm(int from, int to) throws InvalidBERException, IOException {
+
+        ByteBuffer key = ByteBuffer.wrap(data, from, to - from);
+        AlgorithmIdentifier algorithm = algorithms.get(key);
+        if (algorithm != null) return algorithm;
+
+        byte[] encoded = copy(from, to);
+        algorithm = (AlgorithmIdentifier) ASN1Util.decode(AlgorithmIdentifier.getTemplate(), encoded);
+
+        if (algorithms.size() < MAX_CACHED_ALGORITHMS) {
+            algorithms.put(ByteBuffer.wrap(encoded), algorithm);
+        }
+
+        return algorithm;
+    }
+
+    private ASN1Value decode(ASN1Template template, int from, int to) throws InvalidBERException, IOException {
+        return template.decode(new ByteArrayInputStream(data, from, to - from));
+    }
+
+    private byte[] copy(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        System.arraycopy(data, from, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Returns the tag at the current position, or -1 if
+     * the end of the enclosing element has been reached.
+     */
+    private int peek(int limit) {
+        return pos < limit ? data[pos] & 0xff : -1;
+    }
+
+    /**
+     * Reads the tag and the length of the element at the current position,
+     * stores the boundaries of its content in start and end, and moves the
+     * current position to the beginning of the content.
+     *
+     * @return the end of the element
+     */
+    private int readElement(int tag, int limit) throws InvalidBERException {
+
+        if (pos >= limit) {
+            throw new InvalidBERException("Missing element with tag 0x" + Integer.toHexString(tag));
+        }
+
+        int actualTag = data[pos++] & 0xff;
+        if (actualTag != tag) {
+            throw new InvalidBERException("Expected tag 0x" + Integer.toHexString(tag)
+                    + ", found 0x" + Integer.toHexString(actualTag));
+        }
+
+        if (pos >= limit) {
+            throw new InvalidBERException("Missing length");
+        }
+
+        int length = data[pos++] & 0xff;
+
+        if (length == 0x80) {
+            throw new InvalidBERException("Indefinite length is not allowed in DER");
+
+        } else if (length > 0x80) {
+            int count = length & 0x7f;
+            if (count > 3 || pos + count > limit) {
+                throw new InvalidBERException("Invalid length");
+            }
+
+            length = 0;
+            for (int i = 0; i < count; i++) {
+                length = (length << 8) | (data[pos++] & 0xff);
+            }
+        }
+
+        if (length > limit - pos) {
+            throw new InvalidBERException("Element exceeds enclosing element");
+        }
+
+        start = pos;
+        end = pos + length;
+
+        return end;
+    }
+}
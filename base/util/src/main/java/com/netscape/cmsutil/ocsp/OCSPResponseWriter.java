@@ -0,0 +1,207 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmsutil.ocsp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.mozilla.jss.asn1.ASN1Util;
+
+/**
+ * This class writes DER-encoded OCSP responses (RFC 6960) directly
+ * without building intermediate ASN.1 objects. The response bytes
+ * (e.g. the signed BasicOCSPResponse) are already encoded, so only
+ * the enclosing headers are generated. The headers are kept separate
+ * from the response bytes such that the response can be written to
+ * the output stream without copying it into another buffer.
+ */
+public class OCSPResponseWriter {
+
+    public static final byte TAG_BIT_STRING = 0x03;
+    public static final byte TAG_OCTET_STRING = 0x04;
+    public static final byte TAG_ENUMERATED = 0x0A;
+    public static final byte TAG_SEQUENCE = 0x30;
+    public static final byte TAG_EXPLICIT_0 = (byte) 0xA0;
+
+    private static final byte[] OCSP_BASIC = ASN1Util.encode(ResponseBytes.OCSP_BASIC);
+
+    private byte[] header;
+    private byte[] body;
+
+    public OCSPResponseWriter(OCSPResponse response) {
+
+        ResponseBytes responseBytes = response.getResponseBytes();
+        long status = response.getResponseStatus().getValue();
+
+        if (responseBytes == null || status < 0 || status > 127) {
+            // not a regular response, use the ASN.1 encoder
+            header = new byte[0];
+            body = ASN1Util.encode(response);
+            return;
+        }
+
+        byte[] type = responseBytes.getObjectIdentifier().equals(ResponseBytes.OCSP_BASIC)
+                ? OCSP_BASIC
+                : ASN1Util.encode(responseBytes.getObjectIdentifier());
+        body = responseBytes.getResponse().toByteArray();
+
+        // OCSPResponse ::= SEQUENCE {
+        //     responseStatus         OCSPResponseStatus,
+        //     responseBytes      [0] EXPLICIT ResponseBytes OPTIONAL }
+        //
+        // ResponseBytes ::= SEQUENCE {
+        //     responseType           OBJECT IDENTIFIER,
+        //     response               OCTET STRING }
+        int octetStringLength = getElementLength(body.length);
+        int responseBytesLength = getElementLength(type.length + octetStringLength);
+        int explicitLength = getElementLength(responseBytesLength);
+        int responseLength = getElementLength(3 + explicitLength);
+
+        header = new byte[responseLength - body.length];
+        int offset = 0;
+
+        offset = writeHeader(header, offset, TAG_SEQUENCE, 3 + explicitLength);
+
+        header[offset++] = TAG_ENUMERATED;
+        header[offset++] = 1;
+        header[offset++] = (byte) status;
+
+        offset = writeHeader(header, offset, TAG_EXPLICIT_0, responseBytesLength);
+        offset = writeHeader(header, offset, TAG_SEQUENCE, type.length + octetStringLength);
+
+        System.arraycopy(type, 0, header, offset, type.length);
+        offset += type.length;
+
+        writeHeader(header, offset, TAG_OCTET_STRING, body.length);
+    }
+
+    /**
+     * Returns the total length of the encoded response.
+     */
+    public int getLength() {
+        return header.length + body.length;
+    }
+
+    public void writeTo(OutputStream os) throws IOException {
+        os.write(header);
+        os.write(body);
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[getLength()];
+        System.arraycopy(header, 0, bytes, 0, header.length);
+        System.arraycopy(body, 0, bytes, header.length, body.length);
+        return bytes;
+    }
+
+    /**
+     * Encodes a BasicOCSPResponse from its already encoded parts into a
+     * single buffer of the exact size.
+     *
+     * <pre>
+     * BasicOCSPResponse ::= SEQUENCE {
+     *     tbsResponseData        ResponseData,
+     *     signatureAlgorithm     AlgorithmIdentifier,
+     *     signature              BIT STRING,
+     *     certs              [0] EXPLICIT SEQUENCE OF Certificate OPTIONAL }
+     * </pre>
+     *
+     * @param responseData encoded ResponseData
+     * @param signatureAlgorithm encoded AlgorithmIdentifier
+     * @param signature signature value
+     * @param certs concatenated encoded certificates, or null
+     */
+    public static byte[] encodeBasicResponse(
+            byte[] responseData,
+            byte[] signatureAlgorithm,
+            byte[] signature,
+            byte[] certs) {
+
+        int signatureLength = getElementLength(signature.length + 1);
+
+        int certsSequenceLength = 0;
+        int certsLength = 0;
+        if (certs != null) {
+            certsSequenceLength = getElementLength(certs.length);
+            certsLength = getElementLength(certsSequenceLength);
+        }
+
+        int contentLength = responseData.length + signatureAlgorithm.length + signatureLength + certsLength;
+        byte[] bytes = new byte[getElementLength(contentLength)];
+        int offset = 0;
+
+        offset = writeHeader(bytes, offset, TAG_SEQUENCE, contentLength);
+
+        System.arraycopy(responseData, 0, bytes, offset, responseData.length);
+        offset += responseData.length;
+
+        System.arraycopy(signatureAlgorithm, 0, bytes, offset, signatureAlgorithm.length);
+        offset += signatureAlgorithm.length;
+
+        offset = writeHeader(bytes, offset, TAG_BIT_STRING, signature.length + 1);
+        bytes[offset++] = 0; // no unused bits
+        System.arraycopy(signature, 0, bytes, offset, signature.length);
+        offset += signature.length;
+
+        if (certs != null) {
+            offset = writeHeader(bytes, offset, TAG_EXPLICIT_0, certsSequenceLength);
+            offset = writeHeader(bytes, offset, TAG_SEQUENCE, certs.length);
+            System.arraycopy(certs, 0, bytes, offset, certs.length);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Returns the length of an element including the tag
+     * and the length octets.
+     */
+    public static int getElementLength(int contentLength) {
+
+        if (contentLength < 0x80) return 2 + contentLength;
+        if (contentLength <= 0xff) return 3 + contentLength;
+        if (contentLength <= 0xffff) return 4 + contentLength;
+        if (contentLength <= 0xffffff) return 5 + contentLength;
+
+        return 6 + contentLength;
+    }
+
+    /**
+     * Writes the tag and the length octets into the buffer.
+     *
+     * @return the offset after the header
+     */
+    public static int writeHeader(byte[] buffer, int offset, byte tag, int length) {
+
+        buffer[offset++] = tag;
+
+        if (length < 0x80) {
+            buffer[offset++] = (byte) length;
+            return offset;
+        }
+
+        int count = length <= 0xff ? 1 : length <= 0xffff ? 2 : length <= 0xffffff ? 3 : 4;
+        buffer[offset++] = (byte) (0x80 | count);
+
+        for (int i = count - 1; i >= 0; i--) {
+            buffer[offset++] = (byte) (length >>> (8 * i));
+        }
+
+        return offset;
+    }
+}
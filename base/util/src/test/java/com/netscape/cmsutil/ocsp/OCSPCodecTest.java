@@ -0,0 +1,140 @@
+// --- BEGIN COPYRIGHT BLOCK ---
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; version 2 of the License.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, write to the Free Software Foundation, Inc.,
+// 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+//
+// (C) 2022 Red Hat, Inc.
+// All rights reserved.
+// --- END COPYRIGHT BLOCK ---
+package com.netscape.cmsutil.ocsp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+import org.mozilla.jss.asn1.ASN1Util;
+import org.mozilla.jss.asn1.INTEGER;
+import org.mozilla.jss.asn1.NULL;
+import org.mozilla.jss.asn1.OBJECT_IDENTIFIER;
+import org.mozilla.jss.asn1.OCTET_STRING;
+import org.mozilla.jss.asn1.SEQUENCE;
+import org.mozilla.jss.pkix.cert.Extension;
+import org.mozilla.jss.pkix.primitive.AlgorithmIdentifier;
+
+public class OCSPCodecTest {
+
+    public static final OBJECT_IDENTIFIER SHA1 = new OBJECT_IDENTIFIER("1.3.14.3.2.26");
+    public static final OBJECT_IDENTIFIER OCSP_NONCE = new OBJECT_IDENTIFIER("1.3.6.1.5.5.7.48.1.2");
+
+    public CertID createCertID(BigInteger serialNumber) {
+
+        byte[] nameHash = new byte[20];
+        byte[] keyHash = new byte[20];
+
+        for (int i = 0; i < 20; i++) {
+            nameHash[i] = (byte) i;
+            keyHash[i] = (byte) (0xff - i);
+        }
+
+        return new CertID(
+                new AlgorithmIdentifier(SHA1, new NULL()),
+                new OCTET_STRING(nameHash),
+                new OCTET_STRING(keyHash),
+                new INTEGER(serialNumber));
+    }
+
+    @Test
+    public void testParseRequest() throws Exception {
+
+        SEQUENCE requestList = new SEQUENCE();
+        requestList.addElement(new Request(createCertID(new BigInteger("1")), null));
+        requestList.addElement(new Request(createCertID(new BigInteger("12345678901234567890")), null));
+        requestList.addElement(new Request(createCertID(new BigInteger("-5")), null));
+
+        SEQUENCE extensions = new SEQUENCE();
+        extensions.addElement(new Extension(OCSP_NONCE, false, new OCTET_STRING(new byte[] { 1, 2, 3, 4 })));
+
+        OCSPRequest request = new OCSPRequest(
+                new TBSRequest(null, null, requestList, extensions),
+                null);
+
+        byte[] encoded = ASN1Util.encode(request);
+
+        OCSPRequest parsed = OCSPRequestParser.parse(encoded);
+        TBSRequest tbsRequest = parsed.getTBSRequest();
+
+        assertEquals(3, tbsRequest.getRequestCount());
+
+        for (int i = 0; i < requestList.size(); i++) {
+            CertID expected = ((Request) requestList.elementAt(i)).getCertID();
+            CertID actual = tbsRequest.getRequestAt(i).getCertID();
+
+            assertEquals(expected.getSerialNumber(), actual.getSerialNumber());
+            assertArrayEquals(expected.getSerialNumber().toByteArray(), actual.getSerialNumberBytes());
+            assertArrayEquals(expected.getIssuerNameHash().toByteArray(), actual.getIssuerNameHash().toByteArray());
+            assertArrayEquals(expected.getIssuerKeyHash().toByteArray(), actual.getIssuerKeyHash().toByteArray());
+            assertEquals("SHA-1", actual.getDigestName());
+        }
+
+        assertEquals(1, tbsRequest.getExtensionsCount());
+        assertEquals(OCSP_NONCE, tbsRequest.getRequestExtensionAt(0).getExtnId());
+
+        // the parsed request should produce the same encoding
+        assertArrayEquals(encoded, ASN1Util.encode(parsed));
+    }
+
+    @Test
+    public void testParseRequestWithLongLength() throws Exception {
+
+        // enough requests to require multi-byte lengths
+        SEQUENCE requestList = new SEQUENCE();
+        for (int i = 0; i < 100; i++) {
+            requestList.addElement(new Request(createCertID(BigInteger.valueOf(1000 + i)), null));
+        }
+
+        OCSPRequest request = new OCSPRequest(
+                new TBSRequest(null, null, requestList, null),
+                null);
+
+        byte[] encoded = ASN1Util.encode(request);
+
+        OCSPRequest parsed = OCSPRequestParser.parse(encoded);
+        TBSRequest tbsRequest = parsed.getTBSRequest();
+
+        assertEquals(100, tbsRequest.getRequestCount());
+        assertEquals(0, tbsRequest.getExtensionsCount());
+        assertEquals(BigInteger.valueOf(1099), tbsRequest.getRequestAt(99).getCertID().getSerialNumber());
+
+        assertArrayEquals(encoded, ASN1Util.encode(parsed));
+    }
+
+    @Test
+    public void testWriteResponse() throws Exception {
+
+        byte[] responseData = new byte[300];
+        for (int i = 0; i < responseData.length; i++) {
+            responseData[i] = (byte) i;
+        }
+
+        OCSPResponse response = new OCSPResponse(
+                OCSPResponseStatus.SUCCESSFUL,
+                new ResponseBytes(ResponseBytes.OCSP_BASIC, new OCTET_STRING(responseData)));
+
+        OCSPResponseWriter writer = new OCSPResponseWriter(response);
+        byte[] expected = ASN1Util.encode(response);
+
+        assertEquals(expected.length, writer.getLength());
+        assertArrayEquals(expected, writer.toByteArray());
+    }
+}